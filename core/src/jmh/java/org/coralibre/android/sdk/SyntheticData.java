@@ -0,0 +1,242 @@
+package org.coralibre.android.sdk;
+
+import com.google.protobuf.ByteString;
+
+import org.coralibre.android.sdk.internal.EnFrameworkConstants;
+import org.coralibre.android.sdk.internal.crypto.CryptoPrimitives;
+import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadata;
+import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadataKey;
+import org.coralibre.android.sdk.internal.datatypes.AssociatedMetadata;
+import org.coralibre.android.sdk.internal.datatypes.CapturedData;
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey;
+import org.coralibre.android.sdk.internal.datatypes.ENInterval;
+import org.coralibre.android.sdk.internal.datatypes.InternalTemporaryExposureKey;
+import org.coralibre.android.sdk.internal.datatypes.IntervalOfCapturedData;
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier;
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifierKey;
+import org.coralibre.android.sdk.internal.datatypes.util.DiagnosisKeyFileReader;
+import org.coralibre.android.sdk.internal.deviceinfo.ConfidenceLevel;
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceInfo;
+import org.coralibre.android.sdk.internal.matching.RiskScoreBuckets;
+import org.coralibre.android.sdk.internal.matching.RiskScoringConfiguration;
+import org.coralibre.android.sdk.proto.TemporaryExposureKeyFile.TemporaryExposureKeyExport;
+import org.coralibre.android.sdk.proto.TemporaryExposureKeyFile.TemporaryExposureKeyProto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Deterministic generator of diagnosis keys and sightings for the benchmarks. The same seed
+ * always yields the same data, so results of different runs are comparable.
+ *
+ * All data covers the 14 days starting at FIRST_INTERVAL. The sightings consist of payloads of
+ * unrelated devices and of encounters with devices whose keys are among the diagnosis keys. The
+ * payloads of the latter are derived with the real CryptoPrimitives derivations.
+ */
+public class SyntheticData {
+    /**
+     * 2020-05-20, 00:00 UTC
+     */
+    public static final long FIRST_INTERVAL = 2650032L;
+    public static final int DAYS = EnFrameworkConstants.TEK_MAX_STORE_TIME_DAYS;
+
+    /**
+     * An encounter lasts this number of scans, one scan per SCAN_INTERVAL_SECONDS.
+     */
+    public static final int ENCOUNTER_SCANS = 6;
+
+    public static final DeviceInfo DEVICE_INFO =
+        new DeviceInfo("test", "test", "test", 5, -20, ConfidenceLevel.HIGH);
+
+    /**
+     * The default scores of ExposureConfiguration in the sdk module.
+     */
+    public static final RiskScoringConfiguration SCORING = new RiskScoringConfiguration() {
+        private final int[] scores = {4, 4, 4, 4, 4, 4, 4, 4};
+
+        @Override
+        public int getMinimumRiskScore() {
+            return 0;
+        }
+
+        @Override
+        public int getDurationAtAttenuationLowThreshold() {
+            return 50;
+        }
+
+        @Override
+        public int getDurationAtAttenuationHighThreshold() {
+            return 74;
+        }
+
+        @Override
+        public int getAttenuationScore(int attenuationValue) {
+            return RiskScoreBuckets.attenuationScore(scores, attenuationValue);
+        }
+
+        @Override
+        public int getDaysSinceLastExposureScore(int daysSinceLastExposureValue) {
+            return RiskScoreBuckets.daysSinceLastExposureScore(scores, daysSinceLastExposureValue);
+        }
+
+        @Override
+        public int getDurationScore(int durationValue) {
+            return RiskScoreBuckets.durationScore(scores, durationValue);
+        }
+
+        @Override
+        public int getTransmissionRiskScore(int transmissionRiskValue) {
+            return RiskScoreBuckets.transmissionRiskScore(scores, transmissionRiskValue);
+        }
+
+        @Override
+        public int getRiskScore(int attenuationValue,
+                                int daysSinceLastExposureValue,
+                                int durationValue,
+                                int transmissionRiskValue) {
+            return getAttenuationScore(attenuationValue)
+                * getDaysSinceLastExposureScore(daysSinceLastExposureValue)
+                * getDurationScore(durationValue)
+                * getTransmissionRiskScore(transmissionRiskValue);
+        }
+    };
+
+    private final Random random;
+
+    public SyntheticData(long seed) {
+        random = new Random(seed);
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private byte randomRssi() {
+        return (byte) (-40 - random.nextInt(60));
+    }
+
+    /**
+     * @return 'count' diagnosis keys, evenly distributed over the 14 days
+     */
+    public List<DiagnosisKey> diagnosisKeys(int count) {
+        List<DiagnosisKey> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long interval = FIRST_INTERVAL + (long) EnFrameworkConstants.TEK_ROLLING_PERIOD * (i % DAYS);
+            keys.add(new DiagnosisKey(
+                new InternalTemporaryExposureKey(interval, randomBytes(EnFrameworkConstants.TEK_LENGTH)),
+                random.nextInt(8)));
+        }
+        return keys;
+    }
+
+    /**
+     * @return a random selection of about 'fraction' * keys.size() of the given keys, in the
+     * same order
+     */
+    public List<DiagnosisKey> select(List<DiagnosisKey> keys, double fraction) {
+        List<DiagnosisKey> selection = new ArrayList<>();
+        for (DiagnosisKey key : keys) {
+            if (random.nextDouble() < fraction) {
+                selection.add(key);
+            }
+        }
+        return selection;
+    }
+
+    /**
+     * @param payloadsPerInterval the number of payloads of unrelated devices per ENInterval
+     * @param encounteredKeys the keys of the devices that have been encountered. Per key, there
+     * is one encounter of ENCOUNTER_SCANS scans at a random time of the key's rolling period.
+     * @return the sightings of 14 days, ordered by interval
+     */
+    public List<IntervalOfCapturedData> sightings(
+        int payloadsPerInterval,
+        List<DiagnosisKey> encounteredKeys
+    ) {
+        TreeMap<Long, IntervalOfCapturedData> intervals = new TreeMap<>();
+        for (long interval = FIRST_INTERVAL;
+             interval < FIRST_INTERVAL + (long) DAYS * EnFrameworkConstants.TEK_ROLLING_PERIOD;
+             interval++) {
+            IntervalOfCapturedData payloads = new IntervalOfCapturedData(new ENInterval(interval));
+            long intervalStartMillis = interval * EnFrameworkConstants.TEK_INTERVAL_LENGTH_SECONDS * 1000;
+            for (int i = 0; i < payloadsPerInterval; i++) {
+                payloads.add(new CapturedData(
+                    intervalStartMillis + random.nextInt(EnFrameworkConstants.TEK_INTERVAL_LENGTH_SECONDS * 1000),
+                    randomRssi(),
+                    new RollingProximityIdentifier(
+                        randomBytes(EnFrameworkConstants.RPI_LENGTH), new ENInterval(interval)),
+                    new AssociatedEncryptedMetadata(randomBytes(EnFrameworkConstants.AEM_LENGTH))));
+            }
+            intervals.put(interval, payloads);
+        }
+
+        AssociatedMetadata metadata = new AssociatedMetadata(1, 0, -10);
+        int lastStartOffset = EnFrameworkConstants.TEK_ROLLING_PERIOD - 1
+            - (int) (ENCOUNTER_SCANS * EnFrameworkConstants.SCAN_INTERVAL_SECONDS
+            / EnFrameworkConstants.TEK_INTERVAL_LENGTH_SECONDS);
+        for (DiagnosisKey key : encounteredKeys) {
+            RollingProximityIdentifierKey rpik = CryptoPrimitives.generateRPIK(key.getKeyData());
+            AssociatedEncryptedMetadataKey aemk = CryptoPrimitives.generateAEMK(key.getKeyData());
+            long startMillis = (key.getInterval().get() + random.nextInt(lastStartOffset))
+                * EnFrameworkConstants.TEK_INTERVAL_LENGTH_SECONDS * 1000;
+            for (int scan = 0; scan < ENCOUNTER_SCANS; scan++) {
+                long timestampMillis = startMillis + scan * EnFrameworkConstants.SCAN_INTERVAL_MILLIS;
+                ENInterval interval = new ENInterval(timestampMillis / 1000, true);
+                RollingProximityIdentifier rpi = CryptoPrimitives.generateRPI(rpik, interval);
+                intervals.get(interval.get()).add(new CapturedData(
+                    timestampMillis,
+                    randomRssi(),
+                    rpi,
+                    CryptoPrimitives.encryptAM(metadata, rpi, aemk)));
+            }
+        }
+        return new ArrayList<>(intervals.values());
+    }
+
+    /**
+     * @return the rpis of all given sightings
+     */
+    public static List<RollingProximityIdentifier> rpis(List<IntervalOfCapturedData> sightings) {
+        List<RollingProximityIdentifier> rpis = new ArrayList<>();
+        for (IntervalOfCapturedData interval : sightings) {
+            for (CapturedData capturedData : interval.getCapturedData()) {
+                rpis.add(capturedData.getRpi());
+            }
+        }
+        return rpis;
+    }
+
+    /**
+     * @return the content of an export.bin file containing the given keys
+     */
+    public static byte[] exportBin(List<DiagnosisKey> keys) throws IOException {
+        TemporaryExposureKeyExport.Builder builder = TemporaryExposureKeyExport.newBuilder()
+            .setStartTimestamp(FIRST_INTERVAL * EnFrameworkConstants.TEK_INTERVAL_LENGTH_SECONDS)
+            .setEndTimestamp((FIRST_INTERVAL + (long) DAYS * EnFrameworkConstants.TEK_ROLLING_PERIOD)
+                * EnFrameworkConstants.TEK_INTERVAL_LENGTH_SECONDS)
+            .setRegion("DE")
+            .setBatchNum(1)
+            .setBatchSize(1);
+        for (DiagnosisKey key : keys) {
+            builder.addKeys(TemporaryExposureKeyProto.newBuilder()
+                .setKeyData(ByteString.copyFrom(key.getKeyData()))
+                .setRollingStartIntervalNumber((int) key.getInterval().get())
+                .setRollingPeriod(EnFrameworkConstants.TEK_ROLLING_PERIOD)
+                .setTransmissionRiskLevel(key.getTransmissionRiskLevel()));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // The header is padded with spaces to its fixed length:
+        String header = String.format("%-" + DiagnosisKeyFileReader.EXPORT_HEADER_LENGTH + "s",
+            DiagnosisKeyFileReader.EXPORT_HEADER);
+        out.write(header.getBytes(StandardCharsets.UTF_8));
+        builder.build().writeTo(out);
+        return out.toByteArray();
+    }
+}
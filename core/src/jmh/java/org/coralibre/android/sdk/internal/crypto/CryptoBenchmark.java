@@ -0,0 +1,191 @@
+package org.coralibre.android.sdk.internal.crypto;
+
+import org.coralibre.android.sdk.SyntheticData;
+import org.coralibre.android.sdk.internal.EnFrameworkConstants;
+import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadata;
+import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadataKey;
+import org.coralibre.android.sdk.internal.datatypes.AssociatedMetadata;
+import org.coralibre.android.sdk.internal.datatypes.ENInterval;
+import org.coralibre.android.sdk.internal.datatypes.InternalTemporaryExposureKey;
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier;
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifierKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The EN crypto primitives as used by this sdk: the HKDF derivations of rpik and aemk, the
+ * AES-ECB derivation of rpis and the AES-CTR en- and decryption of the associated metadata.
+ *
+ * Where a batched form exists, both the per-call form and the batched form are measured for the
+ * same amount of work (the 144 intervals of one rolling period), so their ns/op are directly
+ * comparable. gc.alloc.rate.norm of the gc profiler is the number of bytes allocated per op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class CryptoBenchmark {
+    private static final long SEED = 42;
+
+    /**
+     * More TEKs than the derivation cache can hold. As the cache evicts the least recently used
+     * entry, cycling through them causes a cache miss (and thus an HKDF derivation) on every
+     * call.
+     */
+    private static final int TEK_POOL_SIZE = 4 * KeyDerivationCache.DEFAULT_CAPACITY;
+
+    private byte[][] tekPool;
+    private int nextTek;
+
+    private InternalTemporaryExposureKey tek;
+    private RollingProximityIdentifierKey rpik;
+    private AssociatedEncryptedMetadataKey aemk;
+    private ENInterval interval;
+    private AssociatedMetadata metadata;
+
+    /**
+     * The rpis of tek's rolling period and the aems encrypted with them.
+     */
+    private List<RollingProximityIdentifier> rpis;
+    private List<AssociatedEncryptedMetadata> aems;
+
+    private byte[] rpiOutput;
+
+    @Setup(Level.Trial)
+    public void generateData() {
+        Random random = new Random(SEED);
+        tekPool = new byte[TEK_POOL_SIZE][EnFrameworkConstants.TEK_LENGTH];
+        for (byte[] tekData : tekPool) {
+            random.nextBytes(tekData);
+        }
+
+        byte[] tekData = new byte[EnFrameworkConstants.TEK_LENGTH];
+        random.nextBytes(tekData);
+        tek = new InternalTemporaryExposureKey(SyntheticData.FIRST_INTERVAL, tekData);
+        rpik = CryptoPrimitives.generateRPIK(tek);
+        aemk = CryptoPrimitives.generateAEMK(tek);
+        interval = new ENInterval(SyntheticData.FIRST_INTERVAL + 42);
+        metadata = new AssociatedMetadata(1, 0, -10);
+
+        rpis = new ArrayList<>(EnFrameworkConstants.TEK_ROLLING_PERIOD);
+        aems = new ArrayList<>(EnFrameworkConstants.TEK_ROLLING_PERIOD);
+        for (int i = 0; i < EnFrameworkConstants.TEK_ROLLING_PERIOD; i++) {
+            RollingProximityIdentifier rpi = CryptoPrimitives.generateRPI(
+                rpik, new ENInterval(SyntheticData.FIRST_INTERVAL + i));
+            rpis.add(rpi);
+            aems.add(CryptoPrimitives.encryptAM(metadata, rpi, aemk));
+        }
+
+        rpiOutput = new byte[EnFrameworkConstants.TEK_ROLLING_PERIOD * EnFrameworkConstants.RPI_LENGTH];
+    }
+
+    private byte[] nextTek() {
+        byte[] tekData = tekPool[nextTek];
+        nextTek = (nextTek + 1) % TEK_POOL_SIZE;
+        return tekData;
+    }
+
+    /**
+     * HKDF derivation of the rpik of a TEK that is not cached.
+     */
+    @Benchmark
+    public RollingProximityIdentifierKey generateRPIKUncached() {
+        return CryptoPrimitives.generateRPIK(nextTek());
+    }
+
+    /**
+     * HKDF derivation of the aemk of a TEK that is not cached.
+     */
+    @Benchmark
+    public AssociatedEncryptedMetadataKey generateAEMKUncached() {
+        return CryptoPrimitives.generateAEMK(nextTek());
+    }
+
+    /**
+     * Lookup of an rpik in the derivation cache, for comparison with generateRPIKUncached().
+     */
+    @Benchmark
+    public RollingProximityIdentifierKey generateRPIKCached() {
+        return CryptoPrimitives.generateRPIK(tek);
+    }
+
+    @Benchmark
+    public RollingProximityIdentifier generateRPI() {
+        return CryptoPrimitives.generateRPI(rpik, interval);
+    }
+
+    /**
+     * All rpis of a rolling period with one generateRPI(...) call per interval.
+     */
+    @Benchmark
+    public void generateRPIPerInterval(Blackhole blackhole) {
+        for (int i = 0; i < EnFrameworkConstants.TEK_ROLLING_PERIOD; i++) {
+            blackhole.consume(CryptoPrimitives.generateRPI(
+                rpik, new ENInterval(SyntheticData.FIRST_INTERVAL + i)));
+        }
+    }
+
+    /**
+     * All rpis of a rolling period with a single generateRPIs(...) call.
+     */
+    @Benchmark
+    public byte[] generateRPIsBatch() {
+        CryptoPrimitives.generateRPIs(rpik, SyntheticData.FIRST_INTERVAL, rpiOutput);
+        return rpiOutput;
+    }
+
+    /**
+     * All rpis of a rolling period as list. The rpik is taken from the derivation cache.
+     */
+    @Benchmark
+    public List<RollingProximityIdentifier> generateAllRPIForADay() {
+        return ExposeChecker.generateAllRPIForADay(tek);
+    }
+
+    @Benchmark
+    public AssociatedEncryptedMetadata encryptAM() {
+        return CryptoPrimitives.encryptAM(metadata, rpis.get(42), aemk);
+    }
+
+    @Benchmark
+    public AssociatedMetadata decryptAEM() {
+        return CryptoPrimitives.decryptAEM(aems.get(42), rpis.get(42), aemk);
+    }
+
+    /**
+     * Decryption of the aems of a rolling period, looking up the aemk of the TEK per call.
+     */
+    @Benchmark
+    public void decryptAEMPerCall(Blackhole blackhole) {
+        for (int i = 0; i < EnFrameworkConstants.TEK_ROLLING_PERIOD; i++) {
+            blackhole.consume(CryptoPrimitives.decryptAEM(aems.get(i), rpis.get(i), tek));
+        }
+    }
+
+    /**
+     * Decryption of the aems of a rolling period with an aemk that is derived once, as done when
+     * matching a key.
+     */
+    @Benchmark
+    public void decryptAEMBatch(Blackhole blackhole) {
+        AssociatedEncryptedMetadataKey aemk = CryptoPrimitives.generateAEMK(tek);
+        for (int i = 0; i < EnFrameworkConstants.TEK_ROLLING_PERIOD; i++) {
+            blackhole.consume(CryptoPrimitives.decryptAEM(aems.get(i), rpis.get(i), aemk));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.coralibre.android.sdk.internal.crypto;
+
+import org.coralibre.android.sdk.SyntheticData;
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey;
+import org.coralibre.android.sdk.internal.datatypes.InternalTemporaryExposureKey;
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import kotlin.Pair;
+
+/**
+ * ExposeChecker.findMatches(...) compares every collected rpi with the rpis of all related
+ * TEKs, so its cost grows with the product of both. The parameters are therefore much smaller
+ * than the ones of MatchingBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+public class ExposeCheckerBenchmark {
+    private static final long SEED = 42;
+
+    @Param({"100", "1000"})
+    public int keyCount;
+
+    @Param({"1", "10"})
+    public int payloadsPerInterval;
+
+    private List<InternalTemporaryExposureKey> teks;
+    private List<RollingProximityIdentifier> collectedRPIs;
+
+    @Setup(Level.Trial)
+    public void generateData() {
+        SyntheticData data = new SyntheticData(SEED);
+        List<DiagnosisKey> diagnosisKeys = data.diagnosisKeys(keyCount);
+        teks = new ArrayList<>(keyCount);
+        for (DiagnosisKey key : diagnosisKeys) {
+            teks.add(new InternalTemporaryExposureKey(key.getInterval(), key.getKeyData()));
+        }
+        collectedRPIs = SyntheticData.rpis(
+            data.sightings(payloadsPerInterval, data.select(diagnosisKeys, 0.01)));
+    }
+
+    @Setup(Level.Invocation)
+    public void clearDerivationCache() {
+        CryptoPrimitives.getDerivationCache().clear();
+    }
+
+    @Benchmark
+    public List<Pair<InternalTemporaryExposureKey, RollingProximityIdentifier>> findMatches() {
+        return ExposeChecker.findMatches(teks, collectedRPIs);
+    }
+}
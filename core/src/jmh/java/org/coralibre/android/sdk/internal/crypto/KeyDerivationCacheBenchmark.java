@@ -0,0 +1,132 @@
+package org.coralibre.android.sdk.internal.crypto;
+
+import org.coralibre.android.sdk.SyntheticData;
+import org.coralibre.android.sdk.internal.datatypes.CapturedSightings;
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey;
+import org.coralibre.android.sdk.internal.matching.CapturedDataIndex;
+import org.coralibre.android.sdk.internal.matching.MatchingLegacyV1;
+import org.coralibre.android.sdk.internal.matching.RpiMatcher;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repeated matching calls whose key sets overlap, as the exact matching of the candidate and
+ * stored keys of a token in consecutive provideDiagnosisKeys(...) calls and the re-evaluation of
+ * new sightings are.
+ *
+ * Every invocation matches the next window of KEYS_PER_CALL keys of a pool that is larger than
+ * the caches, so without overlap every lookup misses. The cacheHits and cacheMisses counters
+ * report the lookups of the cache used by the benchmark, the hit rate is
+ * cacheHits / (cacheHits + cacheMisses).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+public class KeyDerivationCacheBenchmark {
+    private static final long SEED = 42;
+    private static final int KEYS_PER_CALL = 1024;
+    private static final int POOL_SIZE = 2 * KeyDerivationCache.DEFAULT_CAPACITY;
+
+    /**
+     * Fraction of the keys of a call that have been matched by the previous call as well.
+     */
+    @Param({"0", "0.75"})
+    public double overlap;
+
+    private List<List<DiagnosisKey>> windows;
+    private int nextWindow;
+    private CapturedDataIndex index;
+
+    /**
+     * Caches the rpis like SightingReevaluation does.
+     */
+    private KeyDerivationCache rpiCache;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CacheCounters {
+        public long cacheHits;
+        public long cacheMisses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            cacheHits = 0;
+            cacheMisses = 0;
+        }
+
+        void add(KeyDerivationCache cache, long hitsBefore, long missesBefore) {
+            cacheHits += cache.getHitCount() - hitsBefore;
+            cacheMisses += cache.getMissCount() - missesBefore;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void generateData() {
+        SyntheticData data = new SyntheticData(SEED);
+        List<DiagnosisKey> pool = data.diagnosisKeys(POOL_SIZE);
+        index = new CapturedDataIndex(
+            CapturedSightings.of(data.sightings(10, data.select(pool, 0.01))));
+
+        int step = Math.max(1, (int) Math.round(KEYS_PER_CALL * (1 - overlap)));
+        windows = new ArrayList<>();
+        for (int start = 0; start < POOL_SIZE; start += step) {
+            List<DiagnosisKey> window = new ArrayList<>(KEYS_PER_CALL);
+            for (int i = 0; i < KEYS_PER_CALL; i++) {
+                window.add(pool.get((start + i) % POOL_SIZE));
+            }
+            windows.add(window);
+        }
+
+        // Generating the sightings has filled the shared cache:
+        CryptoPrimitives.getDerivationCache().clear();
+        rpiCache = new KeyDerivationCache(KEYS_PER_CALL, true);
+    }
+
+    private List<DiagnosisKey> nextWindow() {
+        List<DiagnosisKey> window = windows.get(nextWindow);
+        nextWindow = (nextWindow + 1) % windows.size();
+        return window;
+    }
+
+    /**
+     * Exact matching of a window with the shared derivation cache of CryptoPrimitives.
+     */
+    @Benchmark
+    public void exactMatching(CacheCounters counters, Blackhole blackhole) {
+        KeyDerivationCache cache = CryptoPrimitives.getDerivationCache();
+        long hits = cache.getHitCount();
+        long misses = cache.getMissCount();
+        blackhole.consume(MatchingLegacyV1.findAllMatches(nextWindow(), index));
+        counters.add(cache, hits, misses);
+    }
+
+    /**
+     * Checking a window for matches with an rpi cache, as SightingReevaluation does.
+     */
+    @Benchmark
+    public void reevaluation(CacheCounters counters, Blackhole blackhole) {
+        long hits = rpiCache.getHitCount();
+        long misses = rpiCache.getMissCount();
+        for (DiagnosisKey diagnosisKey : nextWindow()) {
+            blackhole.consume(RpiMatcher.hasMatch(diagnosisKey, index, rpiCache));
+        }
+        counters.add(rpiCache, hits, misses);
+    }
+}
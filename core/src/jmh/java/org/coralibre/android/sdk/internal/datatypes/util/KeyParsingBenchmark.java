@@ -0,0 +1,64 @@
+package org.coralibre.android.sdk.internal.datatypes.util;
+
+import org.coralibre.android.sdk.SyntheticData;
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey;
+import org.coralibre.android.sdk.proto.TemporaryExposureKeyFile.TemporaryExposureKeyExport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing an export.bin file with the streaming DiagnosisKeyFileReader compared to parsing the
+ * whole TemporaryExposureKeyExport message and converting it afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+public class KeyParsingBenchmark {
+    private static final long SEED = 42;
+
+    @Param({"10000", "100000", "1000000"})
+    public int keyCount;
+
+    private byte[] exportBin;
+
+    @Setup(Level.Trial)
+    public void generateData() throws IOException {
+        exportBin = SyntheticData.exportBin(new SyntheticData(SEED).diagnosisKeys(keyCount));
+    }
+
+    @Benchmark
+    public void streamingReader(Blackhole blackhole) throws IOException {
+        new DiagnosisKeyFileReader().readExport(
+            new ByteArrayInputStream(exportBin),
+            (diagnosisKeys, revised) -> blackhole.consume(diagnosisKeys));
+    }
+
+    @Benchmark
+    public List<DiagnosisKey> fullParsing() throws IOException {
+        InputStream stream = new ByteArrayInputStream(exportBin);
+        if (stream.skip(DiagnosisKeyFileReader.EXPORT_HEADER_LENGTH)
+            != DiagnosisKeyFileReader.EXPORT_HEADER_LENGTH) {
+            throw new IOException("export.bin too short");
+        }
+        return DiagnosisKeyUtil.toDiagnosisKeys(
+            TemporaryExposureKeyExport.parseFrom(stream).getKeysList());
+    }
+}
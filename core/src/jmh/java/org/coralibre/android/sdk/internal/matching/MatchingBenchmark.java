@@ -0,0 +1,129 @@
+package org.coralibre.android.sdk.internal.matching;
+
+import org.coralibre.android.sdk.SyntheticData;
+import org.coralibre.android.sdk.internal.crypto.CryptoPrimitives;
+import org.coralibre.android.sdk.internal.datatypes.CapturedSightings;
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey;
+import org.coralibre.android.sdk.internal.datatypes.IntervalOfCapturedData;
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.Exposure;
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.KeyMatches;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching of national-scale diagnosis key sets against 14 days of sightings.
+ *
+ * The rpik cache of CryptoPrimitives is cleared before every invocation, so each invocation
+ * measures matching keys that have not been seen before (which is the case for every new key
+ * file), including the HKDF derivations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+public class MatchingBenchmark {
+    private static final long SEED = 42;
+
+    @Param({"10000", "100000", "1000000"})
+    public int keyCount;
+
+    /**
+     * Payloads of unrelated devices per 10 minute interval.
+     */
+    @Param({"10", "100"})
+    public int payloadsPerInterval;
+
+    /**
+     * Fraction of the keys that have been encountered. For 0, hasMatches(...) has to derive the
+     * rpis of all keys.
+     */
+    @Param({"0", "0.001"})
+    public double matchFraction;
+
+    private List<DiagnosisKey> diagnosisKeys;
+    private List<IntervalOfCapturedData> sightings;
+    private CapturedSightings columns;
+    private CapturedDataIndex index;
+    private List<KeyMatches> matchesPerKey;
+
+    @Setup(Level.Trial)
+    public void generateData() {
+        SyntheticData data = new SyntheticData(SEED);
+        diagnosisKeys = data.diagnosisKeys(keyCount);
+        sightings = data.sightings(payloadsPerInterval, data.select(diagnosisKeys, matchFraction));
+        columns = CapturedSightings.of(sightings);
+        index = new CapturedDataIndex(columns);
+        matchesPerKey = MatchingLegacyV1.findAllMatches(diagnosisKeys, index);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearDerivationCache() {
+        CryptoPrimitives.getDerivationCache().clear();
+    }
+
+    /**
+     * Building the index from CapturedData objects, including packing them into columns.
+     */
+    @Benchmark
+    public CapturedDataIndex buildIndex() {
+        return new CapturedDataIndex(sightings);
+    }
+
+    /**
+     * Building the index from sightings that are already packed into columns, as loaded from the
+     * database.
+     */
+    @Benchmark
+    public CapturedDataIndex buildIndexFromColumns() {
+        return new CapturedDataIndex(columns);
+    }
+
+    @Benchmark
+    public boolean hasMatches() {
+        return MatchingLegacyV1.hasMatches(diagnosisKeys, index);
+    }
+
+    @Benchmark
+    public List<DiagnosisKey> filterMatchingKeys() {
+        return MatchingLegacyV1.filterMatchingKeys(diagnosisKeys, index);
+    }
+
+    /**
+     * Full exposure assembly: finding all matches of all keys and computing the exposures.
+     */
+    @Benchmark
+    public List<Exposure> assembleExposures() {
+        return MatchingLegacyV1.findAllExposures(
+            MatchingLegacyV1.findAllMatches(diagnosisKeys, index),
+            SyntheticData.SCORING,
+            SyntheticData.DEVICE_INFO);
+    }
+
+    /**
+     * Only the exposure computation from already found matches.
+     */
+    @Benchmark
+    public void exposuresFromMatches(Blackhole blackhole) {
+        for (KeyMatches keyMatches : matchesPerKey) {
+            blackhole.consume(ExposureUtils.exposuresFromMatches(
+                keyMatches.getMatches(),
+                SyntheticData.SCORING,
+                keyMatches.getDiagnosisKey(),
+                SyntheticData.DEVICE_INFO));
+        }
+    }
+}
@@ -26,6 +26,11 @@ public class EnFrameworkConstants {
     public static final int AEM_LENGTH = 4; //unit in bytes
     public static final int BLE_PAYLOAD_LENGTH = RPI_LENGTH + AEM_LENGTH;
 
+    // The source of these Values is this a description on Googles API description:
+    // https://developers.google.com/android/exposure-notifications/ble-attenuation-overview
+    public static final long SCAN_INTERVAL_SECONDS = 5 * 60;
+    public static final long SCAN_INTERVAL_MILLIS = 1000 * SCAN_INTERVAL_SECONDS;
+
     // TODO The following constant is just a guess! There might be documentation regarding this
     //  constant, but I did not look it up yet. For information regarding this constant see:
     //  https://github.com/google/exposure-notifications-internals/blob/8f751a666697c3cae0a56ae3464c2c6cbe31b69e/exposurenotification/src/main/java/com/google/samples/exposurenotification/matching/TracingParams.java#L52
@@ -39,7 +44,7 @@ public class EnFrameworkConstants {
      * payloads are treated as belonging to different 'Exposures'. Otherwise, both belong to the
      * same 'Exposure'.
      */
-    public static final long MAX_EXPOSURE_INTERPOLATION_DURATION_SECONDS = 2 * TracingService.SCAN_INTERVAL_MILLIS;
+    public static final long MAX_EXPOSURE_INTERPOLATION_DURATION_SECONDS = 2 * SCAN_INTERVAL_SECONDS;
 
     // See lines 60ff. in:
     // https://github.com/google/exposure-notifications-internals/blob/8f751a666697c3cae0a56ae3464c2c6cbe31b69e/exposurenotification/src/main/java/com/google/samples/exposurenotification/matching/TracingParams.java#L66
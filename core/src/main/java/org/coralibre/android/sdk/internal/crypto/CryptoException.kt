@@ -0,0 +1,7 @@
+package org.coralibre.android.sdk.internal.crypto
+
+class CryptoException : RuntimeException {
+    constructor(t: Throwable?) : super(t)
+    constructor(message: String?) : super(message)
+    constructor(message: String?, t: Throwable?) : super(message, t)
+}
@@ -0,0 +1,254 @@
+package org.coralibre.android.sdk.internal.crypto
+
+import com.google.crypto.tink.subtle.Hkdf
+import org.coralibre.android.sdk.internal.EnFrameworkConstants
+import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadata
+import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadataKey
+import org.coralibre.android.sdk.internal.datatypes.AssociatedMetadata
+import org.coralibre.android.sdk.internal.datatypes.ENInterval
+import org.coralibre.android.sdk.internal.datatypes.InternalTemporaryExposureKey
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifierKey
+import org.coralibre.android.sdk.internal.metrics.Metrics
+import java.nio.charset.StandardCharsets
+import java.security.GeneralSecurityException
+import javax.crypto.Cipher
+import javax.crypto.SecretKey
+import javax.crypto.spec.IvParameterSpec
+import javax.crypto.spec.SecretKeySpec
+
+/**
+ * The key derivations and encryptions of the EN framework. In contrast to CryptoModule, which
+ * manages the own TEKs, these do not have any state besides caches.
+ */
+object CryptoPrimitives {
+    /**
+     * Defined int 10min units.
+     */
+    const val FUZZY_COMPARE_TIME_DEVIATION = 12
+    const val RPIK_INFO = "EN-RPIK"
+    const val AEMK_INFO = "EN-AEMK"
+
+    @JvmStatic
+    private fun generateHKDFBytes(tek: ByteArray, info: ByteArray, length: Int): ByteArray {
+        Metrics.HKDF_OPS.increment()
+        return try {
+            Hkdf.computeHkdf(
+                "HMACSHA256",
+                tek,
+                null,
+                info,
+                length
+            )
+        } catch (e: GeneralSecurityException) {
+            // Could only happen if MAC algorithm isn't supported or size is too big,
+            // both of which shouldn't ever happen here.
+            throw RuntimeException(e)
+        }
+    }
+
+    /**
+     * Caches the rpiks and aemks derived by generateRPIK(...) and generateAEMK(...), shared
+     * by the crypto and the matching code. Keys that are derived only once, e.g. when checking
+     * a whole key set against the Bloom filter, should use deriveRPIK(...) instead, so that
+     * they neither evict the cached keys nor pay for the cache.
+     */
+    @JvmStatic
+    val derivationCache = KeyDerivationCache()
+
+    @JvmStatic
+    fun generateRPIK(tek: InternalTemporaryExposureKey): RollingProximityIdentifierKey {
+        return generateRPIK(tek.key)
+    }
+
+    @JvmStatic
+    fun generateRPIK(tek: ByteArray): RollingProximityIdentifierKey {
+        return derivationCache.rpik(tek)
+    }
+
+    @JvmStatic
+    fun generateAEMK(tek: InternalTemporaryExposureKey): AssociatedEncryptedMetadataKey {
+        return generateAEMK(tek.key)
+    }
+
+    @JvmStatic
+    fun generateAEMK(tek: ByteArray): AssociatedEncryptedMetadataKey {
+        return derivationCache.aemk(tek)
+    }
+
+    /**
+     * Uncached derivation, used by KeyDerivationCache and for keys that are derived only once.
+     */
+    internal fun deriveRPIK(tek: ByteArray): RollingProximityIdentifierKey {
+        val rawRPIK = generateHKDFBytes(
+            tek,
+            RPIK_INFO.toByteArray(StandardCharsets.UTF_8),
+            EnFrameworkConstants.RPIK_LENGTH
+        )
+        return RollingProximityIdentifierKey(rawRPIK)
+    }
+
+    /**
+     * Uncached derivation, only to be used by KeyDerivationCache.
+     */
+    internal fun deriveAEMK(tek: ByteArray): AssociatedEncryptedMetadataKey {
+        val rawAEMK = generateHKDFBytes(
+            tek,
+            AEMK_INFO.toByteArray(StandardCharsets.UTF_8),
+            EnFrameworkConstants.AEMK_LENGTH
+        )
+        return AssociatedEncryptedMetadataKey(rawAEMK)
+    }
+
+    @JvmStatic
+    fun generateRPI(
+        rpik: RollingProximityIdentifierKey,
+        interval: ENInterval
+    ): RollingProximityIdentifier {
+        return try {
+            val keySpec = SecretKeySpec(
+                rpik.key, "AES"
+            )
+            // normally ECB is a bad idea, but in this case we just want to encrypt a single block
+            val cipher = Cipher.getInstance("AES/ECB/NoPadding")
+            cipher.init(Cipher.ENCRYPT_MODE, keySpec)
+            Metrics.AES_OPS.increment()
+            val paddedData = PaddedData(interval)
+            RollingProximityIdentifier(cipher.update(paddedData.getData()), interval)
+        } catch (e: Exception) {
+            throw CryptoException(e)
+        }
+    }
+
+    /**
+     * Derives the rpis of 'count' consecutive ENIntervals, starting at 'startInterval', and
+     * writes them into 'output' (16 bytes per rpi, starting at 'outputOffset').
+     *
+     * In contrast to generateRPI(...), this does not allocate any objects per rpi: A cipher
+     * instance and a buffer for the padded data are kept per thread, the cipher is
+     * initialized only once per rpik and all padded data blocks are encrypted with a single
+     * cipher call.
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun generateRPIs(
+        rpik: RollingProximityIdentifierKey,
+        startInterval: Long,
+        output: ByteArray,
+        outputOffset: Int = 0,
+        count: Int = EnFrameworkConstants.TEK_ROLLING_PERIOD
+    ) {
+        val length = count * EnFrameworkConstants.RPI_LENGTH
+        if (outputOffset < 0 || output.size - outputOffset < length) {
+            throw CryptoException("output buffer too small for $count rpis")
+        }
+        try {
+            val derivation = rpiDerivation.get()!!
+            val paddedData = derivation.paddedDataFor(startInterval, count)
+            derivation.cipher.init(Cipher.ENCRYPT_MODE, SecretKeySpec(rpik.key, "AES"))
+            derivation.cipher.doFinal(paddedData, 0, length, output, outputOffset)
+            Metrics.AES_OPS.add(count.toLong())
+        } catch (e: Exception) {
+            throw CryptoException(e)
+        }
+    }
+
+    private val rpiDerivation = object : ThreadLocal<RPIDerivation>() {
+        override fun initialValue() = RPIDerivation()
+    }
+
+    /**
+     * Per thread state of generateRPIs(...).
+     */
+    private class RPIDerivation {
+        // normally ECB is a bad idea, but in this case we just want to encrypt single blocks
+        val cipher: Cipher = Cipher.getInstance("AES/ECB/NoPadding")
+        private var paddedData = ByteArray(0)
+
+        /**
+         * @return a buffer containing the padded data of 'count' consecutive intervals
+         */
+        fun paddedDataFor(startInterval: Long, count: Int): ByteArray {
+            val blockSize = PaddedData.PADDED_DATA_SIZE
+            if (paddedData.size < count * blockSize) {
+                paddedData = ByteArray(count * blockSize)
+                val rpiInfo = PaddedData.RPI_INFO.toByteArray(StandardCharsets.UTF_8)
+                for (i in 0 until count) {
+                    System.arraycopy(rpiInfo, 0, paddedData, i * blockSize, rpiInfo.size)
+                }
+            }
+            for (i in 0 until count) {
+                // The interval number is stored as unsigned 32 bit little endian value:
+                val interval = startInterval + i
+                val pos = i * blockSize + PaddedData.TIMESTAMP_POS
+                paddedData[pos] = interval.toByte()
+                paddedData[pos + 1] = (interval shr 8).toByte()
+                paddedData[pos + 2] = (interval shr 16).toByte()
+                paddedData[pos + 3] = (interval shr 24).toByte()
+            }
+            return paddedData
+        }
+    }
+
+    @JvmStatic
+    fun decryptRPI(
+        rpi: RollingProximityIdentifier,
+        rpik: RollingProximityIdentifierKey
+    ): PaddedData {
+        return try {
+            val keySpec = SecretKeySpec(rpik.key, "AES")
+            // normally ECB is a bad idea, but in this case we just want to encrypt a single block
+            val cipher = Cipher.getInstance("AES/ECB/NoPadding")
+            cipher.init(Cipher.DECRYPT_MODE, keySpec)
+            Metrics.AES_OPS.increment()
+            PaddedData(cipher.update(rpi.getData()))
+        } catch (e: Exception) {
+            throw CryptoException(e)
+        }
+    }
+
+    @JvmStatic
+    fun encryptAM(
+        am: AssociatedMetadata,
+        rpi: RollingProximityIdentifier,
+        aemk: AssociatedEncryptedMetadataKey?
+    ): AssociatedEncryptedMetadata {
+        return try {
+            val keySpec: SecretKey = SecretKeySpec(aemk!!.key, "AES")
+            val ivSpec = IvParameterSpec(rpi.getData())
+            val cipher = Cipher.getInstance("AES/CTR/NoPadding")
+            cipher.init(Cipher.ENCRYPT_MODE, keySpec, ivSpec)
+            Metrics.AES_OPS.increment()
+            AssociatedEncryptedMetadata(cipher.update(am.data))
+        } catch (e: Exception) {
+            throw CryptoException(e)
+        }
+    }
+
+    @JvmStatic
+    fun decryptAEM(
+        aem: AssociatedEncryptedMetadata,
+        rpi: RollingProximityIdentifier,
+        aemk: AssociatedEncryptedMetadataKey
+    ): AssociatedMetadata {
+        return try {
+            val keySpec: SecretKey = SecretKeySpec(aemk.key, "AES")
+            val ivSpec = IvParameterSpec(rpi.getData())
+            val cipher = Cipher.getInstance("AES/CTR/NoPadding")
+            cipher.init(Cipher.DECRYPT_MODE, keySpec, ivSpec)
+            Metrics.AES_OPS.increment()
+            AssociatedMetadata(cipher.update(aem.data))
+        } catch (e: Exception) {
+            throw CryptoException(e)
+        }
+    }
+
+    @JvmStatic
+    fun decryptAEM(
+        aem: AssociatedEncryptedMetadata,
+        rpi: RollingProximityIdentifier,
+        tek: InternalTemporaryExposureKey
+    ): AssociatedMetadata {
+        return decryptAEM(aem, rpi, generateAEMK(tek))
+    }
+}
@@ -1,6 +1,5 @@
 package org.coralibre.android.sdk.internal.crypto
 
-import android.util.Pair
 import org.coralibre.android.sdk.internal.EnFrameworkConstants
 import org.coralibre.android.sdk.internal.datatypes.ENInterval
 import org.coralibre.android.sdk.internal.datatypes.InternalTemporaryExposureKey
@@ -13,9 +12,9 @@ object ExposeChecker {
     fun generateAllRPIForADay(tek: InternalTemporaryExposureKey): List<RollingProximityIdentifier> {
         val enInterval = tek.interval.get()
         val rpiList = ArrayList<RollingProximityIdentifier>(EnFrameworkConstants.TEK_ROLLING_PERIOD)
-        val rpik = CryptoModule.generateRPIK(tek)
+        val rpik = CryptoPrimitives.generateRPIK(tek)
         for (i in 0 until EnFrameworkConstants.TEK_ROLLING_PERIOD) {
-            rpiList.add(CryptoModule.generateRPI(rpik, ENInterval(enInterval + i)))
+            rpiList.add(CryptoPrimitives.generateRPI(rpik, ENInterval(enInterval + i)))
         }
         return rpiList
     }
@@ -39,10 +38,10 @@ object ExposeChecker {
         interval: ENInterval
     ): List<InternalTemporaryExposureKey> {
         val slotBeginning = getMidnight(
-            ENInterval(interval.get() - CryptoModule.FUZZY_COMPARE_TIME_DEVIATION)
+            ENInterval(interval.get() - CryptoPrimitives.FUZZY_COMPARE_TIME_DEVIATION)
         )
         val slotEnding = getMidnight(
-            ENInterval(interval.get() + CryptoModule.FUZZY_COMPARE_TIME_DEVIATION)
+            ENInterval(interval.get() + CryptoPrimitives.FUZZY_COMPARE_TIME_DEVIATION)
         )
         val relatedTeKs = getMatchingTEKs(allTEKs, slotBeginning)
         if (slotBeginning != slotEnding) {
@@ -56,19 +55,19 @@ object ExposeChecker {
         tek: InternalTemporaryExposureKey,
         interval: ENInterval
     ): List<RollingProximityIdentifier> {
-        var slotBeginning = interval.get() - CryptoModule.FUZZY_COMPARE_TIME_DEVIATION
+        var slotBeginning = interval.get() - CryptoPrimitives.FUZZY_COMPARE_TIME_DEVIATION
         if (slotBeginning < tek.interval.get()) {
             slotBeginning = tek.interval.get()
         }
-        var slotEnding = interval.get() + CryptoModule.FUZZY_COMPARE_TIME_DEVIATION
+        var slotEnding = interval.get() + CryptoPrimitives.FUZZY_COMPARE_TIME_DEVIATION
         if (slotEnding > tek.interval.get() + EnFrameworkConstants.TEK_ROLLING_PERIOD) {
             slotEnding = tek.interval.get() + EnFrameworkConstants.TEK_ROLLING_PERIOD
         }
-        val rpik = CryptoModule.generateRPIK(tek)
+        val rpik = CryptoPrimitives.generateRPIK(tek)
         val generatedRPIs: MutableList<RollingProximityIdentifier> =
-            ArrayList(2 * CryptoModule.FUZZY_COMPARE_TIME_DEVIATION + 1)
+            ArrayList(2 * CryptoPrimitives.FUZZY_COMPARE_TIME_DEVIATION + 1)
         for (i in slotBeginning..slotEnding) {
-            generatedRPIs.add(CryptoModule.generateRPI(rpik, ENInterval(i)))
+            generatedRPIs.add(CryptoPrimitives.generateRPI(rpik, ENInterval(i)))
         }
         return generatedRPIs
     }
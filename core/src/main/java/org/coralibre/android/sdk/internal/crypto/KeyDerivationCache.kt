@@ -0,0 +1,146 @@
+package org.coralibre.android.sdk.internal.crypto
+
+import org.coralibre.android.sdk.internal.EnFrameworkConstants
+import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadataKey
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifierKey
+import java.nio.ByteBuffer
+import java.util.LinkedHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Bounded LRU cache for the keys derived from a TEK: its rpik, its aemk and (if enabled) the
+ * rpis of its rolling period.
+ *
+ * Entries are keyed by the content of the TEK bytes. The keys that reach exact matching (the
+ * candidate keys of the Bloom filter and the stored, matched keys of a token) are matched again
+ * and again by consecutive provideDiagnosisKeys(...) calls and by the re-evaluation of new
+ * sightings, so they do not require HKDF or AES work. The bulk of a national key set is only
+ * checked against the Bloom filter once and does not go through a cache, see RpiMatcher.
+ *
+ * The derivation itself happens outside of the lock, so threads only block each other for the
+ * map access. If two threads derive the same key concurrently, both results are identical and
+ * one of them is kept.
+ *
+ * @param capacity the maximum number of TEKs for that derived keys are kept
+ * @param cacheRPIs whether the rpis of a TEK's rolling period are cached as well. They take
+ * 2304 bytes per TEK, so this is disabled by default.
+ */
+class KeyDerivationCache @JvmOverloads constructor(
+    private val capacity: Int = DEFAULT_CAPACITY,
+    private val cacheRPIs: Boolean = false
+) {
+    init {
+        require(capacity > 0) { "capacity must be positive" }
+    }
+
+    private class DerivedKeys {
+        @Volatile
+        var rpik: RollingProximityIdentifierKey? = null
+
+        @Volatile
+        var aemk: AssociatedEncryptedMetadataKey? = null
+
+        // Guarded by the DerivedKeys object:
+        var rpisStartInterval = -1L
+        var rpis: ByteArray? = null
+    }
+
+    private val entries = object : LinkedHashMap<ByteBuffer, DerivedKeys>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<ByteBuffer, DerivedKeys>) =
+            size > capacity
+    }
+
+    private val hits = AtomicLong()
+    private val misses = AtomicLong()
+
+    val hitCount: Long
+        get() = hits.get()
+
+    val missCount: Long
+        get() = misses.get()
+
+    val size: Int
+        get() = synchronized(entries) { entries.size }
+
+    private fun entryFor(tek: ByteArray): DerivedKeys {
+        synchronized(entries) {
+            entries[ByteBuffer.wrap(tek)]?.let {
+                return it
+            }
+            // Only stored keys are copied, so that the caller may reuse its array:
+            val entry = DerivedKeys()
+            entries[ByteBuffer.wrap(tek.copyOf())] = entry
+            return entry
+        }
+    }
+
+    fun rpik(tek: ByteArray): RollingProximityIdentifierKey {
+        val entry = entryFor(tek)
+        entry.rpik?.let {
+            hits.incrementAndGet()
+            return it
+        }
+        misses.incrementAndGet()
+        val rpik = CryptoPrimitives.deriveRPIK(tek)
+        entry.rpik = rpik
+        return rpik
+    }
+
+    fun aemk(tek: ByteArray): AssociatedEncryptedMetadataKey {
+        val entry = entryFor(tek)
+        entry.aemk?.let {
+            hits.incrementAndGet()
+            return it
+        }
+        misses.incrementAndGet()
+        val aemk = CryptoPrimitives.deriveAEMK(tek)
+        entry.aemk = aemk
+        return aemk
+    }
+
+    /**
+     * @return the rpis of the rolling period starting at 'startInterval', 16 bytes per rpi.
+     * The returned array is shared and must not be modified. If caching rpis is disabled,
+     * null is returned.
+     */
+    fun rpis(
+        tek: ByteArray,
+        startInterval: Long,
+        rpik: RollingProximityIdentifierKey
+    ): ByteArray? {
+        if (!cacheRPIs) {
+            return null
+        }
+        val entry = entryFor(tek)
+        synchronized(entry) {
+            val cached = entry.rpis
+            if (cached != null && entry.rpisStartInterval == startInterval) {
+                hits.incrementAndGet()
+                return cached
+            }
+        }
+        misses.incrementAndGet()
+        val rpis = ByteArray(EnFrameworkConstants.TEK_ROLLING_PERIOD * EnFrameworkConstants.RPI_LENGTH)
+        CryptoPrimitives.generateRPIs(rpik, startInterval, rpis)
+        synchronized(entry) {
+            entry.rpis = rpis
+            entry.rpisStartInterval = startInterval
+        }
+        return rpis
+    }
+
+    fun clear() {
+        synchronized(entries) {
+            entries.clear()
+        }
+    }
+
+    companion object {
+        /**
+         * Enough for the candidate and matched keys of several tokens and the own TEKs. Without
+         * cached rpis, an entry takes about 200 bytes, so the default capacity is bounded by
+         * roughly 800 KiB.
+         */
+        const val DEFAULT_CAPACITY = 4096
+    }
+}
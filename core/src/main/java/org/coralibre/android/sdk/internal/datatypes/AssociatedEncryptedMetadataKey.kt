@@ -4,15 +4,25 @@ import org.coralibre.android.sdk.internal.EnFrameworkConstants
 import java.security.InvalidParameterException
 
 class AssociatedEncryptedMetadataKey(value: ByteArray) {
+    private val data: ByteArray
+
     val key: ByteArray
         get() {
             val retVal = ByteArray(EnFrameworkConstants.AEMK_LENGTH)
-            System.arraycopy(field, 0, retVal, 0, EnFrameworkConstants.AEMK_LENGTH)
+            System.arraycopy(data, 0, retVal, 0, EnFrameworkConstants.AEMK_LENGTH)
             return retVal
         }
 
     init {
         if (value.size != EnFrameworkConstants.AEMK_LENGTH) throw InvalidParameterException("size not 16bytes")
-        key = value.copyOf()
+        data = value.copyOf()
+    }
+
+    override fun equals(other: Any?): Boolean {
+        return other is AssociatedEncryptedMetadataKey && data.contentEquals(other.data)
+    }
+
+    override fun hashCode(): Int {
+        return data.contentHashCode()
     }
 }
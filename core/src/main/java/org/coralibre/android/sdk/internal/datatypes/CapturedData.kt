@@ -0,0 +1,78 @@
+package org.coralibre.android.sdk.internal.datatypes
+
+class CapturedData {
+    /**
+     * Milliseconds since Epoch.
+     */
+    val captureTimestampMillis: Long
+
+    /**
+     * the 10-minute interval
+     */
+    val enInterval: ENInterval
+
+    /**
+     * Milliseconds since Epoch. If several sightings of the same rpi have been aggregated into
+     * this object (see SightingAggregator), this is the time of the last one, otherwise it
+     * equals captureTimestampMillis.
+     */
+    val lastCaptureTimestampMillis: Long
+
+    /**
+     * The number of sightings aggregated into this object.
+     */
+    val sightingCount: Int
+
+    /** in dB; the mean value if several sightings have been aggregated  */
+    val rssi: Byte
+
+    /** in dB  */
+    val minRssi: Byte
+
+    /** in dB  */
+    val maxRssi: Byte
+
+    /** 16 bytes  */
+    val rpi: RollingProximityIdentifier
+
+    /** 4 bytes  */
+    val aem: AssociatedEncryptedMetadata
+
+    constructor(
+        captureTimestamp: Long,
+        rssi: Byte,
+        rpi: RollingProximityIdentifier,
+        aem: AssociatedEncryptedMetadata
+    ) : this(captureTimestamp, captureTimestamp, 1, rssi, rssi, rssi, rpi, aem)
+
+    constructor(
+        captureTimestamp: Long,
+        rssi: Int,
+        rpi: RollingProximityIdentifier,
+        aem: AssociatedEncryptedMetadata
+    ) : this(captureTimestamp, rssi.toByte(), rpi, aem)
+
+    constructor(
+        firstCaptureTimestamp: Long,
+        lastCaptureTimestamp: Long,
+        sightingCount: Int,
+        meanRssi: Byte,
+        minRssi: Byte,
+        maxRssi: Byte,
+        rpi: RollingProximityIdentifier,
+        aem: AssociatedEncryptedMetadata
+    ) {
+        captureTimestampMillis = firstCaptureTimestamp
+        lastCaptureTimestampMillis = lastCaptureTimestamp
+        this.sightingCount = sightingCount
+        enInterval = ENInterval(firstCaptureTimestamp, true)
+        this.rssi = meanRssi
+        this.minRssi = minRssi
+        this.maxRssi = maxRssi
+        this.rpi = rpi
+        this.aem = aem
+    }
+
+    val rssiInt: Int
+        get() = rssi.toInt()
+}
@@ -0,0 +1,199 @@
+package org.coralibre.android.sdk.internal.datatypes
+
+import org.coralibre.android.sdk.internal.EnFrameworkConstants
+import org.coralibre.android.sdk.internal.matching.CapturedDataIndex
+import java.security.InvalidParameterException
+
+/**
+ * Packed, column oriented store of captured payloads, used as working set for matching.
+ *
+ * A CapturedData object consists of about eight objects (its ENInterval, the rpi with its own
+ * ENInterval and a copy of the data, the aem, ...) for 25 bytes of actual data. Here, each
+ * sighting is a row in a set of primitive arrays instead: the rpi is stored as two longs, the
+ * aem as an int. Matching 14 days of dense sightings thus requires a handful of large arrays
+ * instead of millions of small objects.
+ *
+ * Aggregated sightings (see CapturedData.lastCaptureTimestampMillis) keep all their columns, so
+ * that toCapturedData(...) returns the stored record.
+ *
+ * Rows are appended with add(...) and must not be changed afterwards. The arrays grow like
+ * those of an ArrayList; pass the expected number of rows to avoid copying.
+ */
+class CapturedSightings @JvmOverloads constructor(initialCapacity: Int = DEFAULT_CAPACITY) {
+    private var rpiHigh = LongArray(initialCapacity)
+    private var rpiLow = LongArray(initialCapacity)
+    private var captureTimestamps = LongArray(initialCapacity)
+    private var lastCaptureTimestamps = LongArray(initialCapacity)
+    private var sightingCounts = IntArray(initialCapacity)
+    private var intervals = IntArray(initialCapacity)
+    private var rssis = ByteArray(initialCapacity)
+    private var minRssis = ByteArray(initialCapacity)
+    private var maxRssis = ByteArray(initialCapacity)
+    private var aems = IntArray(initialCapacity)
+
+    /**
+     * The number of rows.
+     */
+    var size = 0
+        private set
+
+    /**
+     * Appends a row.
+     * @param rpi the raw rpi, EnFrameworkConstants.RPI_LENGTH bytes
+     * @param enInterval the interval number of the first sighting
+     * @param captureTimestampMillis the time of the first sighting
+     * @param lastCaptureTimestampMillis the time of the last sighting, see
+     * CapturedData.lastCaptureTimestampMillis
+     * @param sightingCount the number of aggregated sightings, 1 for a single sighting
+     * @param rssi the (mean) rssi
+     * @param minRssi the min rssi of aggregated sightings, otherwise the same as 'rssi'
+     * @param maxRssi the max rssi of aggregated sightings, otherwise the same as 'rssi'
+     * @param aem the raw aem, EnFrameworkConstants.AEM_LENGTH bytes
+     */
+    fun add(
+        rpi: ByteArray,
+        enInterval: Long,
+        captureTimestampMillis: Long,
+        lastCaptureTimestampMillis: Long,
+        sightingCount: Int,
+        rssi: Byte,
+        minRssi: Byte,
+        maxRssi: Byte,
+        aem: ByteArray
+    ) {
+        if (rpi.size != EnFrameworkConstants.RPI_LENGTH) throw InvalidParameterException("wrong rpi size")
+        if (aem.size != EnFrameworkConstants.AEM_LENGTH) throw InvalidParameterException("wrong aem size")
+        if (size == rssis.size) {
+            grow()
+        }
+        rpiHigh[size] = CapturedDataIndex.readLong(rpi, 0)
+        rpiLow[size] = CapturedDataIndex.readLong(rpi, EnFrameworkConstants.RPI_LENGTH / 2)
+        intervals[size] = enInterval.toInt()
+        captureTimestamps[size] = captureTimestampMillis
+        lastCaptureTimestamps[size] = lastCaptureTimestampMillis
+        sightingCounts[size] = sightingCount
+        rssis[size] = rssi
+        minRssis[size] = minRssi
+        maxRssis[size] = maxRssi
+        aems[size] = ((aem[0].toInt() and 0xFF) shl 24) or
+            ((aem[1].toInt() and 0xFF) shl 16) or
+            ((aem[2].toInt() and 0xFF) shl 8) or
+            (aem[3].toInt() and 0xFF)
+        size++
+    }
+
+    fun add(capturedData: CapturedData) {
+        add(
+            capturedData.rpi.getData(),
+            capturedData.enInterval.get(),
+            capturedData.captureTimestampMillis,
+            capturedData.lastCaptureTimestampMillis,
+            capturedData.sightingCount,
+            capturedData.rssi,
+            capturedData.minRssi,
+            capturedData.maxRssi,
+            capturedData.aem.data
+        )
+    }
+
+    private fun grow() {
+        val capacity = maxOf(2 * rssis.size, DEFAULT_CAPACITY)
+        rpiHigh = rpiHigh.copyOf(capacity)
+        rpiLow = rpiLow.copyOf(capacity)
+        captureTimestamps = captureTimestamps.copyOf(capacity)
+        lastCaptureTimestamps = lastCaptureTimestamps.copyOf(capacity)
+        sightingCounts = sightingCounts.copyOf(capacity)
+        intervals = intervals.copyOf(capacity)
+        rssis = rssis.copyOf(capacity)
+        minRssis = minRssis.copyOf(capacity)
+        maxRssis = maxRssis.copyOf(capacity)
+        aems = aems.copyOf(capacity)
+    }
+
+    /**
+     * The first 8 bytes of the row's rpi, big endian.
+     */
+    fun rpiHigh(row: Int): Long = rpiHigh[row]
+
+    /**
+     * The last 8 bytes of the row's rpi, big endian.
+     */
+    fun rpiLow(row: Int): Long = rpiLow[row]
+
+    fun enInterval(row: Int): Long = intervals[row].toLong() and 0xFFFFFFFFL
+
+    fun captureTimestampMillis(row: Int): Long = captureTimestamps[row]
+
+    fun lastCaptureTimestampMillis(row: Int): Long = lastCaptureTimestamps[row]
+
+    fun sightingCount(row: Int): Int = sightingCounts[row]
+
+    fun rssi(row: Int): Byte = rssis[row]
+
+    fun minRssi(row: Int): Byte = minRssis[row]
+
+    fun maxRssi(row: Int): Byte = maxRssis[row]
+
+    fun rpi(row: Int): RollingProximityIdentifier {
+        val rawRPI = ByteArray(EnFrameworkConstants.RPI_LENGTH)
+        writeLong(rpiHigh[row], rawRPI, 0)
+        writeLong(rpiLow[row], rawRPI, EnFrameworkConstants.RPI_LENGTH / 2)
+        return RollingProximityIdentifier(rawRPI, ENInterval(enInterval(row)))
+    }
+
+    fun aem(row: Int): AssociatedEncryptedMetadata {
+        val aem = aems[row]
+        return AssociatedEncryptedMetadata(
+            byteArrayOf(
+                (aem ushr 24).toByte(),
+                (aem ushr 16).toByte(),
+                (aem ushr 8).toByte(),
+                aem.toByte()
+            )
+        )
+    }
+
+    /**
+     * Creates a CapturedData object for the row.
+     */
+    fun toCapturedData(row: Int): CapturedData {
+        return CapturedData(
+            captureTimestamps[row],
+            lastCaptureTimestamps[row],
+            sightingCounts[row],
+            rssis[row],
+            minRssis[row],
+            maxRssis[row],
+            rpi(row),
+            aem(row)
+        )
+    }
+
+    companion object {
+        private const val DEFAULT_CAPACITY = 64
+
+        /**
+         * Copies the given payloads into a new CapturedSightings object, in iteration order.
+         */
+        @JvmStatic
+        fun of(payloadIntervals: Iterable<IntervalOfCapturedData>): CapturedSightings {
+            var count = 0
+            for (interval in payloadIntervals) {
+                count += interval.getCapturedData().size
+            }
+            val sightings = CapturedSightings(count)
+            for (interval in payloadIntervals) {
+                for (capturedData in interval.getCapturedData()) {
+                    sightings.add(capturedData)
+                }
+            }
+            return sightings
+        }
+
+        private fun writeLong(value: Long, buffer: ByteArray, offset: Int) {
+            for (i in 0 until 8) {
+                buffer[offset + i] = (value ushr (56 - 8 * i)).toByte()
+            }
+        }
+    }
+}
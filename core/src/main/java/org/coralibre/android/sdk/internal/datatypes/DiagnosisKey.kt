@@ -0,0 +1,34 @@
+package org.coralibre.android.sdk.internal.datatypes
+
+import org.coralibre.android.sdk.internal.matching.RiskScoringConfiguration
+
+class DiagnosisKey @JvmOverloads constructor(
+    private val tek: InternalTemporaryExposureKey,
+    /**
+     * A number in range [0, 7]
+     * @see RiskScoringConfiguration.getTransmissionRiskScore
+     */
+    val transmissionRiskLevel: Int,
+    /**
+     * The report_type of the key file, i.e. one of the ReportType constants of the sdk module,
+     * REPORT_TYPE_UNKNOWN if the key file does not set it
+     */
+    val reportType: Int = REPORT_TYPE_UNKNOWN,
+    /**
+     * The days_since_onset_of_symptoms of the key file, DAYS_SINCE_ONSET_OF_SYMPTOMS_UNKNOWN if
+     * the key file does not set it
+     */
+    val daysSinceOnsetOfSymptoms: Int = DAYS_SINCE_ONSET_OF_SYMPTOMS_UNKNOWN
+) {
+    val keyData: ByteArray
+        get() = tek.key
+    val interval: ENInterval
+        get() = tek.interval
+
+    companion object {
+        const val REPORT_TYPE_UNKNOWN = 0
+
+        // The value of TemporaryExposureKey.DAYS_SINCE_ONSET_OF_SYMPTOMS_UNKNOWN of the EN API:
+        const val DAYS_SINCE_ONSET_OF_SYMPTOMS_UNKNOWN = Int.MAX_VALUE
+    }
+}
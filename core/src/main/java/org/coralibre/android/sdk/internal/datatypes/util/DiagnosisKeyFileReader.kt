@@ -0,0 +1,276 @@
+package org.coralibre.android.sdk.internal.datatypes.util
+
+import com.google.protobuf.CodedInputStream
+import org.coralibre.android.sdk.internal.EnFrameworkConstants
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey
+import org.coralibre.android.sdk.internal.datatypes.ENInterval
+import org.coralibre.android.sdk.internal.datatypes.InternalTemporaryExposureKey
+import org.coralibre.android.sdk.internal.metrics.Metrics
+import org.coralibre.android.sdk.internal.util.CancellationCheck
+import org.coralibre.android.sdk.internal.util.CountingInputStream
+import org.coralibre.android.sdk.internal.util.Tracer
+import org.coralibre.android.sdk.internal.util.Tracing
+import java.io.BufferedInputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.IOException
+import java.io.InputStream
+import java.util.ArrayList
+import java.util.zip.ZipInputStream
+
+/**
+ * Reads the diagnosis keys of a key file without materializing the whole
+ * TemporaryExposureKeyExport message.
+ *
+ * The export.bin wire format is walked field by field. Every key is converted to a DiagnosisKey
+ * right away, and the keys are passed to a KeyBatchConsumer in batches of at most 'batchSize'
+ * keys. This way, the memory required for reading a key file is bounded by the batch size and
+ * not by the size of the file. Before every batch, the given CancellationCheck is checked, so
+ * reading a large file can be aborted.
+ *
+ * The batches are passed on in the order of the keys in the file: a batch is not only passed on
+ * when it is full, but also when a key of the other field follows. So a revised key is never
+ * passed on before the key it revises, if that one precedes it in the file.
+ *
+ * See https://developers.google.com/android/exposure-notifications/exposure-key-file-format
+ */
+class DiagnosisKeyFileReader @JvmOverloads constructor(
+    private val batchSize: Int = DEFAULT_BATCH_SIZE
+) {
+    init {
+        require(batchSize > 0) { "batchSize must be positive" }
+    }
+
+    fun interface KeyBatchConsumer {
+        /**
+         * @param diagnosisKeys the next batch of keys. The list is not used by the reader after
+         * the call, so it may be kept by the consumer.
+         * @param revised true, if the keys have been read from the revised_keys field, false if
+         * they have been read from the keys field
+         */
+        @Throws(IOException::class)
+        fun onKeys(diagnosisKeys: List<DiagnosisKey>, revised: Boolean)
+    }
+
+    /**
+     * Reads all export.bin entries of the given zip file.
+     * @param onBytesRead called after every batch with the number of bytes of the (compressed)
+     * file that have been read so far
+     * @throws IOException if the file cannot be read or an export.bin entry is invalid
+     * @throws java.util.concurrent.CancellationException if 'cancellation' requests it
+     */
+    @JvmOverloads
+    @Throws(IOException::class)
+    fun readKeyFile(
+        keyFile: File,
+        consumer: KeyBatchConsumer,
+        cancellation: CancellationCheck = CancellationCheck.NEVER,
+        onBytesRead: (Long) -> Unit = {}
+    ) {
+        val fileStream = CountingInputStream(FileInputStream(keyFile))
+        var keyCount = 0L
+        // The time spent by the consumer (e.g. matching the keys) does not count as parsing:
+        var consumerNanos = 0L
+        // Like the parse section (see deliver(...)), the unzip section is suspended while the
+        // consumer runs:
+        val tracer = Tracing.tracer
+        val countingConsumer = KeyBatchConsumer { diagnosisKeys, revised ->
+            keyCount += diagnosisKeys.size
+            val consumerStartNanos = System.nanoTime()
+            tracer.endSection()
+            try {
+                consumer.onKeys(diagnosisKeys, revised)
+                onBytesRead(fileStream.bytesRead)
+            } finally {
+                tracer.beginSection(Tracing.UNZIP)
+                consumerNanos += System.nanoTime() - consumerStartNanos
+            }
+        }
+        val startNanos = System.nanoTime()
+        tracer.beginSection(Tracing.UNZIP)
+        try {
+            ZipInputStream(BufferedInputStream(fileStream)).use { stream ->
+                var zipEntry = stream.nextEntry
+                while (zipEntry != null) {
+                    if (zipEntry.name == EXPORT_ENTRY_NAME) {
+                        readExport(stream, countingConsumer, cancellation)
+                    }
+                    zipEntry = stream.nextEntry
+                }
+            }
+        } finally {
+            tracer.endSection()
+        }
+        val parseNanos = System.nanoTime() - startNanos - consumerNanos
+        if (parseNanos > 0) {
+            Metrics.KEYS_PARSED_PER_SECOND.set(keyCount * 1_000_000_000L / parseNanos)
+        }
+    }
+
+    /**
+     * Reads the content of an export.bin file, starting with its 16 byte header.
+     * @throws IOException if the header is invalid or the stream cannot be parsed
+     * @throws java.util.concurrent.CancellationException if 'cancellation' requests it
+     */
+    @JvmOverloads
+    @Throws(IOException::class)
+    fun readExport(
+        stream: InputStream,
+        consumer: KeyBatchConsumer,
+        cancellation: CancellationCheck = CancellationCheck.NEVER
+    ) {
+        // The consumer is called outside of the parse section, see deliver(...):
+        val tracer = Tracing.tracer
+        tracer.beginSection(Tracing.PARSE)
+        try {
+            val header = ByteArray(EXPORT_HEADER_LENGTH)
+            var totalBytesRead = 0
+            var bytesRead = 0
+            while (bytesRead != -1 && totalBytesRead < header.size) {
+                bytesRead = stream.read(header, totalBytesRead, header.size - totalBytesRead)
+                if (bytesRead > 0) {
+                    totalBytesRead += bytesRead
+                }
+            }
+            val headerString = String(header, Charsets.UTF_8).trim()
+            if (totalBytesRead != header.size || headerString != EXPORT_HEADER) {
+                throw IOException("export.bin has invalid prefix: $headerString")
+            }
+
+            val input = CodedInputStream.newInstance(stream)
+            input.setSizeLimit(Int.MAX_VALUE)
+            var keys: MutableList<DiagnosisKey> = ArrayList(batchSize)
+            var revisedKeys: MutableList<DiagnosisKey> = ArrayList(batchSize)
+            CancellationCheck.throwIfRequested(cancellation)
+            readFields@ while (true) {
+                val tag = input.readTag()
+                when (tag) {
+                    0 -> {
+                        break@readFields
+                    }
+                    TAG_KEYS -> {
+                        if (revisedKeys.isNotEmpty()) {
+                            deliver(tracer, consumer, revisedKeys, true)
+                            revisedKeys = ArrayList(batchSize)
+                        }
+                        keys.add(readKey(input))
+                        if (keys.size == batchSize) {
+                            deliver(tracer, consumer, keys, false)
+                            keys = ArrayList(batchSize)
+                            CancellationCheck.throwIfRequested(cancellation)
+                        }
+                    }
+                    TAG_REVISED_KEYS -> {
+                        if (keys.isNotEmpty()) {
+                            deliver(tracer, consumer, keys, false)
+                            keys = ArrayList(batchSize)
+                        }
+                        revisedKeys.add(readKey(input))
+                        if (revisedKeys.size == batchSize) {
+                            deliver(tracer, consumer, revisedKeys, true)
+                            revisedKeys = ArrayList(batchSize)
+                            CancellationCheck.throwIfRequested(cancellation)
+                        }
+                    }
+                    else -> {
+                        input.skipField(tag)
+                    }
+                }
+            }
+            if (keys.isNotEmpty()) {
+                deliver(tracer, consumer, keys, false)
+            }
+            if (revisedKeys.isNotEmpty()) {
+                deliver(tracer, consumer, revisedKeys, true)
+            }
+        } finally {
+            tracer.endSection()
+        }
+    }
+
+    /**
+     * Passes a batch of keys to the consumer while the parse section is suspended, so that a
+     * trace shows the stages of the consumer next to the parsing instead of inside it.
+     */
+    private fun deliver(
+        tracer: Tracer,
+        consumer: KeyBatchConsumer,
+        diagnosisKeys: List<DiagnosisKey>,
+        revised: Boolean
+    ) {
+        Metrics.KEYS_PARSED.add(diagnosisKeys.size.toLong())
+        tracer.endSection()
+        try {
+            consumer.onKeys(diagnosisKeys, revised)
+        } finally {
+            tracer.beginSection(Tracing.PARSE)
+        }
+    }
+
+    /**
+     * Reads a single length delimited TemporaryExposureKeyProto message.
+     * @throws IOException if the message lacks the key data or the rolling start interval
+     * number, or if its key data does not have the length of a TEK
+     */
+    @Throws(IOException::class)
+    private fun readKey(input: CodedInputStream): DiagnosisKey {
+        val length = input.readRawVarint32()
+        val oldLimit = input.pushLimit(length)
+        var keyData: ByteArray? = null
+        var rollingStartIntervalNumber: Int? = null
+        var transmissionRiskLevel = 0
+        var reportType = DiagnosisKey.REPORT_TYPE_UNKNOWN
+        var daysSinceOnsetOfSymptoms = DiagnosisKey.DAYS_SINCE_ONSET_OF_SYMPTOMS_UNKNOWN
+        readFields@ while (true) {
+            val tag = input.readTag()
+            when (tag) {
+                0 -> break@readFields
+                TAG_KEY_DATA -> keyData = input.readByteArray()
+                TAG_TRANSMISSION_RISK_LEVEL -> transmissionRiskLevel = input.readInt32()
+                TAG_ROLLING_START_INTERVAL_NUMBER -> rollingStartIntervalNumber = input.readInt32()
+                TAG_REPORT_TYPE -> reportType = input.readEnum()
+                TAG_DAYS_SINCE_ONSET_OF_SYMPTOMS -> daysSinceOnsetOfSymptoms = input.readSInt32()
+                else -> input.skipField(tag)
+            }
+        }
+        input.popLimit(oldLimit)
+
+        if (keyData == null || keyData.size != EnFrameworkConstants.TEK_LENGTH) {
+            throw IOException("missing or invalid tekProto keyData")
+        }
+        if (rollingStartIntervalNumber == null) {
+            throw IOException("missing tekProto rollingStartIntervalNumber")
+        }
+        return DiagnosisKey(
+            InternalTemporaryExposureKey(
+                ENInterval(rollingStartIntervalNumber.toLong()),
+                keyData
+            ),
+            transmissionRiskLevel,
+            reportType,
+            daysSinceOnsetOfSymptoms
+        )
+    }
+
+    companion object {
+        const val DEFAULT_BATCH_SIZE = 1000
+        const val EXPORT_ENTRY_NAME = "export.bin"
+        const val EXPORT_HEADER = "EK Export v1"
+        const val EXPORT_HEADER_LENGTH = 16
+
+        // Tags are (field number << 3) | wire type, see TemporaryExposureKeyFile.proto:
+        private const val WIRETYPE_VARINT = 0
+        private const val WIRETYPE_LENGTH_DELIMITED = 2
+
+        // ... TemporaryExposureKeyExport
+        private const val TAG_KEYS = (7 shl 3) or WIRETYPE_LENGTH_DELIMITED
+        private const val TAG_REVISED_KEYS = (8 shl 3) or WIRETYPE_LENGTH_DELIMITED
+
+        // ... TemporaryExposureKeyProto
+        private const val TAG_KEY_DATA = (1 shl 3) or WIRETYPE_LENGTH_DELIMITED
+        private const val TAG_TRANSMISSION_RISK_LEVEL = (2 shl 3) or WIRETYPE_VARINT
+        private const val TAG_ROLLING_START_INTERVAL_NUMBER = (3 shl 3) or WIRETYPE_VARINT
+        private const val TAG_REPORT_TYPE = (5 shl 3) or WIRETYPE_VARINT
+        private const val TAG_DAYS_SINCE_ONSET_OF_SYMPTOMS = (6 shl 3) or WIRETYPE_VARINT
+    }
+}
@@ -19,7 +19,17 @@ object DiagnosisKeyUtil {
                         ENInterval(tekProto.rollingStartIntervalNumber.toLong()),
                         tekProto.keyData.toByteArray()
                     ),
-                    if (tekProto.hasTransmissionRiskLevel()) tekProto.transmissionRiskLevel else 0
+                    if (tekProto.hasTransmissionRiskLevel()) tekProto.transmissionRiskLevel else 0,
+                    if (tekProto.hasReportType()) {
+                        tekProto.reportType.number
+                    } else {
+                        DiagnosisKey.REPORT_TYPE_UNKNOWN
+                    },
+                    if (tekProto.hasDaysSinceOnsetOfSymptoms()) {
+                        tekProto.daysSinceOnsetOfSymptoms
+                    } else {
+                        DiagnosisKey.DAYS_SINCE_ONSET_OF_SYMPTOMS_UNKNOWN
+                    }
                 )
             )
         }
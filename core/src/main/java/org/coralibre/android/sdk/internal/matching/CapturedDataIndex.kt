@@ -0,0 +1,178 @@
+package org.coralibre.android.sdk.internal.matching
+
+import org.coralibre.android.sdk.internal.EnFrameworkConstants
+import org.coralibre.android.sdk.internal.datatypes.CapturedData
+import org.coralibre.android.sdk.internal.datatypes.CapturedSightings
+import org.coralibre.android.sdk.internal.datatypes.IntervalOfCapturedData
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier
+import java.security.SecureRandom
+import java.util.ArrayList
+
+/**
+ * Hash index over all captured bluetooth payloads. Every captured rpi is mapped to the rows of
+ * the CapturedSightings in which it has been received.
+ *
+ * The index is built once per matching run. Afterwards each rpi derived from a diagnosis key can
+ * be resolved with a single hash lookup instead of comparing it against every captured payload.
+ *
+ * Internally, an open addressing hash table is used, whose slots refer to the first row with the
+ * slot's rpi. Further rows with the same rpi are chained in insertion order. The rpis themselves
+ * are only stored (as two longs) in the CapturedSightings. This allows to probe the index
+ * directly with rpis stored in a byte array (see CryptoPrimitives.generateRPIs(...)) without
+ * creating a RollingProximityIdentifier object per probe, and the whole index consists of three
+ * int arrays.
+ */
+class CapturedDataIndex(val sightings: CapturedSightings) {
+    private val firstRows: IntArray
+    private val lastRows: IntArray
+    private val nextRows = IntArray(sightings.size)
+
+    /**
+     * Number of distinct rpis contained in the index.
+     */
+    var size = 0
+        private set
+
+    constructor(payloadIntervals: Iterable<IntervalOfCapturedData>) :
+        this(CapturedSightings.of(payloadIntervals))
+
+    init {
+        // At most half of the slots are used, so probe sequences stay short:
+        var capacity = INITIAL_CAPACITY
+        while (capacity < 2 * sightings.size) {
+            capacity *= 2
+        }
+        firstRows = IntArray(capacity) { NO_ROW }
+        lastRows = IntArray(capacity)
+        for (row in 0 until sightings.size) {
+            add(row)
+        }
+    }
+
+    val isEmpty: Boolean
+        get() = size == 0
+
+    private fun add(row: Int) {
+        val high = sightings.rpiHigh(row)
+        val low = sightings.rpiLow(row)
+        val slot = slotOf(high, low)
+        nextRows[row] = NO_ROW
+        if (firstRows[slot] == NO_ROW) {
+            firstRows[slot] = row
+            size++
+        } else {
+            nextRows[lastRows[slot]] = row
+        }
+        lastRows[slot] = row
+    }
+
+    /**
+     * @return the slot of the given rpi, or the free slot to put it into
+     */
+    private fun slotOf(high: Long, low: Long): Int {
+        val mask = firstRows.size - 1
+        var slot = hash(high, low) and mask
+        while (true) {
+            val row = firstRows[slot]
+            if (row == NO_ROW || (sightings.rpiHigh(row) == high && sightings.rpiLow(row) == low)) {
+                return slot
+            }
+            slot = (slot + 1) and mask
+        }
+    }
+
+    /**
+     * Looks up the rpi stored in 'buffer' at 'offset' (16 bytes).
+     * @return a slot number that can be passed to firstRow(slot) or getSightings(slot), or
+     * NOT_FOUND
+     */
+    fun indexOf(buffer: ByteArray, offset: Int): Int {
+        val slot = slotOf(readLong(buffer, offset), readLong(buffer, offset + 8))
+        return if (firstRows[slot] == NO_ROW) NOT_FOUND else slot
+    }
+
+    operator fun contains(rpi: RollingProximityIdentifier): Boolean {
+        return indexOf(rpi.getData(), 0) != NOT_FOUND
+    }
+
+    /**
+     * @param slot a slot number as returned by indexOf(...)
+     * @return the first row of sightings with the slot's rpi
+     */
+    fun firstRow(slot: Int): Int {
+        return firstRows[slot]
+    }
+
+    /**
+     * @return the next row with the same rpi as 'row', or NO_ROW
+     */
+    fun nextRow(row: Int): Int {
+        return nextRows[row]
+    }
+
+    /**
+     * @return all sightings of the given rpi in the order they have been added to the index, or
+     * an empty list if the rpi has never been captured
+     */
+    fun getSightings(rpi: RollingProximityIdentifier): List<CapturedData> {
+        val slot = indexOf(rpi.getData(), 0)
+        return if (slot == NOT_FOUND) emptyList() else getSightings(slot)
+    }
+
+    /**
+     * Creates CapturedData objects for the sightings of a slot. The matching itself iterates over
+     * the rows with firstRow(...) and nextRow(...) instead.
+     * @param slot a slot number as returned by indexOf(...)
+     */
+    fun getSightings(slot: Int): List<CapturedData> {
+        val result: MutableList<CapturedData> = ArrayList(1)
+        var row = firstRows[slot]
+        while (row != NO_ROW) {
+            result.add(sightings.toCapturedData(row))
+            row = nextRows[row]
+        }
+        return result
+    }
+
+    companion object {
+        const val NOT_FOUND = -1
+        const val NO_ROW = -1
+        private const val INITIAL_CAPACITY = 16
+
+        // Chosen per process, so that rpis which collide in the index cannot be computed ahead:
+        private val SEED = SecureRandom().nextLong()
+
+        private fun hash(high: Long, low: Long): Int {
+            return mix(high, low, SEED).toInt()
+        }
+
+        /**
+         * Hashes both halves of an rpi with the given secret seed. The rpis are received over
+         * BLE, so anybody can send chosen values instead of AES output. Both halves are mixed,
+         * so that rpis which differ in only a few bits still spread over all bits of the result.
+         */
+        internal fun mix(high: Long, low: Long, seed: Long): Long {
+            return fmix64(fmix64(high xor seed) + low)
+        }
+
+        /**
+         * The 64 bit finalizer of MurmurHash3.
+         */
+        private fun fmix64(value: Long): Long {
+            var h = value
+            h = h xor (h ushr 33)
+            h *= -0xae502812aa7333L // 0xff51afd7ed558ccd
+            h = h xor (h ushr 33)
+            h *= -0x3b314601e57a13adL // 0xc4ceb9fe1a85ec53
+            return h xor (h ushr 33)
+        }
+
+        internal fun readLong(buffer: ByteArray, offset: Int): Long {
+            var result = 0L
+            for (i in 0 until EnFrameworkConstants.RPI_LENGTH / 2) {
+                result = (result shl 8) or (buffer[offset + i].toLong() and 0xFF)
+            }
+            return result
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package org.coralibre.android.sdk.internal.matching
+
+import org.coralibre.android.sdk.internal.EnFrameworkConstants
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceInfo
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.Exposure
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.ExposureRecord
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.Match
+import org.coralibre.android.sdk.internal.util.Logging
+import java.util.Date
+import java.util.LinkedList
+import java.util.concurrent.TimeUnit
+import kotlin.math.roundToInt
+
+object ExposureUtils {
+    private val TAG = ExposureUtils::class.java.simpleName
+
+    private const val INITIAL_CAPACITY = 64
+
+    /**
+     * The sightings of one diagnosis key as parallel primitive arrays, sorted by capture time.
+     * One instance is kept per thread and reused for all keys.
+     */
+    private class Sightings {
+        var timestampsMillis = LongArray(INITIAL_CAPACITY)
+        var timesSeconds = IntArray(INITIAL_CAPACITY)
+        var attenuations = IntArray(INITIAL_CAPACITY)
+        var count = 0
+
+        /**
+         * Replaces the content with the given matches, sorted by capture timestamp. The sort is
+         * stable: matches with equal timestamps keep their order.
+         */
+        fun fill(matches: List<Match>, ownDeviceInfo: DeviceInfo) {
+            if (timestampsMillis.size < matches.size) {
+                val capacity = maxOf(matches.size, 2 * timestampsMillis.size)
+                timestampsMillis = LongArray(capacity)
+                timesSeconds = IntArray(capacity)
+                attenuations = IntArray(capacity)
+            }
+            count = 0
+            // The matches are usually already sorted (see RpiMatcher.findMatches(...)), so an
+            // insertion sort takes linear time:
+            for (match in matches) {
+                val timestampMillis = match.captureTimestampMillis
+                val timeSeconds = timeSeconds(match)
+                val attenuation = attenuation(match, ownDeviceInfo)
+                var i = count
+                while (i > 0 && timestampsMillis[i - 1] > timestampMillis) {
+                    timestampsMillis[i] = timestampsMillis[i - 1]
+                    timesSeconds[i] = timesSeconds[i - 1]
+                    attenuations[i] = attenuations[i - 1]
+                    i--
+                }
+                timestampsMillis[i] = timestampMillis
+                timesSeconds[i] = timeSeconds
+                attenuations[i] = attenuation
+                count++
+            }
+        }
+    }
+
+    private val sightingsBuffer = object : ThreadLocal<Sightings>() {
+        override fun initialValue() = Sightings()
+    }
+
+    // Based on TimeAndAttenuation of the google sample code:
+    private fun attenuation(match: Match, ownDeviceInfo: DeviceInfo): Int {
+        val rssiMeasured = match.rssi.toInt()
+        val txPower = match.metadata.transmitPowerLevel
+        val rssiCorrection = ownDeviceInfo.rssiCorrection
+        return txPower - (rssiMeasured - rssiCorrection)
+    }
+
+    // Seconds since Epoch fit into an Int until 2038:
+    private fun timeSeconds(match: Match): Int {
+        return (match.captureTimestampMillis / 1000).toInt()
+    }
+
+    /**
+     * Collects consecutive matches from all matches for a single rpik and creates Exposure
+     * objects from these blocks of consecutive matches.
+     *
+     * The matches are sorted once into per thread primitive arrays, from which each exposure is
+     * computed in a single pass. Apart from the Exposure objects, nothing is allocated per match.
+     * @param matches an (unordered) list of matches for the same rpik
+     * @return a list of Exposure objects for that rpik
+     */
+    @JvmStatic
+    fun exposuresFromMatches(
+        matches: LinkedList<Match>,
+        exposureConfiguration: RiskScoringConfiguration,
+        diagnosisKey: DiagnosisKey,
+        ownDeviceInfo: DeviceInfo
+    ): List<Exposure> {
+        val sightings = sightingsBuffer.get()!!
+        sightings.fill(matches, ownDeviceInfo)
+
+        // Now assemble Exposure objects from consecutive sightings that have only a small
+        // difference in the capture time:
+        val maxGapMillis = EnFrameworkConstants.MAX_EXPOSURE_INTERPOLATION_DURATION_SECONDS * 1000
+        val exposures = LinkedList<Exposure>()
+        var from = 0
+        for (i in 1..sightings.count) {
+            if (i < sightings.count &&
+                sightings.timestampsMillis[i] - sightings.timestampsMillis[i - 1] <= maxGapMillis
+            ) {
+                continue
+            }
+            val exposure = fromOrderedSightings(
+                sightings, from, i, exposureConfiguration, diagnosisKey
+            )
+            if (exposure != null) {
+                exposures.addLast(exposure)
+            }
+            from = i
+        }
+        return exposures
+    }
+
+    /**
+     * Calculates the part of a period (from scan 1 to scan 2, see Period of the google sample
+     * code) during which the attenuation is at or above the threshold. The rest of the period
+     * is below the threshold.
+     *
+     * Set `interpolate` to `true` to use linear interpolation of the attenuation values.
+     */
+    private fun timeAboveThreshold(
+        time1: Int,
+        attenuation1: Int,
+        time2: Int,
+        attenuation2: Int,
+        threshold: Int,
+        interpolate: Boolean
+    ): Int {
+        var timeCross = time1
+        val attenuationDiff = attenuation2 - attenuation1
+        if (interpolate && attenuationDiff != 0) {
+            // calculate the time at which the interpolated attenuation equals the threshold.
+            timeCross = (
+                time1 +
+                    (threshold - attenuation1) /
+                    attenuationDiff.toDouble() *
+                    (time2 - time1)
+                ).roundToInt()
+        }
+
+        // No cross in the interval.
+        if (timeCross <= time1 || timeCross >= time2) {
+            // The entire interval is either above or below the threshold.
+            return if (attenuation1 >= threshold) time2 - time1 else 0
+        }
+        // Cross in the interval, see how much is above.
+        return if (attenuation1 >= threshold) {
+            // The left hand side is above threshold
+            timeCross - time1
+        } else {
+            // The right hand side is above the threshold
+            time2 - timeCross
+        }
+    }
+
+    // TODO understand, why this is done and verify that it has to be done
+    /**
+     * For every observation of a sighting (which occurs at `scanInterval`, our best estimate
+     * for the duration of exposure is `scanInterval`. Therefore, to calculate exposure
+     * duration, `scanInterval` must be added and the estimate must be rounded to the nearest
+     * `scanInterval` increment.
+     */
+    private fun bucketizeDurationSeconds(
+        sightedScanDurationSeconds: Long,
+        scanIntervalSeconds: Long
+    ): Long {
+        val estimatedExposureDuration = sightedScanDurationSeconds + scanIntervalSeconds
+        val mod = estimatedExposureDuration % scanIntervalSeconds
+        return if (mod <= scanIntervalSeconds / 2) {
+            estimatedExposureDuration - mod
+        } else estimatedExposureDuration + scanIntervalSeconds - mod
+    }
+
+    /**
+     * Walks the periods between consecutive sightings (based on the google sample code) and
+     * computes the time-weighted attenuation as well as the durations below, between and above
+     * the attenuation thresholds in the same pass.
+     * @param sightings the sightings of a key, sorted by capture timestamp (ascending)
+     * @param from the first sighting belonging to the exposure
+     * @param to the sighting after the last one belonging to the exposure
+     * @return the created Exposure object, if the contact was enough to make for a valid exposure, null otherwise
+     */
+    private fun fromOrderedSightings(
+        sightings: Sightings,
+        from: Int,
+        to: Int,
+        exposureConfiguration: RiskScoringConfiguration,
+        diagnosisKey: DiagnosisKey
+    ): Exposure? {
+        val timesSeconds = sightings.timesSeconds
+        val attenuations = sightings.attenuations
+        val bucketizedDurationSeconds = bucketizeDurationSeconds(
+            (sightings.timestampsMillis[to - 1] - sightings.timestampsMillis[from]) / 1000,
+            EnFrameworkConstants.SCAN_INTERVAL_SECONDS
+        )
+        val thresholdLow = exposureConfiguration.durationAtAttenuationLowThreshold
+        val thresholdHigh = exposureConfiguration.durationAtAttenuationHighThreshold
+        val interpolate = EnFrameworkConstants.INTERPOLATION_ENABLED
+
+        // There are fake start and end boundary scans with the same attenuation as the first and
+        // last ones. The start one is the initial 'previous' scan, the end one is visited in the
+        // last iteration (i == to).
+        val timeMargin = (EnFrameworkConstants.SCAN_INTERVAL_SECONDS / 2).toInt()
+        var previousTime = timesSeconds[from] - timeMargin
+        var previousAttenuation = attenuations[from]
+        var attenuationSum = 0.0
+        var durationSum = 0.0
+        var totalTime = 0
+        var timeAboveLow = 0
+        var timeAboveHigh = 0
+        for (i in from..to) {
+            val time = if (i < to) timesSeconds[i] else timesSeconds[to - 1] + timeMargin
+            val attenuation = if (i < to) attenuations[i] else attenuations[to - 1]
+            // Nothing to do for 0-length segments.
+            if (time == previousTime) {
+                continue
+            }
+            val durationSeconds = time - previousTime
+            attenuationSum += previousAttenuation * durationSeconds.toDouble()
+            durationSum += durationSeconds.toDouble()
+            totalTime += durationSeconds
+            timeAboveLow += timeAboveThreshold(
+                previousTime, previousAttenuation, time, attenuation, thresholdLow, interpolate
+            )
+            timeAboveHigh += timeAboveThreshold(
+                previousTime, previousAttenuation, time, attenuation, thresholdHigh, interpolate
+            )
+            previousTime = time
+            previousAttenuation = attenuation
+        }
+        val weightedAttenuation = (attenuationSum / durationSum).roundToInt()
+        val timeBelowLow = totalTime - timeAboveLow
+        // Written explicitly to avoid confusion.
+        val timeBetween = totalTime - timeBelowLow - timeAboveHigh
+
+        val longEnough =
+            bucketizedDurationSeconds >= EnFrameworkConstants.MIN_BUCKETIZED_DURATION_SECONDS
+        val logger = Logging.logger
+        if (logger.debugEnabled) {
+            logger.d(
+                TAG,
+                "Bucketed duration=${bucketizedDurationSeconds / 60}m >= min_duration=" +
+                    "${EnFrameworkConstants.MIN_BUCKETIZED_DURATION_SECONDS / 60}m ? $longEnough."
+            )
+        }
+        if (!longEnough) {
+            return null
+        }
+
+        if (logger.debugEnabled) {
+            logger.d(TAG, "Found exposure.")
+        }
+        val millisSinceEpoch = diagnosisKey.interval.unixTime * 1000
+        val timeNow = Date().time
+        val daysSinceExposure = TimeUnit.MILLISECONDS.toDays(timeNow - millisSinceEpoch)
+            .toInt()
+        val tmpExposureRecord = ExposureRecord(
+            millisSinceEpoch,
+            bucketizedDurationSeconds,
+            weightedAttenuation,
+            diagnosisKey.transmissionRiskLevel,
+            daysSinceExposure
+        )
+        val riskScore =
+            RiskScoreCalculator.calculateRiskScore(tmpExposureRecord, exposureConfiguration)
+        return Exposure(
+            millisSinceEpoch,
+            bucketizedDurationSeconds,
+            daysSinceExposure,
+            weightedAttenuation,
+            diagnosisKey.transmissionRiskLevel,
+            riskScore,
+            timeBelowLow,
+            timeBetween,
+            timeAboveHigh
+        )
+    }
+}
@@ -0,0 +1,245 @@
+package org.coralibre.android.sdk.internal.matching
+
+import org.coralibre.android.sdk.internal.EnFrameworkConstants
+import org.coralibre.android.sdk.internal.datatypes.AssociatedMetadata
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceInfo
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.DaySummary
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.Window
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.WindowScan
+import java.util.ArrayList
+import java.util.TreeMap
+import java.util.concurrent.TimeUnit
+
+/**
+ * Folds the matched sightings of diagnosis keys into exposure windows (one per key and UTC day)
+ * and daily summaries while they are passed on by the matcher (see
+ * RpiMatcher.forEachMatchedSighting(...)), so no Match objects are collected first.
+ *
+ * Keys are processed one after the other: beginKey(...), the key's sightings, endKey(). A window
+ * is closed when a sighting of another day arrives and at the end of the key.
+ *
+ * The report type and infectiousness of the windows of a key are taken from the key, as mapped by
+ * the given KeyDataMapping. Like in the EN framework, revoked keys and keys without
+ * infectiousness have no windows.
+ *
+ * Unless 'keepWindows' is set, only the scores of the open window are kept, and every closed
+ * window is folded into the summary of its day right away. The memory required then depends on
+ * the number of days only, not on the number of sightings.
+ *
+ * Instances are not thread safe. The results of aggregators for disjoint sets of keys can be
+ * combined with merge(...).
+ *
+ * @param scoringConfiguration the weights for the daily summaries, null if only the windows are
+ * required
+ * @param keepWindows whether the windows and their scans are collected for getWindows()
+ */
+class ExposureWindowAggregator(
+    private val ownDeviceInfo: DeviceInfo,
+    private val keyDataMapping: KeyDataMapping,
+    private val scoringConfiguration: WindowScoringConfiguration?,
+    private val keepWindows: Boolean
+) : MatchedSightingConsumer {
+    private class DayAccumulator {
+        var maximumScore = 0.0
+        var scoreSum = 0.0
+        var weightedDurationSum = 0.0
+
+        fun add(score: Double, weightedDuration: Double) {
+            maximumScore = maxOf(maximumScore, score)
+            scoreSum += score
+            weightedDurationSum += weightedDuration
+        }
+
+        fun add(other: DayAccumulator) {
+            maximumScore = maxOf(maximumScore, other.maximumScore)
+            scoreSum += other.scoreSum
+            weightedDurationSum += other.weightedDurationSum
+        }
+    }
+
+    private val windows: MutableList<Window> = ArrayList()
+
+    // The accumulators of each day by report type:
+    private val days = TreeMap<Int, TreeMap<Int, DayAccumulator>>()
+
+    private var diagnosisKey: DiagnosisKey? = null
+    private var reportType = REPORT_TYPE_CONFIRMED_TEST
+    private var infectiousness = INFECTIOUSNESS_STANDARD
+    private var ignoreKey = false
+
+    // The open window:
+    private var windowDay = NO_DAY
+    private var lastScanMillis = 0L
+    private var scans: MutableList<WindowScan> = ArrayList()
+    private var weightedDurationSeconds = 0.0
+
+    /**
+     * @return false if the key has no windows (e.g. because it has been revoked), so its
+     * sightings do not have to be matched
+     */
+    fun beginKey(diagnosisKey: DiagnosisKey): Boolean {
+        check(this.diagnosisKey == null) { "endKey() has not been called for the previous key" }
+        this.diagnosisKey = diagnosisKey
+        reportType = if (diagnosisKey.reportType == DiagnosisKey.REPORT_TYPE_UNKNOWN) {
+            keyDataMapping.reportTypeWhenMissing
+        } else {
+            diagnosisKey.reportType
+        }
+        val daysSinceOnsetOfSymptoms = diagnosisKey.daysSinceOnsetOfSymptoms
+        infectiousness =
+            if (daysSinceOnsetOfSymptoms == DiagnosisKey.DAYS_SINCE_ONSET_OF_SYMPTOMS_UNKNOWN) {
+                keyDataMapping.infectiousnessWhenDaysSinceOnsetMissing
+            } else {
+                keyDataMapping.getInfectiousness(daysSinceOnsetOfSymptoms)
+            }
+        ignoreKey = reportType == REPORT_TYPE_REVOKED || infectiousness == INFECTIOUSNESS_NONE
+        return !ignoreKey
+    }
+
+    override fun onSighting(
+        metadata: AssociatedMetadata,
+        captureTimestampMillis: Long,
+        lastCaptureTimestampMillis: Long,
+        rssi: Byte,
+        maxRssi: Byte
+    ) {
+        checkNotNull(diagnosisKey) { "beginKey(...) has not been called" }
+        if (ignoreKey) {
+            return
+        }
+        val day = TimeUnit.MILLISECONDS.toDays(captureTimestampMillis).toInt()
+        val secondsSinceLastScan: Int
+        if (day != windowDay) {
+            closeWindow()
+            windowDay = day
+            // There is no previous scan, so the scan is assumed to stand for a whole interval:
+            secondsSinceLastScan = EnFrameworkConstants.SCAN_INTERVAL_SECONDS.toInt()
+        } else {
+            // Gaps without sightings do not count as exposure:
+            secondsSinceLastScan = TimeUnit.MILLISECONDS
+                .toSeconds(lastCaptureTimestampMillis - lastScanMillis)
+                .coerceIn(0, EnFrameworkConstants.SCAN_INTERVAL_SECONDS)
+                .toInt()
+        }
+        lastScanMillis = lastCaptureTimestampMillis
+
+        val txPower = metadata.transmitPowerLevel
+        val typicalAttenuationDb = attenuation(txPower, rssi)
+        if (scoringConfiguration != null) {
+            weightedDurationSeconds += secondsSinceLastScan *
+                scoringConfiguration.getAttenuationWeight(typicalAttenuationDb)
+        }
+        if (keepWindows) {
+            scans.add(
+                WindowScan(
+                    typicalAttenuationDb,
+                    attenuation(txPower, maxRssi),
+                    secondsSinceLastScan
+                )
+            )
+        }
+    }
+
+    fun endKey() {
+        closeWindow()
+        diagnosisKey = null
+    }
+
+    // Same as in ExposureUtils:
+    private fun attenuation(txPower: Int, rssi: Byte): Int {
+        return txPower - (rssi.toInt() - ownDeviceInfo.rssiCorrection)
+    }
+
+    private fun closeWindow() {
+        if (windowDay == NO_DAY) {
+            return
+        }
+        if (keepWindows) {
+            windows.add(
+                Window(
+                    TimeUnit.DAYS.toMillis(windowDay.toLong()),
+                    reportType,
+                    infectiousness,
+                    diagnosisKey!!.transmissionRiskLevel,
+                    scans
+                )
+            )
+            scans = ArrayList()
+        }
+        if (scoringConfiguration != null) {
+            val score = weightedDurationSeconds *
+                scoringConfiguration.getReportTypeWeight(reportType) *
+                scoringConfiguration.getInfectiousnessWeight(infectiousness)
+            if (score >= scoringConfiguration.minimumWindowScore) {
+                days.getOrPut(windowDay) { TreeMap() }
+                    .getOrPut(reportType) { DayAccumulator() }
+                    .add(score, weightedDurationSeconds)
+            }
+        }
+        windowDay = NO_DAY
+        weightedDurationSeconds = 0.0
+    }
+
+    /**
+     * Adds the results of another aggregator, e.g. one that has processed another chunk of keys.
+     */
+    fun merge(other: ExposureWindowAggregator) {
+        windows.addAll(other.windows)
+        for ((day, reportTypes) in other.days) {
+            val dayReportTypes = days.getOrPut(day) { TreeMap() }
+            for ((reportType, accumulator) in reportTypes) {
+                dayReportTypes.getOrPut(reportType) { DayAccumulator() }.add(accumulator)
+            }
+        }
+    }
+
+    /**
+     * @return the closed windows, in the order of the keys
+     */
+    fun getWindows(): List<Window> {
+        check(keepWindows) { "Windows are not kept" }
+        return windows
+    }
+
+    /**
+     * @param nowMillis the current time, for the daysSinceExposureThreshold of the scoring
+     * configuration
+     * @return the summaries of every report type of every day with at least one window, in
+     * ascending order of the day and the report type
+     */
+    fun getDailySummaries(nowMillis: Long): List<DaySummary> {
+        val configuration = checkNotNull(scoringConfiguration) { "No scoring configuration" }
+        val today = TimeUnit.MILLISECONDS.toDays(nowMillis).toInt()
+        val result: MutableList<DaySummary> = ArrayList(days.size)
+        for ((day, reportTypes) in days) {
+            if (configuration.daysSinceExposureThreshold > 0 &&
+                today - day > configuration.daysSinceExposureThreshold
+            ) {
+                continue
+            }
+            for ((reportType, accumulator) in reportTypes) {
+                result.add(
+                    DaySummary(
+                        day,
+                        reportType,
+                        accumulator.maximumScore,
+                        accumulator.scoreSum,
+                        accumulator.weightedDurationSum
+                    )
+                )
+            }
+        }
+        return result
+    }
+
+    companion object {
+        private const val NO_DAY = Int.MIN_VALUE
+
+        // The values of the ReportType and Infectiousness constants of the sdk module:
+        const val REPORT_TYPE_CONFIRMED_TEST = 1
+        const val REPORT_TYPE_REVOKED = 5
+        const val INFECTIOUSNESS_NONE = 0
+        const val INFECTIOUSNESS_STANDARD = 1
+    }
+}
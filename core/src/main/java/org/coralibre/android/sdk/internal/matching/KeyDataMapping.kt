@@ -0,0 +1,42 @@
+package org.coralibre.android.sdk.internal.matching
+
+/**
+ * Maps the report type and the days since onset of symptoms of a diagnosis key to the report
+ * type and infectiousness of its exposure windows. Implemented by the DiagnosisKeysDataMapping of
+ * the sdk module, so that the matching does not depend on the API classes.
+ */
+interface KeyDataMapping {
+    /**
+     * The report type of keys whose key file does not set one
+     */
+    val reportTypeWhenMissing: Int
+
+    /**
+     * The infectiousness of keys whose key file does not set the days since onset of symptoms
+     */
+    val infectiousnessWhenDaysSinceOnsetMissing: Int
+
+    /**
+     * @return the infectiousness of a key with the given days since onset of symptoms
+     */
+    fun getInfectiousness(daysSinceOnsetOfSymptoms: Int): Int
+
+    companion object {
+        /**
+         * Used until a mapping has been set: every key without a report type is a confirmed
+         * test, and every key has standard infectiousness.
+         */
+        @JvmField
+        val DEFAULT: KeyDataMapping = object : KeyDataMapping {
+            override val reportTypeWhenMissing: Int
+                get() = ExposureWindowAggregator.REPORT_TYPE_CONFIRMED_TEST
+
+            override val infectiousnessWhenDaysSinceOnsetMissing: Int
+                get() = ExposureWindowAggregator.INFECTIOUSNESS_STANDARD
+
+            override fun getInfectiousness(daysSinceOnsetOfSymptoms: Int): Int {
+                return ExposureWindowAggregator.INFECTIOUSNESS_STANDARD
+            }
+        }
+    }
+}
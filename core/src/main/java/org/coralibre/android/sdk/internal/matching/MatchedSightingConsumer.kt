@@ -0,0 +1,25 @@
+package org.coralibre.android.sdk.internal.matching
+
+import org.coralibre.android.sdk.internal.datatypes.AssociatedMetadata
+
+/**
+ * Receives the matched sightings of a diagnosis key from RpiMatcher.forEachMatchedSighting(...),
+ * one call per captured row, without creating a Match object for it.
+ */
+fun interface MatchedSightingConsumer {
+    /**
+     * @param metadata the decrypted metadata of the sighting
+     * @param captureTimestampMillis the time of the first sighting of the row
+     * @param lastCaptureTimestampMillis the time of the last sighting of the row, the same as
+     * 'captureTimestampMillis' if the row is not aggregated
+     * @param rssi the (mean) rssi of the row
+     * @param maxRssi the max rssi of the row
+     */
+    fun onSighting(
+        metadata: AssociatedMetadata,
+        captureTimestampMillis: Long,
+        lastCaptureTimestampMillis: Long,
+        rssi: Byte,
+        maxRssi: Byte
+    )
+}
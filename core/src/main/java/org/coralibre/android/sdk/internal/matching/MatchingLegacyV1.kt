@@ -0,0 +1,137 @@
+package org.coralibre.android.sdk.internal.matching
+
+import org.coralibre.android.sdk.internal.crypto.CryptoPrimitives
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey
+import org.coralibre.android.sdk.internal.datatypes.IntervalOfCapturedData
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceInfo
+import org.coralibre.android.sdk.internal.matching.ExposureUtils.exposuresFromMatches
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.Exposure
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.KeyMatches
+import java.util.ArrayList
+import java.util.LinkedList
+
+/**
+ * Provides static methods to check if matches exist and to compute the Exposure objects from
+ * that ExposureInfoAssembler (sdk module) builds ExposureSummary/ExposureInformation objects.
+ * This class and all calculations it performs should not access the database, but receive all
+ * data required for the computations as (method) parameters.
+ */
+object MatchingLegacyV1 {
+    // TODO add more logs for debugging
+    val TAG = MatchingLegacyV1::class.java.simpleName
+
+    /**
+     * Computes the rpis of each diagnosis key's rolling period and looks them up in an index
+     * built from the given payloads.
+     * @return true, iff at least one payload with a matching rpi has been found
+     */
+    @JvmStatic
+    fun hasMatches(
+        diagnosisKeys: List<DiagnosisKey>,
+        payloadIntervals: Iterable<IntervalOfCapturedData>
+    ): Boolean {
+        return hasMatches(diagnosisKeys, CapturedDataIndex(payloadIntervals))
+    }
+
+    /**
+     * @param index an index over the collected bluetooth payloads, see CapturedDataIndex
+     * @return true, iff at least one payload with a matching rpi has been found
+     */
+    @JvmStatic
+    fun hasMatches(
+        diagnosisKeys: List<DiagnosisKey>,
+        index: CapturedDataIndex
+    ): Boolean {
+        for (diagKey in diagnosisKeys) {
+            if (RpiMatcher.hasMatch(diagKey, index)) {
+                return true
+            }
+        }
+        return false
+    }
+
+    /**
+     * @return the diagnosis keys for that at least one payload with a matching rpi has been
+     * found, in the same order as in 'diagnosisKeys'
+     */
+    @JvmStatic
+    fun filterMatchingKeys(
+        diagnosisKeys: List<DiagnosisKey>,
+        index: CapturedDataIndex
+    ): List<DiagnosisKey> {
+        val matchingKeys: MutableList<DiagnosisKey> = ArrayList()
+        for (diagKey in diagnosisKeys) {
+            if (RpiMatcher.hasMatch(diagKey, index)) {
+                matchingKeys.add(diagKey)
+            }
+        }
+        return matchingKeys
+    }
+
+    /**
+     * Cheap prefilter for filterMatchingKeys(...): only the keys returned by this method can
+     * have matches.
+     * @param filter a Bloom filter over the rpis of all collected bluetooth payloads
+     * @return the diagnosis keys for that at least one rpi might have been captured, in the same
+     * order as in 'diagnosisKeys'
+     */
+    @JvmStatic
+    fun filterCandidateKeys(
+        diagnosisKeys: List<DiagnosisKey>,
+        filter: RpiBloomFilter
+    ): List<DiagnosisKey> {
+        val candidateKeys: MutableList<DiagnosisKey> = ArrayList()
+        for (diagKey in diagnosisKeys) {
+            if (RpiMatcher.mightHaveMatch(diagKey, filter)) {
+                candidateKeys.add(diagKey)
+            }
+        }
+        return candidateKeys
+    }
+
+    /**
+     * Collects all matches per diagnosis key. Keys without any match are omitted.
+     * @return the matches per key, in the same order as the keys in 'diagnosisKeys'
+     */
+    @JvmStatic
+    fun findAllMatches(
+        diagnosisKeys: List<DiagnosisKey>,
+        index: CapturedDataIndex
+    ): List<KeyMatches> {
+        val matchesPerKey: MutableList<KeyMatches> = ArrayList()
+        for (diagKey in diagnosisKeys) {
+            val rpik = CryptoPrimitives.generateRPIK(diagKey.keyData)
+            val matches = RpiMatcher.findMatches(diagKey, rpik, index)
+            if (matches.isNotEmpty()) {
+                matchesPerKey.add(KeyMatches(diagKey, matches))
+            }
+        }
+        return matchesPerKey
+    }
+
+    /**
+     * Combines the matches of each diagnosis key to Exposure objects. Per key, multiple Exposure
+     * objects might be created.
+     * @param matchesPerKey the matches per diagnosis key, as returned by findAllMatches(...)
+     * @param exposureConfiguration used for the risk value computation of the exposures
+     * @param ownDeviceInfo device info to compute the bluetooth attenuation value
+     */
+    @JvmStatic
+    fun findAllExposures(
+        matchesPerKey: List<KeyMatches>,
+        exposureConfiguration: RiskScoringConfiguration,
+        ownDeviceInfo: DeviceInfo
+    ): List<Exposure> {
+        val allExposures: MutableList<Exposure> = LinkedList()
+        for (keyMatches in matchesPerKey) {
+            val exposures = exposuresFromMatches(
+                keyMatches.matches,
+                exposureConfiguration,
+                keyMatches.diagnosisKey,
+                ownDeviceInfo
+            )
+            allExposures.addAll(exposures)
+        }
+        return allExposures
+    }
+}
@@ -0,0 +1,74 @@
+package org.coralibre.android.sdk.internal.matching
+
+import org.coralibre.android.sdk.internal.crypto.CryptoPrimitives
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceInfo
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.DaySummary
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.Window
+
+/**
+ * Computes exposure windows and daily summaries (the "v2" results of the EN framework) from that
+ * the sdk module builds its ExposureWindow/DailySummary objects. Like MatchingLegacyV1, this class
+ * does not access the database.
+ *
+ * The matched sightings are streamed from the matcher into an ExposureWindowAggregator, so no
+ * Match objects are created.
+ */
+object MatchingV2 {
+    /**
+     * Passes the matched sightings of all given keys to the aggregator.
+     */
+    @JvmStatic
+    fun aggregate(
+        diagnosisKeys: List<DiagnosisKey>,
+        index: CapturedDataIndex,
+        aggregator: ExposureWindowAggregator
+    ) {
+        for (diagKey in diagnosisKeys) {
+            if (aggregator.beginKey(diagKey)) {
+                val rpik = CryptoPrimitives.generateRPIK(diagKey.keyData)
+                RpiMatcher.forEachMatchedSighting(diagKey, rpik, index, aggregator)
+            }
+            aggregator.endKey()
+        }
+    }
+
+    /**
+     * @param keyDataMapping maps the report type and days since onset of the keys to the windows
+     * @param ownDeviceInfo device info to compute the bluetooth attenuation values
+     * @return one window per key and day with at least one matched sighting, in the order of the
+     * keys in 'diagnosisKeys'
+     */
+    @JvmStatic
+    fun findExposureWindows(
+        diagnosisKeys: List<DiagnosisKey>,
+        index: CapturedDataIndex,
+        keyDataMapping: KeyDataMapping,
+        ownDeviceInfo: DeviceInfo
+    ): List<Window> {
+        val aggregator = ExposureWindowAggregator(ownDeviceInfo, keyDataMapping, null, true)
+        aggregate(diagnosisKeys, index, aggregator)
+        return aggregator.getWindows()
+    }
+
+    /**
+     * Scores the windows of the given keys without keeping them.
+     * @param nowMillis the current time, see ExposureWindowAggregator.getDailySummaries(...)
+     * @return the summaries of every report type of every day with at least one window, in
+     * ascending order
+     */
+    @JvmStatic
+    fun findDailySummaries(
+        diagnosisKeys: List<DiagnosisKey>,
+        index: CapturedDataIndex,
+        keyDataMapping: KeyDataMapping,
+        scoringConfiguration: WindowScoringConfiguration,
+        ownDeviceInfo: DeviceInfo,
+        nowMillis: Long
+    ): List<DaySummary> {
+        val aggregator =
+            ExposureWindowAggregator(ownDeviceInfo, keyDataMapping, scoringConfiguration, false)
+        aggregate(diagnosisKeys, index, aggregator)
+        return aggregator.getDailySummaries(nowMillis)
+    }
+}
@@ -0,0 +1,255 @@
+package org.coralibre.android.sdk.internal.matching
+
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceInfo
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.DaySummary
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.KeyMatches
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.Window
+import org.coralibre.android.sdk.internal.util.CancellationCheck
+import java.util.ArrayList
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Matches diagnosis keys against a CapturedDataIndex on multiple threads.
+ *
+ * Matching is independent for each diagnosis key (rpik derivation, rpi derivation and index
+ * lookups), so the key list is split into chunks of 'chunkSize' keys, which are processed on the
+ * given executor. The per chunk results are merged in chunk order, so the result is identical to
+ * the one of the sequential MatchingLegacyV1.findAllMatches(...).
+ *
+ * The methods that take a CancellationCheck check it before each chunk, and throw a
+ * java.util.concurrent.CancellationException if it requests cancellation.
+ *
+ * @param executor the executor the chunks are processed on. By default, a pool with one thread
+ * per available core is used.
+ * @param chunkSize the number of keys that are matched as one unit of work. Key lists that do not
+ * exceed a single chunk are matched on the calling thread.
+ */
+class ParallelMatcher @JvmOverloads constructor(
+    private val executor: ExecutorService = defaultExecutor,
+    private val chunkSize: Int = DEFAULT_CHUNK_SIZE
+) {
+    init {
+        require(chunkSize > 0) { "chunkSize must be positive" }
+    }
+
+    /**
+     * Parallel version of MatchingLegacyV1.hasMatches(...). As soon as one match has been found,
+     * the remaining chunks stop matching.
+     */
+    fun hasMatches(diagnosisKeys: List<DiagnosisKey>, index: CapturedDataIndex): Boolean {
+        if (diagnosisKeys.size <= chunkSize) {
+            return MatchingLegacyV1.hasMatches(diagnosisKeys, index)
+        }
+        val matchFound = AtomicBoolean(false)
+        val chunkResults = forEachChunk(diagnosisKeys) { chunk ->
+            for (diagKey in chunk) {
+                if (matchFound.get()) {
+                    break
+                }
+                if (RpiMatcher.hasMatch(diagKey, index)) {
+                    matchFound.set(true)
+                }
+            }
+            matchFound.get()
+        }
+        return chunkResults.any { it }
+    }
+
+    /**
+     * Parallel version of MatchingLegacyV1.filterMatchingKeys(...).
+     * @return the matching keys, in the same order as in 'diagnosisKeys'
+     */
+    @JvmOverloads
+    fun filterMatchingKeys(
+        diagnosisKeys: List<DiagnosisKey>,
+        index: CapturedDataIndex,
+        cancellation: CancellationCheck = CancellationCheck.NEVER
+    ): List<DiagnosisKey> {
+        return filterKeys(diagnosisKeys, cancellation) { chunk ->
+            MatchingLegacyV1.filterMatchingKeys(chunk, index)
+        }
+    }
+
+    /**
+     * Parallel version of MatchingLegacyV1.filterCandidateKeys(...).
+     * @param filter must not be modified while this method runs
+     * @return the candidate keys, in the same order as in 'diagnosisKeys'
+     */
+    @JvmOverloads
+    fun filterCandidateKeys(
+        diagnosisKeys: List<DiagnosisKey>,
+        filter: RpiBloomFilter,
+        cancellation: CancellationCheck = CancellationCheck.NEVER
+    ): List<DiagnosisKey> {
+        return filterKeys(diagnosisKeys, cancellation) { chunk ->
+            MatchingLegacyV1.filterCandidateKeys(chunk, filter)
+        }
+    }
+
+    /**
+     * Parallel version of MatchingLegacyV1.findAllMatches(...).
+     * @return the matches per key, in the same order as the keys in 'diagnosisKeys'
+     */
+    @JvmOverloads
+    fun findAllMatches(
+        diagnosisKeys: List<DiagnosisKey>,
+        index: CapturedDataIndex,
+        cancellation: CancellationCheck = CancellationCheck.NEVER
+    ): List<KeyMatches> {
+        if (diagnosisKeys.size <= chunkSize) {
+            CancellationCheck.throwIfRequested(cancellation)
+            return MatchingLegacyV1.findAllMatches(diagnosisKeys, index)
+        }
+        val chunkResults = forEachChunk(diagnosisKeys, cancellation) { chunk ->
+            MatchingLegacyV1.findAllMatches(chunk, index)
+        }
+        val result: MutableList<KeyMatches> = ArrayList()
+        for (chunkResult in chunkResults) {
+            result.addAll(chunkResult)
+        }
+        return result
+    }
+
+    /**
+     * Parallel version of MatchingV2.findExposureWindows(...).
+     * @return the windows, in the order of the keys in 'diagnosisKeys'
+     */
+    fun findExposureWindows(
+        diagnosisKeys: List<DiagnosisKey>,
+        index: CapturedDataIndex,
+        keyDataMapping: KeyDataMapping,
+        ownDeviceInfo: DeviceInfo
+    ): List<Window> {
+        return aggregate(diagnosisKeys, index) {
+            ExposureWindowAggregator(ownDeviceInfo, keyDataMapping, null, true)
+        }.getWindows()
+    }
+
+    /**
+     * Parallel version of MatchingV2.findDailySummaries(...). Every chunk is aggregated into
+     * summaries of its own, which are merged afterwards.
+     */
+    fun findDailySummaries(
+        diagnosisKeys: List<DiagnosisKey>,
+        index: CapturedDataIndex,
+        keyDataMapping: KeyDataMapping,
+        scoringConfiguration: WindowScoringConfiguration,
+        ownDeviceInfo: DeviceInfo,
+        nowMillis: Long
+    ): List<DaySummary> {
+        return aggregate(diagnosisKeys, index) {
+            ExposureWindowAggregator(ownDeviceInfo, keyDataMapping, scoringConfiguration, false)
+        }.getDailySummaries(nowMillis)
+    }
+
+    private fun aggregate(
+        diagnosisKeys: List<DiagnosisKey>,
+        index: CapturedDataIndex,
+        createAggregator: () -> ExposureWindowAggregator
+    ): ExposureWindowAggregator {
+        val result = createAggregator()
+        if (diagnosisKeys.size <= chunkSize) {
+            MatchingV2.aggregate(diagnosisKeys, index, result)
+            return result
+        }
+        val chunkResults = forEachChunk(diagnosisKeys) { chunk ->
+            val aggregator = createAggregator()
+            MatchingV2.aggregate(chunk, index, aggregator)
+            aggregator
+        }
+        for (chunkResult in chunkResults) {
+            result.merge(chunkResult)
+        }
+        return result
+    }
+
+    private fun filterKeys(
+        diagnosisKeys: List<DiagnosisKey>,
+        cancellation: CancellationCheck,
+        filterChunk: (List<DiagnosisKey>) -> List<DiagnosisKey>
+    ): List<DiagnosisKey> {
+        if (diagnosisKeys.size <= chunkSize) {
+            CancellationCheck.throwIfRequested(cancellation)
+            return filterChunk(diagnosisKeys)
+        }
+        val result: MutableList<DiagnosisKey> = ArrayList()
+        for (chunkResult in forEachChunk(diagnosisKeys, cancellation, filterChunk)) {
+            result.addAll(chunkResult)
+        }
+        return result
+    }
+
+    /**
+     * Submits one task per chunk and waits for all of them.
+     * @param cancellation checked before each chunk is processed. Once it requests
+     * cancellation, the remaining chunks are skipped.
+     * @return the results of the tasks in chunk order
+     */
+    private fun <T> forEachChunk(
+        diagnosisKeys: List<DiagnosisKey>,
+        cancellation: CancellationCheck = CancellationCheck.NEVER,
+        task: (List<DiagnosisKey>) -> T
+    ): List<T> {
+        val futures: MutableList<Future<T>> = ArrayList()
+        try {
+            var chunkStart = 0
+            while (chunkStart < diagnosisKeys.size) {
+                val chunk = diagnosisKeys.subList(
+                    chunkStart,
+                    minOf(chunkStart + chunkSize, diagnosisKeys.size)
+                )
+                futures.add(
+                    executor.submit(
+                        Callable {
+                            CancellationCheck.throwIfRequested(cancellation)
+                            task(chunk)
+                        }
+                    )
+                )
+                chunkStart += chunkSize
+            }
+            val results: MutableList<T> = ArrayList(futures.size)
+            for (future in futures) {
+                results.add(future.get())
+            }
+            return results
+        } catch (e: ExecutionException) {
+            throw e.cause as? RuntimeException ?: RuntimeException(e.cause)
+        } finally {
+            // Only has an effect if waiting for one of the chunks failed:
+            for (future in futures) {
+                future.cancel(true)
+            }
+        }
+    }
+
+    companion object {
+        const val DEFAULT_CHUNK_SIZE = 256
+
+        /**
+         * Shared pool used by all ParallelMatcher instances that are created without an
+         * explicit executor. Its threads are daemon threads, so they never keep the process
+         * alive.
+         */
+        @JvmStatic
+        val defaultExecutor: ExecutorService by lazy {
+            val threadCount = AtomicInteger()
+            Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(),
+                ThreadFactory { runnable ->
+                    val thread = Thread(runnable, "en-matching-${threadCount.incrementAndGet()}")
+                    thread.isDaemon = true
+                    thread
+                }
+            )
+        }
+    }
+}
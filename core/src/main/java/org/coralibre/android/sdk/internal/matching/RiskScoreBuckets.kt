@@ -0,0 +1,71 @@
+package org.coralibre.android.sdk.internal.matching
+
+/**
+ * Maps raw exposure values to the bucket whose score is used from the eight element score
+ * arrays of an exposure configuration.
+ * @see <a href="https://developer.apple.com/documentation/exposurenotification/enexposureconfiguration">risk calculation algorithm details on developer.apple.com</a>
+ */
+object RiskScoreBuckets {
+    /**
+     * @param attenuationValue the bluetooth attenuation value from an exposure, in dB
+     */
+    @JvmStatic
+    fun attenuationScore(attenuationScores: IntArray, attenuationValue: Int): Int {
+        return when {
+            attenuationValue > 73 -> attenuationScores[0]
+            attenuationValue > 63 -> attenuationScores[1]
+            attenuationValue > 51 -> attenuationScores[2]
+            attenuationValue > 33 -> attenuationScores[3]
+            attenuationValue > 27 -> attenuationScores[4]
+            attenuationValue > 15 -> attenuationScores[5]
+            attenuationValue > 10 -> attenuationScores[6]
+            else -> attenuationScores[7]
+        }
+    }
+
+    /**
+     * @param daysSinceLastExposureValue the number of days since the last exposure
+     */
+    @JvmStatic
+    fun daysSinceLastExposureScore(
+        daysSinceLastExposureScores: IntArray,
+        daysSinceLastExposureValue: Int
+    ): Int {
+        return when {
+            daysSinceLastExposureValue >= 14 -> daysSinceLastExposureScores[0]
+            daysSinceLastExposureValue >= 12 -> daysSinceLastExposureScores[1]
+            daysSinceLastExposureValue >= 10 -> daysSinceLastExposureScores[2]
+            daysSinceLastExposureValue >= 8 -> daysSinceLastExposureScores[3]
+            daysSinceLastExposureValue >= 6 -> daysSinceLastExposureScores[4]
+            daysSinceLastExposureValue >= 4 -> daysSinceLastExposureScores[5]
+            daysSinceLastExposureValue >= 2 -> daysSinceLastExposureScores[6]
+            else -> daysSinceLastExposureScores[7]
+        }
+    }
+
+    /**
+     * @param durationValue the duration of an exposure, in minutes
+     */
+    @JvmStatic
+    fun durationScore(durationScores: IntArray, durationValue: Int): Int {
+        return when {
+            durationValue <= 0 -> durationScores[0] // using <= instead of == just to be sure
+            durationValue <= 5 -> durationScores[1]
+            durationValue <= 10 -> durationScores[2]
+            durationValue <= 15 -> durationScores[3]
+            durationValue <= 20 -> durationScores[4]
+            durationValue <= 25 -> durationScores[5]
+            durationValue <= 30 -> durationScores[6]
+            else -> durationScores[7]
+        }
+    }
+
+    /**
+     * @param transmissionRiskValue the user defined risk value associated to an exposure,
+     * must be >= 0 and <= 7
+     */
+    @JvmStatic
+    fun transmissionRiskScore(transmissionRiskScores: IntArray, transmissionRiskValue: Int): Int {
+        return transmissionRiskScores[transmissionRiskValue]
+    }
+}
@@ -16,7 +16,6 @@
  */
 package org.coralibre.android.sdk.internal.matching
 
-import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureConfiguration
 import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.ExposureRecord
 import java.util.concurrent.TimeUnit
 
@@ -25,12 +24,12 @@ import java.util.concurrent.TimeUnit
  */
 object RiskScoreCalculator {
     /**
-     * Returns a V1 risk score. Returns 0 if calculated risk score is below [ ][ExposureConfiguration.getMinimumRiskScore]. Throws IllegalArgumentException on invalid input.
+     * Returns a V1 risk score. Returns 0 if calculated risk score is below [RiskScoringConfiguration.minimumRiskScore]. Throws IllegalArgumentException on invalid input.
      */
     @JvmStatic
-    internal fun calculateRiskScore(
+    fun calculateRiskScore(
         exposureRecord: ExposureRecord,
-        configuration: ExposureConfiguration
+        configuration: RiskScoringConfiguration
     ): Int {
         val riskScore = configuration.getRiskScore(
             exposureRecord.attenuationValue,
@@ -0,0 +1,35 @@
+package org.coralibre.android.sdk.internal.matching
+
+/**
+ * The part of an exposure configuration that is used for computing risk scores and attenuation
+ * durations. Implemented by the ExposureConfiguration of the sdk module, so that the matching
+ * does not depend on the (Parcelable) API classes.
+ *
+ * See ExposureConfiguration for the meaning of the values, RiskScoreBuckets for the bucketing of
+ * the raw exposure values.
+ */
+interface RiskScoringConfiguration {
+    val minimumRiskScore: Int
+
+    val durationAtAttenuationLowThreshold: Int
+
+    val durationAtAttenuationHighThreshold: Int
+
+    fun getAttenuationScore(attenuationValue: Int): Int
+
+    fun getDaysSinceLastExposureScore(daysSinceLastExposureValue: Int): Int
+
+    fun getDurationScore(durationValue: Int): Int
+
+    fun getTransmissionRiskScore(transmissionRiskValue: Int): Int
+
+    /**
+     * @return the product of the four scores above
+     */
+    fun getRiskScore(
+        attenuationValue: Int,
+        daysSinceLastExposureValue: Int,
+        durationValue: Int,
+        transmissionRiskValue: Int
+    ): Int
+}
@@ -0,0 +1,133 @@
+package org.coralibre.android.sdk.internal.matching
+
+import org.coralibre.android.sdk.internal.EnFrameworkConstants
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.security.SecureRandom
+
+/**
+ * A Bloom filter over rpis.
+ *
+ * mightContain(...) never returns false for an rpi that has been added, but may return true for
+ * an rpi that has not been added. It is used to reject diagnosis keys without looking at the
+ * captured payloads: only keys with at least one filter hit need an exact check.
+ *
+ * The two hash values of the double hashing scheme (h1 + i * h2) are computed from both halves
+ * of an rpi with the seeded hash of CapturedDataIndex. The rpis in the filter are received over
+ * BLE, so a sender could otherwise choose rpis that set or hit chosen bits. The seed is random
+ * per filter and stored with it (see writeTo(...)).
+ *
+ * This class is not thread safe. Objects that are shared between threads must not be modified.
+ */
+class RpiBloomFilter private constructor(
+    private val bits: LongArray,
+    val numHashes: Int,
+    private val seed: Long
+) {
+    @JvmOverloads
+    constructor(
+        numBits: Int = DEFAULT_NUM_BITS,
+        numHashes: Int = DEFAULT_NUM_HASHES
+    ) : this(LongArray(wordsFor(numBits)), numHashes, SecureRandom().nextLong())
+
+    init {
+        require(numHashes > 0) { "numHashes must be positive" }
+    }
+
+    val numBits: Int
+        get() = bits.size * Long.SIZE_BITS
+
+    fun copy(): RpiBloomFilter {
+        return RpiBloomFilter(bits.copyOf(), numHashes, seed)
+    }
+
+    fun add(rpi: ByteArray) {
+        add(rpi, 0)
+    }
+
+    /**
+     * Adds the rpi that starts at 'offset' in 'buffer'.
+     */
+    fun add(buffer: ByteArray, offset: Int) {
+        val high = CapturedDataIndex.readLong(buffer, offset)
+        val low = CapturedDataIndex.readLong(buffer, offset + EnFrameworkConstants.RPI_LENGTH / 2)
+        val h1 = CapturedDataIndex.mix(high, low, seed)
+        val h2 = CapturedDataIndex.mix(low, high, seed)
+        for (i in 0 until numHashes) {
+            val bit = bitIndex(h1, h2, i)
+            bits[bit ushr 6] = bits[bit ushr 6] or (1L shl bit)
+        }
+    }
+
+    fun mightContain(rpi: ByteArray): Boolean {
+        return mightContain(rpi, 0)
+    }
+
+    /**
+     * @return false, if the rpi that starts at 'offset' in 'buffer' has definitely not been
+     * added, true if it might have been added
+     */
+    fun mightContain(buffer: ByteArray, offset: Int): Boolean {
+        val high = CapturedDataIndex.readLong(buffer, offset)
+        val low = CapturedDataIndex.readLong(buffer, offset + EnFrameworkConstants.RPI_LENGTH / 2)
+        val h1 = CapturedDataIndex.mix(high, low, seed)
+        val h2 = CapturedDataIndex.mix(low, high, seed)
+        for (i in 0 until numHashes) {
+            val bit = bitIndex(h1, h2, i)
+            if (bits[bit ushr 6] and (1L shl bit) == 0L) {
+                return false
+            }
+        }
+        return true
+    }
+
+    private fun bitIndex(h1: Long, h2: Long, i: Int): Int {
+        val combined = h1 + i * h2
+        return ((combined and Long.MAX_VALUE) % numBits).toInt()
+    }
+
+    @Throws(IOException::class)
+    fun writeTo(output: DataOutputStream) {
+        output.writeInt(bits.size)
+        output.writeInt(numHashes)
+        output.writeLong(seed)
+        for (word in bits) {
+            output.writeLong(word)
+        }
+    }
+
+    companion object {
+        /**
+         * 256 KiB. With the default number of hashes, the false positive rate per rpi is about
+         * 0.015% for 100,000 distinct rpis, which is more than 14 days of aggregated sightings
+         * usually contain.
+         */
+        const val DEFAULT_NUM_BITS = 1 shl 21
+        const val DEFAULT_NUM_HASHES = 7
+
+        private fun wordsFor(numBits: Int): Int {
+            require(numBits > 0) { "numBits must be positive" }
+            return (numBits + Long.SIZE_BITS - 1) / Long.SIZE_BITS
+        }
+
+        /**
+         * Reads a filter that has been written with writeTo(...).
+         */
+        @JvmStatic
+        @Throws(IOException::class)
+        fun readFrom(input: DataInputStream): RpiBloomFilter {
+            val numWords = input.readInt()
+            val numHashes = input.readInt()
+            val seed = input.readLong()
+            if (numWords <= 0 || numHashes <= 0) {
+                throw IOException("invalid rpi filter header")
+            }
+            val bits = LongArray(numWords)
+            for (i in bits.indices) {
+                bits[i] = input.readLong()
+            }
+            return RpiBloomFilter(bits, numHashes, seed)
+        }
+    }
+}
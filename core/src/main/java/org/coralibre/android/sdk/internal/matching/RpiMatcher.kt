@@ -0,0 +1,208 @@
+package org.coralibre.android.sdk.internal.matching
+
+import org.coralibre.android.sdk.internal.EnFrameworkConstants
+import org.coralibre.android.sdk.internal.crypto.CryptoPrimitives
+import org.coralibre.android.sdk.internal.crypto.KeyDerivationCache
+import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadataKey
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey
+import org.coralibre.android.sdk.internal.datatypes.ENInterval
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifierKey
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.Match
+import org.coralibre.android.sdk.internal.metrics.Metrics
+import java.util.ArrayList
+import java.util.LinkedList
+
+/**
+ * Matches single diagnosis keys against a CapturedDataIndex.
+ *
+ * For every diagnosis key only the rpis of its own rolling period (one rpi per ENInterval,
+ * starting at the key's rolling start interval) are derived. Each of these candidate rpis is
+ * then looked up in the index, so the cost per key does not depend on the number of captured
+ * payloads.
+ *
+ * The candidate rpis are derived in a single batch into a per thread buffer. Objects are only
+ * created for actual matches.
+ */
+object RpiMatcher {
+    private const val RPIS_PER_KEY = EnFrameworkConstants.TEK_ROLLING_PERIOD
+
+    private val rpiBuffer = object : ThreadLocal<ByteArray>() {
+        override fun initialValue() = ByteArray(RPIS_PER_KEY * EnFrameworkConstants.RPI_LENGTH)
+    }
+
+    /**
+     * Derives all candidate rpis of the given key into the calling thread's rpi buffer, unless
+     * they are cached by the given cache. The result must not be modified.
+     */
+    private fun deriveCandidateRPIs(
+        diagnosisKey: DiagnosisKey,
+        rpik: RollingProximityIdentifierKey,
+        cache: KeyDerivationCache = CryptoPrimitives.derivationCache
+    ): ByteArray {
+        val startInterval = diagnosisKey.interval.get()
+        cache.rpis(diagnosisKey.keyData, startInterval, rpik)?.let {
+            return it
+        }
+        val candidates = rpiBuffer.get()!!
+        CryptoPrimitives.generateRPIs(rpik, startInterval, candidates)
+        return candidates
+    }
+
+    /**
+     * @param filter if given, only the candidate rpis that might be contained in the filter are
+     * returned
+     * @return the candidate rpis of the given keys as separate arrays, e.g. for looking up the
+     * sightings of a small set of keys with Database.getCollectedPayloadForRPIs(...) instead of
+     * indexing all captured payloads
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun candidateRPIs(
+        diagnosisKeys: List<DiagnosisKey>,
+        filter: RpiBloomFilter? = null
+    ): List<ByteArray> {
+        val result: MutableList<ByteArray> = ArrayList()
+        for (diagnosisKey in diagnosisKeys) {
+            val rpik = CryptoPrimitives.generateRPIK(diagnosisKey.keyData)
+            val candidates = deriveCandidateRPIs(diagnosisKey, rpik)
+            for (i in 0 until RPIS_PER_KEY) {
+                val offset = i * EnFrameworkConstants.RPI_LENGTH
+                if (filter == null || filter.mightContain(candidates, offset)) {
+                    result.add(
+                        candidates.copyOfRange(offset, offset + EnFrameworkConstants.RPI_LENGTH)
+                    )
+                }
+            }
+        }
+        return result
+    }
+
+    /**
+     * Called for every key of a key set, almost all of which are rejected, so the rpik is not
+     * taken from (nor added to) the derivation cache.
+     * @return false, if no rpi of the key's rolling period has been captured, true if one
+     * might have been captured
+     */
+    @JvmStatic
+    fun mightHaveMatch(diagnosisKey: DiagnosisKey, filter: RpiBloomFilter): Boolean {
+        val rpik = CryptoPrimitives.deriveRPIK(diagnosisKey.keyData)
+        val candidates = deriveCandidateRPIs(diagnosisKey, rpik)
+        for (i in 0 until RPIS_PER_KEY) {
+            if (filter.mightContain(candidates, i * EnFrameworkConstants.RPI_LENGTH)) {
+                return true
+            }
+        }
+        return false
+    }
+
+    /**
+     * @param cache the cache the key's rpik and rpis are taken from, e.g. one that caches the
+     * rpis of keys that are matched again and again
+     * @return true, iff at least one rpi of the key's rolling period has been captured
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun hasMatch(
+        diagnosisKey: DiagnosisKey,
+        index: CapturedDataIndex,
+        cache: KeyDerivationCache = CryptoPrimitives.derivationCache
+    ): Boolean {
+        if (index.isEmpty) {
+            return false
+        }
+        val rpik = cache.rpik(diagnosisKey.keyData)
+        val candidates = deriveCandidateRPIs(diagnosisKey, rpik, cache)
+        for (i in 0 until RPIS_PER_KEY) {
+            if (index.indexOf(candidates, i * EnFrameworkConstants.RPI_LENGTH) !=
+                CapturedDataIndex.NOT_FOUND
+            ) {
+                Metrics.INDEX_PROBES.add(i + 1L)
+                return true
+            }
+        }
+        Metrics.INDEX_PROBES.add(RPIS_PER_KEY.toLong())
+        return false
+    }
+
+    /**
+     * Collects a Match object for every sighting of an rpi that belongs to the given diagnosis
+     * key. Aggregated sightings yield a match for their first and one for their last sighting,
+     * both with the mean rssi. ExposureUtils joins both into the same exposure, so an aggregated
+     * row contributes the same time span and attenuation as the sightings it replaces, as long
+     * as their rssi did not vary within the scan.
+     * @param rpik the rpik derived from the diagnosis key; passed in so that callers that
+     * already derived it do not have to compute it twice
+     * @return the matches in ascending interval order, or an empty list if there are none
+     */
+    @JvmStatic
+    fun findMatches(
+        diagnosisKey: DiagnosisKey,
+        rpik: RollingProximityIdentifierKey,
+        index: CapturedDataIndex
+    ): LinkedList<Match> {
+        val matches = LinkedList<Match>()
+        forEachMatchedSighting(diagnosisKey, rpik, index) { metadata, firstMillis, lastMillis, rssi, _ ->
+            matches.add(Match(rpik, metadata, firstMillis, rssi))
+            // An aggregated record covers the time span from its first to its last sighting,
+            // which is represented by one match at either end, both with the mean rssi:
+            if (lastMillis != firstMillis) {
+                matches.add(Match(rpik, metadata, lastMillis, rssi))
+            }
+        }
+        return matches
+    }
+
+    /**
+     * Passes every captured row with an rpi that belongs to the given diagnosis key to the
+     * consumer, in ascending interval order (and in insertion order for rows of the same rpi).
+     * Apart from the decrypted metadata, nothing is allocated per row.
+     * @param rpik the rpik derived from the diagnosis key
+     */
+    @JvmStatic
+    fun forEachMatchedSighting(
+        diagnosisKey: DiagnosisKey,
+        rpik: RollingProximityIdentifierKey,
+        index: CapturedDataIndex,
+        consumer: MatchedSightingConsumer
+    ) {
+        if (index.isEmpty) {
+            return
+        }
+        val candidates = deriveCandidateRPIs(diagnosisKey, rpik)
+        val rollingStart = diagnosisKey.interval.get()
+        val sightings = index.sightings
+        var aemk: AssociatedEncryptedMetadataKey? = null
+        // Counted once per key instead of per probe, so that the matching threads do not
+        // contend for the counters:
+        var matchedRows = 0L
+        for (i in 0 until RPIS_PER_KEY) {
+            val offset = i * EnFrameworkConstants.RPI_LENGTH
+            val slot = index.indexOf(candidates, offset)
+            if (slot == CapturedDataIndex.NOT_FOUND) {
+                continue
+            }
+            if (aemk == null) {
+                aemk = CryptoPrimitives.generateAEMK(diagnosisKey.keyData)
+            }
+            val rpi = RollingProximityIdentifier(
+                candidates.copyOfRange(offset, offset + EnFrameworkConstants.RPI_LENGTH),
+                ENInterval(rollingStart + i)
+            )
+            var row = index.firstRow(slot)
+            while (row != CapturedDataIndex.NO_ROW) {
+                consumer.onSighting(
+                    CryptoPrimitives.decryptAEM(sightings.aem(row), rpi, aemk),
+                    sightings.captureTimestampMillis(row),
+                    sightings.lastCaptureTimestampMillis(row),
+                    sightings.rssi(row),
+                    sightings.maxRssi(row)
+                )
+                matchedRows++
+                row = index.nextRow(row)
+            }
+        }
+        Metrics.INDEX_PROBES.add(RPIS_PER_KEY.toLong())
+        Metrics.MATCHES.add(matchedRows)
+    }
+}
@@ -0,0 +1,30 @@
+package org.coralibre.android.sdk.internal.matching
+
+/**
+ * The weights that the scores of exposure windows are computed from. Implemented by the
+ * DailySummariesConfig of the sdk module, so that the matching does not depend on the API
+ * classes.
+ *
+ * The score of a window is the sum of the durations of its scans, each weighted by its
+ * attenuation, multiplied by the weights of the window's report type and infectiousness.
+ */
+interface WindowScoringConfiguration {
+    /**
+     * Windows with a lower score are not regarded.
+     */
+    val minimumWindowScore: Double
+
+    /**
+     * Only days that are at most this many days ago are summarized. 0 for all days.
+     */
+    val daysSinceExposureThreshold: Int
+
+    /**
+     * @param attenuationDb the typical attenuation of a scan
+     */
+    fun getAttenuationWeight(attenuationDb: Int): Double
+
+    fun getReportTypeWeight(reportType: Int): Double
+
+    fun getInfectiousnessWeight(infectiousness: Int): Double
+}
@@ -0,0 +1,17 @@
+package org.coralibre.android.sdk.internal.matching.intermediateDatatypes
+
+/**
+ * The scores of the windows of a single report type on a single (UTC) day, see DailySummary of
+ * the sdk module.
+ * @param maximumScore the highest score of a single window
+ * @param scoreSum the sum of the scores of all windows
+ * @param weightedDurationSum the sum of the attenuation weighted durations (in seconds) of all
+ * windows, i.e. without the report type and infectiousness weights
+ */
+data class DaySummary(
+    val daysSinceEpoch: Int,
+    val reportType: Int,
+    val maximumScore: Double,
+    val scoreSum: Double,
+    val weightedDurationSum: Double
+)
@@ -0,0 +1,12 @@
+package org.coralibre.android.sdk.internal.matching.intermediateDatatypes
+
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey
+import java.util.LinkedList
+
+/**
+ * All matches (sightings) that have been found for a single diagnosis key.
+ */
+class KeyMatches(
+    val diagnosisKey: DiagnosisKey,
+    val matches: LinkedList<Match>
+)
@@ -0,0 +1,24 @@
+package org.coralibre.android.sdk.internal.matching.intermediateDatatypes
+
+/**
+ * The sightings of a single diagnosis key on a single (UTC) day, see ExposureWindow of the sdk
+ * module.
+ * @param dateMillisSinceEpoch the start of the day
+ * @param scans the scans in the order they have been matched
+ */
+class Window(
+    val dateMillisSinceEpoch: Long,
+    val reportType: Int,
+    val infectiousness: Int,
+    val transmissionRiskLevel: Int,
+    val scans: List<WindowScan>
+)
+
+/**
+ * A single matched sighting (row) of a Window, see ScanInstance of the sdk module.
+ */
+data class WindowScan(
+    val typicalAttenuationDb: Int,
+    val minAttenuationDb: Int,
+    val secondsSinceLastScan: Int
+)
@@ -0,0 +1,29 @@
+package org.coralibre.android.sdk.internal.metrics
+
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * A monotonically increasing count, e.g. of the AES operations. Callers on hot paths should add
+ * the count of a whole batch at once instead of incrementing per item, so that the threads of
+ * a parallel matching do not contend for the value.
+ */
+class Counter internal constructor(val name: String) {
+    private val value = AtomicLong()
+
+    val count: Long
+        get() = value.get()
+
+    fun increment() {
+        add(1)
+    }
+
+    fun add(delta: Long) {
+        if (Metrics.enabled) {
+            value.addAndGet(delta)
+        }
+    }
+
+    internal fun reset() {
+        value.set(0)
+    }
+}
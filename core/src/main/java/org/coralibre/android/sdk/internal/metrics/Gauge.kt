@@ -0,0 +1,24 @@
+package org.coralibre.android.sdk.internal.metrics
+
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * The last value of something that is measured now and then, e.g. the parsing rate of the last
+ * key file.
+ */
+class Gauge internal constructor(val name: String) {
+    private val value = AtomicLong()
+
+    val current: Long
+        get() = value.get()
+
+    fun set(newValue: Long) {
+        if (Metrics.enabled) {
+            value.set(newValue)
+        }
+    }
+
+    internal fun reset() {
+        value.set(0)
+    }
+}
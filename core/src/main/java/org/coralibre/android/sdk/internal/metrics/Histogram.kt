@@ -0,0 +1,86 @@
+package org.coralibre.android.sdk.internal.metrics
+
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+
+/**
+ * The distribution of non-negative values, e.g. of latencies in nanoseconds or of the number
+ * of sightings per scan.
+ *
+ * The values are counted in buckets of powers of two: bucket 0 holds the zeros, bucket i the
+ * values from 2^(i-1) to 2^i - 1. That is precise enough to tell 100µs from 1ms, and recording
+ * a value is a few atomic additions without any allocation or lock.
+ */
+class Histogram internal constructor(val name: String) {
+    private val buckets = AtomicLongArray(BUCKET_COUNT)
+    private val count = AtomicLong()
+    private val sum = AtomicLong()
+    private val max = AtomicLong()
+
+    fun record(value: Long) {
+        if (!Metrics.enabled) {
+            return
+        }
+        val nonNegative = maxOf(value, 0L)
+        buckets.incrementAndGet(bucketOf(nonNegative))
+        count.incrementAndGet()
+        sum.addAndGet(nonNegative)
+        var currentMax = max.get()
+        while (nonNegative > currentMax && !max.compareAndSet(currentMax, nonNegative)) {
+            currentMax = max.get()
+        }
+    }
+
+    /**
+     * Records the nanoseconds elapsed since 'startNanos', which has been taken from
+     * System.nanoTime(). For Java callers, which cannot use time { ... }.
+     */
+    fun recordSince(startNanos: Long) {
+        record(System.nanoTime() - startNanos)
+    }
+
+    /**
+     * Records the nanoseconds that 'block' takes, also if it throws.
+     */
+    inline fun <T> time(block: () -> T): T {
+        val startNanos = System.nanoTime()
+        try {
+            return block()
+        } finally {
+            recordSince(startNanos)
+        }
+    }
+
+    /**
+     * The values recorded concurrently to this call might be contained in some of the
+     * aggregates but not in others.
+     */
+    fun snapshot(): HistogramSnapshot {
+        val bucketCounts = LongArray(BUCKET_COUNT) { buckets.get(it) }
+        return HistogramSnapshot(count.get(), sum.get(), max.get(), bucketCounts)
+    }
+
+    internal fun reset() {
+        for (i in 0 until BUCKET_COUNT) {
+            buckets.set(i, 0)
+        }
+        count.set(0)
+        sum.set(0)
+        max.set(0)
+    }
+
+    companion object {
+        const val BUCKET_COUNT = 64
+
+        @JvmStatic
+        fun bucketOf(value: Long): Int =
+            minOf(java.lang.Long.SIZE - java.lang.Long.numberOfLeadingZeros(value), BUCKET_COUNT - 1)
+
+        /**
+         * @return the largest value that is counted in the given bucket
+         */
+        @JvmStatic
+        fun upperBoundOf(bucket: Int): Long =
+            if (bucket >= BUCKET_COUNT - 1) Long.MAX_VALUE else (1L shl bucket) - 1
+    }
+}
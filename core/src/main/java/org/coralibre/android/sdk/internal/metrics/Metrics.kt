@@ -0,0 +1,130 @@
+package org.coralibre.android.sdk.internal.metrics
+
+import java.util.TreeMap
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Registry of the counters, gauges and histograms of the sdk. The metrics of the hot paths are
+ * created up front, so that recording them is a field access and an atomic operation; further
+ * metrics can be registered by name.
+ *
+ * Recording is enabled by default. If it is disabled, recording does nothing, but the values
+ * recorded before are kept.
+ */
+object Metrics {
+    @JvmStatic
+    @Volatile
+    var enabled = true
+
+    private val counters = ConcurrentHashMap<String, Counter>()
+    private val gauges = ConcurrentHashMap<String, Gauge>()
+    private val histograms = ConcurrentHashMap<String, Histogram>()
+
+    /**
+     * The keys read from key files
+     */
+    @JvmField
+    val KEYS_PARSED = counter("keys.parsed")
+
+    /**
+     * The keys per second decoded from the last key file, i.e. the rate of unzipping and
+     * parsing, not counting the time in which the keys are processed (e.g. matched)
+     */
+    @JvmField
+    val KEYS_PARSED_PER_SECOND = gauge("keys.parsedPerSecond")
+
+    /**
+     * The HKDF derivations of rpiks and aemks, i.e. the ones not served by a cache
+     */
+    @JvmField
+    val HKDF_OPS = counter("crypto.hkdfOps")
+
+    /**
+     * The AES blocks encrypted or decrypted for rpis and associated metadata
+     */
+    @JvmField
+    val AES_OPS = counter("crypto.aesOps")
+
+    /**
+     * The candidate rpis looked up in a CapturedDataIndex
+     */
+    @JvmField
+    val INDEX_PROBES = counter("matching.indexProbes")
+
+    /**
+     * The captured rows that belong to a diagnosis key
+     */
+    @JvmField
+    val MATCHES = counter("matching.matches")
+
+    /**
+     * Nanoseconds per insert transaction of the persistent database
+     */
+    @JvmField
+    val DB_INSERT_LATENCY = histogram("db.insertNanos")
+
+    /**
+     * Nanoseconds per query of the persistent database, including reading the result
+     */
+    @JvmField
+    val DB_QUERY_LATENCY = histogram("db.queryNanos")
+
+    /**
+     * The sightings received between the start and the stop of a ble scan
+     */
+    @JvmField
+    val SIGHTINGS_PER_SCAN = histogram("ble.sightingsPerScan")
+
+    /**
+     * @return the counter with the given name, which is created if there is none yet
+     */
+    @JvmStatic
+    fun counter(name: String): Counter = counters.getOrPut(name) { Counter(name) }
+
+    /**
+     * @return the gauge with the given name, which is created if there is none yet
+     */
+    @JvmStatic
+    fun gauge(name: String): Gauge = gauges.getOrPut(name) { Gauge(name) }
+
+    /**
+     * @return the histogram with the given name, which is created if there is none yet
+     */
+    @JvmStatic
+    fun histogram(name: String): Histogram = histograms.getOrPut(name) { Histogram(name) }
+
+    /**
+     * @return the current values of all metrics, sorted by name
+     */
+    @JvmStatic
+    fun snapshot(): MetricsSnapshot {
+        val counterValues = TreeMap<String, Long>()
+        for ((name, counter) in counters) {
+            counterValues[name] = counter.count
+        }
+        val gaugeValues = TreeMap<String, Long>()
+        for ((name, gauge) in gauges) {
+            gaugeValues[name] = gauge.current
+        }
+        val histogramValues = TreeMap<String, HistogramSnapshot>()
+        for ((name, histogram) in histograms) {
+            histogramValues[name] = histogram.snapshot()
+        }
+        return MetricsSnapshot(
+            System.currentTimeMillis(),
+            counterValues,
+            gaugeValues,
+            histogramValues
+        )
+    }
+
+    /**
+     * Sets all metrics back to zero. The metrics stay registered.
+     */
+    @JvmStatic
+    fun reset() {
+        counters.values.forEach { it.reset() }
+        gauges.values.forEach { it.reset() }
+        histograms.values.forEach { it.reset() }
+    }
+}
@@ -0,0 +1,58 @@
+package org.coralibre.android.sdk.internal.metrics
+
+/**
+ * The values of all metrics at a point in time. Rates, e.g. of the AES operations per second,
+ * are derived from the difference of two snapshots.
+ * @param timestampMillis when the snapshot has been taken, in milliseconds since the epoch
+ */
+class MetricsSnapshot(
+    val timestampMillis: Long,
+    val counters: Map<String, Long>,
+    val gauges: Map<String, Long>,
+    val histograms: Map<String, HistogramSnapshot>
+) {
+    override fun toString(): String {
+        return "MetricsSnapshot(timestampMillis=$timestampMillis, counters=$counters, " +
+            "gauges=$gauges, histograms=$histograms)"
+    }
+}
+
+/**
+ * @param bucketCounts the number of values per bucket, see Histogram
+ */
+class HistogramSnapshot(
+    val count: Long,
+    val sum: Long,
+    val max: Long,
+    val bucketCounts: LongArray
+) {
+    val mean: Double
+        get() = if (count == 0L) 0.0 else sum.toDouble() / count
+
+    /**
+     * @param percentile between 0 and 100
+     * @return an upper bound of the given percentile, at most twice as large as the exact
+     * value, or 0 if no value has been recorded
+     */
+    fun percentile(percentile: Double): Long {
+        require(percentile in 0.0..100.0) { "percentile must be between 0 and 100" }
+        val total = bucketCounts.sum()
+        if (total == 0L) {
+            return 0
+        }
+        val rank = maxOf(Math.ceil(total * percentile / 100).toLong(), 1L)
+        var seen = 0L
+        for (bucket in bucketCounts.indices) {
+            seen += bucketCounts[bucket]
+            if (seen >= rank) {
+                return minOf(Histogram.upperBoundOf(bucket), max)
+            }
+        }
+        return max
+    }
+
+    override fun toString(): String {
+        return "HistogramSnapshot(count=$count, mean=$mean, p50=${percentile(50.0)}, " +
+            "p99=${percentile(99.0)}, max=$max)"
+    }
+}
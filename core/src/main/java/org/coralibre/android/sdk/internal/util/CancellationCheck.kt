@@ -0,0 +1,31 @@
+package org.coralibre.android.sdk.internal.util
+
+import java.util.concurrent.CancellationException
+
+/**
+ * Checked by long running operations (reading key files, matching) between batches of keys, so
+ * that they can be aborted. Implemented by the CancellationToken of the sdk module, so that the
+ * platform independent code does not depend on the API classes.
+ */
+fun interface CancellationCheck {
+    fun isCancellationRequested(): Boolean
+
+    companion object {
+        /**
+         * Never requests cancellation. Used by the operations that are not given a check.
+         */
+        @JvmField
+        val NEVER = CancellationCheck { false }
+
+        /**
+         * @throws CancellationException if the check requests cancellation
+         */
+        @JvmStatic
+        @Throws(CancellationException::class)
+        fun throwIfRequested(check: CancellationCheck) {
+            if (check.isCancellationRequested()) {
+                throw CancellationException("Canceled")
+            }
+        }
+    }
+}
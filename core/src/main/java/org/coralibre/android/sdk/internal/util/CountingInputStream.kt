@@ -0,0 +1,36 @@
+package org.coralibre.android.sdk.internal.util
+
+import java.io.FilterInputStream
+import java.io.InputStream
+
+/**
+ * Counts the bytes that are read from the wrapped stream.
+ */
+class CountingInputStream(stream: InputStream) : FilterInputStream(stream) {
+    var bytesRead = 0L
+        private set
+
+    override fun read(): Int {
+        val result = super.read()
+        if (result != -1) {
+            bytesRead++
+        }
+        return result
+    }
+
+    override fun read(b: ByteArray, off: Int, len: Int): Int {
+        val result = super.read(b, off, len)
+        if (result > 0) {
+            bytesRead += result
+        }
+        return result
+    }
+
+    override fun skip(n: Long): Long {
+        val result = super.skip(n)
+        bytesRead += result
+        return result
+    }
+
+    override fun markSupported() = false
+}
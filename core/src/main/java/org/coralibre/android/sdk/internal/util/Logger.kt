@@ -0,0 +1,30 @@
+package org.coralibre.android.sdk.internal.util
+
+/**
+ * Logging of the platform independent code, so that it does not depend on android.util.Log.
+ * The sdk module installs an implementation forwarding to android.util.Log, see Logging.
+ */
+interface Logger {
+    /**
+     * False if debug messages are discarded, so that hot paths can skip building them.
+     */
+    val debugEnabled: Boolean
+
+    fun d(tag: String, message: String)
+    fun i(tag: String, message: String)
+    fun w(tag: String, message: String)
+    fun e(tag: String, message: String)
+
+    /**
+     * Discards all messages. Used until another logger has been installed.
+     */
+    object None : Logger {
+        override val debugEnabled: Boolean
+            get() = false
+
+        override fun d(tag: String, message: String) {}
+        override fun i(tag: String, message: String) {}
+        override fun w(tag: String, message: String) {}
+        override fun e(tag: String, message: String) {}
+    }
+}
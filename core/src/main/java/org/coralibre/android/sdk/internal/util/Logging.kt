@@ -0,0 +1,10 @@
+package org.coralibre.android.sdk.internal.util
+
+/**
+ * Holds the Logger used by the platform independent code.
+ */
+object Logging {
+    @JvmStatic
+    @Volatile
+    var logger: Logger = Logger.None
+}
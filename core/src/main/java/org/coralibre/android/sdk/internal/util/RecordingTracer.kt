@@ -0,0 +1,143 @@
+package org.coralibre.android.sdk.internal.util
+
+import java.util.ArrayDeque
+import java.util.ArrayList
+import java.util.HashMap
+
+/**
+ * Records the sections as a tree of spans per thread, so that tests can check which stages an
+ * operation passes through. Installed by Tracing.tracer = RecordingTracer().
+ *
+ * Sections begun on other threads, e.g. by the workers of a ParallelMatcher, are roots of
+ * their own. Async sections are recorded separately, since they are not nested.
+ */
+class RecordingTracer : Tracer {
+    class Span internal constructor(val name: String, val threadName: String) {
+        val startNanos = System.nanoTime()
+
+        @Volatile
+        var endNanos = 0L
+            private set
+
+        @Volatile
+        var isEnded = false
+            private set
+
+        private val childList: MutableList<Span> = ArrayList()
+
+        val children: List<Span>
+            get() = synchronized(childList) { ArrayList(childList) }
+
+        /**
+         * The duration of an ended span, or the time since its start if it is still open
+         */
+        val durationNanos: Long
+            get() = (if (isEnded) endNanos else System.nanoTime()) - startNanos
+
+        internal fun addChild(child: Span) {
+            synchronized(childList) { childList.add(child) }
+        }
+
+        internal fun end() {
+            endNanos = System.nanoTime()
+            isEnded = true
+        }
+
+        /**
+         * @return this span and all spans below it with the given name, depth first
+         */
+        fun findAll(name: String): List<Span> {
+            val result: MutableList<Span> = ArrayList()
+            collect(name, result)
+            return result
+        }
+
+        private fun collect(name: String, result: MutableList<Span>) {
+            if (this.name == name) {
+                result.add(this)
+            }
+            for (child in children) {
+                child.collect(name, result)
+            }
+        }
+
+        /**
+         * E.g. "EN:unzip[EN:parse[EN:persist, EN:persist]]", to compare whole trees in tests
+         */
+        override fun toString(): String {
+            val childSpans = children
+            return if (childSpans.isEmpty()) name else childSpans.joinToString(", ", "$name[", "]")
+        }
+    }
+
+    private val rootList: MutableList<Span> = ArrayList()
+    private val asyncList: MutableList<Span> = ArrayList()
+
+    // Guarded by asyncList:
+    private val openAsyncSpans = HashMap<String, Span>()
+
+    private val openSpans = object : ThreadLocal<ArrayDeque<Span>>() {
+        override fun initialValue() = ArrayDeque<Span>()
+    }
+
+    /**
+     * The outermost spans of all threads, in the order in which they began
+     */
+    val roots: List<Span>
+        get() = synchronized(rootList) { ArrayList(rootList) }
+
+    /**
+     * The async spans, in the order in which they began
+     */
+    val asyncSpans: List<Span>
+        get() = synchronized(asyncList) { ArrayList(asyncList) }
+
+    /**
+     * @return all spans with the given name, depth first and in the order of the roots
+     */
+    fun findAll(name: String): List<Span> = roots.flatMap { it.findAll(name) }
+
+    fun clear() {
+        synchronized(rootList) { rootList.clear() }
+        synchronized(asyncList) {
+            asyncList.clear()
+            openAsyncSpans.clear()
+        }
+    }
+
+    override fun beginSection(name: String) {
+        val stack = openSpans.get()!!
+        val span = Span(name, Thread.currentThread().name)
+        val parent = stack.peek()
+        if (parent == null) {
+            synchronized(rootList) { rootList.add(span) }
+        } else {
+            parent.addChild(span)
+        }
+        stack.push(span)
+    }
+
+    /**
+     * @throws IllegalStateException if the calling thread has no open section, to reveal
+     * unbalanced sections in tests
+     */
+    override fun endSection() {
+        val stack = openSpans.get()!!
+        check(stack.isNotEmpty()) { "endSection() without open section" }
+        stack.pop().end()
+    }
+
+    override fun beginAsyncSection(name: String, cookie: Int) {
+        val span = Span(name, Thread.currentThread().name)
+        synchronized(asyncList) {
+            asyncList.add(span)
+            openAsyncSpans["$name#$cookie"] = span
+        }
+    }
+
+    override fun endAsyncSection(name: String, cookie: Int) {
+        val span = synchronized(asyncList) { openAsyncSpans.remove("$name#$cookie") }
+        checkNotNull(span) { "endAsyncSection(...) without open section $name#$cookie" }
+        span.end()
+    }
+}
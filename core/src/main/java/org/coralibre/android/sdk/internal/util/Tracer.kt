@@ -0,0 +1,27 @@
+package org.coralibre.android.sdk.internal.util
+
+/**
+ * Trace sections of the platform independent code, so that it does not depend on
+ * android.os.Trace. The sdk module installs an implementation forwarding to android.os.Trace,
+ * see Tracing.
+ *
+ * Like with android.os.Trace, sections are nested per thread: endSection() ends the section
+ * that the calling thread began last. Async sections may begin and end on different threads;
+ * they are told apart by their name and cookie.
+ */
+interface Tracer {
+    fun beginSection(name: String)
+    fun endSection()
+    fun beginAsyncSection(name: String, cookie: Int)
+    fun endAsyncSection(name: String, cookie: Int)
+
+    /**
+     * Discards all sections. Used until another tracer has been installed.
+     */
+    object None : Tracer {
+        override fun beginSection(name: String) {}
+        override fun endSection() {}
+        override fun beginAsyncSection(name: String, cookie: Int) {}
+        override fun endAsyncSection(name: String, cookie: Int) {}
+    }
+}
@@ -0,0 +1,60 @@
+package org.coralibre.android.sdk.internal.util
+
+/**
+ * Holds the Tracer used by the platform independent code, and the names of the sections of the
+ * tracing and matching pipeline.
+ */
+object Tracing {
+    const val PROVIDE_DIAGNOSIS_KEYS = "EN:provideDiagnosisKeys"
+    const val UNZIP = "EN:unzip"
+    const val PARSE = "EN:parse"
+    const val PERSIST = "EN:persist"
+    const val LOAD_SIGHTINGS = "EN:loadSightings"
+    const val DERIVE = "EN:derive"
+    const val MATCH = "EN:match"
+    const val ASSEMBLE = "EN:assemble"
+    const val BROADCAST = "EN:broadcast"
+    const val SCAN_CYCLE = "EN:scanCycle"
+    const val ADVERTISE_CYCLE = "EN:advertiseCycle"
+
+    @JvmStatic
+    @Volatile
+    var tracer: Tracer = Tracer.None
+
+    /**
+     * Runs 'block' in a section with the given name, which is ended also if 'block' throws.
+     */
+    inline fun <T> section(name: String, block: () -> T): T {
+        val tracer = tracer
+        tracer.beginSection(name)
+        try {
+            return block()
+        } finally {
+            tracer.endSection()
+        }
+    }
+
+    /**
+     * For Java callers, which cannot use section(...). Must be followed by endSection() in a
+     * finally block.
+     */
+    @JvmStatic
+    fun beginSection(name: String) {
+        tracer.beginSection(name)
+    }
+
+    @JvmStatic
+    fun endSection() {
+        tracer.endSection()
+    }
+
+    @JvmStatic
+    fun beginAsyncSection(name: String, cookie: Int) {
+        tracer.beginAsyncSection(name, cookie)
+    }
+
+    @JvmStatic
+    fun endAsyncSection(name: String, cookie: Int) {
+        tracer.endAsyncSection(name, cookie)
+    }
+}
@@ -0,0 +1,271 @@
+package org.coralibre.android.sdk.internal.datatypes.util;
+
+import com.google.protobuf.ByteString;
+
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey;
+import org.coralibre.android.sdk.internal.metrics.Metrics;
+import org.coralibre.android.sdk.internal.util.RecordingTracer;
+import org.coralibre.android.sdk.internal.util.Tracer;
+import org.coralibre.android.sdk.internal.util.Tracing;
+import org.coralibre.android.sdk.proto.TemporaryExposureKeyFile.SignatureInfo;
+import org.coralibre.android.sdk.proto.TemporaryExposureKeyFile.TemporaryExposureKeyExport;
+import org.coralibre.android.sdk.proto.TemporaryExposureKeyFile.TemporaryExposureKeyProto;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DiagnosisKeyFileReaderTest {
+
+    @After
+    public void uninstallTracer() {
+        Tracing.setTracer(Tracer.None.INSTANCE);
+    }
+
+    private static TemporaryExposureKeyProto keyProto(int i) {
+        byte[] keyData = new byte[16];
+        Arrays.fill(keyData, (byte) i);
+        return TemporaryExposureKeyProto.newBuilder()
+            .setKeyData(ByteString.copyFrom(keyData))
+            .setRollingStartIntervalNumber(2650032 + 144 * (i % 14))
+            .setRollingPeriod(144)
+            .setTransmissionRiskLevel(i % 8)
+            .setReportType(TemporaryExposureKeyProto.ReportType.forNumber(i % 6))
+            .setDaysSinceOnsetOfSymptoms(i % 29 - 14)
+            .build();
+    }
+
+    private static byte[] exportBin(TemporaryExposureKeyExport export) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(Arrays.copyOf("EK Export v1    ".getBytes("UTF-8"), 16));
+        export.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static void assertSameKeys(List<DiagnosisKey> expected, List<DiagnosisKey> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i).getKeyData(), actual.get(i).getKeyData());
+            assertEquals(expected.get(i).getInterval(), actual.get(i).getInterval());
+            assertEquals(expected.get(i).getTransmissionRiskLevel(), actual.get(i).getTransmissionRiskLevel());
+            assertEquals(expected.get(i).getReportType(), actual.get(i).getReportType());
+            assertEquals(expected.get(i).getDaysSinceOnsetOfSymptoms(),
+                actual.get(i).getDaysSinceOnsetOfSymptoms());
+        }
+    }
+
+    @Test
+    public void testStreamingMatchesFullParsing() throws IOException {
+        TemporaryExposureKeyExport.Builder builder = TemporaryExposureKeyExport.newBuilder()
+            .setStartTimestamp(1600000000L)
+            .setEndTimestamp(1600086400L)
+            .setRegion("DE")
+            .setBatchNum(1)
+            .setBatchSize(1)
+            .addSignatureInfos(SignatureInfo.newBuilder().setVerificationKeyId("262"));
+        for (int i = 0; i < 25; i++) {
+            builder.addKeys(keyProto(i));
+        }
+        for (int i = 100; i < 103; i++) {
+            builder.addRevisedKeys(keyProto(i));
+        }
+        TemporaryExposureKeyExport export = builder.build();
+
+        List<DiagnosisKey> keys = new ArrayList<>();
+        List<DiagnosisKey> revisedKeys = new ArrayList<>();
+        List<Integer> batchSizes = new ArrayList<>();
+        new DiagnosisKeyFileReader(10).readExport(
+            new ByteArrayInputStream(exportBin(export)),
+            (diagnosisKeys, revised) -> {
+                batchSizes.add(diagnosisKeys.size());
+                (revised ? revisedKeys : keys).addAll(diagnosisKeys);
+            });
+
+        assertSameKeys(DiagnosisKeyUtil.toDiagnosisKeys(export.getKeysList()), keys);
+        assertSameKeys(DiagnosisKeyUtil.toDiagnosisKeys(export.getRevisedKeysList()), revisedKeys);
+        assertEquals(Arrays.asList(10, 10, 5, 3), batchSizes);
+    }
+
+    @Test
+    public void testMissingReportTypeAndDaysSinceOnset() throws IOException {
+        TemporaryExposureKeyProto key = keyProto(1).toBuilder()
+            .clearReportType()
+            .clearDaysSinceOnsetOfSymptoms()
+            .build();
+        List<DiagnosisKey> keys = new ArrayList<>();
+        new DiagnosisKeyFileReader().readExport(
+            new ByteArrayInputStream(
+                exportBin(TemporaryExposureKeyExport.newBuilder().addKeys(key).build())),
+            (diagnosisKeys, revised) -> keys.addAll(diagnosisKeys));
+
+        assertEquals(1, keys.size());
+        assertEquals(DiagnosisKey.REPORT_TYPE_UNKNOWN, keys.get(0).getReportType());
+        assertEquals(DiagnosisKey.DAYS_SINCE_ONSET_OF_SYMPTOMS_UNKNOWN,
+            keys.get(0).getDaysSinceOnsetOfSymptoms());
+    }
+
+    @Test
+    public void testKeysArePassedOnBeforeRevisedKeys() throws IOException {
+        TemporaryExposureKeyExport.Builder builder = TemporaryExposureKeyExport.newBuilder();
+        for (int i = 0; i < 25; i++) {
+            builder.addKeys(keyProto(i));
+        }
+        for (int i = 0; i < 12; i++) {
+            builder.addRevisedKeys(keyProto(i));
+        }
+
+        List<String> batches = new ArrayList<>();
+        new DiagnosisKeyFileReader(10).readExport(
+            new ByteArrayInputStream(exportBin(builder.build())),
+            (diagnosisKeys, revised) -> batches.add((revised ? "r" : "k") + diagnosisKeys.size()));
+
+        // The incomplete batch of keys is passed on before the first batch of revised keys:
+        assertEquals(Arrays.asList("k10", "k10", "k5", "r10", "r2"), batches);
+    }
+
+    @Test
+    public void testCancellationBetweenBatches() throws IOException {
+        TemporaryExposureKeyExport.Builder builder = TemporaryExposureKeyExport.newBuilder();
+        for (int i = 0; i < 25; i++) {
+            builder.addKeys(keyProto(i));
+        }
+
+        List<Integer> batchSizes = new ArrayList<>();
+        boolean thrown = false;
+        try {
+            new DiagnosisKeyFileReader(10).readExport(
+                new ByteArrayInputStream(exportBin(builder.build())),
+                (diagnosisKeys, revised) -> batchSizes.add(diagnosisKeys.size()),
+                // Requests cancellation once the first batch has been passed on:
+                () -> !batchSizes.isEmpty());
+        } catch (CancellationException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+        assertEquals(Collections.singletonList(10), batchSizes);
+    }
+
+    @Test
+    public void testInvalidHeader() throws IOException {
+        byte[] file = exportBin(TemporaryExposureKeyExport.newBuilder().addKeys(keyProto(1)).build());
+        file[0] = 'X';
+
+        boolean thrown = false;
+        List<DiagnosisKey> keys = new ArrayList<>();
+        try {
+            new DiagnosisKeyFileReader().readExport(
+                new ByteArrayInputStream(file),
+                (diagnosisKeys, revised) -> keys.addAll(diagnosisKeys));
+        } catch (IOException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+        assertFalse(keys.size() > 0);
+    }
+
+    @Test
+    public void testKeyWithoutKeyData() throws IOException {
+        TemporaryExposureKeyProto keyWithoutData = keyProto(1).toBuilder().clearKeyData().build();
+        byte[] file = exportBin(TemporaryExposureKeyExport.newBuilder()
+            .addKeys(keyProto(0))
+            .addKeys(keyWithoutData)
+            .build());
+
+        boolean thrown = false;
+        try {
+            new DiagnosisKeyFileReader().readExport(
+                new ByteArrayInputStream(file),
+                (diagnosisKeys, revised) -> {
+                });
+        } catch (IOException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+    }
+
+    @Test
+    public void testTraceSections() throws IOException {
+        TemporaryExposureKeyExport.Builder builder = TemporaryExposureKeyExport.newBuilder();
+        for (int i = 0; i < 25; i++) {
+            builder.addKeys(keyProto(i));
+        }
+        File keyFile = File.createTempFile("keys", ".zip");
+        keyFile.deleteOnExit();
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(keyFile))) {
+            zip.putNextEntry(new ZipEntry("export.bin"));
+            zip.write(exportBin(builder.build()));
+            zip.closeEntry();
+        }
+
+        RecordingTracer tracer = new RecordingTracer();
+        Tracing.setTracer(tracer);
+        new DiagnosisKeyFileReader(10).readKeyFile(
+            keyFile,
+            (diagnosisKeys, revised) -> {
+                Tracing.beginSection("consume");
+                Tracing.endSection();
+            });
+
+        // The batches are consumed outside of the unzip and parse sections:
+        List<String> roots = new ArrayList<>();
+        for (RecordingTracer.Span root : tracer.getRoots()) {
+            roots.add(root.toString());
+            assertTrue(root.isEnded());
+        }
+        assertEquals(
+            Arrays.asList(
+                "EN:unzip[EN:parse]", "consume",
+                "EN:unzip[EN:parse]", "consume",
+                "EN:unzip[EN:parse]", "consume",
+                "EN:unzip[EN:parse]"),
+            roots);
+        for (RecordingTracer.Span parse : tracer.findAll(Tracing.PARSE)) {
+            assertTrue(parse.isEnded());
+        }
+    }
+
+    @Test
+    public void testParseRateExcludesConsumerTime() throws IOException {
+        TemporaryExposureKeyExport.Builder builder = TemporaryExposureKeyExport.newBuilder();
+        for (int i = 0; i < 10; i++) {
+            builder.addKeys(keyProto(i));
+        }
+        File keyFile = File.createTempFile("keys", ".zip");
+        keyFile.deleteOnExit();
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(keyFile))) {
+            zip.putNextEntry(new ZipEntry("export.bin"));
+            zip.write(exportBin(builder.build()));
+            zip.closeEntry();
+        }
+
+        Metrics.setEnabled(true);
+        new DiagnosisKeyFileReader(10).readKeyFile(
+            keyFile,
+            (diagnosisKeys, revised) -> {
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+        // Counting the slow consumer, 10 keys would have been read at less than 20 per second:
+        assertTrue(Metrics.KEYS_PARSED_PER_SECOND.getCurrent() > 100);
+    }
+}
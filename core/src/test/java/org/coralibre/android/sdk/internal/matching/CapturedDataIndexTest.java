@@ -0,0 +1,87 @@
+package org.coralibre.android.sdk.internal.matching;
+
+import org.coralibre.android.sdk.internal.EnFrameworkConstants;
+import org.coralibre.android.sdk.internal.datatypes.CapturedData;
+import org.coralibre.android.sdk.internal.datatypes.CapturedSightings;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CapturedDataIndexTest {
+    private static final long INTERVAL = 2650032L;
+    private static final long TIMESTAMP = INTERVAL * EnFrameworkConstants.TEK_INTERVAL_LENGTH_SECONDS * 1000;
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testColumnsRoundTrip() {
+        Random random = new Random(1);
+        byte[] rpi = randomBytes(random, EnFrameworkConstants.RPI_LENGTH);
+        byte[] aem = new byte[]{(byte) 0xFF, 0x00, (byte) 0x80, 0x7F};
+        CapturedSightings sightings = new CapturedSightings(0);
+        sightings.add(rpi, INTERVAL, TIMESTAMP, TIMESTAMP + 8000, 5, (byte) -70, (byte) -78,
+            (byte) -65, aem);
+
+        assertEquals(1, sightings.getSize());
+        assertArrayEquals(rpi, sightings.rpi(0).getData());
+        assertEquals(INTERVAL, sightings.rpi(0).getInterval().get());
+        assertArrayEquals(aem, sightings.aem(0).getData());
+        assertEquals(INTERVAL, sightings.enInterval(0));
+        assertEquals(TIMESTAMP, sightings.captureTimestampMillis(0));
+        assertEquals(TIMESTAMP + 8000, sightings.lastCaptureTimestampMillis(0));
+        assertEquals(-70, sightings.rssi(0));
+        assertEquals(5, sightings.sightingCount(0));
+        assertEquals(-78, sightings.minRssi(0));
+        assertEquals(-65, sightings.maxRssi(0));
+    }
+
+    @Test
+    public void testSightingsOfSameRpiInInsertionOrder() {
+        Random random = new Random(2);
+        List<byte[]> rpis = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rpis.add(randomBytes(random, EnFrameworkConstants.RPI_LENGTH));
+        }
+        CapturedSightings sightings = new CapturedSightings();
+        // Three sightings per rpi, interleaved with the sightings of all other rpis:
+        for (int scan = 0; scan < 3; scan++) {
+            for (byte[] rpi : rpis) {
+                sightings.add(rpi, INTERVAL, TIMESTAMP + scan, TIMESTAMP + scan, 1, (byte) -60,
+                    (byte) -60, (byte) -60, randomBytes(random, EnFrameworkConstants.AEM_LENGTH));
+            }
+        }
+
+        CapturedDataIndex index = new CapturedDataIndex(sightings);
+        assertEquals(rpis.size(), index.getSize());
+        for (byte[] rpi : rpis) {
+            int slot = index.indexOf(rpi, 0);
+            assertTrue(slot != CapturedDataIndex.NOT_FOUND);
+            List<CapturedData> found = index.getSightings(slot);
+            assertEquals(3, found.size());
+            for (int scan = 0; scan < 3; scan++) {
+                assertArrayEquals(rpi, found.get(scan).getRpi().getData());
+                assertEquals(TIMESTAMP + scan, found.get(scan).getCaptureTimestampMillis());
+            }
+        }
+        assertEquals(CapturedDataIndex.NOT_FOUND,
+            index.indexOf(randomBytes(random, EnFrameworkConstants.RPI_LENGTH), 0));
+    }
+
+    @Test
+    public void testEmpty() {
+        CapturedDataIndex index = new CapturedDataIndex(new CapturedSightings(0));
+        assertTrue(index.isEmpty());
+        assertEquals(CapturedDataIndex.NOT_FOUND,
+            index.indexOf(new byte[EnFrameworkConstants.RPI_LENGTH], 0));
+    }
+}
@@ -0,0 +1,155 @@
+package org.coralibre.android.sdk.internal.matching;
+
+import org.coralibre.android.sdk.internal.EnFrameworkConstants;
+import org.coralibre.android.sdk.internal.crypto.CryptoPrimitives;
+import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadata;
+import org.coralibre.android.sdk.internal.datatypes.AssociatedMetadata;
+import org.coralibre.android.sdk.internal.datatypes.CapturedSightings;
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey;
+import org.coralibre.android.sdk.internal.datatypes.ENInterval;
+import org.coralibre.android.sdk.internal.datatypes.InternalTemporaryExposureKey;
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier;
+import org.coralibre.android.sdk.internal.deviceinfo.ConfidenceLevel;
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceInfo;
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.Exposure;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class ExposureUtilsTest {
+    private static final long DAY = 18403;
+    private static final long DAY_START_MILLIS = TimeUnit.DAYS.toMillis(DAY);
+    private static final long INTERVAL_MILLIS =
+        TimeUnit.SECONDS.toMillis(EnFrameworkConstants.TEK_INTERVAL_LENGTH_SECONDS);
+    private static final long SIGHTINGS_PER_SCAN = 6;
+    private static final long SIGHTING_DISTANCE_MILLIS = 2000;
+
+    // tx power -10 and rssi correction 5: rssi -70 is an attenuation of 65, rssi -60 one of 55
+    private static final AssociatedMetadata METADATA = new AssociatedMetadata(1, 0, -10);
+    private static final DeviceInfo DEVICE_INFO =
+        new DeviceInfo("test", "test", "test", 5, 0, ConfidenceLevel.HIGH);
+
+    private static final RiskScoringConfiguration CONFIGURATION = new RiskScoringConfiguration() {
+        @Override
+        public int getMinimumRiskScore() {
+            return 0;
+        }
+
+        @Override
+        public int getDurationAtAttenuationLowThreshold() {
+            return 50;
+        }
+
+        @Override
+        public int getDurationAtAttenuationHighThreshold() {
+            return 60;
+        }
+
+        @Override
+        public int getAttenuationScore(int attenuationValue) {
+            return attenuationValue <= 60 ? 2 : 1;
+        }
+
+        @Override
+        public int getDaysSinceLastExposureScore(int daysSinceLastExposureValue) {
+            return 1;
+        }
+
+        @Override
+        public int getDurationScore(int durationValue) {
+            return durationValue >= 15 ? 2 : 1;
+        }
+
+        @Override
+        public int getTransmissionRiskScore(int transmissionRiskValue) {
+            return transmissionRiskValue;
+        }
+
+        @Override
+        public int getRiskScore(int attenuationValue,
+                                int daysSinceLastExposureValue,
+                                int durationValue,
+                                int transmissionRiskValue) {
+            return getAttenuationScore(attenuationValue) *
+                getDaysSinceLastExposureScore(daysSinceLastExposureValue) *
+                getDurationScore(durationValue) *
+                getTransmissionRiskScore(transmissionRiskValue);
+        }
+    };
+
+    private InternalTemporaryExposureKey tek;
+    private DiagnosisKey diagnosisKey;
+
+    @Before
+    public void setUp() {
+        byte[] tekData = new byte[EnFrameworkConstants.TEK_LENGTH];
+        new Random(1).nextBytes(tekData);
+        tek = new InternalTemporaryExposureKey(DAY * EnFrameworkConstants.TEK_ROLLING_PERIOD, tekData);
+        diagnosisKey = new DiagnosisKey(tek, 3);
+    }
+
+    /**
+     * Adds the sightings of one scan, either one row per sighting or a single aggregated row as
+     * created by the SightingAggregator. All sightings of a scan have the same rssi.
+     */
+    private void addScan(CapturedSightings sightings,
+                         long scanStartMillis,
+                         int rssi,
+                         boolean aggregated) {
+        ENInterval interval = new ENInterval(scanStartMillis / INTERVAL_MILLIS);
+        RollingProximityIdentifier rpi =
+            CryptoPrimitives.generateRPI(CryptoPrimitives.generateRPIK(tek), interval);
+        AssociatedEncryptedMetadata aem =
+            CryptoPrimitives.encryptAM(METADATA, rpi, CryptoPrimitives.generateAEMK(tek));
+        if (aggregated) {
+            long lastMillis = scanStartMillis + (SIGHTINGS_PER_SCAN - 1) * SIGHTING_DISTANCE_MILLIS;
+            sightings.add(rpi.getData(), interval.get(), scanStartMillis, lastMillis,
+                (int) SIGHTINGS_PER_SCAN, (byte) rssi, (byte) rssi, (byte) rssi, aem.getData());
+            return;
+        }
+        for (int i = 0; i < SIGHTINGS_PER_SCAN; i++) {
+            long millis = scanStartMillis + i * SIGHTING_DISTANCE_MILLIS;
+            sightings.add(rpi.getData(), interval.get(), millis, millis,
+                1, (byte) rssi, (byte) rssi, (byte) rssi, aem.getData());
+        }
+    }
+
+    private List<Exposure> findExposures(boolean aggregated) {
+        CapturedSightings sightings = new CapturedSightings();
+        // Two encounters, each with one scan every 5 minutes, half an hour apart:
+        long[] scanMinutes = {60, 65, 70, 75, 80, 110, 115, 120, 125};
+        int[] rssis = {-70, -60, -60, -70, -60, -60, -70, -70, -60};
+        for (int scan = 0; scan < scanMinutes.length; scan++) {
+            addScan(sightings, DAY_START_MILLIS + TimeUnit.MINUTES.toMillis(scanMinutes[scan]),
+                rssis[scan], aggregated);
+        }
+        CapturedDataIndex index = new CapturedDataIndex(sightings);
+        return ExposureUtils.exposuresFromMatches(
+            RpiMatcher.findMatches(diagnosisKey, CryptoPrimitives.generateRPIK(tek), index),
+            CONFIGURATION,
+            diagnosisKey,
+            DEVICE_INFO
+        );
+    }
+
+    @Test
+    public void testAggregatedSightingsGiveSameExposures() {
+        List<Exposure> expected = findExposures(false);
+        assertEquals(2, expected.size());
+        assertEquals(expected, findExposures(true));
+    }
+
+    @Test
+    public void testExposuresAreSplitAtGaps() {
+        List<Exposure> exposures = findExposures(false);
+        // The sightings of the first encounter span 20 minutes and 10 seconds, which is
+        // bucketized to 25 minutes; the second one is bucketized to 20 minutes:
+        assertEquals(TimeUnit.MINUTES.toSeconds(25), exposures.get(0).getDurationSeconds());
+        assertEquals(TimeUnit.MINUTES.toSeconds(20), exposures.get(1).getDurationSeconds());
+    }
+}
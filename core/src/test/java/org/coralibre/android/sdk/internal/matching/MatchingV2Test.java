@@ -0,0 +1,248 @@
+package org.coralibre.android.sdk.internal.matching;
+
+import org.coralibre.android.sdk.internal.EnFrameworkConstants;
+import org.coralibre.android.sdk.internal.crypto.CryptoPrimitives;
+import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadata;
+import org.coralibre.android.sdk.internal.datatypes.AssociatedMetadata;
+import org.coralibre.android.sdk.internal.datatypes.CapturedSightings;
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey;
+import org.coralibre.android.sdk.internal.datatypes.ENInterval;
+import org.coralibre.android.sdk.internal.datatypes.InternalTemporaryExposureKey;
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier;
+import org.coralibre.android.sdk.internal.deviceinfo.ConfidenceLevel;
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceInfo;
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.DaySummary;
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.Window;
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.WindowScan;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class MatchingV2Test {
+    private static final long DAY = 18403;
+    private static final long DAY_START_MILLIS = TimeUnit.DAYS.toMillis(DAY);
+    private static final long DAY_END_MILLIS = TimeUnit.DAYS.toMillis(DAY + 1);
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    // tx power -10 and rssi correction 5: rssi -70 is an attenuation of 65, rssi -60 one of 55
+    private static final AssociatedMetadata METADATA = new AssociatedMetadata(1, 0, -10);
+    private static final DeviceInfo DEVICE_INFO =
+        new DeviceInfo("test", "test", "test", 5, 0, ConfidenceLevel.HIGH);
+
+    private static final int REPORT_TYPE_CONFIRMED_TEST =
+        ExposureWindowAggregator.REPORT_TYPE_CONFIRMED_TEST;
+    private static final int REPORT_TYPE_SELF_REPORT = 3;
+    private static final int INFECTIOUSNESS_HIGH = 2;
+
+    /**
+     * Keys without a report type are self reports. Keys are highly infectious from the day of
+     * the onset of symptoms on, not infectious before.
+     */
+    private static final KeyDataMapping MAPPING = new KeyDataMapping() {
+        @Override
+        public int getReportTypeWhenMissing() {
+            return REPORT_TYPE_SELF_REPORT;
+        }
+
+        @Override
+        public int getInfectiousnessWhenDaysSinceOnsetMissing() {
+            return ExposureWindowAggregator.INFECTIOUSNESS_STANDARD;
+        }
+
+        @Override
+        public int getInfectiousness(int daysSinceOnsetOfSymptoms) {
+            return daysSinceOnsetOfSymptoms >= 0
+                ? INFECTIOUSNESS_HIGH
+                : ExposureWindowAggregator.INFECTIOUSNESS_NONE;
+        }
+    };
+
+    /**
+     * Attenuations up to 60 and high infectiousness weigh twice, confirmed tests 1.5 times.
+     */
+    private static WindowScoringConfiguration scoring(double minimumWindowScore,
+                                                      int daysSinceExposureThreshold) {
+        return new WindowScoringConfiguration() {
+            @Override
+            public double getMinimumWindowScore() {
+                return minimumWindowScore;
+            }
+
+            @Override
+            public int getDaysSinceExposureThreshold() {
+                return daysSinceExposureThreshold;
+            }
+
+            @Override
+            public double getAttenuationWeight(int attenuationDb) {
+                return attenuationDb <= 60 ? 2.0 : 1.0;
+            }
+
+            @Override
+            public double getReportTypeWeight(int reportType) {
+                return reportType == REPORT_TYPE_CONFIRMED_TEST ? 1.5 : 1.0;
+            }
+
+            @Override
+            public double getInfectiousnessWeight(int infectiousness) {
+                return infectiousness == INFECTIOUSNESS_HIGH ? 2.0 : 1.0;
+            }
+        };
+    }
+
+    private InternalTemporaryExposureKey tekA;
+    private InternalTemporaryExposureKey tekB;
+    private List<DiagnosisKey> diagnosisKeys;
+    private CapturedDataIndex index;
+
+    private static void addSighting(CapturedSightings sightings,
+                                    InternalTemporaryExposureKey tek,
+                                    int intervalOffset,
+                                    long captureTimestampMillis,
+                                    int rssi) {
+        ENInterval interval = new ENInterval(tek.getInterval().get() + intervalOffset);
+        RollingProximityIdentifier rpi =
+            CryptoPrimitives.generateRPI(CryptoPrimitives.generateRPIK(tek), interval);
+        AssociatedEncryptedMetadata aem =
+            CryptoPrimitives.encryptAM(METADATA, rpi, CryptoPrimitives.generateAEMK(tek));
+        sightings.add(rpi.getData(), interval.get(), captureTimestampMillis, captureTimestampMillis,
+            1, (byte) rssi, (byte) rssi, (byte) (rssi + 10), aem.getData());
+    }
+
+    @Before
+    public void setUp() {
+        Random random = new Random(1);
+        byte[] tekData = new byte[EnFrameworkConstants.TEK_LENGTH];
+        random.nextBytes(tekData);
+        tekA = new InternalTemporaryExposureKey(DAY * EnFrameworkConstants.TEK_ROLLING_PERIOD, tekData);
+        random.nextBytes(tekData);
+        tekB = new InternalTemporaryExposureKey(DAY * EnFrameworkConstants.TEK_ROLLING_PERIOD, tekData);
+        diagnosisKeys = Arrays.asList(new DiagnosisKey(tekA, 3), new DiagnosisKey(tekB, 5));
+
+        CapturedSightings sightings = new CapturedSightings();
+        // Key A is seen at 23:40, 23:42 and 23:59 and (with the rpi of 23:50) at 00:04, key B at
+        // 01:40 and 01:45. The rows of both keys are interleaved:
+        addSighting(sightings, tekA, 142, DAY_END_MILLIS - 20 * MINUTE_MILLIS, -70);
+        addSighting(sightings, tekB, 10, DAY_START_MILLIS + 100 * MINUTE_MILLIS, -50);
+        addSighting(sightings, tekA, 142, DAY_END_MILLIS - 18 * MINUTE_MILLIS, -70);
+        addSighting(sightings, tekA, 143, DAY_END_MILLIS - MINUTE_MILLIS, -70);
+        addSighting(sightings, tekA, 143, DAY_END_MILLIS + 4 * MINUTE_MILLIS, -70);
+        addSighting(sightings, tekB, 10, DAY_START_MILLIS + 105 * MINUTE_MILLIS, -50);
+        index = new CapturedDataIndex(sightings);
+    }
+
+    @Test
+    public void testWindowsPerKeyAndDay() {
+        List<Window> windows = MatchingV2.findExposureWindows(
+            diagnosisKeys, index, KeyDataMapping.DEFAULT, DEVICE_INFO);
+        assertEquals(3, windows.size());
+
+        assertEquals(DAY_START_MILLIS, windows.get(0).getDateMillisSinceEpoch());
+        assertEquals(3, windows.get(0).getTransmissionRiskLevel());
+        assertEquals(
+            Arrays.asList(
+                new WindowScan(65, 55, 300),
+                new WindowScan(65, 55, 120),
+                new WindowScan(65, 55, 300)
+            ),
+            windows.get(0).getScans());
+
+        assertEquals(DAY_END_MILLIS, windows.get(1).getDateMillisSinceEpoch());
+        assertEquals(3, windows.get(1).getTransmissionRiskLevel());
+        assertEquals(Arrays.asList(new WindowScan(65, 55, 300)), windows.get(1).getScans());
+
+        assertEquals(DAY_START_MILLIS, windows.get(2).getDateMillisSinceEpoch());
+        assertEquals(5, windows.get(2).getTransmissionRiskLevel());
+        assertEquals(
+            Arrays.asList(new WindowScan(45, 35, 300), new WindowScan(45, 35, 300)),
+            windows.get(2).getScans());
+    }
+
+    @Test
+    public void testDailySummaries() {
+        List<DaySummary> summaries = MatchingV2.findDailySummaries(
+            diagnosisKeys, index, KeyDataMapping.DEFAULT, scoring(0, 0), DEVICE_INFO,
+            DAY_END_MILLIS);
+        // Key A: 720s with weight 1 on the first day, 300s on the second one. Key B: 600s with
+        // weight 2. Each multiplied by the report type weight 1.5:
+        assertEquals(
+            Arrays.asList(
+                new DaySummary((int) DAY, REPORT_TYPE_CONFIRMED_TEST, 1800.0, 2880.0, 1920.0),
+                new DaySummary((int) DAY + 1, REPORT_TYPE_CONFIRMED_TEST, 450.0, 450.0, 300.0)
+            ),
+            summaries);
+    }
+
+    @Test
+    public void testDailySummariesMinimumScoreAndThreshold() {
+        assertEquals(
+            Arrays.asList(
+                new DaySummary((int) DAY, REPORT_TYPE_CONFIRMED_TEST, 1800.0, 2880.0, 1920.0)),
+            MatchingV2.findDailySummaries(
+                diagnosisKeys, index, KeyDataMapping.DEFAULT, scoring(500, 0), DEVICE_INFO,
+                DAY_END_MILLIS));
+        assertEquals(
+            Arrays.asList(
+                new DaySummary((int) DAY + 1, REPORT_TYPE_CONFIRMED_TEST, 450.0, 450.0, 300.0)),
+            MatchingV2.findDailySummaries(
+                diagnosisKeys, index, KeyDataMapping.DEFAULT, scoring(0, 2), DEVICE_INFO,
+                DAY_END_MILLIS + TimeUnit.DAYS.toMillis(2)));
+    }
+
+    @Test
+    public void testParallelSameAsSequential() {
+        ParallelMatcher matcher = new ParallelMatcher(ParallelMatcher.getDefaultExecutor(), 1);
+        assertEquals(
+            MatchingV2.findDailySummaries(
+                diagnosisKeys, index, KeyDataMapping.DEFAULT, scoring(0, 0), DEVICE_INFO,
+                DAY_END_MILLIS),
+            matcher.findDailySummaries(
+                diagnosisKeys, index, KeyDataMapping.DEFAULT, scoring(0, 0), DEVICE_INFO,
+                DAY_END_MILLIS));
+        assertEquals(3, matcher.findExposureWindows(
+            diagnosisKeys, index, KeyDataMapping.DEFAULT, DEVICE_INFO).size());
+    }
+
+    @Test
+    public void testReportTypeAndInfectiousnessOfKeys() {
+        // Key A is a self report (by the mapping) from the day of the onset of symptoms:
+        DiagnosisKey keyA = new DiagnosisKey(tekA, 3, DiagnosisKey.REPORT_TYPE_UNKNOWN, 0);
+        // Key B is a confirmed test from before the onset of symptoms, so it is not infectious:
+        DiagnosisKey keyB = new DiagnosisKey(tekB, 5, REPORT_TYPE_CONFIRMED_TEST, -3);
+        List<DiagnosisKey> keys = Arrays.asList(keyA, keyB);
+
+        List<Window> windows = MatchingV2.findExposureWindows(keys, index, MAPPING, DEVICE_INFO);
+        assertEquals(2, windows.size());
+        for (Window window : windows) {
+            assertEquals(REPORT_TYPE_SELF_REPORT, window.getReportType());
+            assertEquals(INFECTIOUSNESS_HIGH, window.getInfectiousness());
+        }
+
+        // Key A: 720s and 300s with attenuation weight 1, weighted by the infectiousness 2:
+        assertEquals(
+            Arrays.asList(
+                new DaySummary((int) DAY, REPORT_TYPE_SELF_REPORT, 1440.0, 1440.0, 720.0),
+                new DaySummary((int) DAY + 1, REPORT_TYPE_SELF_REPORT, 600.0, 600.0, 300.0)
+            ),
+            MatchingV2.findDailySummaries(
+                keys, index, MAPPING, scoring(0, 0), DEVICE_INFO, DAY_END_MILLIS));
+    }
+
+    @Test
+    public void testRevokedKeysHaveNoWindows() {
+        List<DiagnosisKey> keys = Arrays.asList(
+            new DiagnosisKey(tekA, 3, ExposureWindowAggregator.REPORT_TYPE_REVOKED,
+                DiagnosisKey.DAYS_SINCE_ONSET_OF_SYMPTOMS_UNKNOWN),
+            new DiagnosisKey(tekB, 5));
+        List<Window> windows = MatchingV2.findExposureWindows(
+            keys, index, KeyDataMapping.DEFAULT, DEVICE_INFO);
+        assertEquals(1, windows.size());
+        assertEquals(5, windows.get(0).getTransmissionRiskLevel());
+    }
+}
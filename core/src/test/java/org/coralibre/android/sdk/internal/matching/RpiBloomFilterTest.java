@@ -0,0 +1,118 @@
+package org.coralibre.android.sdk.internal.matching;
+
+import org.coralibre.android.sdk.internal.EnFrameworkConstants;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RpiBloomFilterTest {
+    private static final int NUM_RPIS = 50000;
+
+    private static List<byte[]> randomRpis(Random random, int count) {
+        List<byte[]> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] rpi = new byte[EnFrameworkConstants.RPI_LENGTH];
+            random.nextBytes(rpi);
+            result.add(rpi);
+        }
+        return result;
+    }
+
+    @Test
+    public void testNoFalseNegatives() {
+        Random random = new Random(1);
+        RpiBloomFilter filter = new RpiBloomFilter();
+        List<byte[]> rpis = randomRpis(random, NUM_RPIS);
+        for (byte[] rpi : rpis) {
+            filter.add(rpi);
+        }
+        for (byte[] rpi : rpis) {
+            assertTrue(filter.mightContain(rpi));
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        Random random = new Random(2);
+        RpiBloomFilter filter = new RpiBloomFilter();
+        for (byte[] rpi : randomRpis(random, NUM_RPIS)) {
+            filter.add(rpi);
+        }
+        int falsePositives = 0;
+        for (byte[] rpi : randomRpis(random, NUM_RPIS)) {
+            if (filter.mightContain(rpi)) {
+                falsePositives++;
+            }
+        }
+        // Expected rate for 50,000 rpis is well below 0.01%:
+        assertTrue("false positives: " + falsePositives, falsePositives < 10);
+    }
+
+    @Test
+    public void testCraftedRpisSpreadOverBits() {
+        // rpis with a zero low half would set a single bit each if the halves were used as the
+        // hash values directly:
+        Random random = new Random(5);
+        RpiBloomFilter filter = new RpiBloomFilter();
+        for (byte[] rpi : randomRpis(random, NUM_RPIS)) {
+            Arrays.fill(rpi, EnFrameworkConstants.RPI_LENGTH / 2, rpi.length, (byte) 0);
+            filter.add(rpi);
+        }
+        int falsePositives = 0;
+        for (byte[] rpi : randomRpis(random, NUM_RPIS)) {
+            Arrays.fill(rpi, EnFrameworkConstants.RPI_LENGTH / 2, rpi.length, (byte) 0);
+            if (filter.mightContain(rpi)) {
+                falsePositives++;
+            }
+        }
+        assertTrue("false positives: " + falsePositives, falsePositives < 10);
+    }
+
+    @Test
+    public void testOffsetAccess() {
+        Random random = new Random(3);
+        byte[] buffer = new byte[3 * EnFrameworkConstants.RPI_LENGTH];
+        random.nextBytes(buffer);
+        RpiBloomFilter filter = new RpiBloomFilter(1 << 12, 3);
+        filter.add(buffer, EnFrameworkConstants.RPI_LENGTH);
+
+        byte[] rpi = new byte[EnFrameworkConstants.RPI_LENGTH];
+        System.arraycopy(buffer, EnFrameworkConstants.RPI_LENGTH, rpi, 0, rpi.length);
+        assertTrue(filter.mightContain(rpi));
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        Random random = new Random(4);
+        RpiBloomFilter filter = new RpiBloomFilter(1 << 16, 5);
+        List<byte[]> rpis = randomRpis(random, 1000);
+        for (byte[] rpi : rpis) {
+            filter.add(rpi);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        filter.writeTo(new DataOutputStream(bytes));
+        RpiBloomFilter readFilter = RpiBloomFilter.readFrom(
+            new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(filter.getNumBits(), readFilter.getNumBits());
+        assertEquals(filter.getNumHashes(), readFilter.getNumHashes());
+        for (byte[] rpi : rpis) {
+            assertTrue(readFilter.mightContain(rpi));
+        }
+        for (byte[] rpi : randomRpis(random, 1000)) {
+            assertEquals(filter.mightContain(rpi), readFilter.mightContain(rpi));
+        }
+    }
+}
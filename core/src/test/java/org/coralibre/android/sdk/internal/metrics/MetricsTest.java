@@ -0,0 +1,85 @@
+package org.coralibre.android.sdk.internal.metrics;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest {
+    @After
+    public void enableMetrics() {
+        Metrics.setEnabled(true);
+    }
+
+    @Test
+    public void testRegistryReturnsSameMetric() {
+        assertSame(Metrics.counter("test.same"), Metrics.counter("test.same"));
+        assertSame(Metrics.histogram("test.same"), Metrics.histogram("test.same"));
+        assertSame(Metrics.KEYS_PARSED, Metrics.counter("keys.parsed"));
+    }
+
+    @Test
+    public void testConcurrentCounting() throws InterruptedException {
+        Counter counter = Metrics.counter("test.concurrent");
+        long before = counter.getCount();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    counter.increment();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(before + 40000, counter.getCount());
+        assertEquals(before + 40000, (long) Metrics.snapshot().getCounters().get("test.concurrent"));
+    }
+
+    @Test
+    public void testDisabledMetricsAreNotRecorded() {
+        Counter counter = Metrics.counter("test.disabled");
+        long before = counter.getCount();
+        Metrics.setEnabled(false);
+        counter.add(5);
+        assertEquals(before, counter.getCount());
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        assertEquals(0, Histogram.bucketOf(0));
+        assertEquals(1, Histogram.bucketOf(1));
+        assertEquals(2, Histogram.bucketOf(2));
+        assertEquals(2, Histogram.bucketOf(3));
+        assertEquals(11, Histogram.bucketOf(1024));
+        assertEquals(Histogram.BUCKET_COUNT - 1, Histogram.bucketOf(Long.MAX_VALUE));
+        for (int bucket = 1; bucket < Histogram.BUCKET_COUNT; bucket++) {
+            assertEquals(bucket, Histogram.bucketOf(Histogram.upperBoundOf(bucket)));
+        }
+    }
+
+    @Test
+    public void testHistogramSnapshot() {
+        Histogram histogram = Metrics.histogram("test.histogram");
+        for (long value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(5050, snapshot.getSum());
+        assertEquals(100, snapshot.getMax());
+        assertEquals(50.5, snapshot.getMean(), 1e-9);
+        // 50 lies in the bucket 32..63, 99 in the bucket 64..127, which is capped by the max:
+        assertEquals(63, snapshot.percentile(50));
+        assertEquals(100, snapshot.percentile(99));
+        assertTrue(snapshot.percentile(0) >= 1);
+    }
+}
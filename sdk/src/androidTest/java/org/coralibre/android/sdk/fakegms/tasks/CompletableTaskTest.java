@@ -0,0 +1,128 @@
+package org.coralibre.android.sdk.fakegms.tasks;
+
+import org.coralibre.android.sdk.internal.util.CancellationCheck;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CompletableTaskTest {
+    private static final String TEST_STRING = "teststring";
+
+    @Test
+    public void listenersCalledInOrder() {
+        CompletableTask<String> task = new CompletableTask<>();
+        List<Integer> calls = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            int listener = i;
+            task.addOnSuccessListener(TaskExecutors.DIRECT, (v) -> calls.add(listener));
+        }
+        assertTrue(calls.isEmpty());
+
+        task.succeed(TEST_STRING);
+        assertEquals(3, calls.size());
+        assertEquals(0, (int) calls.get(0));
+        assertEquals(2, (int) calls.get(2));
+    }
+
+    @Test
+    public void completesOnlyOnce() {
+        CompletableTask<String> task = new CompletableTask<>();
+        assertTrue(task.succeed(TEST_STRING));
+        assertFalse(task.fail(new Exception()));
+        assertTrue(task.isSuccessful());
+        assertEquals(TEST_STRING, task.getResult());
+        assertNull(task.getException());
+    }
+
+    @Test
+    public void continueWithCalledOnFailure() {
+        Exception error = new Exception();
+        CompletableTask<String> task = new CompletableTask<>();
+        Task<Boolean> continued = task.continueWith(TaskExecutors.DIRECT, (t) -> t.isSuccessful());
+        task.fail(error);
+        assertTrue(continued.isSuccessful());
+        assertFalse(continued.getResult());
+    }
+
+    @Test
+    public void onSuccessTaskChained() {
+        CompletableTask<String> task = new CompletableTask<>();
+        CompletableTask<Integer> second = new CompletableTask<>();
+        Task<Integer> chained = task.onSuccessTask(TaskExecutors.DIRECT, (v) -> second);
+        task.succeed(TEST_STRING);
+        assertFalse(chained.isComplete());
+
+        second.succeed(TEST_STRING.length());
+        assertEquals(TEST_STRING.length(), (int) chained.getResult());
+    }
+
+    @Test
+    public void onSuccessTaskSkippedOnFailure() {
+        Exception error = new Exception();
+        CompletableTask<String> task = new CompletableTask<>();
+        Task<Integer> chained = task.onSuccessTask(TaskExecutors.DIRECT, (v) -> {
+            throw new IllegalStateException("must not be called");
+        });
+        task.fail(error);
+        assertSame(error, chained.getException());
+    }
+
+    @Test
+    public void whenAllFailsWithFirstFailure() {
+        Exception error = new Exception();
+        CompletableTask<String> first = new CompletableTask<>();
+        CompletableTask<String> second = new CompletableTask<>();
+        Task<Void> all = Tasks.whenAll(first, second, Tasks.forResult(TEST_STRING));
+
+        second.fail(error);
+        assertFalse(all.isComplete());
+        first.succeed(TEST_STRING);
+        assertTrue(all.isComplete());
+        assertSame(error, all.getException());
+    }
+
+    @Test
+    public void canceledIsNoFailure() {
+        CompletableTask<String> task = new CompletableTask<>();
+        List<Exception> failures = new ArrayList<>();
+        task.addOnFailureListener(TaskExecutors.DIRECT, failures::add);
+        Task<Integer> chained = task.onSuccessTask(TaskExecutors.DIRECT, (v) -> {
+            throw new IllegalStateException("must not be called");
+        });
+        task.cancel();
+
+        assertTrue(task.isComplete());
+        assertTrue(task.isCanceled());
+        assertFalse(task.isSuccessful());
+        assertNull(task.getException());
+        assertTrue(failures.isEmpty());
+        assertTrue(chained.isCanceled());
+    }
+
+    @Test
+    public void cancellationTokenCancelsExecutorTask() {
+        CancellationTokenSource source = new CancellationTokenSource();
+        source.cancel();
+        CancellationToken token = source.getToken();
+        Task<Void> task = Tasks.call(TaskExecutors.DIRECT, () -> {
+            CancellationCheck.throwIfRequested(token);
+            return null;
+        });
+        assertTrue(task.isCanceled());
+    }
+
+    @Test
+    public void whenAllSucceeds() {
+        CompletableTask<String> first = new CompletableTask<>();
+        Task<Void> all = Tasks.whenAll(first, Tasks.forResult(TEST_STRING));
+        first.succeed(TEST_STRING);
+        assertTrue(all.isSuccessful());
+    }
+}
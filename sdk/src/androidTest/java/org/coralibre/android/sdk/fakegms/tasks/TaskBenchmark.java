@@ -0,0 +1,68 @@
+package org.coralibre.android.sdk.fakegms.tasks;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures the overhead of the task runtime itself: completing a task and dispatching its
+ * listeners, chaining continuations and querying a failed task. All listeners run on
+ * TaskExecutors.DIRECT, so no thread hops are measured.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TaskBenchmark {
+
+    private static final int LISTENER_COUNT = 8;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private static int sink;
+
+    @Test
+    public void completeWithListeners() {
+        BenchmarkState state = benchmarkRule.getState();
+        OnSuccessListener<Integer> listener = (v) -> sink += v;
+
+        while (state.keepRunning()) {
+            CompletableTask<Integer> task = new CompletableTask<>();
+            for (int i = 0; i < LISTENER_COUNT; i++) {
+                task.addOnSuccessListener(TaskExecutors.DIRECT, listener);
+            }
+            task.succeed(1);
+        }
+    }
+
+    @Test
+    public void continuationChain() {
+        BenchmarkState state = benchmarkRule.getState();
+
+        // Like parse -> match -> persist -> broadcast:
+        while (state.keepRunning()) {
+            CompletableTask<Integer> task = new CompletableTask<>();
+            Task<Integer> chained = task
+                .continueWith(TaskExecutors.DIRECT, (t) -> t.getResult() + 1)
+                .onSuccessTask(TaskExecutors.DIRECT, (v) -> Tasks.forResult(v + 1))
+                .continueWith(TaskExecutors.DIRECT, (t) -> t.getResult() + 1);
+            task.succeed(0);
+            sink += chained.getResult();
+        }
+    }
+
+    @Test
+    public void queryFailedTask() {
+        BenchmarkState state = benchmarkRule.getState();
+        CompletableTask<Integer> task = new CompletableTask<>();
+        task.fail(new Exception());
+
+        while (state.keepRunning()) {
+            if (!task.isSuccessful() && task.getException() != null) {
+                sink++;
+            }
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.junit.Test;
 import java.util.concurrent.Executor;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 public class TaskExecutorsTest {
 
@@ -20,4 +21,15 @@ public class TaskExecutorsTest {
 
         assertEquals(Looper.getMainLooper().getThread(), executorThread);
     }
+
+    @Test
+    public void backgroundExecutorsNotOnMainThread() throws InterruptedException {
+        for (Executor executor : new Executor[]{TaskExecutors.IO, TaskExecutors.COMPUTE}) {
+            Thread executorThread = AsyncTestUtil.waitUntilSet((result) -> {
+                executor.execute(() -> result.set(Thread.currentThread()));
+            });
+
+            assertNotEquals(Looper.getMainLooper().getThread(), executorThread);
+        }
+    }
 }
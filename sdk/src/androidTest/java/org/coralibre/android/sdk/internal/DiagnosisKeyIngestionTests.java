@@ -0,0 +1,271 @@
+package org.coralibre.android.sdk.internal;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.protobuf.ByteString;
+
+import org.coralibre.android.sdk.DatatypesTestUtil;
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureConfiguration;
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureSummary;
+import org.coralibre.android.sdk.internal.crypto.CryptoPrimitives;
+import org.coralibre.android.sdk.internal.database.Database;
+import org.coralibre.android.sdk.internal.database.DatabaseAccess;
+import org.coralibre.android.sdk.internal.database.TokenMatchingState;
+import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadata;
+import org.coralibre.android.sdk.internal.datatypes.CapturedData;
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey;
+import org.coralibre.android.sdk.internal.datatypes.ENInterval;
+import org.coralibre.android.sdk.internal.datatypes.InternalTemporaryExposureKey;
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier;
+import org.coralibre.android.sdk.internal.datatypes.util.ENIntervalUtil;
+import org.coralibre.android.sdk.internal.deviceinfo.ConfidenceLevel;
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceInfo;
+import org.coralibre.android.sdk.internal.matching.ParallelMatcher;
+import org.coralibre.android.sdk.internal.util.CancellationCheck;
+import org.coralibre.android.sdk.proto.TemporaryExposureKeyFile.TemporaryExposureKeyExport;
+import org.coralibre.android.sdk.proto.TemporaryExposureKeyFile.TemporaryExposureKeyProto;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class DiagnosisKeyIngestionTests {
+    private static final int NUM_KEYS = 50;
+    private static final DeviceInfo DEVICE_INFO =
+        new DeviceInfo("test", "test", "test", 5, -20, ConfidenceLevel.HIGH);
+    private static final ExposureConfiguration EXPOSURE_CONFIGURATION =
+        new ExposureConfiguration.ExposureConfigurationBuilder().build();
+
+    @BeforeClass
+    public static void initGlobal() {
+        DatabaseAccess.init(InstrumentationRegistry.getInstrumentation().getContext());
+    }
+
+    @AfterClass
+    public static void deInit() {
+        DatabaseAccess.deInit();
+    }
+
+    private static File writeKeyFile(List<DiagnosisKey> diagnosisKeys) throws IOException {
+        TemporaryExposureKeyExport.Builder builder = TemporaryExposureKeyExport.newBuilder();
+        for (DiagnosisKey diagnosisKey : diagnosisKeys) {
+            builder.addKeys(TemporaryExposureKeyProto.newBuilder()
+                .setKeyData(ByteString.copyFrom(diagnosisKey.getKeyData()))
+                .setRollingStartIntervalNumber((int) diagnosisKey.getInterval().get())
+                .setRollingPeriod(EnFrameworkConstants.TEK_ROLLING_PERIOD)
+                .setTransmissionRiskLevel(diagnosisKey.getTransmissionRiskLevel()));
+        }
+
+        File keyFile = File.createTempFile("keys", ".zip",
+            InstrumentationRegistry.getInstrumentation().getTargetContext().getCacheDir());
+        keyFile.deleteOnExit();
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(keyFile))) {
+            zip.putNextEntry(new ZipEntry("export.bin"));
+            zip.write(Arrays.copyOf("EK Export v1".getBytes("UTF-8"), 16));
+            builder.build().writeTo(zip);
+            zip.closeEntry();
+        }
+        return keyFile;
+    }
+
+    /**
+     * @return a key whose rolling period has ended, so that it is only stored if it matches
+     */
+    private static DiagnosisKey createEndedDiagnosisKey() {
+        long intervalNumber = ENIntervalUtil.getCurrentInterval().get() -
+            2 * EnFrameworkConstants.TEK_ROLLING_PERIOD;
+        return new DiagnosisKey(new InternalTemporaryExposureKey(intervalNumber,
+            DatatypesTestUtil.createDummyDiagnosisKey().getKeyData()), 0);
+    }
+
+    private static void addSighting(Database database, DiagnosisKey diagnosisKey) {
+        ENInterval interval = new ENInterval(diagnosisKey.getInterval().get() + 5);
+        RollingProximityIdentifier rpi = CryptoPrimitives.generateRPI(
+            CryptoPrimitives.generateRPIK(diagnosisKey.getKeyData()), interval);
+        database.addCapturedPayload(new CapturedData(
+            interval.getUnixTime() * 1000,
+            -60,
+            rpi,
+            new AssociatedEncryptedMetadata(new byte[EnFrameworkConstants.AEM_LENGTH])));
+    }
+
+    @Test
+    public void testOnlyMatchingKeysArePersisted() throws IOException {
+        Database database = DatabaseAccess.getDefaultDatabaseInstance();
+        database.clearAllData();
+
+        List<DiagnosisKey> diagnosisKeys = new ArrayList<>();
+        for (int i = 0; i < NUM_KEYS; i++) {
+            diagnosisKeys.add(createEndedDiagnosisKey());
+        }
+        DiagnosisKey infectedKey = diagnosisKeys.get(NUM_KEYS / 2);
+        addSighting(database, infectedKey);
+
+        DiagnosisKeyIngestion ingestion = new DiagnosisKeyIngestion(database, new ParallelMatcher());
+        assertTrue(ingestion.provideDiagnosisKeys(
+            Collections.singletonList(writeKeyFile(diagnosisKeys)), "token",
+            EXPOSURE_CONFIGURATION, DEVICE_INFO));
+
+        List<DiagnosisKey> storedKeys = database.getDiagnosisKeys("token");
+        assertEquals(1, storedKeys.size());
+        assertArrayEquals(infectedKey.getKeyData(), storedKeys.get(0).getKeyData());
+    }
+
+    @Test
+    public void testTokenIsRegisteredWithoutMatches() throws IOException {
+        Database database = DatabaseAccess.getDefaultDatabaseInstance();
+        database.clearAllData();
+
+        List<DiagnosisKey> diagnosisKeys = new ArrayList<>();
+        for (int i = 0; i < NUM_KEYS; i++) {
+            diagnosisKeys.add(createEndedDiagnosisKey());
+        }
+        addSighting(database, createEndedDiagnosisKey());
+
+        DiagnosisKeyIngestion ingestion = new DiagnosisKeyIngestion(database, new ParallelMatcher());
+        assertFalse(ingestion.provideDiagnosisKeys(
+            Collections.singletonList(writeKeyFile(diagnosisKeys)), "token",
+            EXPOSURE_CONFIGURATION, DEVICE_INFO));
+
+        assertEquals(0, database.getDiagnosisKeys("token").size());
+    }
+
+    @Test
+    public void testKeysInTheirRollingPeriodArePending() throws IOException {
+        Database database = DatabaseAccess.getDefaultDatabaseInstance();
+        database.clearAllData();
+
+        List<DiagnosisKey> diagnosisKeys = new ArrayList<>();
+        for (int i = 0; i < NUM_KEYS; i++) {
+            diagnosisKeys.add(createEndedDiagnosisKey());
+        }
+        DiagnosisKey currentKey = DatatypesTestUtil.createDummyDiagnosisKey();
+        diagnosisKeys.add(currentKey);
+        File keyFile = writeKeyFile(diagnosisKeys);
+
+        DiagnosisKeyIngestion ingestion = new DiagnosisKeyIngestion(database, new ParallelMatcher());
+        assertFalse(ingestion.provideDiagnosisKeys(Collections.singletonList(keyFile), "token",
+            EXPOSURE_CONFIGURATION, DEVICE_INFO));
+        // Providing the key again does not store it twice:
+        assertFalse(ingestion.provideDiagnosisKeys(Collections.singletonList(keyFile), "token",
+            EXPOSURE_CONFIGURATION, DEVICE_INFO));
+
+        List<DiagnosisKey> storedKeys = database.getDiagnosisKeys("token");
+        assertEquals(1, storedKeys.size());
+        assertArrayEquals(currentKey.getKeyData(), storedKeys.get(0).getKeyData());
+        assertEquals(1, database.getPendingDiagnosisKeysBefore("token",
+            new ENInterval(currentKey.getInterval().get() + 1)).size());
+        assertEquals(0, database.getExposureSummary("token").getMatchedKeyCount());
+    }
+
+    @Test
+    public void testPersistAllMode() throws IOException {
+        Database database = DatabaseAccess.getDefaultDatabaseInstance();
+        database.clearAllData();
+
+        List<DiagnosisKey> diagnosisKeys = new ArrayList<>();
+        for (int i = 0; i < NUM_KEYS; i++) {
+            diagnosisKeys.add(createEndedDiagnosisKey());
+        }
+        addSighting(database, diagnosisKeys.get(0));
+
+        DiagnosisKeyIngestion ingestion = new DiagnosisKeyIngestion(
+            database, new ParallelMatcher(), DiagnosisKeyIngestion.Mode.PERSIST_ALL);
+        assertTrue(ingestion.provideDiagnosisKeys(
+            Collections.singletonList(writeKeyFile(diagnosisKeys)), "token",
+            EXPOSURE_CONFIGURATION, DEVICE_INFO));
+
+        assertEquals(NUM_KEYS, database.getDiagnosisKeys("token").size());
+    }
+
+    @Test
+    public void testIncrementalMatching() throws IOException {
+        Database database = DatabaseAccess.getDefaultDatabaseInstance();
+        database.clearAllData();
+
+        List<DiagnosisKey> firstKeys = new ArrayList<>();
+        List<DiagnosisKey> secondKeys = new ArrayList<>();
+        for (int i = 0; i < NUM_KEYS; i++) {
+            firstKeys.add(createEndedDiagnosisKey());
+            secondKeys.add(createEndedDiagnosisKey());
+        }
+        addSighting(database, firstKeys.get(0));
+        addSighting(database, secondKeys.get(0));
+        // A key that has already been matched is not counted again:
+        secondKeys.add(firstKeys.get(0));
+        File firstFile = writeKeyFile(firstKeys);
+        File secondFile = writeKeyFile(secondKeys);
+
+        DiagnosisKeyIngestion ingestion = new DiagnosisKeyIngestion(database, new ParallelMatcher());
+        assertTrue(ingestion.provideDiagnosisKeys(Collections.singletonList(firstFile), "token",
+            EXPOSURE_CONFIGURATION, DEVICE_INFO));
+        assertEquals(1, database.getExposureSummary("token").getMatchedKeyCount());
+
+        assertTrue(ingestion.provideDiagnosisKeys(Collections.singletonList(secondFile), "token",
+            EXPOSURE_CONFIGURATION, DEVICE_INFO));
+        TokenMatchingState state = database.getMatchingState("token");
+        assertTrue(state.getExposureDataUpToDate());
+        assertEquals(2 * NUM_KEYS + 1, state.getEvaluatedKeyCount());
+        assertEquals(2, database.getDiagnosisKeys("token").size());
+
+        // Matching both files at once has to give the same results:
+        assertTrue(ingestion.provideDiagnosisKeys(Arrays.asList(firstFile, secondFile), "token2",
+            EXPOSURE_CONFIGURATION, DEVICE_INFO));
+        ExposureSummary summary = database.getExposureSummary("token");
+        assertEquals(database.getExposureSummary("token2"), summary);
+        assertEquals(2, summary.getMatchedKeyCount());
+        assertEquals(database.getExposureInformation("token2").size(),
+            database.getExposureInformation("token").size());
+    }
+
+    @Test
+    public void testProgressCountsMatchesOfThisCall() throws IOException {
+        Database database = DatabaseAccess.getDefaultDatabaseInstance();
+        database.clearAllData();
+
+        List<DiagnosisKey> firstKeys = new ArrayList<>();
+        List<DiagnosisKey> secondKeys = new ArrayList<>();
+        for (int i = 0; i < NUM_KEYS; i++) {
+            firstKeys.add(createEndedDiagnosisKey());
+            secondKeys.add(createEndedDiagnosisKey());
+        }
+        addSighting(database, firstKeys.get(0));
+
+        DiagnosisKeyIngestion ingestion = new DiagnosisKeyIngestion(database, new ParallelMatcher());
+        assertTrue(ingestion.provideDiagnosisKeys(
+            Collections.singletonList(writeKeyFile(firstKeys)), "token",
+            EXPOSURE_CONFIGURATION, DEVICE_INFO));
+
+        long[] lastProgress = new long[3];
+        // The key of the first call still matches:
+        assertTrue(ingestion.provideDiagnosisKeys(
+            Collections.singletonList(writeKeyFile(secondKeys)), "token",
+            EXPOSURE_CONFIGURATION, DEVICE_INFO, CancellationCheck.NEVER,
+            (bytesRead, keysProcessed, matchesFound) -> {
+                lastProgress[0] = bytesRead;
+                lastProgress[1] = keysProcessed;
+                lastProgress[2] = matchesFound;
+            }));
+        assertEquals(NUM_KEYS, lastProgress[1]);
+        // ... but it is not counted as a match of the second call:
+        assertEquals(0, lastProgress[2]);
+        assertEquals(1, database.getExposureSummary("token").getMatchedKeyCount());
+    }
+}
@@ -0,0 +1,68 @@
+package org.coralibre.android.sdk.internal;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.coralibre.android.sdk.internal.crypto.CryptoPrimitives;
+import org.coralibre.android.sdk.internal.datatypes.ENInterval;
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier;
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifierKey;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Compares deriving all rpis of one rpik with single generateRPI(...) calls against the batch
+ * derivation of CryptoPrimitives.generateRPIs(...).
+ */
+@RunWith(AndroidJUnit4.class)
+public class RPIDerivationBenchmark {
+
+    private static final long ROLLING_START = 2650032L;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private static RollingProximityIdentifierKey randomRPIK() {
+        byte[] rawRPIK = new byte[EnFrameworkConstants.RPIK_LENGTH];
+        new Random().nextBytes(rawRPIK);
+        return new RollingProximityIdentifierKey(rawRPIK);
+    }
+
+    @Test
+    public void generateRPIPerInterval() {
+        BenchmarkState state = benchmarkRule.getState();
+        RollingProximityIdentifierKey rpik = randomRPIK();
+
+        while (state.keepRunning()) {
+            for (int i = 0; i < EnFrameworkConstants.TEK_ROLLING_PERIOD; i++) {
+                CryptoPrimitives.generateRPI(rpik, new ENInterval(ROLLING_START + i));
+            }
+        }
+    }
+
+    @Test
+    public void generateRPIsBatch() {
+        BenchmarkState state = benchmarkRule.getState();
+        RollingProximityIdentifierKey rpik = randomRPIK();
+        byte[] output = new byte[EnFrameworkConstants.TEK_ROLLING_PERIOD * EnFrameworkConstants.RPI_LENGTH];
+
+        while (state.keepRunning()) {
+            CryptoPrimitives.generateRPIs(rpik, ROLLING_START, output);
+        }
+
+        // Outside of the measured loop: both ways of derivation have to yield the same rpis.
+        for (int i = 0; i < EnFrameworkConstants.TEK_ROLLING_PERIOD; i++) {
+            RollingProximityIdentifier rpi =
+                CryptoPrimitives.generateRPI(rpik, new ENInterval(ROLLING_START + i));
+            byte[] batchRPI = new byte[EnFrameworkConstants.RPI_LENGTH];
+            System.arraycopy(output, i * EnFrameworkConstants.RPI_LENGTH, batchRPI, 0, batchRPI.length);
+            assertArrayEquals(rpi.getData(), batchRPI);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package org.coralibre.android.sdk.internal;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.coralibre.android.sdk.DatatypesTestUtil;
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureConfiguration;
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureSummary;
+import org.coralibre.android.sdk.internal.crypto.CryptoPrimitives;
+import org.coralibre.android.sdk.internal.database.Database;
+import org.coralibre.android.sdk.internal.database.DatabaseAccess;
+import org.coralibre.android.sdk.internal.database.TokenMatchingState;
+import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadata;
+import org.coralibre.android.sdk.internal.datatypes.CapturedData;
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey;
+import org.coralibre.android.sdk.internal.datatypes.ENInterval;
+import org.coralibre.android.sdk.internal.datatypes.InternalTemporaryExposureKey;
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier;
+import org.coralibre.android.sdk.internal.datatypes.util.ENIntervalUtil;
+import org.coralibre.android.sdk.internal.deviceinfo.ConfidenceLevel;
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceInfo;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class SightingReevaluationTests {
+    private static final DeviceInfo DEVICE_INFO =
+        new DeviceInfo("test", "test", "test", 5, -20, ConfidenceLevel.HIGH);
+    private static final ExposureConfiguration EXPOSURE_CONFIGURATION =
+        new ExposureConfiguration.ExposureConfigurationBuilder().build();
+
+    @BeforeClass
+    public static void initGlobal() {
+        DatabaseAccess.init(InstrumentationRegistry.getInstrumentation().getContext());
+    }
+
+    @AfterClass
+    public static void deInit() {
+        DatabaseAccess.deInit();
+    }
+
+    private static void addSighting(Database database, DiagnosisKey diagnosisKey, int offset) {
+        ENInterval interval = new ENInterval(diagnosisKey.getInterval().get() + offset);
+        RollingProximityIdentifier rpi = CryptoPrimitives.generateRPI(
+            CryptoPrimitives.generateRPIK(diagnosisKey.getKeyData()), interval);
+        database.addCapturedPayload(new CapturedData(
+            interval.getUnixTime() * 1000,
+            -60,
+            rpi,
+            new AssociatedEncryptedMetadata(new byte[EnFrameworkConstants.AEM_LENGTH])));
+    }
+
+    /**
+     * Stores the key for the token together with empty exposure data, which covers all payloads
+     * that have been collected so far.
+     */
+    private static void addEvaluatedToken(Database database, String token, DiagnosisKey key) {
+        database.addDiagnosisKeys(token, Collections.singletonList(key));
+        database.putExposureMatchingResults(token,
+            Collections.emptyList(),
+            new ExposureSummary.ExposureSummaryBuilder().build(),
+            new TokenMatchingState(1, database.getLastCollectedPayloadKey(),
+                EXPOSURE_CONFIGURATION));
+    }
+
+    @Test
+    public void testNewSightingUpdatesExposureData() {
+        Database database = DatabaseAccess.getDefaultDatabaseInstance();
+        database.clearAllData();
+
+        DiagnosisKey infectedKey = DatatypesTestUtil.createDummyDiagnosisKey();
+        addEvaluatedToken(database, "token", infectedKey);
+        addSighting(database, infectedKey, 5);
+
+        SightingReevaluation reevaluation = new SightingReevaluation(database);
+        assertEquals(Collections.singletonList("token"), reevaluation.reevaluate(DEVICE_INFO));
+        assertEquals(1, database.getExposureSummary("token").getMatchedKeyCount());
+        TokenMatchingState state = database.getMatchingState("token");
+        assertTrue(state.getExposureDataUpToDate());
+        assertEquals(database.getLastCollectedPayloadKey(), state.getEvaluatedPayloadKey());
+        assertEquals(EXPOSURE_CONFIGURATION, state.getExposureConfiguration());
+
+        // Nothing new has been collected since:
+        assertTrue(reevaluation.reevaluate(DEVICE_INFO).isEmpty());
+    }
+
+    @Test
+    public void testPendingKeyMatchesLaterSighting() {
+        Database database = DatabaseAccess.getDefaultDatabaseInstance();
+        database.clearAllData();
+
+        // The key has not matched when it has been provided, but its rolling period has not
+        // ended yet:
+        DiagnosisKey pendingKey = DatatypesTestUtil.createDummyDiagnosisKey();
+        database.addPendingDiagnosisKeys("token", Collections.singletonList(pendingKey));
+        database.putExposureMatchingResults("token",
+            Collections.emptyList(),
+            new ExposureSummary.ExposureSummaryBuilder().build(),
+            new TokenMatchingState(1, database.getLastCollectedPayloadKey(),
+                EXPOSURE_CONFIGURATION));
+        addSighting(database, pendingKey, 5);
+
+        assertEquals(Collections.singletonList("token"),
+            new SightingReevaluation(database).reevaluate(DEVICE_INFO));
+        assertEquals(1, database.getExposureSummary("token").getMatchedKeyCount());
+        // It stays pending until its rolling period has ended:
+        assertEquals(1, database.getPendingDiagnosisKeysBefore("token",
+            new ENInterval(pendingKey.getInterval().get() + 1)).size());
+    }
+
+    @Test
+    public void testEndedPendingKeysAreResolved() {
+        Database database = DatabaseAccess.getDefaultDatabaseInstance();
+        database.clearAllData();
+
+        long endedInterval = ENIntervalUtil.getCurrentInterval().get() -
+            2 * EnFrameworkConstants.TEK_ROLLING_PERIOD;
+        DiagnosisKey matchedKey = createDiagnosisKey(endedInterval);
+        DiagnosisKey unmatchedKey = createDiagnosisKey(endedInterval);
+        addSighting(database, matchedKey, 5);
+        database.addPendingDiagnosisKeys("token", Arrays.asList(matchedKey, unmatchedKey));
+
+        new SightingReevaluation(database).reevaluate(DEVICE_INFO);
+        List<DiagnosisKey> storedKeys = database.getDiagnosisKeys("token");
+        assertEquals(1, storedKeys.size());
+        assertArrayEquals(matchedKey.getKeyData(), storedKeys.get(0).getKeyData());
+        assertTrue(database.getPendingDiagnosisKeysBefore("token",
+            ENIntervalUtil.getCurrentInterval()).isEmpty());
+    }
+
+    private static DiagnosisKey createDiagnosisKey(long intervalNumber) {
+        return new DiagnosisKey(new InternalTemporaryExposureKey(intervalNumber,
+            DatatypesTestUtil.createDummyDiagnosisKey().getKeyData()), 0);
+    }
+
+    @Test
+    public void testUnrelatedSightingOnlyAdvancesEvaluatedPayload() {
+        Database database = DatabaseAccess.getDefaultDatabaseInstance();
+        database.clearAllData();
+
+        addEvaluatedToken(database, "token", DatatypesTestUtil.createDummyDiagnosisKey());
+        addSighting(database, DatatypesTestUtil.createDummyDiagnosisKey(), 5);
+
+        assertTrue(new SightingReevaluation(database).reevaluate(DEVICE_INFO).isEmpty());
+        assertEquals(0, database.getExposureSummary("token").getMatchedKeyCount());
+        assertEquals(database.getLastCollectedPayloadKey(),
+            database.getMatchingState("token").getEvaluatedPayloadKey());
+    }
+
+    @Test
+    public void testRecomputeOutdated() {
+        Database database = DatabaseAccess.getDefaultDatabaseInstance();
+        database.clearAllData();
+
+        DiagnosisKey infectedKey = DatatypesTestUtil.createDummyDiagnosisKey();
+        addSighting(database, infectedKey, 5);
+        addEvaluatedToken(database, "outdated", infectedKey);
+        addEvaluatedToken(database, "upToDate", infectedKey);
+        database.addDiagnosisKeys("outdated", Collections.emptyList());
+
+        SightingReevaluation reevaluation = new SightingReevaluation(database);
+        assertEquals(Collections.singletonList("outdated"),
+            reevaluation.recomputeOutdated(Arrays.asList("outdated", "upToDate"), DEVICE_INFO));
+        assertTrue(database.getMatchingState("outdated").getExposureDataUpToDate());
+        assertEquals(1, database.getExposureSummary("outdated").getMatchedKeyCount());
+        // The token that has not been outdated keeps its stored data:
+        assertEquals(0, database.getExposureSummary("upToDate").getMatchedKeyCount());
+    }
+
+    @Test
+    public void testTokensWithoutConfigurationAreSkipped() {
+        Database database = DatabaseAccess.getDefaultDatabaseInstance();
+        database.clearAllData();
+
+        DiagnosisKey infectedKey = DatatypesTestUtil.createDummyDiagnosisKey();
+        database.addDiagnosisKeys("token", Collections.singletonList(infectedKey));
+        addSighting(database, infectedKey, 5);
+
+        assertTrue(new SightingReevaluation(database).reevaluate(DEVICE_INFO).isEmpty());
+        assertEquals(0, database.getMatchingState("token").getEvaluatedPayloadKey());
+    }
+}
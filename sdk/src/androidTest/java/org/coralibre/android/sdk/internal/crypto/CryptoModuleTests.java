@@ -149,14 +149,14 @@ public class CryptoModuleTests {
     @Test
     public void testGenerateRPIK() throws Exception {
         InternalTemporaryExposureKey tek = new InternalTemporaryExposureKey(0L, TEK_VAL1);
-        RollingProximityIdentifierKey rpik = CryptoModule.generateRPIK(tek);
+        RollingProximityIdentifierKey rpik = CryptoPrimitives.generateRPIK(tek);
         assertArrayEquals(RPIK_VAL1, rpik.getKey());
     }
 
     @Test
     public void testGenerateAEMK() throws Exception {
         InternalTemporaryExposureKey tek = new InternalTemporaryExposureKey(0L, TEK_VAL1);
-        AssociatedEncryptedMetadataKey aemk = CryptoModule.generateAEMK(tek);
+        AssociatedEncryptedMetadataKey aemk = CryptoPrimitives.generateAEMK(tek);
         assertArrayEquals(AEMK_VAL1, aemk.getKey());
     }
 
@@ -166,7 +166,7 @@ public class CryptoModuleTests {
         //encrypt
         RollingProximityIdentifier rpi = new CryptoModule(DatabaseAccess.getDefaultDatabaseInstance()).generateRPI(rpik);
         //decrypt
-        PaddedData pd = CryptoModule.decryptRPI(rpi, rpik);
+        PaddedData pd = CryptoPrimitives.decryptRPI(rpi, rpik);
         assertTrue("RPI decryption failed", pd.isRPIInfoValid());
     }
 
@@ -177,8 +177,8 @@ public class CryptoModuleTests {
                 new ENInterval(0));
         AssociatedEncryptedMetadataKey aemk = new AssociatedEncryptedMetadataKey(AEMK_VAL1);
 
-        AssociatedEncryptedMetadata aem = CryptoModule.encryptAM(am, rpi, aemk);
-        AssociatedMetadata decryptedAM = CryptoModule.decryptAEM(aem, rpi, aemk);
+        AssociatedEncryptedMetadata aem = CryptoPrimitives.encryptAM(am, rpi, aemk);
+        AssociatedMetadata decryptedAM = CryptoPrimitives.decryptAEM(aem, rpi, aemk);
         assertArrayEquals(am.getData(), decryptedAM.getData());
     }
 
@@ -186,17 +186,17 @@ public class CryptoModuleTests {
     // See: https://github.com/corona-warn-app/cwa-app-android/issues/75#issuecomment-640114705
     public void testRoundtripExample1() throws Exception {
         InternalTemporaryExposureKey tek = new InternalTemporaryExposureKey(0L, TEK_VAL2);
-        RollingProximityIdentifierKey rpik = CryptoModule.generateRPIK(tek);
+        RollingProximityIdentifierKey rpik = CryptoPrimitives.generateRPIK(tek);
         assertArrayEquals(TEK_VAL2_RPIK, rpik.getKey());
         ENInterval enInterval = new ENInterval(2652091);
-        RollingProximityIdentifier rpi = CryptoModule.generateRPI(rpik, enInterval);
+        RollingProximityIdentifier rpi = CryptoPrimitives.generateRPI(rpik, enInterval);
         assertArrayEquals(TEK_VAL2_RPI_1, rpi.getData());
 
-        AssociatedEncryptedMetadataKey aemk = CryptoModule.generateAEMK(tek);
+        AssociatedEncryptedMetadataKey aemk = CryptoPrimitives.generateAEMK(tek);
         assertArrayEquals(TEK_VAL2_AEMK, aemk.getKey());
 
         AssociatedEncryptedMetadata aem = new AssociatedEncryptedMetadata(TEK_VAL2_AEM);
-        AssociatedMetadata am = CryptoModule.decryptAEM(aem, rpi, aemk);
+        AssociatedMetadata am = CryptoPrimitives.decryptAEM(aem, rpi, aemk);
         assertEquals(-14, am.getTransmitPowerLevel());
     }
 
@@ -204,17 +204,17 @@ public class CryptoModuleTests {
     // See: https://github.com/corona-warn-app/cwa-app-android/issues/75#issuecomment-640114705
     public void testRoundtripExample2() throws Exception {
         InternalTemporaryExposureKey tek = new InternalTemporaryExposureKey(0L, TEK_VAL3);
-        RollingProximityIdentifierKey rpik = CryptoModule.generateRPIK(tek);
+        RollingProximityIdentifierKey rpik = CryptoPrimitives.generateRPIK(tek);
         assertArrayEquals(TEK_VAL3_RPIK, rpik.getKey());
         ENInterval enInterval = new ENInterval(2649435);
-        RollingProximityIdentifier rpi = CryptoModule.generateRPI(rpik, enInterval);
+        RollingProximityIdentifier rpi = CryptoPrimitives.generateRPI(rpik, enInterval);
         assertArrayEquals(TEK_VAL3_RPI_1, rpi.getData());
 
-        AssociatedEncryptedMetadataKey aemk = CryptoModule.generateAEMK(tek);
+        AssociatedEncryptedMetadataKey aemk = CryptoPrimitives.generateAEMK(tek);
         assertArrayEquals(TEK_VAL3_AEMK, aemk.getKey());
 
         AssociatedEncryptedMetadata aem = new AssociatedEncryptedMetadata(TEK_VAL3_AEM);
-        AssociatedMetadata am = CryptoModule.decryptAEM(aem, rpi, aemk);
+        AssociatedMetadata am = CryptoPrimitives.decryptAEM(aem, rpi, aemk);
         assertEquals(12, am.getTransmitPowerLevel());
     }
 
@@ -1,7 +1,5 @@
 package org.coralibre.android.sdk.internal.crypto;
 
-import android.util.Pair;
-
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
 import org.coralibre.android.sdk.internal.EnFrameworkConstants;
@@ -16,6 +14,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import kotlin.Pair;
+
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
@@ -193,9 +193,9 @@ public class ExposeCheckerTests {
                 = ExposeChecker.findMatches(TEK_LIST_TWO_PER_DAY, collectedRPIs);
 
         assertEquals(2, foundMatches.size());
-        assertArrayEquals(foundMatches.get(0).first.getKey(), TEK_LIST_TWO_PER_DAY.get(6).getKey());
-        assertEquals(foundMatches.get(0).second, genrpis.get(5));
-        assertArrayEquals(foundMatches.get(1).first.getKey(), TEK_LIST_TWO_PER_DAY.get(7).getKey());
-        assertEquals(foundMatches.get(1).second, genrpis.get(27));
+        assertArrayEquals(foundMatches.get(0).getFirst().getKey(), TEK_LIST_TWO_PER_DAY.get(6).getKey());
+        assertEquals(foundMatches.get(0).getSecond(), genrpis.get(5));
+        assertArrayEquals(foundMatches.get(1).getFirst().getKey(), TEK_LIST_TWO_PER_DAY.get(7).getKey());
+        assertEquals(foundMatches.get(1).getSecond(), genrpis.get(27));
     }
 }
@@ -0,0 +1,96 @@
+package org.coralibre.android.sdk.internal.crypto;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.google.crypto.tink.subtle.Hkdf;
+
+import org.coralibre.android.sdk.internal.EnFrameworkConstants;
+import org.coralibre.android.sdk.internal.datatypes.ENInterval;
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier;
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifierKey;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(AndroidJUnit4.class)
+public class KeyDerivationCacheTests {
+    private static final long ROLLING_START = 2650032L;
+
+    private static byte[] randomTEK(Random random) {
+        byte[] tek = new byte[EnFrameworkConstants.TEK_LENGTH];
+        random.nextBytes(tek);
+        return tek;
+    }
+
+    private static byte[] hkdf(byte[] tek, String info) throws GeneralSecurityException {
+        return Hkdf.computeHkdf("HMACSHA256", tek, null, info.getBytes(StandardCharsets.UTF_8), 16);
+    }
+
+    @Test
+    public void testCachedKeysEqualDerivedKeys() throws GeneralSecurityException {
+        KeyDerivationCache cache = new KeyDerivationCache();
+        byte[] tek = randomTEK(new Random(1));
+
+        assertArrayEquals(hkdf(tek, CryptoPrimitives.RPIK_INFO), cache.rpik(tek).getKey());
+        assertArrayEquals(hkdf(tek, CryptoPrimitives.AEMK_INFO), cache.aemk(tek).getKey());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testKeyedByContent() {
+        KeyDerivationCache cache = new KeyDerivationCache();
+        byte[] tek = randomTEK(new Random(2));
+
+        RollingProximityIdentifierKey rpik = cache.rpik(tek);
+        // A different array with the same content has to hit the cache:
+        assertSame(rpik, cache.rpik(Arrays.copyOf(tek, tek.length)));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(rpik.hashCode(), new RollingProximityIdentifierKey(rpik.getKey()).hashCode());
+    }
+
+    @Test
+    public void testEviction() {
+        KeyDerivationCache cache = new KeyDerivationCache(2);
+        Random random = new Random(3);
+        byte[] tek1 = randomTEK(random);
+        byte[] tek2 = randomTEK(random);
+        byte[] tek3 = randomTEK(random);
+
+        cache.rpik(tek1);
+        cache.rpik(tek2);
+        cache.rpik(tek1); // tek2 is now the least recently used entry
+        cache.rpik(tek3);
+        assertEquals(2, cache.getSize());
+
+        long misses = cache.getMissCount();
+        cache.rpik(tek1);
+        assertEquals(misses, cache.getMissCount());
+        cache.rpik(tek2);
+        assertEquals(misses + 1, cache.getMissCount());
+    }
+
+    @Test
+    public void testCachedRPIs() {
+        KeyDerivationCache cache = new KeyDerivationCache(16, true);
+        byte[] tek = randomTEK(new Random(4));
+        RollingProximityIdentifierKey rpik = cache.rpik(tek);
+
+        byte[] rpis = cache.rpis(tek, ROLLING_START, rpik);
+        assertSame(rpis, cache.rpis(tek, ROLLING_START, rpik));
+        for (int i = 0; i < EnFrameworkConstants.TEK_ROLLING_PERIOD; i++) {
+            RollingProximityIdentifier rpi =
+                CryptoPrimitives.generateRPI(rpik, new ENInterval(ROLLING_START + i));
+            assertArrayEquals(rpi.getData(), Arrays.copyOfRange(rpis,
+                i * EnFrameworkConstants.RPI_LENGTH, (i + 1) * EnFrameworkConstants.RPI_LENGTH));
+        }
+    }
+}
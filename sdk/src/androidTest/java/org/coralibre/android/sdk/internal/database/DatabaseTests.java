@@ -4,25 +4,40 @@ import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.platform.app.InstrumentationRegistry;
 
 import org.coralibre.android.sdk.DatatypesTestUtil;
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureConfiguration;
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureInformation;
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureSummary;
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ReportType;
+import org.coralibre.android.sdk.internal.EnFrameworkConstants;
 import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadata;
 import org.coralibre.android.sdk.internal.datatypes.CapturedData;
+import org.coralibre.android.sdk.internal.datatypes.CapturedSightings;
 import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey;
 import org.coralibre.android.sdk.internal.datatypes.ENInterval;
 import org.coralibre.android.sdk.internal.datatypes.IntervalOfCapturedData;
 import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier;
 import org.coralibre.android.sdk.internal.datatypes.InternalTemporaryExposureKey;
 import org.coralibre.android.sdk.internal.datatypes.util.ENIntervalUtil;
+import org.coralibre.android.sdk.internal.matching.RpiBloomFilter;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 @RunWith(AndroidJUnit4.class)
 public class DatabaseTests {
@@ -132,6 +147,25 @@ public class DatabaseTests {
 
 
 
+    @Test
+    public void testInsertCapturedDataBatch() {
+        Database db = DatabaseAccess.getDefaultDatabaseInstance();
+        db.clearAllData();
+
+        ENInterval interval = ENIntervalUtil.getCurrentInterval();
+        List<CapturedData> batch = new LinkedList<>();
+        for (int i = 0; i < 300; i++) {
+            batch.add(DatatypesTestUtil.createDummyCapturedData(interval));
+        }
+        db.addCapturedPayloads(batch);
+
+        int numResultData = 0;
+        for (IntervalOfCapturedData resultInterval : db.getAllCollectedPayload()) {
+            numResultData += resultInterval.getCapturedData().size();
+        }
+        assertEquals(batch.size(), numResultData);
+    }
+
     @Test
     public void testTruncate() throws Exception {
         DatabaseAccess.getDefaultDatabaseInstance().clearAllData();
@@ -271,6 +305,124 @@ public class DatabaseTests {
         }
     }
 
+    @Test
+    public void testUpdateDiagnosisKeys() {
+        Database db = DatabaseAccess.getDefaultDatabaseInstance();
+        db.clearAllData();
+
+        DiagnosisKey key = DatatypesTestUtil.createDummyDiagnosisKey();
+        DiagnosisKey otherKey = DatatypesTestUtil.createDummyDiagnosisKey();
+        String token = "token";
+        db.addDiagnosisKeys(token, Arrays.asList(key, otherKey));
+
+        DiagnosisKey revisedKey = new DiagnosisKey(
+            new InternalTemporaryExposureKey(key.getInterval(), key.getKeyData()),
+            key.getTransmissionRiskLevel() + 1,
+            ReportType.REVOKED,
+            3);
+        DiagnosisKey newKey = DatatypesTestUtil.createDummyDiagnosisKey();
+        db.updateDiagnosisKeys(token, Arrays.asList(revisedKey, newKey));
+
+        // The revised key replaces the stored one, the new key is added:
+        List<DiagnosisKey> result = db.getDiagnosisKeys(token);
+        assertEquals(3, result.size());
+        int revisedKeyCount = 0;
+        for (DiagnosisKey diagnosisKey : result) {
+            if (Arrays.equals(key.getKeyData(), diagnosisKey.getKeyData())) {
+                revisedKeyCount++;
+                assertEquals(revisedKey.getTransmissionRiskLevel(), diagnosisKey.getTransmissionRiskLevel());
+                assertEquals(ReportType.REVOKED, diagnosisKey.getReportType());
+                assertEquals(3, diagnosisKey.getDaysSinceOnsetOfSymptoms());
+            }
+        }
+        assertEquals(1, revisedKeyCount);
+    }
+
+    @Test
+    public void testTruncateDiagnosisKeys() {
+        Database db = DatabaseAccess.getDefaultDatabaseInstance();
+        db.clearAllData();
+
+        long today = ENIntervalUtil.getMidnight(ENIntervalUtil.getCurrentInterval().get());
+        Random random = new Random();
+        byte[] keyData = new byte[16];
+        random.nextBytes(keyData);
+        // Its rolling period ends more than 14 days ago:
+        DiagnosisKey keyRemove = new DiagnosisKey(new InternalTemporaryExposureKey(
+            today - 16 * EnFrameworkConstants.TEK_ROLLING_PERIOD, keyData), 0);
+        random.nextBytes(keyData);
+        // Its rolling period overlaps the last 14 days:
+        DiagnosisKey keyKeep = new DiagnosisKey(new InternalTemporaryExposureKey(
+            today - 14 * EnFrameworkConstants.TEK_ROLLING_PERIOD, keyData), 0);
+        String token = "token";
+        db.addDiagnosisKeys(token, Arrays.asList(keyRemove, keyKeep));
+        String otherToken = "otherToken";
+        db.addDiagnosisKeys(otherToken, Collections.singletonList(keyKeep));
+        for (String evaluatedToken : Arrays.asList(token, otherToken)) {
+            db.putExposureMatchingResults(evaluatedToken, Collections.emptyList(),
+                new ExposureSummary.ExposureSummaryBuilder().build(),
+                new TokenMatchingState(2, 0, null));
+        }
+
+        assertEquals(1, db.truncateLast14Days());
+
+        List<DiagnosisKey> result = db.getDiagnosisKeys(token);
+        assertEquals(1, result.size());
+        assertArrayEquals(keyKeep.getKeyData(), result.get(0).getKeyData());
+        // The tokens have been added just now, so they are kept:
+        assertEquals(2, db.getAllTokens().size());
+        // Only the exposure data of the token whose key has been deleted is outdated:
+        assertFalse(db.getMatchingState(token).getExposureDataUpToDate());
+        assertTrue(db.getMatchingState(otherToken).getExposureDataUpToDate());
+    }
+
+    @Test
+    public void testTruncateResetsRpiFilterOnlyAfterDeletingPayloads() {
+        Database db = DatabaseAccess.getDefaultDatabaseInstance();
+        db.clearAllData();
+
+        ENInterval now = ENIntervalUtil.getCurrentInterval();
+        CapturedData payloadKeep = DatatypesTestUtil.createDummyCapturedData(now);
+        db.addCapturedPayload(payloadKeep);
+        assertTrue(db.getCapturedRPIFilter().mightContain(payloadKeep.getRpi().getData()));
+
+        // No payload is deleted, the filter is kept:
+        assertEquals(0, db.truncateLast14Days());
+        assertTrue(db.getCapturedRPIFilter().mightContain(payloadKeep.getRpi().getData()));
+
+        CapturedData payloadRemove = DatatypesTestUtil.createDummyCapturedData(
+            new ENInterval(now.get() - EnFrameworkConstants.TEK_MAX_STORE_TIME_INTERVALS - 1));
+        db.addCapturedPayload(payloadRemove);
+        assertTrue(db.getCapturedRPIFilter().mightContain(payloadRemove.getRpi().getData()));
+
+        // The filter is rebuilt without the deleted payload:
+        assertEquals(1, db.truncateLast14Days());
+        assertFalse(db.getCapturedRPIFilter().mightContain(payloadRemove.getRpi().getData()));
+        assertTrue(db.getCapturedRPIFilter().mightContain(payloadKeep.getRpi().getData()));
+    }
+
+    @Test
+    public void testRpiFilterSnapshots() {
+        Database db = DatabaseAccess.getDefaultDatabaseInstance();
+        db.clearAllData();
+
+        ENInterval now = ENIntervalUtil.getCurrentInterval();
+        CapturedData payload = DatatypesTestUtil.createDummyCapturedData(now);
+        db.addCapturedPayload(payload);
+        RpiBloomFilter snapshot = db.getCapturedRPIFilter();
+        // Without insertions in between, the filter is not copied:
+        assertSame(snapshot, db.getCapturedRPIFilter());
+
+        CapturedData laterPayload = DatatypesTestUtil.createDummyCapturedData(now);
+        db.addCapturedPayload(laterPayload);
+        // The snapshot is not modified by the insertion:
+        assertFalse(snapshot.mightContain(laterPayload.getRpi().getData()));
+        RpiBloomFilter laterSnapshot = db.getCapturedRPIFilter();
+        assertNotSame(snapshot, laterSnapshot);
+        assertTrue(laterSnapshot.mightContain(payload.getRpi().getData()));
+        assertTrue(laterSnapshot.mightContain(laterPayload.getRpi().getData()));
+    }
+
     @Test
     public void testDeleteToken() {
         Database db = DatabaseAccess.getDefaultDatabaseInstance();
@@ -307,4 +459,149 @@ public class DatabaseTests {
         }
     }
 
+    @Test
+    public void testGetCollectedPayloadForRPIs() {
+        Database db = DatabaseAccess.getDefaultDatabaseInstance();
+        db.clearAllData();
+
+        ENInterval interval = ENIntervalUtil.getCurrentInterval();
+        List<CapturedData> allData = new LinkedList<>();
+        for (int i = 0; i < 20; i++) {
+            CapturedData capturedData = DatatypesTestUtil.createDummyCapturedData(interval);
+            allData.add(capturedData);
+            db.addCapturedPayload(capturedData);
+        }
+
+        List<byte[]> queriedRPIs = new LinkedList<>();
+        queriedRPIs.add(allData.get(3).getRpi().getData());
+        queriedRPIs.add(allData.get(11).getRpi().getData());
+        queriedRPIs.add(new byte[16]); // not captured
+
+        List<CapturedData> result = new LinkedList<>();
+        for (IntervalOfCapturedData intervalOfCapturedData : db.getCollectedPayloadForRPIs(queriedRPIs)) {
+            for (CapturedData capturedData : intervalOfCapturedData.getCapturedData()) {
+                result.add(capturedData);
+            }
+        }
+        assertEquals(2, result.size());
+        for (CapturedData capturedData : result) {
+            boolean found = false;
+            for (byte[] rpi : queriedRPIs) {
+                found |= Arrays.equals(rpi, capturedData.getRpi().getData());
+            }
+            assertTrue(found);
+        }
+    }
+
+    @Test
+    public void testGetCollectedSightings() {
+        Database db = DatabaseAccess.getDefaultDatabaseInstance();
+        db.clearAllData();
+
+        ENInterval interval = ENIntervalUtil.getCurrentInterval();
+        List<CapturedData> allData = new LinkedList<>();
+        for (int i = 0; i < 20; i++) {
+            allData.add(DatatypesTestUtil.createDummyCapturedData(interval));
+        }
+        db.addCapturedPayloads(allData);
+
+        CapturedSightings sightings = db.getAllCollectedSightings();
+        assertEquals(allData.size(), sightings.getSize());
+        for (int row = 0; row < sightings.getSize(); row++) {
+            CapturedData expected = allData.get(row);
+            assertArrayEquals(expected.getRpi().getData(), sightings.rpi(row).getData());
+            assertArrayEquals(expected.getAem().getData(), sightings.aem(row).getData());
+            assertEquals(expected.getSightingCount(), sightings.sightingCount(row));
+            assertEquals(expected.getRssi(), sightings.rssi(row));
+            assertEquals(expected.getMinRssi(), sightings.minRssi(row));
+            assertEquals(expected.getMaxRssi(), sightings.maxRssi(row));
+            assertEquals(expected.getEnInterval().get(), sightings.enInterval(row));
+            assertEquals(expected.getCaptureTimestampMillis(), sightings.captureTimestampMillis(row));
+            assertEquals(
+                expected.getLastCaptureTimestampMillis(), sightings.lastCaptureTimestampMillis(row));
+        }
+
+        List<byte[]> queriedRPIs = new LinkedList<>();
+        queriedRPIs.add(allData.get(3).getRpi().getData());
+        queriedRPIs.add(new byte[16]); // not captured
+        CapturedSightings queried = db.getCollectedSightingsForRPIs(queriedRPIs);
+        assertEquals(1, queried.getSize());
+        assertArrayEquals(queriedRPIs.get(0), queried.rpi(0).getData());
+
+        long lastKey = db.getLastCollectedPayloadKey();
+        assertEquals(5, db.getCollectedSightingsAfter(lastKey - 5, lastKey).getSize());
+    }
+
+    private static ExposureInformation createExposureInformation(int daysAgo) {
+        return new ExposureInformation.ExposureInformationBuilder()
+            .setDateMillisSinceEpoch(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(daysAgo))
+            .setDurationMinutes(15)
+            .setAttenuationValue(40)
+            .setTransmissionRiskLevel(3)
+            .setTotalRiskScore(1)
+            .setAttenuationDurations(new int[]{5, 10, 0})
+            .build();
+    }
+
+    @Test
+    public void testExposureMatchingResults() {
+        Database db = DatabaseAccess.getDefaultDatabaseInstance();
+        db.clearAllData();
+
+        String token = "token";
+        db.addDiagnosisKeys(token, Collections.singletonList(
+            DatatypesTestUtil.createDummyDiagnosisKey()));
+        try {
+            db.getExposureSummary(token);
+            fail("there must be no exposure data before it has been stored");
+        } catch (StorageException expected) {
+        }
+
+        // Only the exposures 2 or more days ago have a risk score:
+        ExposureConfiguration configuration = new ExposureConfiguration.ExposureConfigurationBuilder()
+            .setDaysSinceLastExposureScores(1, 1, 1, 1, 1, 1, 1, 0)
+            .setMinimumRiskScore(1)
+            .build();
+        ExposureSummary summary = new ExposureSummary.ExposureSummaryBuilder()
+            .setMatchedKeyCount(1)
+            .setAttenuationDurations(new int[]{5, 10, 0})
+            .build();
+        db.putExposureMatchingResults(token,
+            Collections.singletonList(createExposureInformation(1)), summary,
+            new TokenMatchingState(1, 0, configuration));
+        assertEquals(1, db.getExposureInformation(token).size());
+        // The stored risk score is ignored, the days and scores are derived when they are read:
+        assertEquals(0, db.getExposureInformation(token).get(0).getTotalRiskScore());
+        ExposureSummary storedSummary = db.getExposureSummary(token);
+        assertEquals(1, storedSummary.getDaysSinceLastExposure());
+        assertEquals(0, storedSummary.getMaximumRiskScore());
+        assertEquals(1, storedSummary.getMatchedKeyCount());
+        assertArrayEquals(new int[]{5, 10, 0}, storedSummary.getAttenuationDurationsInMinutes());
+
+        // Storing the results again for an existing token replaces them:
+        db.putExposureMatchingResults(token,
+            Arrays.asList(createExposureInformation(3), createExposureInformation(5)), summary,
+            new TokenMatchingState(1, 0, configuration));
+        assertEquals(2, db.getExposureInformation(token).size());
+        storedSummary = db.getExposureSummary(token);
+        assertEquals(3, storedSummary.getDaysSinceLastExposure());
+        // The scores of attenuation, duration and transmission risk are 4 each:
+        assertEquals(64, storedSummary.getMaximumRiskScore());
+        assertEquals(128, storedSummary.getSummationRiskScore());
+
+        // Appending keeps the existing information:
+        db.appendExposureMatchingResults(token,
+            Collections.singletonList(createExposureInformation(0)), summary,
+            new TokenMatchingState(2, 0, configuration));
+        assertEquals(3, db.getExposureInformation(token).size());
+        assertEquals(1, db.getDiagnosisKeys(token).size());
+
+        // Adding keys makes the stored data outdated, but it is still returned:
+        db.addDiagnosisKeys(token, Collections.emptyList());
+        assertFalse(db.getMatchingState(token).getExposureDataUpToDate());
+        assertEquals(3, db.getExposureInformation(token).size());
+        storedSummary = db.getExposureSummary(token);
+        assertEquals(0, storedSummary.getDaysSinceLastExposure());
+        assertEquals(128, storedSummary.getSummationRiskScore());
+    }
 }
@@ -0,0 +1,96 @@
+package org.coralibre.android.sdk.internal.matching;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.coralibre.android.sdk.DatatypesTestUtil;
+import org.coralibre.android.sdk.internal.EnFrameworkConstants;
+import org.coralibre.android.sdk.internal.crypto.CryptoPrimitives;
+import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadata;
+import org.coralibre.android.sdk.internal.datatypes.CapturedData;
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey;
+import org.coralibre.android.sdk.internal.datatypes.ENInterval;
+import org.coralibre.android.sdk.internal.datatypes.IntervalOfCapturedData;
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier;
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifierKey;
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.KeyMatches;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class MatchingTests {
+
+    private static CapturedData sightingOf(DiagnosisKey diagnosisKey, int intervalOffset) {
+        RollingProximityIdentifierKey rpik = CryptoPrimitives.generateRPIK(diagnosisKey.getKeyData());
+        ENInterval interval = new ENInterval(diagnosisKey.getInterval().get() + intervalOffset);
+        RollingProximityIdentifier rpi = CryptoPrimitives.generateRPI(rpik, interval);
+        return new CapturedData(
+            interval.getUnixTime() * 1000,
+            (byte) -60,
+            rpi,
+            new AssociatedEncryptedMetadata(new byte[EnFrameworkConstants.AEM_LENGTH])
+        );
+    }
+
+    private static List<IntervalOfCapturedData> intervalsOf(CapturedData... capturedData) {
+        List<IntervalOfCapturedData> result = new ArrayList<>();
+        for (CapturedData data : capturedData) {
+            IntervalOfCapturedData interval = new IntervalOfCapturedData(data.getRpi().getInterval());
+            interval.add(data);
+            result.add(interval);
+        }
+        return result;
+    }
+
+    @Test
+    public void testNoMatchesForUnrelatedPayloads() {
+        DiagnosisKey diagnosisKey = DatatypesTestUtil.createDummyDiagnosisKey();
+        ENInterval interval = diagnosisKey.getInterval();
+        List<IntervalOfCapturedData> payloads = intervalsOf(
+            DatatypesTestUtil.createDummyCapturedData(interval),
+            DatatypesTestUtil.createDummyCapturedData(interval));
+
+        assertFalse(MatchingLegacyV1.hasMatches(Arrays.asList(diagnosisKey), payloads));
+        assertTrue(MatchingLegacyV1.findAllMatches(
+            Arrays.asList(diagnosisKey), new CapturedDataIndex(payloads)).isEmpty());
+    }
+
+    @Test
+    public void testMatchesAtBothEndsOfRollingPeriod() {
+        DiagnosisKey unrelatedKey = DatatypesTestUtil.createDummyDiagnosisKey();
+        DiagnosisKey infectedKey = DatatypesTestUtil.createDummyDiagnosisKey();
+        List<IntervalOfCapturedData> payloads = intervalsOf(
+            sightingOf(infectedKey, 0),
+            sightingOf(infectedKey, EnFrameworkConstants.TEK_ROLLING_PERIOD - 1),
+            DatatypesTestUtil.createDummyCapturedData(infectedKey.getInterval()));
+        List<DiagnosisKey> diagnosisKeys = Arrays.asList(unrelatedKey, infectedKey);
+
+        assertTrue(MatchingLegacyV1.hasMatches(diagnosisKeys, payloads));
+
+        List<KeyMatches> matchesPerKey =
+            MatchingLegacyV1.findAllMatches(diagnosisKeys, new CapturedDataIndex(payloads));
+        assertEquals(1, matchesPerKey.size());
+        assertSame(infectedKey, matchesPerKey.get(0).getDiagnosisKey());
+        assertEquals(2, matchesPerKey.get(0).getMatches().size());
+    }
+
+    @Test
+    public void testIndexGroupsSightingsOfSameRpi() {
+        DiagnosisKey diagnosisKey = DatatypesTestUtil.createDummyDiagnosisKey();
+        CapturedData first = sightingOf(diagnosisKey, 3);
+        CapturedData second = sightingOf(diagnosisKey, 3);
+
+        CapturedDataIndex index = new CapturedDataIndex(intervalsOf(first, second));
+
+        assertEquals(1, index.getSize());
+        assertEquals(2, index.getSightings(first.getRpi()).size());
+    }
+}
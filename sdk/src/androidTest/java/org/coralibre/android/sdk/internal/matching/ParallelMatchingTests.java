@@ -0,0 +1,147 @@
+package org.coralibre.android.sdk.internal.matching;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.coralibre.android.sdk.DatatypesTestUtil;
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureConfiguration;
+import org.coralibre.android.sdk.internal.EnFrameworkConstants;
+import org.coralibre.android.sdk.internal.crypto.CryptoPrimitives;
+import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadata;
+import org.coralibre.android.sdk.internal.datatypes.CapturedData;
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey;
+import org.coralibre.android.sdk.internal.datatypes.ENInterval;
+import org.coralibre.android.sdk.internal.datatypes.IntervalOfCapturedData;
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier;
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifierKey;
+import org.coralibre.android.sdk.internal.deviceinfo.ConfidenceLevel;
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceInfo;
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.KeyMatches;
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.Match;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that ParallelMatcher yields exactly the same results as the sequential matching of
+ * MatchingLegacyV1.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ParallelMatchingTests {
+    private static final int NUM_KEYS = 2000;
+    private static final int CHUNK_SIZE = 64;
+
+    private static final DeviceInfo DEVICE_INFO =
+        new DeviceInfo("test", "test", "test", 5, -20, ConfidenceLevel.HIGH);
+    private static final ExposureConfiguration EXPOSURE_CONFIGURATION =
+        new ExposureConfiguration.ExposureConfigurationBuilder().build();
+
+    private static ExecutorService executor;
+
+    @BeforeClass
+    public static void initGlobal() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass
+    public static void deInit() {
+        executor.shutdownNow();
+    }
+
+    private static List<IntervalOfCapturedData> sightingsOf(List<DiagnosisKey> infectedKeys) {
+        Random random = new Random(42);
+        List<IntervalOfCapturedData> result = new ArrayList<>();
+        for (DiagnosisKey diagnosisKey : infectedKeys) {
+            RollingProximityIdentifierKey rpik = CryptoPrimitives.generateRPIK(diagnosisKey.getKeyData());
+            int firstInterval = random.nextInt(EnFrameworkConstants.TEK_ROLLING_PERIOD - 3);
+            for (int i = firstInterval; i < firstInterval + 3; i++) {
+                ENInterval interval = new ENInterval(diagnosisKey.getInterval().get() + i);
+                RollingProximityIdentifier rpi = CryptoPrimitives.generateRPI(rpik, interval);
+                IntervalOfCapturedData intervalOfCapturedData = new IntervalOfCapturedData(interval);
+                for (int sighting = 0; sighting < 2; sighting++) {
+                    byte[] aem = new byte[EnFrameworkConstants.AEM_LENGTH];
+                    random.nextBytes(aem);
+                    intervalOfCapturedData.add(new CapturedData(
+                        interval.getUnixTime() * 1000 + sighting * 1000,
+                        -40 - random.nextInt(50),
+                        rpi,
+                        new AssociatedEncryptedMetadata(aem)));
+                }
+                intervalOfCapturedData.add(DatatypesTestUtil.createDummyCapturedData(interval));
+                result.add(intervalOfCapturedData);
+            }
+        }
+        return result;
+    }
+
+    private static List<DiagnosisKey> dummyDiagnosisKeys() {
+        List<DiagnosisKey> result = new ArrayList<>(NUM_KEYS);
+        for (int i = 0; i < NUM_KEYS; i++) {
+            result.add(DatatypesTestUtil.createDummyDiagnosisKey());
+        }
+        return result;
+    }
+
+    @Test
+    public void testFindAllMatchesParity() {
+        List<DiagnosisKey> diagnosisKeys = dummyDiagnosisKeys();
+        List<DiagnosisKey> infectedKeys = new ArrayList<>();
+        for (int i = 7; i < NUM_KEYS; i += 97) {
+            infectedKeys.add(diagnosisKeys.get(i));
+        }
+        CapturedDataIndex index = new CapturedDataIndex(sightingsOf(infectedKeys));
+
+        List<KeyMatches> sequential = MatchingLegacyV1.findAllMatches(diagnosisKeys, index);
+        List<KeyMatches> parallel =
+            new ParallelMatcher(executor, CHUNK_SIZE).findAllMatches(diagnosisKeys, index);
+
+        assertEquals(infectedKeys.size(), sequential.size());
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertSame(sequential.get(i).getDiagnosisKey(), parallel.get(i).getDiagnosisKey());
+            List<Match> sequentialMatches = sequential.get(i).getMatches();
+            List<Match> parallelMatches = parallel.get(i).getMatches();
+            assertEquals(sequentialMatches.size(), parallelMatches.size());
+            for (int j = 0; j < sequentialMatches.size(); j++) {
+                assertEquals(sequentialMatches.get(j).getCaptureTimestampMillis(),
+                    parallelMatches.get(j).getCaptureTimestampMillis());
+                assertEquals(sequentialMatches.get(j).getRssi(), parallelMatches.get(j).getRssi());
+            }
+        }
+
+        AllExposureInfo sequentialInfo =
+            ExposureInfoAssembler.assembleAllExposureInfo(sequential, EXPOSURE_CONFIGURATION, DEVICE_INFO);
+        AllExposureInfo parallelInfo =
+            ExposureInfoAssembler.assembleAllExposureInfo(parallel, EXPOSURE_CONFIGURATION, DEVICE_INFO);
+        assertEquals(sequentialInfo.getExposureSummary(), parallelInfo.getExposureSummary());
+        assertEquals(sequentialInfo.getExposureInformationList(), parallelInfo.getExposureInformationList());
+    }
+
+    @Test
+    public void testHasMatchesParity() {
+        List<DiagnosisKey> diagnosisKeys = dummyDiagnosisKeys();
+        ParallelMatcher matcher = new ParallelMatcher(executor, CHUNK_SIZE);
+
+        List<DiagnosisKey> lastKeyInfected = new ArrayList<>();
+        lastKeyInfected.add(diagnosisKeys.get(NUM_KEYS - 1));
+        CapturedDataIndex matchingIndex = new CapturedDataIndex(sightingsOf(lastKeyInfected));
+        assertTrue(MatchingLegacyV1.hasMatches(diagnosisKeys, matchingIndex));
+        assertTrue(matcher.hasMatches(diagnosisKeys, matchingIndex));
+
+        CapturedDataIndex otherIndex =
+            new CapturedDataIndex(sightingsOf(dummyDiagnosisKeys().subList(0, 10)));
+        assertFalse(MatchingLegacyV1.hasMatches(diagnosisKeys, otherIndex));
+        assertFalse(matcher.hasMatches(diagnosisKeys, otherIndex));
+    }
+}
@@ -15,9 +15,16 @@ import android.content.IntentFilter
 import androidx.core.content.ContextCompat
 import org.coralibre.android.sdk.internal.AppConfigManager
 import org.coralibre.android.sdk.internal.BroadcastHelper
+import org.coralibre.android.sdk.internal.RetentionWorker
 import org.coralibre.android.sdk.internal.TracingService
 import org.coralibre.android.sdk.internal.database.DatabaseAccess
+import org.coralibre.android.sdk.internal.metrics.Metrics
+import org.coralibre.android.sdk.internal.metrics.MetricsSnapshot
+import org.coralibre.android.sdk.internal.util.AndroidLogger
+import org.coralibre.android.sdk.internal.util.AndroidTracer
+import org.coralibre.android.sdk.internal.util.Logging
 import org.coralibre.android.sdk.internal.util.ProcessUtil
+import org.coralibre.android.sdk.internal.util.Tracing
 
 object PPCP {
     private const val TAG = "PPCP Interface"
@@ -26,6 +33,8 @@ object PPCP {
 
     @JvmStatic
     fun init(context: Context) {
+        Logging.logger = AndroidLogger
+        Tracing.tracer = AndroidTracer
         // TODO: there's no else branch, that's bad.
         if (ProcessUtil.isMainProcess(context)) {
             DatabaseAccess.init(context)
@@ -36,9 +45,7 @@ object PPCP {
     }
 
     private fun executeInit(context: Context) {
-        // TODO: Schedule the truncation to happen regularly and asynchronously instead of
-        //  (only) performing it here.
-        DatabaseAccess.getDefaultDatabaseInstance().truncateLast14Days()
+        RetentionWorker.schedule(context)
         val appConfigManager = AppConfigManager.getInstance(context)
         val advertising = appConfigManager.isAdvertisingEnabled
         val receiving = appConfigManager.isReceivingEnabled
@@ -94,6 +101,24 @@ object PPCP {
     val updateIntentFilter: IntentFilter
         get() = IntentFilter(UPDATE_INTENT_ACTION)
 
+    /**
+     * The counters, gauges and histograms of the sdk's hot paths, e.g. for a debug screen of the
+     * app. Rates like the AES operations per second are derived from two snapshots.
+     */
+    @JvmStatic
+    val metricsSnapshot: MetricsSnapshot
+        get() = Metrics.snapshot()
+
+    /**
+     * Whether the metrics are recorded. Disabling them keeps the values recorded so far.
+     */
+    @JvmStatic
+    var isMetricsEnabled: Boolean
+        get() = Metrics.enabled
+        set(value) {
+            Metrics.enabled = value
+        }
+
     @JvmStatic
     fun clearData(context: Context, onDeleteListener: Runnable?) {
         checkInit()
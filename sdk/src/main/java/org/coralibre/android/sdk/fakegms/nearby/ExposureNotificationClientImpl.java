@@ -8,31 +8,37 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import org.coralibre.android.sdk.PPCP;
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.DailySummariesConfig;
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.DailySummary;
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.DiagnosisKeysDataMapping;
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.DiagnosisKeysProgressListener;
 import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureConfiguration;
 import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureInformation;
 import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureNotificationClient;
 import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureSummary;
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureWindow;
 import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.TemporaryExposureKey;
+import org.coralibre.android.sdk.fakegms.tasks.CancellationToken;
 import org.coralibre.android.sdk.fakegms.tasks.Task;
+import org.coralibre.android.sdk.fakegms.tasks.TaskExecutors;
 import org.coralibre.android.sdk.fakegms.tasks.Tasks;
+import org.coralibre.android.sdk.internal.AppConfigManager;
+import org.coralibre.android.sdk.internal.DiagnosisKeyIngestion;
 import org.coralibre.android.sdk.internal.EnFrameworkConstants;
+import org.coralibre.android.sdk.internal.ExposureWindowEvaluation;
 import org.coralibre.android.sdk.internal.database.Database;
 import org.coralibre.android.sdk.internal.database.DatabaseAccess;
-import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey;
+import org.coralibre.android.sdk.internal.database.StorageException;
 import org.coralibre.android.sdk.internal.datatypes.InternalTemporaryExposureKey;
-import org.coralibre.android.sdk.internal.datatypes.IntervalOfCapturedData;
-import org.coralibre.android.sdk.internal.datatypes.util.DiagnosisKeyUtil;
-import org.coralibre.android.sdk.internal.matching.MatchingLegacyV1;
-import org.coralibre.android.sdk.proto.TemporaryExposureKeyFile.TemporaryExposureKeyExport;
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceList;
+import org.coralibre.android.sdk.internal.matching.ParallelMatcher;
+import org.coralibre.android.sdk.internal.util.CancellationCheck;
+import org.coralibre.android.sdk.internal.util.Tracing;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 
 // TODO What happens with queries for tokens, for that no keys have been provided?
@@ -42,7 +48,11 @@ final class ExposureNotificationClientImpl implements ExposureNotificationClient
     public static final String TAG = ExposureNotificationClientImpl.class.getSimpleName();
 
     private final Context context;
-    private Database database;
+    private final ParallelMatcher matcher = new ParallelMatcher();
+    /**
+     * Set and read by the tasks, which run on different threads of TaskExecutors.IO.
+     */
+    private volatile Database database;
 
 
     ExposureNotificationClientImpl(@NonNull final Context context) {
@@ -57,13 +67,16 @@ final class ExposureNotificationClientImpl implements ExposureNotificationClient
 
     @Override
     public Task<Void> start() {
-        return Tasks.call(() -> {
-            if (!isPPCPEnabled()) {
-                PPCP.start(context);
-
-                // TODO: Change after refactoring database creation / factory
-                //database = new PersistentDatabase(context);
-                database = DatabaseAccess.getDefaultDatabaseInstance();
+        return Tasks.call(TaskExecutors.IO, () -> {
+            // start() and stop() may run concurrently on different threads:
+            synchronized (this) {
+                if (!isPPCPEnabled()) {
+                    PPCP.start(context);
+
+                    // TODO: Change after refactoring database creation / factory
+                    //database = new PersistentDatabase(context);
+                    database = DatabaseAccess.getDefaultDatabaseInstance();
+                }
             }
             return null;
         });
@@ -71,10 +84,12 @@ final class ExposureNotificationClientImpl implements ExposureNotificationClient
 
     @Override
     public Task<Void> stop() {
-        return Tasks.call(() -> {
-            if (isPPCPEnabled()) {
-                PPCP.stop(context);
-                database = null;
+        return Tasks.call(TaskExecutors.IO, () -> {
+            synchronized (this) {
+                if (isPPCPEnabled()) {
+                    PPCP.stop(context);
+                    database = null;
+                }
             }
             return null;
         });
@@ -90,7 +105,7 @@ final class ExposureNotificationClientImpl implements ExposureNotificationClient
      */
     @Override
     public Task<List<TemporaryExposureKey>> getTemporaryExposureKeyHistory() {
-        return Tasks.call(() -> {
+        return Tasks.call(TaskExecutors.IO, () -> {
             Iterable<InternalTemporaryExposureKey> dbTeks = database.getAllOwnTEKs();
             List<TemporaryExposureKey> result = new LinkedList<TemporaryExposureKey>();
             for (InternalTemporaryExposureKey dbTek : dbTeks) {
@@ -110,7 +125,16 @@ final class ExposureNotificationClientImpl implements ExposureNotificationClient
     public Task<Void> provideDiagnosisKeys(final List<File> keyFiles,
                                            @Nullable final ExposureConfiguration exposureConfiguration,
                                            final String token) {
-        return Tasks.call(() -> {
+        return provideDiagnosisKeys(keyFiles, exposureConfiguration, token, null, null);
+    }
+
+    @Override
+    public Task<Void> provideDiagnosisKeys(final List<File> keyFiles,
+                                           @Nullable final ExposureConfiguration exposureConfiguration,
+                                           final String token,
+                                           @Nullable final CancellationToken cancellationToken,
+                                           @Nullable final DiagnosisKeysProgressListener progressListener) {
+        return Tasks.call(TaskExecutors.IO, () -> {
 
             if (exposureConfiguration == null || token == null || token.isEmpty()) {
                 throw new IllegalArgumentException("EN framework: Invalid parameter for 'provideDiagnosisKeys(...)'.");
@@ -118,41 +142,6 @@ final class ExposureNotificationClientImpl implements ExposureNotificationClient
 
             // TODO save exposure configuration to database, to restore it after e.g. phone restart, like microg?
 
-            for (File file : keyFiles) {
-                try (ZipInputStream stream = new ZipInputStream(
-                    new BufferedInputStream(new FileInputStream(file)))) {
-
-                    ZipEntry zipEntry;
-                    while ((zipEntry = stream.getNextEntry()) != null) {
-                        if (zipEntry.getName().equals("export.bin")) {
-                            byte[] prefix = new byte[16];
-                            int totalBytesRead = 0;
-                            int bytesRead = 0;
-
-                            while (bytesRead != -1 && totalBytesRead < prefix.length) {
-                                bytesRead = stream.read(prefix, totalBytesRead, prefix.length - totalBytesRead);
-                                if (bytesRead > 0) {
-                                    totalBytesRead += bytesRead;
-                                }
-                            }
-
-                            String prefixString = new String(prefix).trim();
-                            if (totalBytesRead == prefix.length && prefixString.equals("EK Export v1")) {
-                                final TemporaryExposureKeyExport temporaryExposureKeyExport = TemporaryExposureKeyExport.parseFrom(stream);
-                                database.addDiagnosisKeys(token, DiagnosisKeyUtil.toDiagnosisKeys(temporaryExposureKeyExport.getKeysList()));
-                                database.updateDiagnosisKeys(token, DiagnosisKeyUtil.toDiagnosisKeys(temporaryExposureKeyExport.getRevisedKeysList()));
-                                // TODO verify that first add and then update is correct here
-                            } else {
-                                Log.e(TAG, "Failed to parse diagnosis key file: export.bin has invalid prefix: " + prefixString);
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "Failed to parse diagnosis key file", e);
-                }
-            }
-
-
             // TODO Discard keys older than 14 days
             //  See description of method "provideDiagnosisKeys()" in:
             //  https://developers.google.com/android/exposure-notifications/exposure-notifications-api
@@ -162,41 +151,113 @@ final class ExposureNotificationClientImpl implements ExposureNotificationClient
             // TODO Are measurements from today used for the matching? If not, remove them before
             //  testing for matches (same for the ExposureSummary/ExposureInformation computation)
 
-            List<DiagnosisKey> diagnosisKeys = database.getDiagnosisKeys(token);
-            Iterable<IntervalOfCapturedData> capturedData = database.getAllCollectedPayload();
-            boolean noMatchFound = !MatchingLegacyV1.hasMatches(diagnosisKeys, capturedData);
-
-            Intent intent = new Intent(noMatchFound ? ACTION_EXPOSURE_NOT_FOUND : ACTION_EXPOSURE_STATE_UPDATED);
-            intent.putExtra(EXTRA_TOKEN, token);
-            context.sendOrderedBroadcast(intent, null);
+            // Like the listeners of the task, the progress listener is called on the main thread:
+            DiagnosisKeysProgressListener progress = progressListener == null ? null :
+                (bytesRead, keysProcessed, matchesFound) -> TaskExecutors.MAIN_THREAD.execute(() ->
+                    progressListener.onProgress(bytesRead, keysProcessed, matchesFound));
+            boolean noMatchFound = !new DiagnosisKeyIngestion(database, matcher)
+                .provideDiagnosisKeys(keyFiles, token, exposureConfiguration,
+                    DeviceList.getOwnDeviceInfo(context),
+                    cancellationToken != null ? cancellationToken : CancellationCheck.NEVER,
+                    progress);
+
+            Tracing.beginSection(Tracing.BROADCAST);
+            try {
+                Intent intent = new Intent(noMatchFound ? ACTION_EXPOSURE_NOT_FOUND : ACTION_EXPOSURE_STATE_UPDATED);
+                intent.putExtra(EXTRA_TOKEN, token);
+                context.sendOrderedBroadcast(intent, null);
+            } finally {
+                Tracing.endSection();
+            }
             return null;
         });
     }
 
+    /**
+     * Served from the exposure data that has been stored for the token by the last
+     * provideDiagnosisKeys(...) call (or re-evaluation of new sightings), so nothing is
+     * recomputed here. While further keys of the token are matched, the previous data is
+     * returned. Only for a token whose keys have never been matched, the result is empty.
+     */
     @Override
     public Task<ExposureSummary> getExposureSummary(String token) {
-        return Tasks.call(() -> {
+        return Tasks.call(TaskExecutors.IO, () -> {
+            try {
+                return database.getExposureSummary(token);
+            } catch (StorageException e) {
+                // The keys of the token have not been matched (yet):
+                Log.w(TAG, "No exposure summary for token " + token);
+                return new ExposureSummary.ExposureSummaryBuilder()
+                    .setAttenuationDurations(new int[]{0, 0, 0})
+                    .setMatchedKeyCount(0)
+                    .setMaximumRiskScore(0)
+                    .setSummationRiskScore(0)
+                    .build();
+            }
+        });
+    }
 
-            // TODO use MatchingLegacyV1 to get ExposureSummary item
+    /**
+     * @see #getExposureSummary(String)
+     */
+    @Override
+    public Task<List<ExposureInformation>> getExposureInformation(String token) {
+        return Tasks.call(TaskExecutors.IO, () -> {
+            try {
+                return database.getExposureInformation(token);
+            } catch (StorageException e) {
+                Log.w(TAG, "No exposure information for token " + token);
+                return new ArrayList<>();
+            }
+        });
+    }
 
-            return new ExposureSummary.ExposureSummaryBuilder()
-                .setAttenuationDurations(new int[]{0, 0, 0})
-                .setMatchedKeyCount(0)
-                .setMaximumRiskScore(0)
-                .setSummationRiskScore(0)
-                .build();
+    @Override
+    public Task<Void> setDiagnosisKeysDataMapping(DiagnosisKeysDataMapping mapping) {
+        return Tasks.call(TaskExecutors.IO, () -> {
+            if (mapping == null) {
+                throw new IllegalArgumentException("EN framework: Invalid parameter for 'setDiagnosisKeysDataMapping(...)'.");
+            }
+            AppConfigManager.getInstance(context).setDiagnosisKeysDataMapping(mapping);
+            return null;
         });
     }
 
     @Override
-    public Task<List<ExposureInformation>> getExposureInformation(String token) {
-        return Tasks.call(() -> {
-            // See src/deviceForTesters/java/de.rki.coronawarnapp/TestRiskLevelCalculation.kt
-            List<ExposureInformation> result = new ArrayList<>();
+    public Task<DiagnosisKeysDataMapping> getDiagnosisKeysDataMapping() {
+        return Tasks.call(TaskExecutors.IO, this::diagnosisKeysDataMapping);
+    }
 
-            // TODO use MatchingLegacyV1 to get ExposureInformation items
+    private DiagnosisKeysDataMapping diagnosisKeysDataMapping() {
+        DiagnosisKeysDataMapping mapping =
+            AppConfigManager.getInstance(context).getDiagnosisKeysDataMapping();
+        return mapping != null
+            ? mapping
+            : new DiagnosisKeysDataMapping.DiagnosisKeysDataMappingBuilder().build();
+    }
 
-            return result;
+    /**
+     * Unlike {@link #getExposureSummary(String)}, this is computed on every call, from the keys
+     * stored for all tokens and the sightings that are captured at that time.
+     */
+    @Override
+    public Task<List<ExposureWindow>> getExposureWindows() {
+        return Tasks.call(TaskExecutors.IO, () -> new ExposureWindowEvaluation(database, matcher)
+            .getExposureWindows(diagnosisKeysDataMapping(), DeviceList.getOwnDeviceInfo(context)));
+    }
+
+    /**
+     * @see #getExposureWindows()
+     */
+    @Override
+    public Task<List<DailySummary>> getDailySummaries(DailySummariesConfig config) {
+        return Tasks.call(TaskExecutors.IO, () -> {
+            if (config == null) {
+                throw new IllegalArgumentException("EN framework: Invalid parameter for 'getDailySummaries(...)'.");
+            }
+            return new ExposureWindowEvaluation(database, matcher)
+                .getDailySummaries(config, diagnosisKeysDataMapping(),
+                    DeviceList.getOwnDeviceInfo(context));
         });
     }
 }
@@ -0,0 +1,18 @@
+package org.coralibre.android.sdk.fakegms.nearby.exposurenotification;
+
+/**
+ * The confidence of the bluetooth calibration of the own device, see
+ * {@link org.coralibre.android.sdk.internal.deviceinfo.ConfidenceLevel}.
+ *
+ * @see <a href="https://developers.google.com/android/reference/com/google/android/gms/nearby/exposurenotification/CalibrationConfidence">documentation on developers.google.com</a>
+ */
+public final class CalibrationConfidence {
+
+    private CalibrationConfidence() {
+    }
+
+    public static final int LOWEST = 0;
+    public static final int LOW = 1;
+    public static final int MEDIUM = 2;
+    public static final int HIGH = 3;
+}
@@ -0,0 +1,358 @@
+package org.coralibre.android.sdk.fakegms.nearby.exposurenotification;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import org.coralibre.android.sdk.internal.matching.WindowScoringConfiguration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Contains the weights that the scores of {@link ExposureWindow exposure windows} are computed
+ * from. In particular:
+ * {@code windowScore = sum(secondsSinceLastScan * attenuationBucketWeight) * reportTypeWeight * infectiousnessWeight}
+ * where the sum is over the {@link ScanInstance scan instances} of the window, and the attenuation
+ * bucket is the one of the scan's typical attenuation.
+ *
+ * @see <a href="https://developers.google.com/android/reference/com/google/android/gms/nearby/exposurenotification/DailySummariesConfig">documentation on developers.google.com</a>
+ */
+public final class DailySummariesConfig implements Parcelable, WindowScoringConfiguration {
+
+    /**
+     * Contains the thresholds of the four attenuation buckets, in dB. In particular (where A is
+     * the typical attenuation of a scan):<br>
+     * attenuationBucketWeights[0]  |  A <= attenuationBucketThresholdDb[0] (immediate)     <br>
+     * attenuationBucketWeights[1]  |  A <= attenuationBucketThresholdDb[1] (near)          <br>
+     * attenuationBucketWeights[2]  |  A <= attenuationBucketThresholdDb[2] (medium)        <br>
+     * attenuationBucketWeights[3]  |  A > attenuationBucketThresholdDb[2] (other)
+     */
+    private final int[] attenuationBucketThresholdDb;
+
+    /**
+     * @see #attenuationBucketThresholdDb
+     */
+    private final double[] attenuationBucketWeights;
+
+    /**
+     * The weight per {@link ReportType}, indexed by the report type
+     */
+    private final double[] reportTypeWeights;
+
+    /**
+     * The weight per {@link Infectiousness}, indexed by the infectiousness
+     */
+    private final double[] infectiousnessWeights;
+
+    /**
+     * Only days that are at most this many days ago are summarized. Default is all days (i.e.
+     * {@code 0}).
+     */
+    private final int daysSinceExposureThreshold;
+
+    /**
+     * Windows with a lower score are ignored. Default is no minimum (i.e. {@code 0}).
+     */
+    private final double minimumWindowScore;
+
+    private DailySummariesConfig(final int[] attenuationBucketThresholdDb,
+                                 final double[] attenuationBucketWeights,
+                                 final double[] reportTypeWeights,
+                                 final double[] infectiousnessWeights,
+                                 final int daysSinceExposureThreshold,
+                                 final double minimumWindowScore) {
+        this.attenuationBucketThresholdDb = attenuationBucketThresholdDb;
+        this.attenuationBucketWeights = attenuationBucketWeights;
+        this.reportTypeWeights = reportTypeWeights;
+        this.infectiousnessWeights = infectiousnessWeights;
+        this.daysSinceExposureThreshold = daysSinceExposureThreshold;
+        this.minimumWindowScore = minimumWindowScore;
+    }
+
+    private DailySummariesConfig(Parcel in) {
+        attenuationBucketThresholdDb = in.createIntArray();
+        attenuationBucketWeights = in.createDoubleArray();
+        reportTypeWeights = in.createDoubleArray();
+        infectiousnessWeights = in.createDoubleArray();
+        daysSinceExposureThreshold = in.readInt();
+        minimumWindowScore = in.readDouble();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeIntArray(attenuationBucketThresholdDb);
+        dest.writeDoubleArray(attenuationBucketWeights);
+        dest.writeDoubleArray(reportTypeWeights);
+        dest.writeDoubleArray(infectiousnessWeights);
+        dest.writeInt(daysSinceExposureThreshold);
+        dest.writeDouble(minimumWindowScore);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<DailySummariesConfig> CREATOR = new Creator<DailySummariesConfig>() {
+        @Override
+        public DailySummariesConfig createFromParcel(Parcel in) {
+            return new DailySummariesConfig(in);
+        }
+
+        @Override
+        public DailySummariesConfig[] newArray(int size) {
+            return new DailySummariesConfig[size];
+        }
+    };
+
+    /**
+     * @see #attenuationBucketThresholdDb
+     */
+    public List<Integer> getAttenuationBucketThresholdDb() {
+        List<Integer> result = new ArrayList<>(attenuationBucketThresholdDb.length);
+        for (int threshold : attenuationBucketThresholdDb) {
+            result.add(threshold);
+        }
+        return result;
+    }
+
+    /**
+     * @see #attenuationBucketWeights
+     */
+    public List<Double> getAttenuationBucketWeights() {
+        List<Double> result = new ArrayList<>(attenuationBucketWeights.length);
+        for (double weight : attenuationBucketWeights) {
+            result.add(weight);
+        }
+        return result;
+    }
+
+    /**
+     * @see #reportTypeWeights
+     */
+    public Map<Integer, Double> getReportTypeWeights() {
+        return toMap(reportTypeWeights);
+    }
+
+    /**
+     * @see #infectiousnessWeights
+     */
+    public Map<Integer, Double> getInfectiousnessWeights() {
+        return toMap(infectiousnessWeights);
+    }
+
+    private static Map<Integer, Double> toMap(double[] weights) {
+        Map<Integer, Double> result = new HashMap<>();
+        for (int i = 0; i < weights.length; i++) {
+            result.put(i, weights[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @see #daysSinceExposureThreshold
+     */
+    @Override
+    public int getDaysSinceExposureThreshold() {
+        return daysSinceExposureThreshold;
+    }
+
+    /**
+     * @see #minimumWindowScore
+     */
+    @Override
+    public double getMinimumWindowScore() {
+        return minimumWindowScore;
+    }
+
+    /**
+     * @param attenuationDb the typical attenuation of a scan, in dB
+     * @return the weight of the attenuation bucket of the provided value
+     * @see #attenuationBucketThresholdDb
+     */
+    @Override
+    public double getAttenuationWeight(final int attenuationDb) {
+        for (int i = 0; i < attenuationBucketThresholdDb.length; i++) {
+            if (attenuationDb <= attenuationBucketThresholdDb[i]) {
+                return attenuationBucketWeights[i];
+            }
+        }
+        return attenuationBucketWeights[attenuationBucketThresholdDb.length];
+    }
+
+    /**
+     * @param reportType one of the {@link ReportType} constants
+     * @return the weight for the provided report type, {@code 0} for unknown values
+     * @see #reportTypeWeights
+     */
+    @Override
+    public double getReportTypeWeight(final int reportType) {
+        return weight(reportTypeWeights, reportType);
+    }
+
+    /**
+     * @param infectiousness one of the {@link Infectiousness} constants
+     * @return the weight for the provided infectiousness, {@code 0} for unknown values
+     * @see #infectiousnessWeights
+     */
+    @Override
+    public double getInfectiousnessWeight(final int infectiousness) {
+        return weight(infectiousnessWeights, infectiousness);
+    }
+
+    private static double weight(double[] weights, int value) {
+        return value >= 0 && value < weights.length ? weights[value] : 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DailySummariesConfig that = (DailySummariesConfig) o;
+        return daysSinceExposureThreshold == that.daysSinceExposureThreshold &&
+            Double.compare(that.minimumWindowScore, minimumWindowScore) == 0 &&
+            Arrays.equals(attenuationBucketThresholdDb, that.attenuationBucketThresholdDb) &&
+            Arrays.equals(attenuationBucketWeights, that.attenuationBucketWeights) &&
+            Arrays.equals(reportTypeWeights, that.reportTypeWeights) &&
+            Arrays.equals(infectiousnessWeights, that.infectiousnessWeights);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(daysSinceExposureThreshold, minimumWindowScore);
+        result = 31 * result + Arrays.hashCode(attenuationBucketThresholdDb);
+        result = 31 * result + Arrays.hashCode(attenuationBucketWeights);
+        result = 31 * result + Arrays.hashCode(reportTypeWeights);
+        result = 31 * result + Arrays.hashCode(infectiousnessWeights);
+        return result;
+    }
+
+    public static final class DailySummariesConfigBuilder {
+        private int[] attenuationBucketThresholdDb = new int[]{30, 50, 70};
+        private double[] attenuationBucketWeights = new double[]{1.0, 1.0, 1.0, 1.0};
+        private final double[] reportTypeWeights = new double[]{0.0, 1.0, 1.0, 1.0, 1.0, 0.0};
+        private final double[] infectiousnessWeights = new double[]{0.0, 1.0, 1.0};
+        private int daysSinceExposureThreshold = 0;
+        private double minimumWindowScore = 0;
+
+        public DailySummariesConfigBuilder() {
+        }
+
+        /**
+         * if not called defaults to the thresholds {30, 50, 70} and a weight of 1.0 for all
+         * buckets
+         *
+         * @param thresholds the three thresholds between the four buckets, in ascending order
+         * @param weights    the weights of the four buckets, each between 0 and 2.5
+         * @return {@code this}
+         * @see DailySummariesConfig#attenuationBucketThresholdDb
+         */
+        public DailySummariesConfigBuilder setAttenuationBuckets(List<Integer> thresholds,
+                                                                 List<Double> weights) {
+            if (thresholds == null || thresholds.size() != 3 || weights == null || weights.size() != 4) {
+                throw new IllegalArgumentException();
+            }
+
+            int[] newThresholds = new int[3];
+            for (int i = 0; i < newThresholds.length; i++) {
+                newThresholds[i] = thresholds.get(i);
+                if (i > 0 && newThresholds[i] < newThresholds[i - 1]) {
+                    throw new IllegalArgumentException("Thresholds must be ascending");
+                }
+            }
+            double[] newWeights = new double[4];
+            for (int i = 0; i < newWeights.length; i++) {
+                newWeights[i] = checkWeight(weights.get(i));
+            }
+            attenuationBucketThresholdDb = newThresholds;
+            attenuationBucketWeights = newWeights;
+            return this;
+        }
+
+        /**
+         * if not called defaults to 1.0 for all report types but {@link ReportType#UNKNOWN} and
+         * {@link ReportType#REVOKED}
+         *
+         * @param reportType one of the {@link ReportType} constants
+         * @param weight     between 0 and 2.5
+         * @return {@code this}
+         */
+        public DailySummariesConfigBuilder setReportTypeWeight(int reportType, double weight) {
+            if (reportType < 0 || reportType >= reportTypeWeights.length) {
+                throw new IllegalArgumentException();
+            }
+
+            reportTypeWeights[reportType] = checkWeight(weight);
+            return this;
+        }
+
+        /**
+         * if not called defaults to 1.0 for all values but {@link Infectiousness#NONE}
+         *
+         * @param infectiousness one of the {@link Infectiousness} constants
+         * @param weight         between 0 and 2.5
+         * @return {@code this}
+         */
+        public DailySummariesConfigBuilder setInfectiousnessWeight(int infectiousness, double weight) {
+            if (infectiousness < 0 || infectiousness >= infectiousnessWeights.length) {
+                throw new IllegalArgumentException();
+            }
+
+            infectiousnessWeights[infectiousness] = checkWeight(weight);
+            return this;
+        }
+
+        /**
+         * @return {@code this}
+         * @see DailySummariesConfig#daysSinceExposureThreshold
+         */
+        public DailySummariesConfigBuilder setDaysSinceExposureThreshold(int daysSinceExposureThreshold) {
+            if (daysSinceExposureThreshold < 0) {
+                throw new IllegalArgumentException();
+            }
+
+            this.daysSinceExposureThreshold = daysSinceExposureThreshold;
+            return this;
+        }
+
+        /**
+         * @return {@code this}
+         * @see DailySummariesConfig#minimumWindowScore
+         */
+        public DailySummariesConfigBuilder setMinimumWindowScore(double minimumWindowScore) {
+            if (minimumWindowScore < 0) {
+                throw new IllegalArgumentException();
+            }
+
+            this.minimumWindowScore = minimumWindowScore;
+            return this;
+        }
+
+        private static double checkWeight(double weight) {
+            if (weight < 0 || weight > MAX_WEIGHT) {
+                throw new IllegalArgumentException("Weight out of range: " + weight);
+            }
+            return weight;
+        }
+
+        /**
+         * @return a {@link DailySummariesConfig} instance based on the values set in the builder
+         */
+        public DailySummariesConfig build() {
+            return new DailySummariesConfig(
+                attenuationBucketThresholdDb,
+                attenuationBucketWeights,
+                Arrays.copyOf(reportTypeWeights, reportTypeWeights.length),
+                Arrays.copyOf(infectiousnessWeights, infectiousnessWeights.length),
+                daysSinceExposureThreshold,
+                minimumWindowScore
+            );
+        }
+    }
+
+    private static final double MAX_WEIGHT = 2.5;
+}
@@ -0,0 +1,204 @@
+package org.coralibre.android.sdk.fakegms.nearby.exposurenotification;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The scores of all {@link ExposureWindow exposure windows} of a single (UTC) day, as computed
+ * with a {@link DailySummariesConfig}.
+ *
+ * @see <a href="https://developers.google.com/android/reference/com/google/android/gms/nearby/exposurenotification/DailySummary">documentation on developers.google.com</a>
+ */
+public final class DailySummary implements Parcelable {
+
+    private final int daysSinceEpoch;
+    private final Map<Integer, ExposureSummaryData> reportTypeSummaries;
+    private final ExposureSummaryData summaryData;
+
+    /**
+     * @param reportTypeSummaries the scores of the windows of the day per {@link ReportType}, see
+     *                            {@link #getSummaryDataForReportType(int)}
+     */
+    public DailySummary(int daysSinceEpoch, Map<Integer, ExposureSummaryData> reportTypeSummaries) {
+        this.daysSinceEpoch = daysSinceEpoch;
+        this.reportTypeSummaries = Collections.unmodifiableMap(new HashMap<>(reportTypeSummaries));
+        this.summaryData = combine(reportTypeSummaries);
+    }
+
+    private DailySummary(Parcel in) {
+        daysSinceEpoch = in.readInt();
+        int size = in.readInt();
+        Map<Integer, ExposureSummaryData> summaries = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            int reportType = in.readInt();
+            summaries.put(reportType,
+                in.readParcelable(ExposureSummaryData.class.getClassLoader()));
+        }
+        reportTypeSummaries = Collections.unmodifiableMap(summaries);
+        summaryData = combine(summaries);
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(daysSinceEpoch);
+        dest.writeInt(reportTypeSummaries.size());
+        for (Map.Entry<Integer, ExposureSummaryData> entry : reportTypeSummaries.entrySet()) {
+            dest.writeInt(entry.getKey());
+            dest.writeParcelable(entry.getValue(), flags);
+        }
+    }
+
+    /**
+     * @return the highest maximum score and the sums of the scores and durations of all report
+     * types
+     */
+    private static ExposureSummaryData combine(Map<Integer, ExposureSummaryData> summaries) {
+        double maximumScore = 0;
+        double scoreSum = 0;
+        double weightedDurationSum = 0;
+        for (ExposureSummaryData summary : summaries.values()) {
+            maximumScore = Math.max(maximumScore, summary.getMaximumScore());
+            scoreSum += summary.getScoreSum();
+            weightedDurationSum += summary.getWeightedDurationSum();
+        }
+        return new ExposureSummaryData(maximumScore, scoreSum, weightedDurationSum);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<DailySummary> CREATOR = new Creator<DailySummary>() {
+        @Override
+        public DailySummary createFromParcel(Parcel in) {
+            return new DailySummary(in);
+        }
+
+        @Override
+        public DailySummary[] newArray(int size) {
+            return new DailySummary[size];
+        }
+    };
+
+    public int getDaysSinceEpoch() {
+        return daysSinceEpoch;
+    }
+
+    /**
+     * The scores of all windows of the day
+     */
+    public ExposureSummaryData getSummaryData() {
+        return summaryData;
+    }
+
+    /**
+     * The scores of the windows of the day with the given {@link ReportType}, all {@code 0} if
+     * there are none
+     */
+    public ExposureSummaryData getSummaryDataForReportType(int reportType) {
+        ExposureSummaryData result = reportTypeSummaries.get(reportType);
+        return result != null ? result : new ExposureSummaryData(0, 0, 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DailySummary that = (DailySummary) o;
+        return daysSinceEpoch == that.daysSinceEpoch &&
+            reportTypeSummaries.equals(that.reportTypeSummaries);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(daysSinceEpoch, reportTypeSummaries);
+    }
+
+    /**
+     * @see <a href="https://developers.google.com/android/reference/com/google/android/gms/nearby/exposurenotification/DailySummary.ExposureSummaryData">documentation on developers.google.com</a>
+     */
+    public static final class ExposureSummaryData implements Parcelable {
+
+        private final double maximumScore;
+        private final double scoreSum;
+        private final double weightedDurationSum;
+
+        public ExposureSummaryData(double maximumScore, double scoreSum, double weightedDurationSum) {
+            this.maximumScore = maximumScore;
+            this.scoreSum = scoreSum;
+            this.weightedDurationSum = weightedDurationSum;
+        }
+
+        private ExposureSummaryData(Parcel in) {
+            maximumScore = in.readDouble();
+            scoreSum = in.readDouble();
+            weightedDurationSum = in.readDouble();
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            dest.writeDouble(maximumScore);
+            dest.writeDouble(scoreSum);
+            dest.writeDouble(weightedDurationSum);
+        }
+
+        @Override
+        public int describeContents() {
+            return 0;
+        }
+
+        public static final Creator<ExposureSummaryData> CREATOR = new Creator<ExposureSummaryData>() {
+            @Override
+            public ExposureSummaryData createFromParcel(Parcel in) {
+                return new ExposureSummaryData(in);
+            }
+
+            @Override
+            public ExposureSummaryData[] newArray(int size) {
+                return new ExposureSummaryData[size];
+            }
+        };
+
+        /**
+         * The highest score of a single window
+         */
+        public double getMaximumScore() {
+            return maximumScore;
+        }
+
+        /**
+         * The sum of the scores of all windows
+         */
+        public double getScoreSum() {
+            return scoreSum;
+        }
+
+        /**
+         * The sum of the durations (in seconds) of all windows, weighted by attenuation only
+         */
+        public double getWeightedDurationSum() {
+            return weightedDurationSum;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ExposureSummaryData that = (ExposureSummaryData) o;
+            return Double.compare(that.maximumScore, maximumScore) == 0 &&
+                Double.compare(that.scoreSum, scoreSum) == 0 &&
+                Double.compare(that.weightedDurationSum, weightedDurationSum) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(maximumScore, scoreSum, weightedDurationSum);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package org.coralibre.android.sdk.fakegms.nearby.exposurenotification;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import org.coralibre.android.sdk.internal.matching.KeyDataMapping;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Maps the report type and the days since onset of symptoms of the diagnosis keys (as provided in
+ * the key files) to the {@link ReportType report type} and {@link Infectiousness infectiousness}
+ * of their {@link ExposureWindow exposure windows}. Keys whose windows have the report type
+ * {@link ReportType#REVOKED} or the infectiousness {@link Infectiousness#NONE} have no windows.
+ *
+ * @see <a href="https://developers.google.com/android/reference/com/google/android/gms/nearby/exposurenotification/DiagnosisKeysDataMapping">documentation on developers.google.com</a>
+ */
+public final class DiagnosisKeysDataMapping implements Parcelable, KeyDataMapping {
+
+    /**
+     * The smallest days since onset of symptoms that can be mapped
+     */
+    public static final int MIN_DAYS_SINCE_ONSET = -14;
+
+    /**
+     * The largest days since onset of symptoms that can be mapped
+     */
+    public static final int MAX_DAYS_SINCE_ONSET = 14;
+
+    /**
+     * The infectiousness per days since onset of symptoms, indexed by
+     * {@code daysSinceOnsetOfSymptoms - MIN_DAYS_SINCE_ONSET}
+     */
+    private final int[] daysSinceOnsetToInfectiousness;
+
+    /**
+     * The {@link ReportType} of keys whose key file does not set one
+     */
+    private final int reportTypeWhenMissing;
+
+    /**
+     * The {@link Infectiousness} of keys whose key file does not set the days since onset of
+     * symptoms
+     */
+    private final int infectiousnessWhenDaysSinceOnsetMissing;
+
+    private DiagnosisKeysDataMapping(final int[] daysSinceOnsetToInfectiousness,
+                                     final int reportTypeWhenMissing,
+                                     final int infectiousnessWhenDaysSinceOnsetMissing) {
+        this.daysSinceOnsetToInfectiousness = daysSinceOnsetToInfectiousness;
+        this.reportTypeWhenMissing = reportTypeWhenMissing;
+        this.infectiousnessWhenDaysSinceOnsetMissing = infectiousnessWhenDaysSinceOnsetMissing;
+    }
+
+    private DiagnosisKeysDataMapping(Parcel in) {
+        daysSinceOnsetToInfectiousness = in.createIntArray();
+        reportTypeWhenMissing = in.readInt();
+        infectiousnessWhenDaysSinceOnsetMissing = in.readInt();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeIntArray(daysSinceOnsetToInfectiousness);
+        dest.writeInt(reportTypeWhenMissing);
+        dest.writeInt(infectiousnessWhenDaysSinceOnsetMissing);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<DiagnosisKeysDataMapping> CREATOR = new Creator<DiagnosisKeysDataMapping>() {
+        @Override
+        public DiagnosisKeysDataMapping createFromParcel(Parcel in) {
+            return new DiagnosisKeysDataMapping(in);
+        }
+
+        @Override
+        public DiagnosisKeysDataMapping[] newArray(int size) {
+            return new DiagnosisKeysDataMapping[size];
+        }
+    };
+
+    /**
+     * @see #daysSinceOnsetToInfectiousness
+     */
+    public Map<Integer, Integer> getDaysSinceOnsetToInfectiousness() {
+        Map<Integer, Integer> result = new HashMap<>();
+        for (int i = 0; i < daysSinceOnsetToInfectiousness.length; i++) {
+            result.put(i + MIN_DAYS_SINCE_ONSET, daysSinceOnsetToInfectiousness[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @see #reportTypeWhenMissing
+     */
+    @Override
+    public int getReportTypeWhenMissing() {
+        return reportTypeWhenMissing;
+    }
+
+    /**
+     * @see #infectiousnessWhenDaysSinceOnsetMissing
+     */
+    @Override
+    public int getInfectiousnessWhenDaysSinceOnsetMissing() {
+        return infectiousnessWhenDaysSinceOnsetMissing;
+    }
+
+    /**
+     * @param daysSinceOnsetOfSymptoms as provided in the key file
+     * @return the infectiousness for the provided days, {@link Infectiousness#NONE} for days out
+     * of range
+     * @see #daysSinceOnsetToInfectiousness
+     */
+    @Override
+    public int getInfectiousness(final int daysSinceOnsetOfSymptoms) {
+        if (daysSinceOnsetOfSymptoms < MIN_DAYS_SINCE_ONSET
+            || daysSinceOnsetOfSymptoms > MAX_DAYS_SINCE_ONSET) {
+            return Infectiousness.NONE;
+        }
+        return daysSinceOnsetToInfectiousness[daysSinceOnsetOfSymptoms - MIN_DAYS_SINCE_ONSET];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DiagnosisKeysDataMapping that = (DiagnosisKeysDataMapping) o;
+        return reportTypeWhenMissing == that.reportTypeWhenMissing &&
+            infectiousnessWhenDaysSinceOnsetMissing == that.infectiousnessWhenDaysSinceOnsetMissing &&
+            Arrays.equals(daysSinceOnsetToInfectiousness, that.daysSinceOnsetToInfectiousness);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(reportTypeWhenMissing, infectiousnessWhenDaysSinceOnsetMissing);
+        result = 31 * result + Arrays.hashCode(daysSinceOnsetToInfectiousness);
+        return result;
+    }
+
+    public static final class DiagnosisKeysDataMappingBuilder {
+        private final int[] daysSinceOnsetToInfectiousness =
+            new int[MAX_DAYS_SINCE_ONSET - MIN_DAYS_SINCE_ONSET + 1];
+        private int reportTypeWhenMissing = ReportType.CONFIRMED_TEST;
+        private int infectiousnessWhenDaysSinceOnsetMissing = Infectiousness.STANDARD;
+
+        public DiagnosisKeysDataMappingBuilder() {
+            Arrays.fill(daysSinceOnsetToInfectiousness, Infectiousness.STANDARD);
+        }
+
+        /**
+         * if not called defaults to {@link Infectiousness#STANDARD} for all days
+         *
+         * @param daysSinceOnsetToInfectiousness the {@link Infectiousness} per days since onset
+         *                                       of symptoms, each key between
+         *                                       {@link #MIN_DAYS_SINCE_ONSET} and
+         *                                       {@link #MAX_DAYS_SINCE_ONSET}; days that are not
+         *                                       contained map to {@link Infectiousness#NONE}
+         * @return {@code this}
+         */
+        public DiagnosisKeysDataMappingBuilder setDaysSinceOnsetToInfectiousness(
+            Map<Integer, Integer> daysSinceOnsetToInfectiousness) {
+            if (daysSinceOnsetToInfectiousness == null) {
+                throw new IllegalArgumentException();
+            }
+
+            int[] newValues = new int[this.daysSinceOnsetToInfectiousness.length];
+            Arrays.fill(newValues, Infectiousness.NONE);
+            for (Map.Entry<Integer, Integer> entry : daysSinceOnsetToInfectiousness.entrySet()) {
+                int days = entry.getKey();
+                if (days < MIN_DAYS_SINCE_ONSET || days > MAX_DAYS_SINCE_ONSET) {
+                    throw new IllegalArgumentException("Days since onset out of range: " + days);
+                }
+                newValues[days - MIN_DAYS_SINCE_ONSET] = checkInfectiousness(entry.getValue());
+            }
+            System.arraycopy(newValues, 0, this.daysSinceOnsetToInfectiousness, 0,
+                newValues.length);
+            return this;
+        }
+
+        /**
+         * if not called defaults to {@link ReportType#CONFIRMED_TEST}
+         *
+         * @param reportType one of the {@link ReportType} constants but {@link ReportType#UNKNOWN}
+         * @return {@code this}
+         */
+        public DiagnosisKeysDataMappingBuilder setReportTypeWhenMissing(int reportType) {
+            if (reportType <= ReportType.UNKNOWN || reportType > ReportType.REVOKED) {
+                throw new IllegalArgumentException();
+            }
+
+            reportTypeWhenMissing = reportType;
+            return this;
+        }
+
+        /**
+         * if not called defaults to {@link Infectiousness#STANDARD}
+         *
+         * @param infectiousness one of the {@link Infectiousness} constants
+         * @return {@code this}
+         */
+        public DiagnosisKeysDataMappingBuilder setInfectiousnessWhenDaysSinceOnsetMissing(
+            int infectiousness) {
+            infectiousnessWhenDaysSinceOnsetMissing = checkInfectiousness(infectiousness);
+            return this;
+        }
+
+        private static int checkInfectiousness(Integer infectiousness) {
+            if (infectiousness == null
+                || infectiousness < Infectiousness.NONE || infectiousness > Infectiousness.HIGH) {
+                throw new IllegalArgumentException("Invalid infectiousness: " + infectiousness);
+            }
+            return infectiousness;
+        }
+
+        /**
+         * @return a {@link DiagnosisKeysDataMapping} instance based on the values set in the
+         * builder
+         */
+        public DiagnosisKeysDataMapping build() {
+            return new DiagnosisKeysDataMapping(
+                Arrays.copyOf(daysSinceOnsetToInfectiousness, daysSinceOnsetToInfectiousness.length),
+                reportTypeWhenMissing,
+                infectiousnessWhenDaysSinceOnsetMissing
+            );
+        }
+    }
+}
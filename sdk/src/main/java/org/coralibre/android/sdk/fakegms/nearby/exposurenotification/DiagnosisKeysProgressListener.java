@@ -0,0 +1,22 @@
+package org.coralibre.android.sdk.fakegms.nearby.exposurenotification;
+
+/**
+ * Observes a running {@link ExposureNotificationClient#provideDiagnosisKeys(java.util.List,
+ * ExposureConfiguration, String, org.coralibre.android.sdk.fakegms.tasks.CancellationToken,
+ * DiagnosisKeysProgressListener) provideDiagnosisKeys(...)} call. Not part of the original API.
+ */
+public interface DiagnosisKeysProgressListener {
+
+    /**
+     * Called on the main thread after every batch of keys, and once more when the matching of
+     * all keys has finished.
+     *
+     * @param bytesRead     the number of bytes of the key files that have been read so far
+     * @param keysProcessed the number of keys that have been read and matched so far
+     * @param matchesFound  the number of keys read so far that match at least one sighting. Only
+     *                      the keys of this call are counted, not the ones provided for the same
+     *                      token by previous calls (see
+     *                      {@link ExposureSummary#getMatchedKeyCount()} for these).
+     */
+    void onProgress(long bytesRead, long keysProcessed, long matchesFound);
+}
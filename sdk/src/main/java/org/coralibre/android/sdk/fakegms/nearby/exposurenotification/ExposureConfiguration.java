@@ -4,6 +4,8 @@ import android.os.Parcel;
 import android.os.Parcelable;
 
 import org.coralibre.android.sdk.internal.datatypes.CapturedData;
+import org.coralibre.android.sdk.internal.matching.RiskScoreBuckets;
+import org.coralibre.android.sdk.internal.matching.RiskScoringConfiguration;
 
 import java.util.Arrays;
 import java.util.Objects;
@@ -15,7 +17,7 @@ import java.util.Objects;
  * @see <a href="https://developer.apple.com/documentation/exposurenotification/enexposureconfiguration">risk calculation algorithm details on developer.apple.com</a>
  * @see <a href="https://developers.google.com/android/exposure-notifications/exposure-notifications-api#exposureconfiguration">documentation on developers.google.com</a>
  */
-public final class ExposureConfiguration implements Parcelable {
+public final class ExposureConfiguration implements Parcelable, RiskScoringConfiguration {
 
     //
     // The gms ExposureConfiguration is used in particular by the following classes (and perhaps more):
@@ -167,13 +169,50 @@ public final class ExposureConfiguration implements Parcelable {
     /**
      * @see #minimumRiskScore
      */
+    @Override
     public int getMinimumRiskScore() {
         return minimumRiskScore;
     }
 
+    /**
+     * @see #attenuationScores
+     */
+    public int[] getAttenuationScores() {
+        return Arrays.copyOf(attenuationScores, attenuationScores.length);
+    }
+
+    /**
+     * @see #daysSinceLastExposureScores
+     */
+    public int[] getDaysSinceLastExposureScores() {
+        return Arrays.copyOf(daysSinceLastExposureScores, daysSinceLastExposureScores.length);
+    }
+
+    /**
+     * @see #durationScores
+     */
+    public int[] getDurationScores() {
+        return Arrays.copyOf(durationScores, durationScores.length);
+    }
+
+    /**
+     * @see #transmissionRiskScores
+     */
+    public int[] getTransmissionRiskScores() {
+        return Arrays.copyOf(transmissionRiskScores, transmissionRiskScores.length);
+    }
+
     /**
      * @see #durationAtAttenuationThresholds
      */
+    public int[] getDurationAtAttenuationThresholds() {
+        return Arrays.copyOf(durationAtAttenuationThresholds, durationAtAttenuationThresholds.length);
+    }
+
+    /**
+     * @see #durationAtAttenuationThresholds
+     */
+    @Override
     public int getDurationAtAttenuationLowThreshold() {
         return durationAtAttenuationThresholds[0];
     }
@@ -181,6 +220,7 @@ public final class ExposureConfiguration implements Parcelable {
     /**
      * @see #durationAtAttenuationThresholds
      */
+    @Override
     public int getDurationAtAttenuationHighThreshold() {
         return durationAtAttenuationThresholds[1];
     }
@@ -191,24 +231,9 @@ public final class ExposureConfiguration implements Parcelable {
      * @return the attenuation score for the provided value
      * @see #attenuationScores
      */
+    @Override
     public int getAttenuationScore(final int attenuationValue) {
-        if (attenuationValue > 73) {
-            return attenuationScores[0];
-        } else if (attenuationValue > 63) {
-            return attenuationScores[1];
-        } else if (attenuationValue > 51) {
-            return attenuationScores[2];
-        } else if (attenuationValue > 33) {
-            return attenuationScores[3];
-        } else if (attenuationValue > 27) {
-            return attenuationScores[4];
-        } else if (attenuationValue > 15) {
-            return attenuationScores[5];
-        } else if (attenuationValue > 10) {
-            return attenuationScores[6];
-        } else {
-            return attenuationScores[7];
-        }
+        return RiskScoreBuckets.attenuationScore(attenuationScores, attenuationValue);
     }
 
     /**
@@ -216,24 +241,10 @@ public final class ExposureConfiguration implements Parcelable {
      * @return the days since last exposure score for the provided value
      * @see #daysSinceLastExposureScores
      */
+    @Override
     public int getDaysSinceLastExposureScore(final int daysSinceLastExposureValue) {
-        if (daysSinceLastExposureValue >= 14) {
-            return daysSinceLastExposureScores[0];
-        } else if (daysSinceLastExposureValue == 12 || daysSinceLastExposureValue == 13) {
-            return daysSinceLastExposureScores[1];
-        } else if (daysSinceLastExposureValue == 10 || daysSinceLastExposureValue == 11) {
-            return daysSinceLastExposureScores[2];
-        } else if (daysSinceLastExposureValue == 8 || daysSinceLastExposureValue == 9) {
-            return daysSinceLastExposureScores[3];
-        } else if (daysSinceLastExposureValue == 6 || daysSinceLastExposureValue == 7) {
-            return daysSinceLastExposureScores[4];
-        } else if (daysSinceLastExposureValue == 4 || daysSinceLastExposureValue == 5) {
-            return daysSinceLastExposureScores[5];
-        } else if (daysSinceLastExposureValue == 2 || daysSinceLastExposureValue == 3) {
-            return daysSinceLastExposureScores[6];
-        } else {
-            return daysSinceLastExposureScores[7];
-        }
+        return RiskScoreBuckets.daysSinceLastExposureScore(
+            daysSinceLastExposureScores, daysSinceLastExposureValue);
     }
 
     /**
@@ -241,24 +252,9 @@ public final class ExposureConfiguration implements Parcelable {
      * @return the duration score for the provided value
      * @see #durationScores
      */
+    @Override
     public int getDurationScore(final int durationValue) {
-        if (durationValue <= 0) { // using <= instead of == just to be sure
-            return durationScores[0];
-        } else if (durationValue <= 5) {
-            return durationScores[1];
-        } else if (durationValue <= 10) {
-            return durationScores[2];
-        } else if (durationValue <= 15) {
-            return durationScores[3];
-        } else if (durationValue <= 20) {
-            return durationScores[4];
-        } else if (durationValue <= 25) {
-            return durationScores[5];
-        } else if (durationValue <= 30) {
-            return durationScores[6];
-        } else {
-            return durationScores[7];
-        }
+        return RiskScoreBuckets.durationScore(durationScores, durationValue);
     }
 
     /**
@@ -267,8 +263,9 @@ public final class ExposureConfiguration implements Parcelable {
      * @return the transmission risk score for the provided value
      * @see #transmissionRiskScores
      */
+    @Override
     public int getTransmissionRiskScore(final int transmissionRiskValue) {
-        return transmissionRiskScores[transmissionRiskValue];
+        return RiskScoreBuckets.transmissionRiskScore(transmissionRiskScores, transmissionRiskValue);
     }
 
 
@@ -283,6 +280,7 @@ public final class ExposureConfiguration implements Parcelable {
      * associated with the provided values
      * @see <a href="https://developer.apple.com/documentation/exposurenotification/enexposureconfiguration">risk calculation algorithm details on developer.apple.com</a>
      */
+    @Override
     public int getRiskScore(final int attenuationValue,
                             final int daysSinceLastExposureValue,
                             final int durationValue,
@@ -106,19 +106,19 @@ public final class ExposureInformation implements Parcelable {
             attenuationValue == that.attenuationValue &&
             transmissionRiskLevel == that.transmissionRiskLevel &&
             totalRiskScore == that.totalRiskScore &&
-            attenuationDurationsInMinutes == that.attenuationDurationsInMinutes;
+            Arrays.equals(attenuationDurationsInMinutes, that.attenuationDurationsInMinutes);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(
+        int result = Objects.hash(
             dateMillisSinceEpoch,
             durationMinutes,
             attenuationValue,
             transmissionRiskLevel,
-            totalRiskScore,
-            attenuationDurationsInMinutes
+            totalRiskScore
         );
+        return 31 * result + Arrays.hashCode(attenuationDurationsInMinutes);
     }
 
     public static final class ExposureInformationBuilder {
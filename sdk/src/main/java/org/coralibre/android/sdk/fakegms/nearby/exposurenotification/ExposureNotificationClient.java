@@ -2,6 +2,7 @@ package org.coralibre.android.sdk.fakegms.nearby.exposurenotification;
 
 import androidx.annotation.Nullable;
 
+import org.coralibre.android.sdk.fakegms.tasks.CancellationToken;
 import org.coralibre.android.sdk.fakegms.tasks.Task;
 
 import java.io.File;
@@ -58,7 +59,63 @@ public interface ExposureNotificationClient {
                                     @Nullable final ExposureConfiguration exposureConfiguration,
                                     final String token);
 
+    /**
+     * Like {@link #provideDiagnosisKeys(List, ExposureConfiguration, String)}, but the call can be
+     * observed and aborted, e.g. when a newer set of key files arrives. Not part of the original
+     * API.
+     * <p>
+     * The key files and the keys are checked against the {@code cancellationToken} between
+     * batches of keys. Once cancellation has been requested, the returned task is canceled and
+     * no intent is fired. The exposure data of the token is computed again by the next call.
+     *
+     * @param cancellationToken aborts the call, may be null
+     * @param progressListener  observes the call, may be null
+     */
+    Task<Void> provideDiagnosisKeys(final List<File> keyFiles,
+                                    @Nullable final ExposureConfiguration exposureConfiguration,
+                                    final String token,
+                                    @Nullable final CancellationToken cancellationToken,
+                                    @Nullable final DiagnosisKeysProgressListener progressListener);
+
     Task<ExposureSummary> getExposureSummary(String token);
 
     Task<List<ExposureInformation>> getExposureInformation(String token);
+
+    /**
+     * Sets the mapping of the report type and days since onset of symptoms of the diagnosis keys
+     * that {@link #getExposureWindows()} and {@link #getDailySummaries(DailySummariesConfig)}
+     * use. It is kept until it is set again.
+     *
+     * @see <a href="https://developers.google.com/android/reference/com/google/android/gms/nearby/exposurenotification/ExposureNotificationClient#setDiagnosisKeysDataMapping(com.google.android.gms.nearby.exposurenotification.DiagnosisKeysDataMapping)">documentation on developers.google.com</a>
+     */
+    Task<Void> setDiagnosisKeysDataMapping(DiagnosisKeysDataMapping mapping);
+
+    /**
+     * @return the mapping that has been set last, or the default of
+     * {@link DiagnosisKeysDataMapping.DiagnosisKeysDataMappingBuilder} if none has been set yet
+     * @see <a href="https://developers.google.com/android/reference/com/google/android/gms/nearby/exposurenotification/ExposureNotificationClient#getDiagnosisKeysDataMapping()">documentation on developers.google.com</a>
+     */
+    Task<DiagnosisKeysDataMapping> getDiagnosisKeysDataMapping();
+
+    /**
+     * Computes one {@link ExposureWindow} per diagnosis key and (UTC) day with at least one
+     * matching sighting, from the keys provided for all tokens.
+     *
+     * The report type and infectiousness of the windows of each key are set by the
+     * {@link #setDiagnosisKeysDataMapping(DiagnosisKeysDataMapping) mapping}; keys mapped to
+     * {@link ReportType#REVOKED} or {@link Infectiousness#NONE} have no windows.
+     *
+     * @see <a href="https://developers.google.com/android/reference/com/google/android/gms/nearby/exposurenotification/ExposureNotificationClient#getExposureWindows()">documentation on developers.google.com</a>
+     */
+    Task<List<ExposureWindow>> getExposureWindows();
+
+    /**
+     * Scores the exposure windows (see {@link #getExposureWindows()}) with the given
+     * {@code config} and sums them up per day.
+     *
+     * @return one {@link DailySummary} per day with at least one window whose score reaches the
+     * {@link DailySummariesConfig#getMinimumWindowScore() minimum window score}
+     * @see <a href="https://developers.google.com/android/reference/com/google/android/gms/nearby/exposurenotification/ExposureNotificationClient#getDailySummaries(com.google.android.gms.nearby.exposurenotification.DailySummariesConfig)">documentation on developers.google.com</a>
+     */
+    Task<List<DailySummary>> getDailySummaries(DailySummariesConfig config);
 }
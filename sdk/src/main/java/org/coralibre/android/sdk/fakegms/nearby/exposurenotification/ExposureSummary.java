@@ -4,6 +4,7 @@ package org.coralibre.android.sdk.fakegms.nearby.exposurenotification;
 import android.os.Parcel;
 import android.os.Parcelable;
 
+import java.util.Arrays;
 import java.util.Objects;
 
 public final class ExposureSummary implements Parcelable {
@@ -163,18 +164,18 @@ public final class ExposureSummary implements Parcelable {
             matchedKeyCount == that.matchedKeyCount &&
             maximumRiskScore == that.maximumRiskScore &&
             summationRiskScore == that.summationRiskScore &&
-            attenuationDurations == that.attenuationDurations;
+            Arrays.equals(attenuationDurations, that.attenuationDurations);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(
+        int result = Objects.hash(
             daysSinceLastExposure,
             matchedKeyCount,
             maximumRiskScore,
-            summationRiskScore,
-            attenuationDurations
+            summationRiskScore
         );
+        return 31 * result + Arrays.hashCode(attenuationDurations);
     }
 
     public static final class ExposureSummaryBuilder {
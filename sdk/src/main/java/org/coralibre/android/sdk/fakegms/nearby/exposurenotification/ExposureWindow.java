@@ -0,0 +1,173 @@
+package org.coralibre.android.sdk.fakegms.nearby.exposurenotification;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The sightings of a single diagnosis key on a single (UTC) day.
+ *
+ * @see <a href="https://developers.google.com/android/reference/com/google/android/gms/nearby/exposurenotification/ExposureWindow">documentation on developers.google.com</a>
+ */
+public final class ExposureWindow implements Parcelable {
+
+    private final long dateMillisSinceEpoch;
+    private final int reportType;
+    private final int infectiousness;
+    private final int calibrationConfidence;
+    private final List<ScanInstance> scanInstances;
+
+    private ExposureWindow(long dateMillisSinceEpoch,
+                           int reportType,
+                           int infectiousness,
+                           int calibrationConfidence,
+                           List<ScanInstance> scanInstances) {
+        this.dateMillisSinceEpoch = dateMillisSinceEpoch;
+        this.reportType = reportType;
+        this.infectiousness = infectiousness;
+        this.calibrationConfidence = calibrationConfidence;
+        this.scanInstances = scanInstances;
+    }
+
+    private ExposureWindow(Parcel in) {
+        dateMillisSinceEpoch = in.readLong();
+        reportType = in.readInt();
+        infectiousness = in.readInt();
+        calibrationConfidence = in.readInt();
+        scanInstances = in.createTypedArrayList(ScanInstance.CREATOR);
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeLong(dateMillisSinceEpoch);
+        dest.writeInt(reportType);
+        dest.writeInt(infectiousness);
+        dest.writeInt(calibrationConfidence);
+        dest.writeTypedList(scanInstances);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<ExposureWindow> CREATOR = new Creator<ExposureWindow>() {
+        @Override
+        public ExposureWindow createFromParcel(Parcel in) {
+            return new ExposureWindow(in);
+        }
+
+        @Override
+        public ExposureWindow[] newArray(int size) {
+            return new ExposureWindow[size];
+        }
+    };
+
+    /**
+     * The start of the (UTC) day of the window
+     */
+    public long getDateMillisSinceEpoch() {
+        return dateMillisSinceEpoch;
+    }
+
+    /**
+     * One of the {@link ReportType} constants
+     */
+    public int getReportType() {
+        return reportType;
+    }
+
+    /**
+     * One of the {@link Infectiousness} constants
+     */
+    public int getInfectiousness() {
+        return infectiousness;
+    }
+
+    /**
+     * One of the {@link CalibrationConfidence} constants
+     */
+    public int getCalibrationConfidence() {
+        return calibrationConfidence;
+    }
+
+    public List<ScanInstance> getScanInstances() {
+        return scanInstances;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ExposureWindow that = (ExposureWindow) o;
+        return dateMillisSinceEpoch == that.dateMillisSinceEpoch &&
+            reportType == that.reportType &&
+            infectiousness == that.infectiousness &&
+            calibrationConfidence == that.calibrationConfidence &&
+            scanInstances.equals(that.scanInstances);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+            dateMillisSinceEpoch,
+            reportType,
+            infectiousness,
+            calibrationConfidence,
+            scanInstances
+        );
+    }
+
+    public static final class Builder {
+        private long dateMillisSinceEpoch = 0;
+        private int reportType = ReportType.UNKNOWN;
+        private int infectiousness = Infectiousness.STANDARD;
+        private int calibrationConfidence = CalibrationConfidence.LOWEST;
+        private List<ScanInstance> scanInstances = new ArrayList<>();
+
+        public Builder() {
+        }
+
+        public Builder setDateMillisSinceEpoch(long dateMillisSinceEpoch) {
+            this.dateMillisSinceEpoch = dateMillisSinceEpoch;
+            return this;
+        }
+
+        public Builder setReportType(int reportType) {
+            this.reportType = reportType;
+            return this;
+        }
+
+        public Builder setInfectiousness(int infectiousness) {
+            this.infectiousness = infectiousness;
+            return this;
+        }
+
+        public Builder setCalibrationConfidence(int calibrationConfidence) {
+            this.calibrationConfidence = calibrationConfidence;
+            return this;
+        }
+
+        public Builder setScanInstances(List<ScanInstance> scanInstances) {
+            if (scanInstances == null) {
+                throw new IllegalArgumentException();
+            }
+
+            this.scanInstances = new ArrayList<>(scanInstances);
+            return this;
+        }
+
+        public ExposureWindow build() {
+            return new ExposureWindow(
+                dateMillisSinceEpoch,
+                reportType,
+                infectiousness,
+                calibrationConfidence,
+                scanInstances
+            );
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.coralibre.android.sdk.fakegms.nearby.exposurenotification;
+
+/**
+ * The infectiousness of a diagnosis key on the day of an exposure window.
+ *
+ * @see <a href="https://developers.google.com/android/reference/com/google/android/gms/nearby/exposurenotification/Infectiousness">documentation on developers.google.com</a>
+ */
+public final class Infectiousness {
+
+    private Infectiousness() {
+    }
+
+    public static final int NONE = 0;
+    public static final int STANDARD = 1;
+    public static final int HIGH = 2;
+}
@@ -0,0 +1,19 @@
+package org.coralibre.android.sdk.fakegms.nearby.exposurenotification;
+
+/**
+ * The type of diagnosis that a diagnosis key has been reported for.
+ *
+ * @see <a href="https://developers.google.com/android/reference/com/google/android/gms/nearby/exposurenotification/ReportType">documentation on developers.google.com</a>
+ */
+public final class ReportType {
+
+    private ReportType() {
+    }
+
+    public static final int UNKNOWN = 0;
+    public static final int CONFIRMED_TEST = 1;
+    public static final int CONFIRMED_CLINICAL_DIAGNOSIS = 2;
+    public static final int SELF_REPORT = 3;
+    public static final int RECURSIVE = 4;
+    public static final int REVOKED = 5;
+}
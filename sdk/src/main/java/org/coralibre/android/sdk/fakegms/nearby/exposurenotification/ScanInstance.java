@@ -0,0 +1,118 @@
+package org.coralibre.android.sdk.fakegms.nearby.exposurenotification;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.Objects;
+
+/**
+ * A single sighting of a diagnosis key within an {@link ExposureWindow}.
+ *
+ * @see <a href="https://developers.google.com/android/reference/com/google/android/gms/nearby/exposurenotification/ScanInstance">documentation on developers.google.com</a>
+ */
+public final class ScanInstance implements Parcelable {
+
+    private final int typicalAttenuationDb;
+    private final int minAttenuationDb;
+    private final int secondsSinceLastScan;
+
+    private ScanInstance(int typicalAttenuationDb, int minAttenuationDb, int secondsSinceLastScan) {
+        this.typicalAttenuationDb = typicalAttenuationDb;
+        this.minAttenuationDb = minAttenuationDb;
+        this.secondsSinceLastScan = secondsSinceLastScan;
+    }
+
+    private ScanInstance(Parcel in) {
+        typicalAttenuationDb = in.readInt();
+        minAttenuationDb = in.readInt();
+        secondsSinceLastScan = in.readInt();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(typicalAttenuationDb);
+        dest.writeInt(minAttenuationDb);
+        dest.writeInt(secondsSinceLastScan);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<ScanInstance> CREATOR = new Creator<ScanInstance>() {
+        @Override
+        public ScanInstance createFromParcel(Parcel in) {
+            return new ScanInstance(in);
+        }
+
+        @Override
+        public ScanInstance[] newArray(int size) {
+            return new ScanInstance[size];
+        }
+    };
+
+    /**
+     * The attenuation of the sighting, computed from its (mean) rssi
+     */
+    public int getTypicalAttenuationDb() {
+        return typicalAttenuationDb;
+    }
+
+    /**
+     * The attenuation computed from the max rssi of the sighting
+     */
+    public int getMinAttenuationDb() {
+        return minAttenuationDb;
+    }
+
+    /**
+     * The time since the previous scan of the window, at most the scan interval
+     */
+    public int getSecondsSinceLastScan() {
+        return secondsSinceLastScan;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ScanInstance that = (ScanInstance) o;
+        return typicalAttenuationDb == that.typicalAttenuationDb &&
+            minAttenuationDb == that.minAttenuationDb &&
+            secondsSinceLastScan == that.secondsSinceLastScan;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(typicalAttenuationDb, minAttenuationDb, secondsSinceLastScan);
+    }
+
+    public static final class Builder {
+        private int typicalAttenuationDb = 0;
+        private int minAttenuationDb = 0;
+        private int secondsSinceLastScan = 0;
+
+        public Builder() {
+        }
+
+        public Builder setTypicalAttenuationDb(int typicalAttenuationDb) {
+            this.typicalAttenuationDb = typicalAttenuationDb;
+            return this;
+        }
+
+        public Builder setMinAttenuationDb(int minAttenuationDb) {
+            this.minAttenuationDb = minAttenuationDb;
+            return this;
+        }
+
+        public Builder setSecondsSinceLastScan(int secondsSinceLastScan) {
+            this.secondsSinceLastScan = secondsSinceLastScan;
+            return this;
+        }
+
+        public ScanInstance build() {
+            return new ScanInstance(typicalAttenuationDb, minAttenuationDb, secondsSinceLastScan);
+        }
+    }
+}
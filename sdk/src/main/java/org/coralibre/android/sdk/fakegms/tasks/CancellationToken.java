@@ -0,0 +1,18 @@
+package org.coralibre.android.sdk.fakegms.tasks;
+
+import org.coralibre.android.sdk.internal.util.CancellationCheck;
+
+/**
+ * Passed to an operation to request its cancellation, see {@link CancellationTokenSource}.
+ * <p>
+ * Cancellation is cooperative: the operation checks the token between units of work, and its
+ * Task is canceled once it notices the request.
+ */
+public abstract class CancellationToken implements CancellationCheck {
+
+    /**
+     * Returns true if {@link CancellationTokenSource#cancel()} has been called.
+     */
+    @Override
+    public abstract boolean isCancellationRequested();
+}
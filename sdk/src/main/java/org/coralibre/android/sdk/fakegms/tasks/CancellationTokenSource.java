@@ -0,0 +1,33 @@
+package org.coralibre.android.sdk.fakegms.tasks;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Creates a {@link CancellationToken} and requests its cancellation.
+ */
+public final class CancellationTokenSource {
+
+    private final SourceToken token = new SourceToken();
+
+    @NonNull
+    public CancellationToken getToken() {
+        return token;
+    }
+
+    /**
+     * Requests the cancellation of all operations the token has been passed to. Has no effect
+     * on operations that have already completed.
+     */
+    public void cancel() {
+        token.canceled = true;
+    }
+
+    private static final class SourceToken extends CancellationToken {
+        private volatile boolean canceled = false;
+
+        @Override
+        public boolean isCancellationRequested() {
+            return canceled;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package org.coralibre.android.sdk.fakegms.tasks;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A Task that is completed by calling {@link #succeed(Object)}, {@link #fail(Exception)} or
+ * {@link #cancel()}.
+ * <p>
+ * The state is a single reference that is only changed by compare-and-set: while the Task is
+ * running, it is the stack of completions (see {@link Completion}) that have been added, once
+ * the Task is complete, it is its {@link Outcome}. So completing a Task and adding listeners
+ * never block, and querying a completed Task is a single read.
+ */
+class CompletableTask<T> extends Task<T> {
+
+    /**
+     * Called on the thread that completes the Task (or adds the completion, if the Task has
+     * been completed before). Implementations must not block, they dispatch to the executor of
+     * the listener if there is something to call.
+     */
+    interface Completion<T> {
+        void onComplete(CompletableTask<T> task);
+    }
+
+    private static final class CompletionNode<T> {
+        final Completion<T> completion;
+        @Nullable
+        final CompletionNode<T> next;
+
+        CompletionNode(Completion<T> completion, @Nullable CompletionNode<T> next) {
+            this.completion = completion;
+            this.next = next;
+        }
+    }
+
+    private static final class Outcome {
+        @Nullable
+        final Object result;
+        @Nullable
+        final Exception exception;
+        final boolean canceled;
+
+        Outcome(@Nullable Object result, @Nullable Exception exception, boolean canceled) {
+            this.result = result;
+            this.exception = exception;
+            this.canceled = canceled;
+        }
+    }
+
+    private static final Outcome CANCELED = new Outcome(null, null, true);
+
+    /**
+     * The state of a running Task that has no completions yet
+     */
+    private static final Object RUNNING = new Object();
+
+    /**
+     * RUNNING, a CompletionNode or an Outcome
+     */
+    private final AtomicReference<Object> state = new AtomicReference<>(RUNNING);
+
+    /**
+     * @return false if the Task has already been completed
+     */
+    boolean succeed(@Nullable T result) {
+        return complete(new Outcome(result, null, false));
+    }
+
+    /**
+     * @return false if the Task has already been completed
+     */
+    boolean fail(@NonNull Exception exception) {
+        return complete(new Outcome(null, exception, false));
+    }
+
+    /**
+     * @return false if the Task has already been completed
+     */
+    boolean cancel() {
+        return complete(CANCELED);
+    }
+
+    /**
+     * Completes this Task like the given completed one.
+     */
+    void completeFrom(Task<T> task) {
+        if (task.isSuccessful()) {
+            succeed(task.getResult());
+        } else if (task.isCanceled()) {
+            cancel();
+        } else {
+            Exception exception = task.getException();
+            fail(exception != null ? exception : new IllegalStateException("Task did not complete"));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean complete(Outcome outcome) {
+        Object current;
+        do {
+            current = state.get();
+            if (current instanceof Outcome) {
+                return false;
+            }
+        } while (!state.compareAndSet(current, outcome));
+
+        if (current == RUNNING) {
+            return true;
+        }
+        // The completions have been pushed onto the stack, so they are called in reverse order
+        // to call them in the order in which they were added:
+        CompletionNode<T> reversed = null;
+        for (CompletionNode<T> node = (CompletionNode<T>) current; node != null; node = node.next) {
+            reversed = new CompletionNode<>(node.completion, reversed);
+        }
+        for (CompletionNode<T> node = reversed; node != null; node = node.next) {
+            node.completion.onComplete(this);
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    void addCompletion(Completion<T> completion) {
+        while (true) {
+            Object current = state.get();
+            if (current instanceof Outcome) {
+                completion.onComplete(this);
+                return;
+            }
+            CompletionNode<T> next = current == RUNNING ? null : (CompletionNode<T>) current;
+            if (state.compareAndSet(current, new CompletionNode<>(completion, next))) {
+                return;
+            }
+        }
+    }
+
+    @Nullable
+    private Outcome getOutcome() {
+        Object current = state.get();
+        return current instanceof Outcome ? (Outcome) current : null;
+    }
+
+    @Override
+    public boolean isComplete() {
+        return getOutcome() != null;
+    }
+
+    @Override
+    public boolean isSuccessful() {
+        Outcome outcome = getOutcome();
+        return outcome != null && outcome.exception == null && !outcome.canceled;
+    }
+
+    @Override
+    public boolean isCanceled() {
+        Outcome outcome = getOutcome();
+        return outcome != null && outcome.canceled;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T getResult() {
+        Outcome outcome = getOutcome();
+        if (outcome == null) {
+            throw new IllegalStateException("Can't get result before completion.");
+        }
+        if (outcome.canceled) {
+            throw new CancellationException("Task has been canceled.");
+        }
+        if (outcome.exception != null) {
+            throw new RuntimeExecutionException(outcome.exception);
+        }
+        return (T) outcome.result;
+    }
+
+    @Nullable
+    @Override
+    public Exception getException() {
+        Outcome outcome = getOutcome();
+        return outcome != null ? outcome.exception : null;
+    }
+
+    @NonNull
+    @Override
+    public Task<T> addOnSuccessListener(Executor executor, OnSuccessListener<? super T> listener) {
+        addCompletion(task -> {
+            if (task.isSuccessful()) {
+                T result = task.getResult();
+                executor.execute(() -> listener.onSuccess(result));
+            }
+        });
+        return this;
+    }
+
+    @NonNull
+    @Override
+    public Task<T> addOnFailureListener(Executor executor, OnFailureListener listener) {
+        addCompletion(task -> {
+            Exception exception = task.getException();
+            if (exception != null) {
+                executor.execute(() -> listener.onFailure(exception));
+            }
+        });
+        return this;
+    }
+
+    @NonNull
+    @Override
+    public Task<T> addOnCompleteListener(Executor executor, OnCompleteListener<T> listener) {
+        addCompletion(task -> executor.execute(() -> listener.onComplete(task)));
+        return this;
+    }
+
+    @NonNull
+    @Override
+    public <R> Task<R> continueWith(Executor executor, Continuation<T, R> continuation) {
+        CompletableTask<R> next = new CompletableTask<>();
+        addCompletion(task -> executor.execute(() -> {
+            try {
+                next.succeed(continuation.then(task));
+            } catch (Exception e) {
+                next.fail(e);
+            }
+        }));
+        return next;
+    }
+
+    @NonNull
+    @Override
+    public <R> Task<R> onSuccessTask(Executor executor, SuccessContinuation<T, R> continuation) {
+        CompletableTask<R> next = new CompletableTask<>();
+        addCompletion(task -> {
+            if (task.isCanceled()) {
+                // No need to call the executor, the continuation is not called anyway:
+                next.cancel();
+                return;
+            }
+            Exception exception = task.getException();
+            if (exception != null) {
+                next.fail(exception);
+                return;
+            }
+            T result = task.getResult();
+            executor.execute(() -> {
+                try {
+                    Task<R> continuationTask = continuation.then(result);
+                    if (continuationTask == null) {
+                        throw new NullPointerException("Continuation returned null");
+                    }
+                    continuationTask.addOnCompleteListener(TaskExecutors.DIRECT, next::completeFrom);
+                } catch (Exception e) {
+                    next.fail(e);
+                }
+            });
+        });
+        return next;
+    }
+}
@@ -0,0 +1,9 @@
+package org.coralibre.android.sdk.fakegms.tasks;
+
+/**
+ * Computes the result of a Task from a completed Task, see {@link Task#continueWith(Continuation)}.
+ */
+public interface Continuation<TResult, TContinuationResult> {
+
+    TContinuationResult then(Task<TResult> task) throws Exception;
+}
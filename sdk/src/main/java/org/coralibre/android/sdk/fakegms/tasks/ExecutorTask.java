@@ -1,165 +1,37 @@
 package org.coralibre.android.sdk.fakegms.tasks;
 
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
 
-import java.util.LinkedList;
-import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.Executor;
-import java.util.concurrent.FutureTask;
 
-final class ExecutorTask<T> extends Task<T> {
-
-    private final FutureTask<T> task;
-    /**
-     * Contains all listeners to be called on success. Access should be synchronized by using the
-     * ExecutorTask object as a lock.
-     */
-    private final List<OnSuccessListener<? super T>> successListeners;
-    /**
-     * Contains all listeners to be called on failure. Access should be synchronized by using the
-     * ExecutorTask object as a lock.
-     */
-    private final List<OnFailureListener> failureListeners;
+/**
+ * A task that runs a callable on an executor.
+ */
+final class ExecutorTask<T> extends CompletableTask<T> {
 
     ExecutorTask(@NonNull Executor executor, @NonNull Callable<T> callable) {
-        this.task = execute(executor, callable);
-        this.successListeners = new LinkedList<>();
-        this.failureListeners = new LinkedList<>();
-    }
-
-    @NonNull
-    private FutureTask<T> execute(Executor executor, Callable<T> callable) {
-        FutureTask<T> result = new FutureTask<>(callable);
-        executor.execute(new ListenerInvoker(result));
-        return result;
-    }
-
-    @NonNull
-    @Override
-    public Task<T> addOnSuccessListener(OnSuccessListener<? super T> listener) {
-        synchronized (this) {
-            if (isSuccessful()) {
-                // Call listener immediately, no need to add it to the list
-                TaskExecutors.MAIN_THREAD.execute(() -> listener.onSuccess(getResult()));
-            } else if (!isComplete()) {
-                successListeners.add(listener);
-            }
-        }
-        return this;
-    }
-
-    @NonNull
-    @Override
-    public Task<T> addOnFailureListener(OnFailureListener listener) {
-        synchronized (this) {
-            if (!isComplete()) {
-                failureListeners.add(listener);
-            } else if (!isSuccessful()) {
-                // Call listener immediately, no need to add it to the list
-                TaskExecutors.MAIN_THREAD.execute(() -> listener.onFailure(getException()));
-            }
-        }
-
-        return this;
-    }
-
-    private T getResult() {
-        if (!isComplete()) throw new IllegalStateException("Can't get result before completion.");
-        try {
-            return task.get();
-        } catch (InterruptedException e) {
-            // Can't happen because the task is done
-            throw new IllegalStateException(e);
-        } catch (ExecutionException e) {
-            throw new RuntimeExecutionException(e.getCause());
-        }
-    }
-
-    private <E extends Throwable> T getResult(Class<E> exceptionClass) throws E {
-        if (!isComplete()) throw new IllegalStateException("Can't get result before completion.");
-        try {
-            return task.get();
-        } catch (InterruptedException e) {
-            // Can't happen because the task is done
-            throw new IllegalStateException(e);
-        } catch (ExecutionException e) {
-            Throwable cause = e.getCause();
-            if (exceptionClass.isInstance(cause)) {
-                E error = exceptionClass.cast(cause);
-                assert error != null;
-                throw error;
-            } else {
-                throw new RuntimeExecutionException(cause);
-            }
-        }
+        executor.execute(() -> run(callable));
     }
 
-    @Nullable
-    private Exception getException() {
-        if (!isComplete()) {
-            return null;
-        }
+    private void run(Callable<T> callable) {
+        T result;
         try {
-            task.get();
-        } catch (InterruptedException e) {
-            // Can't happen because the task is done
-        } catch (ExecutionException e) {
-            Throwable cause = e.getCause();
-            if (cause instanceof Exception) {
-                return (Exception) cause;
-            } else {
-                return new Exception(cause);
-            }
-        }
-
-        return null;
-    }
-
-    @Override
-    public boolean isComplete() {
-        return task.isDone();
-    }
-
-    @Override
-    public boolean isSuccessful() {
-        return isComplete() && getException() == null;
-    }
-
-    private void invokeListeners() {
-        Executor mainExecutor = TaskExecutors.MAIN_THREAD;
-        synchronized (this) {
-            if (isSuccessful()) {
-                T result = getResult();
-                for (OnSuccessListener<? super T> listener : successListeners) {
-                    mainExecutor.execute(() -> listener.onSuccess(result));
-                }
-                // The listeners won't be called again, so we can clear the list.
-                successListeners.clear();
-            } else {
-                Exception exception = getException();
-                for (OnFailureListener listener : failureListeners) {
-                    mainExecutor.execute(() -> listener.onFailure(exception));
-                }
-                // The listeners won't be called again, so we can clear the list.
-                failureListeners.clear();
-            }
-        }
-    }
-
-    private class ListenerInvoker implements Runnable {
-        private final Runnable delegate;
-
-        private ListenerInvoker(Runnable delegate) {
-            this.delegate = delegate;
-        }
-
-        @Override
-        public void run() {
-            delegate.run();
-            invokeListeners();
-        }
+            result = callable.call();
+        } catch (CancellationException e) {
+            // The callable stopped because a CancellationToken requested it:
+            cancel();
+            return;
+        } catch (Exception e) {
+            fail(e);
+            return;
+        } catch (Throwable t) {
+            // Like a FutureTask, errors are reported to the listeners instead of being thrown
+            // on the executor:
+            fail(new Exception(t));
+            return;
+        }
+        succeed(result);
     }
 }
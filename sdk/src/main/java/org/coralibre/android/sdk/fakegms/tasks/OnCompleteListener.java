@@ -0,0 +1,6 @@
+package org.coralibre.android.sdk.fakegms.tasks;
+
+public interface OnCompleteListener<T> {
+
+    void onComplete(Task<T> task);
+}
@@ -0,0 +1,10 @@
+package org.coralibre.android.sdk.fakegms.tasks;
+
+/**
+ * Starts a Task with the result of a successful Task, see
+ * {@link Task#onSuccessTask(SuccessContinuation)}.
+ */
+public interface SuccessContinuation<TResult, TContinuationResult> {
+
+    Task<TContinuationResult> then(TResult result) throws Exception;
+}
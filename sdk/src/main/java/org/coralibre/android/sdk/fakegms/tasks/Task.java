@@ -1,11 +1,15 @@
 package org.coralibre.android.sdk.fakegms.tasks;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.Executor;
 
 /**
  * Represents an asynchronous operation.
  * <p>
- * Minimal Task class providing interfaces currently required by the RKI app.
+ * Minimal Task class providing interfaces currently required by the RKI app, and the
+ * continuations used to chain tasks without blocking a thread.
  */
 public abstract class Task<T> {
     /**
@@ -20,6 +24,28 @@ public abstract class Task<T> {
      */
     public abstract boolean isSuccessful();
 
+    /**
+     * Returns true if the Task has been canceled, e.g. by a {@link CancellationToken} that has
+     * been passed to the operation. A canceled Task is neither successful nor failed.
+     */
+    public abstract boolean isCanceled();
+
+    /**
+     * Gets the result of the Task, if it has already completed.
+     *
+     * @throws IllegalStateException     if the Task is not yet complete
+     * @throws java.util.concurrent.CancellationException if the Task has been canceled
+     * @throws RuntimeExecutionException if the Task failed with an exception
+     */
+    public abstract T getResult();
+
+    /**
+     * Returns the exception that caused the Task to fail. Returns null if the Task is not yet
+     * complete, completed successfully or has been canceled.
+     */
+    @Nullable
+    public abstract Exception getException();
+
     /**
      * Adds a listener that is called if the Task completes successfully.
      * <p>
@@ -31,7 +57,19 @@ public abstract class Task<T> {
      * @return this Task
      */
     @NonNull
-    public abstract Task<T> addOnSuccessListener(OnSuccessListener<? super T> listener);
+    public Task<T> addOnSuccessListener(OnSuccessListener<? super T> listener) {
+        return addOnSuccessListener(TaskExecutors.MAIN_THREAD, listener);
+    }
+
+    /**
+     * Like {@link #addOnSuccessListener(OnSuccessListener)}, but the listener is called on the
+     * given executor.
+     *
+     * @return this Task
+     */
+    @NonNull
+    public abstract Task<T> addOnSuccessListener(Executor executor,
+                                                 OnSuccessListener<? super T> listener);
 
     /**
      * Adds a listener that is called if the Task fails.
@@ -46,5 +84,72 @@ public abstract class Task<T> {
      * @return this Task
      */
     @NonNull
-    public abstract Task<T> addOnFailureListener(OnFailureListener listener);
+    public Task<T> addOnFailureListener(OnFailureListener listener) {
+        return addOnFailureListener(TaskExecutors.MAIN_THREAD, listener);
+    }
+
+    /**
+     * Like {@link #addOnFailureListener(OnFailureListener)}, but the listener is called on the
+     * given executor.
+     *
+     * @return this Task
+     */
+    @NonNull
+    public abstract Task<T> addOnFailureListener(Executor executor, OnFailureListener listener);
+
+    /**
+     * Adds a listener that is called when the Task completes, successfully or not. Like the
+     * other listeners, it is called on the main application thread.
+     *
+     * @return this Task
+     */
+    @NonNull
+    public Task<T> addOnCompleteListener(OnCompleteListener<T> listener) {
+        return addOnCompleteListener(TaskExecutors.MAIN_THREAD, listener);
+    }
+
+    /**
+     * Like {@link #addOnCompleteListener(OnCompleteListener)}, but the listener is called on the
+     * given executor.
+     *
+     * @return this Task
+     */
+    @NonNull
+    public abstract Task<T> addOnCompleteListener(Executor executor, OnCompleteListener<T> listener);
+
+    /**
+     * Returns a Task with the result of the continuation, which is called on the main
+     * application thread when this Task completes. If the continuation throws, the returned
+     * Task fails with that exception.
+     */
+    @NonNull
+    public <R> Task<R> continueWith(Continuation<T, R> continuation) {
+        return continueWith(TaskExecutors.MAIN_THREAD, continuation);
+    }
+
+    /**
+     * Like {@link #continueWith(Continuation)}, but the continuation is called on the given
+     * executor. With {@link TaskExecutors#DIRECT}, it is called on the thread that completes this
+     * Task.
+     */
+    @NonNull
+    public abstract <R> Task<R> continueWith(Executor executor, Continuation<T, R> continuation);
+
+    /**
+     * Returns a Task that completes like the Task started by the continuation. The continuation
+     * is called on the main application thread, and only if this Task completes successfully.
+     * Otherwise, the returned Task fails with the exception of this Task, or is canceled.
+     */
+    @NonNull
+    public <R> Task<R> onSuccessTask(SuccessContinuation<T, R> continuation) {
+        return onSuccessTask(TaskExecutors.MAIN_THREAD, continuation);
+    }
+
+    /**
+     * Like {@link #onSuccessTask(SuccessContinuation)}, but the continuation is called on the
+     * given executor.
+     */
+    @NonNull
+    public abstract <R> Task<R> onSuccessTask(Executor executor,
+                                              SuccessContinuation<T, R> continuation);
 }
@@ -6,14 +6,63 @@ import android.os.Looper;
 import androidx.annotation.NonNull;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public final class TaskExecutors {
     private TaskExecutors() {
     }
 
+    /**
+     * Runs on the main thread. Listeners and continuations are called here, unless another
+     * executor is given.
+     */
     public static final Executor MAIN_THREAD = new MainTaskExecutor();
 
+    /**
+     * Runs on the thread that calls execute(...), e.g. the thread that completes a task. Only
+     * for listeners and continuations that return quickly and do not block.
+     */
+    public static final Executor DIRECT = Runnable::run;
+
+    /**
+     * For callables that block, e.g. on file or database access or on other tasks.
+     */
+    public static final Executor IO = newPool("en-io", 4);
+
+    /**
+     * For callables that keep the cpu busy and do not block. It has a thread per cpu core, so
+     * a callable waiting on it would take a core away from the others.
+     */
+    public static final Executor COMPUTE =
+        newPool("en-compute", Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Idle threads are stopped after a while, so the pools do not take resources while the
+     * app does not use the API. The threads are daemon threads, so they never keep the process
+     * alive.
+     */
+    private static Executor newPool(String name, int threadCount) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            threadCount, threadCount,
+            30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            threadFactory
+        );
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
     private static final class MainTaskExecutor implements Executor {
         private final Handler handler;
 
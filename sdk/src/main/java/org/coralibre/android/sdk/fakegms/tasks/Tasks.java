@@ -2,8 +2,13 @@ package org.coralibre.android.sdk.fakegms.tasks;
 
 import androidx.annotation.NonNull;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public final class Tasks {
     private Tasks() {
@@ -17,13 +22,66 @@ public final class Tasks {
         return new ResultTask<>(result);
     }
 
+    /**
+     * Like the original API, this runs the callable on the main thread. Callables that block
+     * should be run with {@link #call(Executor, Callable)} on {@link TaskExecutors#IO} instead.
+     */
     @NonNull
     public static <T> Task<T> call(@NonNull Callable<T> callable) {
         return call(TaskExecutors.MAIN_THREAD, callable);
     }
 
+    /**
+     * Runs the callable on the given executor. Regardless of the executor, the listeners of the
+     * returned task are called on the main thread.
+     */
     @NonNull
     public static <T> Task<T> call(@NonNull Executor executor, @NonNull Callable<T> callable) {
         return new ExecutorTask<>(executor, callable);
     }
+
+    /**
+     * Returns a Task that completes when all of the given tasks have completed. It fails with
+     * the exception of the first of the given tasks that failed, if any. Otherwise, it is
+     * canceled if any of the tasks has been canceled.
+     */
+    @NonNull
+    public static Task<Void> whenAll(@NonNull Task<?>... tasks) {
+        return whenAll(Arrays.asList(tasks));
+    }
+
+    /**
+     * @see #whenAll(Task[])
+     */
+    @NonNull
+    public static Task<Void> whenAll(@NonNull Collection<? extends Task<?>> tasks) {
+        if (tasks.isEmpty()) {
+            return forResult(null);
+        }
+        List<Task<?>> allTasks = new ArrayList<>(tasks);
+        CompletableTask<Void> result = new CompletableTask<>();
+        AtomicInteger remaining = new AtomicInteger(allTasks.size());
+        for (Task<?> task : allTasks) {
+            task.addOnCompleteListener(TaskExecutors.DIRECT, completed -> {
+                if (remaining.decrementAndGet() > 0) {
+                    return;
+                }
+                boolean canceled = false;
+                for (Task<?> t : allTasks) {
+                    Exception exception = t.getException();
+                    if (exception != null) {
+                        result.fail(exception);
+                        return;
+                    }
+                    canceled |= t.isCanceled();
+                }
+                if (canceled) {
+                    result.cancel();
+                } else {
+                    result.succeed(null);
+                }
+            });
+        }
+        return result;
+    }
 }
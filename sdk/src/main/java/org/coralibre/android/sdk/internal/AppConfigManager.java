@@ -12,10 +12,14 @@ package org.coralibre.android.sdk.internal;
 import android.content.Context;
 import android.content.SharedPreferences;
 
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.DiagnosisKeysDataMapping;
 import org.coralibre.android.sdk.internal.bluetooth.BluetoothScanMode;
 import org.coralibre.android.sdk.internal.bluetooth.old.BluetoothAdvertiseMode;
 import org.coralibre.android.sdk.internal.bluetooth.old.BluetoothTxPowerLevel;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class AppConfigManager {
 
 	private static AppConfigManager instance;
@@ -44,6 +48,7 @@ public class AppConfigManager {
 	private static final String PREF_BLUETOOTH_SCAN_MODE = "scanMode";
 	private static final String PREF_ADVERTISEMENT_POWER_LEVEL = "advertisementPowerLevel";
 	private static final String PREF_ADVERTISEMENT_MODE = "advertisementMode";
+	private static final String PREF_DIAGNOSIS_KEYS_DATA_MAPPING = "diagnosisKeysDataMapping";
 
 	private SharedPreferences sharedPrefs;
 
@@ -124,6 +129,46 @@ public class AppConfigManager {
 				.getInt(PREF_ADVERTISEMENT_MODE, DEFAULT_BLUETOOTH_ADVERTISE_MODE.ordinal())];
 	}
 
+	/**
+	 * Stored as "reportTypeWhenMissing;infectiousnessWhenDaysSinceOnsetMissing;" followed by the
+	 * infectiousness of each days since onset, from MIN_DAYS_SINCE_ONSET, separated by ','.
+	 */
+	public void setDiagnosisKeysDataMapping(DiagnosisKeysDataMapping mapping) {
+		StringBuilder value = new StringBuilder()
+				.append(mapping.getReportTypeWhenMissing()).append(';')
+				.append(mapping.getInfectiousnessWhenDaysSinceOnsetMissing()).append(';');
+		for (int days = DiagnosisKeysDataMapping.MIN_DAYS_SINCE_ONSET;
+				days <= DiagnosisKeysDataMapping.MAX_DAYS_SINCE_ONSET; days++) {
+			if (days > DiagnosisKeysDataMapping.MIN_DAYS_SINCE_ONSET) {
+				value.append(',');
+			}
+			value.append(mapping.getInfectiousness(days));
+		}
+		sharedPrefs.edit().putString(PREF_DIAGNOSIS_KEYS_DATA_MAPPING, value.toString()).apply();
+	}
+
+	/**
+	 * @return the mapping that has been set last, or {@code null} if none has been set yet
+	 */
+	public DiagnosisKeysDataMapping getDiagnosisKeysDataMapping() {
+		String value = sharedPrefs.getString(PREF_DIAGNOSIS_KEYS_DATA_MAPPING, null);
+		if (value == null) {
+			return null;
+		}
+		String[] parts = value.split(";");
+		String[] infectiousness = parts[2].split(",");
+		Map<Integer, Integer> daysSinceOnsetToInfectiousness = new HashMap<>();
+		for (int i = 0; i < infectiousness.length; i++) {
+			daysSinceOnsetToInfectiousness.put(i + DiagnosisKeysDataMapping.MIN_DAYS_SINCE_ONSET,
+					Integer.parseInt(infectiousness[i]));
+		}
+		return new DiagnosisKeysDataMapping.DiagnosisKeysDataMappingBuilder()
+				.setReportTypeWhenMissing(Integer.parseInt(parts[0]))
+				.setInfectiousnessWhenDaysSinceOnsetMissing(Integer.parseInt(parts[1]))
+				.setDaysSinceOnsetToInfectiousness(daysSinceOnsetToInfectiousness)
+				.build();
+	}
+
 
 	public void clearPreferences() {
 		sharedPrefs.edit().clear().apply();
@@ -12,6 +12,7 @@ package org.coralibre.android.sdk.internal
 import android.content.Context
 import android.content.Intent
 import org.coralibre.android.sdk.PPCP
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureNotificationClient
 
 object BroadcastHelper {
     const val ACTION_UPDATE_ERRORS = "org.coralibre.android.sdk.internal.ACTION_UPDATE_ERRORS"
@@ -27,4 +28,15 @@ object BroadcastHelper {
         val intent = Intent(ACTION_UPDATE_ERRORS)
         context.sendBroadcast(intent)
     }
+
+    /**
+     * Sent when the exposure data of a token has changed without a provideDiagnosisKeys(...)
+     * call, e.g. by SightingReevaluation.
+     */
+    @JvmStatic
+    fun sendExposureStateUpdatedBroadcast(context: Context, token: String) {
+        val intent = Intent(ExposureNotificationClient.ACTION_EXPOSURE_STATE_UPDATED)
+        intent.putExtra(ExposureNotificationClient.EXTRA_TOKEN, token)
+        context.sendOrderedBroadcast(intent, null)
+    }
 }
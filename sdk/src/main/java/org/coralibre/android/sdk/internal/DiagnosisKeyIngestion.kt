@@ -0,0 +1,365 @@
+package org.coralibre.android.sdk.internal
+
+import android.util.Log
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.DiagnosisKeysProgressListener
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureConfiguration
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureSummary
+import org.coralibre.android.sdk.internal.database.Database
+import org.coralibre.android.sdk.internal.database.TokenMatchingState
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey
+import org.coralibre.android.sdk.internal.datatypes.ENInterval
+import org.coralibre.android.sdk.internal.datatypes.util.DiagnosisKeyFileReader
+import org.coralibre.android.sdk.internal.datatypes.util.ENIntervalUtil
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceInfo
+import org.coralibre.android.sdk.internal.matching.AllExposureInfo
+import org.coralibre.android.sdk.internal.matching.CapturedDataIndex
+import org.coralibre.android.sdk.internal.matching.ExposureInfoAssembler
+import org.coralibre.android.sdk.internal.matching.ParallelMatcher
+import org.coralibre.android.sdk.internal.matching.RpiBloomFilter
+import org.coralibre.android.sdk.internal.matching.RpiMatcher
+import org.coralibre.android.sdk.internal.util.CancellationCheck
+import org.coralibre.android.sdk.internal.util.Tracing
+import java.io.File
+import java.nio.ByteBuffer
+import java.util.ArrayList
+import java.util.HashSet
+import java.util.concurrent.CancellationException
+
+/**
+ * Reads the diagnosis keys of a set of key files, stores them for a token and computes the
+ * exposure data of the token.
+ *
+ * In the default PERSIST_MATCHED mode, every batch of keys is matched while it is streamed, and
+ * only keys that match at least one sighting are written to the database. Keys whose rolling
+ * period has not ended yet are written as pending keys, since they might still match payloads
+ * that are captured later on (see SightingReevaluation). The token itself is always registered,
+ * so that the token is known to the db even if none of its keys matched.
+ *
+ * Matching is done in two steps: the Bloom filter over all captured rpis rejects almost all keys
+ * without touching the captured payloads. Only for the few remaining candidate keys, the
+ * sightings of the candidate rpis are looked up in the db, and the keys are matched exactly.
+ *
+ * If further keys are provided for a token whose exposure data is up-to-date, only the new keys
+ * are matched, and the stored exposure data is extended by their results. Otherwise (e.g. after
+ * the exposure configuration has changed or sightings have been truncated), the exposure data is
+ * computed from all keys stored for the token.
+ *
+ * PERSIST_ALL keeps the previous behaviour of storing every key before matching. In this mode,
+ * the exposure data is always computed from all keys.
+ *
+ * The given CancellationCheck is checked between batches of keys (and chunks of the matching).
+ * If it requests cancellation, a CancellationException is thrown. The keys stored up to then are
+ * kept, but the exposure data of the token stays outdated, so the next call recomputes it.
+ */
+class DiagnosisKeyIngestion @JvmOverloads constructor(
+    private val database: Database,
+    private val matcher: ParallelMatcher,
+    private val mode: Mode = Mode.PERSIST_MATCHED,
+    private val reader: DiagnosisKeyFileReader = DiagnosisKeyFileReader()
+) {
+    enum class Mode {
+        /**
+         * Every key read from the key files is stored.
+         */
+        PERSIST_ALL,
+
+        /**
+         * Only keys with at least one matching sighting are stored, and keys whose rolling
+         * period has not ended yet until it has.
+         */
+        PERSIST_MATCHED
+    }
+
+    /**
+     * Reads all key files, stores their keys for the given token and stores the resulting
+     * exposure data for the token. Files that cannot be parsed are logged and skipped.
+     * @param progress called on the calling thread after every batch of keys and at the end.
+     * Its matchesFound only counts the matching keys of the given files, not the ones of previous
+     * calls; in PERSIST_ALL mode, it stays 0, since the keys are only matched after reading.
+     * @return true, if the keys stored for the token (including the ones of previous calls)
+     * match at least one sighting
+     * @throws CancellationException if 'cancellation' requests it
+     */
+    @JvmOverloads
+    fun provideDiagnosisKeys(
+        keyFiles: List<File>,
+        token: String,
+        exposureConfiguration: ExposureConfiguration,
+        ownDeviceInfo: DeviceInfo,
+        cancellation: CancellationCheck = CancellationCheck.NEVER,
+        progress: DiagnosisKeysProgressListener? = null
+    ): Boolean = synchronized(matchingLock) {
+        Tracing.section(Tracing.PROVIDE_DIAGNOSIS_KEYS) {
+            provideDiagnosisKeysLocked(
+                keyFiles,
+                token,
+                exposureConfiguration,
+                ownDeviceInfo,
+                cancellation,
+                progress
+            )
+        }
+    }
+
+    private fun provideDiagnosisKeysLocked(
+        keyFiles: List<File>,
+        token: String,
+        exposureConfiguration: ExposureConfiguration,
+        ownDeviceInfo: DeviceInfo,
+        cancellation: CancellationCheck,
+        progress: DiagnosisKeysProgressListener?
+    ): Boolean {
+        // A newer call might have been waiting for the lock while this one was canceled:
+        CancellationCheck.throwIfRequested(cancellation)
+        // Payloads that are collected while matching might not be regarded, so only the ones
+        // collected before count as evaluated:
+        val payloadKey = database.lastCollectedPayloadKey
+        val filter = database.capturedRPIFilter
+        val previousState = database.getMatchingState(token)
+        var incremental = mode == Mode.PERSIST_MATCHED &&
+            previousState != null &&
+            previousState.exposureDataUpToDate &&
+            previousState.exposureConfiguration == exposureConfiguration
+        // The previous exposure data is only merged with the new one if it is up-to-date:
+        val previousSummary = if (incremental) database.getExposureSummary(token) else null
+
+        // In PERSIST_MATCHED mode, only the few keys that matched are stored for the token, so
+        // they can be kept in memory to skip keys that are provided again:
+        val storedKeys = HashSet<ByteBuffer>()
+        if (mode == Mode.PERSIST_MATCHED && previousState != null) {
+            for (diagnosisKey in database.getDiagnosisKeys(token)) {
+                storedKeys.add(ByteBuffer.wrap(diagnosisKey.keyData))
+            }
+        }
+        val addedKeys: MutableList<DiagnosisKey> = ArrayList()
+        val firstPendingInterval = firstPendingInterval(ENIntervalUtil.currentInterval).get()
+        var evaluatedKeyCount = previousState?.evaluatedKeyCount ?: 0L
+        var bytesReadOfPreviousFiles = 0L
+        var keysProcessed = 0L
+        var matchesFound = 0L
+
+        // Registers the token and marks its exposure data as outdated:
+        database.addDiagnosisKeys(token, emptyList())
+
+        for (file in keyFiles) {
+            try {
+                reader.readKeyFile(
+                    file,
+                    { diagnosisKeys, revised ->
+                        evaluatedKeyCount += diagnosisKeys.size
+                        keysProcessed += diagnosisKeys.size
+                        var pendingKeys: List<DiagnosisKey> = emptyList()
+                        val keysToStore = when (mode) {
+                            Mode.PERSIST_ALL -> diagnosisKeys
+                            Mode.PERSIST_MATCHED -> {
+                                val matchingKeys = filterMatchingKeys(
+                                    database,
+                                    matcher,
+                                    diagnosisKeys,
+                                    filter,
+                                    cancellation
+                                )
+                                matchesFound += matchingKeys.size
+                                // They have no exposure data yet, so they are not added:
+                                pendingKeys = diagnosisKeys.filter {
+                                    it.interval.get() >= firstPendingInterval &&
+                                        it !in matchingKeys &&
+                                        (storedKeys.add(ByteBuffer.wrap(it.keyData)) || revised)
+                                }
+                                matchingKeys.filter {
+                                    if (storedKeys.add(ByteBuffer.wrap(it.keyData))) {
+                                        addedKeys.add(it)
+                                        true
+                                    } else {
+                                        // A revised key replaces a key that has already been
+                                        // matched, so its previous results cannot be kept:
+                                        if (revised) {
+                                            incremental = false
+                                        }
+                                        revised
+                                    }
+                                }
+                            }
+                        }
+                        // Revised keys replace the stored keys with the same key data, so they
+                        // have to be stored after the keys they revise. The keys of a file come
+                        // before its revised keys (the fields are written in the order of their
+                        // numbers), and revised keys only refer to keys of the same or earlier
+                        // files. A revised key without a stored original is simply added.
+                        if (keysToStore.isNotEmpty()) {
+                            Tracing.section(Tracing.PERSIST) {
+                                if (revised) {
+                                    database.updateDiagnosisKeys(token, keysToStore)
+                                } else {
+                                    database.addDiagnosisKeys(token, keysToStore)
+                                }
+                            }
+                        }
+                        if (pendingKeys.isNotEmpty()) {
+                            Tracing.section(Tracing.PERSIST) {
+                                database.addPendingDiagnosisKeys(token, pendingKeys)
+                            }
+                        }
+                    },
+                    cancellation
+                ) { fileBytesRead ->
+                    progress?.onProgress(
+                        bytesReadOfPreviousFiles + fileBytesRead,
+                        keysProcessed,
+                        matchesFound
+                    )
+                }
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                Log.e(TAG, "Failed to parse diagnosis key file", e)
+            }
+            bytesReadOfPreviousFiles += file.length()
+        }
+
+        val exposureSummary: ExposureSummary
+        if (incremental) {
+            val addedInfo = assembleExposureInfo(
+                database,
+                matcher,
+                addedKeys,
+                filter,
+                exposureConfiguration,
+                ownDeviceInfo,
+                cancellation
+            )
+            exposureSummary = Tracing.section(Tracing.ASSEMBLE) {
+                ExposureInfoAssembler.mergeExposureSummary(previousSummary!!, addedInfo)
+            }
+            // The previous keys have only been matched against the payloads up to the previous
+            // key, so the payloads after it still have to be evaluated (see SightingReevaluation):
+            Tracing.section(Tracing.PERSIST) {
+                database.appendExposureMatchingResults(
+                    token,
+                    addedInfo.exposureInformationList,
+                    exposureSummary,
+                    TokenMatchingState(
+                        evaluatedKeyCount,
+                        minOf(previousState!!.evaluatedPayloadKey, payloadKey),
+                        exposureConfiguration
+                    )
+                )
+            }
+        } else {
+            // The keys stored for the token are matched again, since sightings might have been
+            // truncated since they have been stored by a previous call.
+            val allInfo = assembleExposureInfo(
+                database,
+                matcher,
+                database.getDiagnosisKeys(token),
+                filter,
+                exposureConfiguration,
+                ownDeviceInfo,
+                cancellation
+            )
+            exposureSummary = allInfo.exposureSummary
+            Tracing.section(Tracing.PERSIST) {
+                database.putExposureMatchingResults(
+                    token,
+                    allInfo.exposureInformationList,
+                    exposureSummary,
+                    TokenMatchingState(evaluatedKeyCount, payloadKey, exposureConfiguration)
+                )
+            }
+        }
+        progress?.onProgress(bytesReadOfPreviousFiles, keysProcessed, matchesFound)
+        return exposureSummary.matchedKeyCount > 0
+    }
+
+    companion object {
+        private val TAG = DiagnosisKeyIngestion::class.java.simpleName
+
+        /**
+         * The number of intervals after the end of its rolling period in which the rpis of a key
+         * might still be captured, since the clocks of the devices might differ.
+         */
+        internal const val PENDING_KEY_TOLERANCE_INTERVALS = 12
+
+        /**
+         * @return the earliest rolling start interval of keys whose rolling period (including
+         * the tolerance) has not ended at the given interval
+         */
+        internal fun firstPendingInterval(now: ENInterval) = ENInterval(
+            now.get() - EnFrameworkConstants.TEK_ROLLING_PERIOD -
+                PENDING_KEY_TOLERANCE_INTERVALS + 1
+        )
+
+        /**
+         * @return the given keys that match at least one captured payload
+         */
+        internal fun filterMatchingKeys(
+            database: Database,
+            matcher: ParallelMatcher,
+            diagnosisKeys: List<DiagnosisKey>,
+            filter: RpiBloomFilter,
+            cancellation: CancellationCheck = CancellationCheck.NEVER
+        ): List<DiagnosisKey> {
+            val candidateKeys = Tracing.section(Tracing.DERIVE) {
+                matcher.filterCandidateKeys(diagnosisKeys, filter, cancellation)
+            }
+            if (candidateKeys.isEmpty()) {
+                return candidateKeys
+            }
+            val index = loadSightings(database, candidateKeys, filter)
+            return Tracing.section(Tracing.MATCH) {
+                matcher.filterMatchingKeys(candidateKeys, index, cancellation)
+            }
+        }
+
+        /**
+         * Held while the exposure data of a token is computed, so that concurrent computations
+         * (e.g. by SightingReevaluation) do not overwrite each other's results.
+         */
+        internal val matchingLock = Any()
+
+        /**
+         * Matches the given keys against the captured payloads and computes their exposure data.
+         */
+        internal fun assembleExposureInfo(
+            database: Database,
+            matcher: ParallelMatcher,
+            diagnosisKeys: List<DiagnosisKey>,
+            filter: RpiBloomFilter,
+            exposureConfiguration: ExposureConfiguration,
+            ownDeviceInfo: DeviceInfo,
+            cancellation: CancellationCheck = CancellationCheck.NEVER
+        ): AllExposureInfo {
+            val candidateKeys = Tracing.section(Tracing.DERIVE) {
+                matcher.filterCandidateKeys(diagnosisKeys, filter, cancellation)
+            }
+            val index = loadSightings(database, candidateKeys, filter)
+            val matches = Tracing.section(Tracing.MATCH) {
+                matcher.findAllMatches(candidateKeys, index, cancellation)
+            }
+            return Tracing.section(Tracing.ASSEMBLE) {
+                ExposureInfoAssembler.assembleAllExposureInfo(
+                    matches,
+                    exposureConfiguration,
+                    ownDeviceInfo
+                )
+            }
+        }
+
+        /**
+         * Indexes the sightings of the candidate rpis of the given keys. Deriving the rpis is
+         * traced separately from reading the sightings.
+         */
+        private fun loadSightings(
+            database: Database,
+            candidateKeys: List<DiagnosisKey>,
+            filter: RpiBloomFilter
+        ): CapturedDataIndex {
+            val candidateRPIs = Tracing.section(Tracing.DERIVE) {
+                RpiMatcher.candidateRPIs(candidateKeys, filter)
+            }
+            return Tracing.section(Tracing.LOAD_SIGHTINGS) {
+                CapturedDataIndex(database.getCollectedSightingsForRPIs(candidateRPIs))
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.coralibre.android.sdk.internal
+
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.DailySummariesConfig
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.DailySummary
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureWindow
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ScanInstance
+import org.coralibre.android.sdk.internal.database.Database
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceInfo
+import org.coralibre.android.sdk.internal.matching.CapturedDataIndex
+import org.coralibre.android.sdk.internal.matching.KeyDataMapping
+import org.coralibre.android.sdk.internal.matching.ParallelMatcher
+import org.coralibre.android.sdk.internal.matching.RpiBloomFilter
+import org.coralibre.android.sdk.internal.matching.RpiMatcher
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.Window
+import java.nio.ByteBuffer
+import java.util.ArrayList
+import java.util.HashMap
+import java.util.HashSet
+import java.util.TreeMap
+
+/**
+ * Computes the exposure windows and daily summaries of the diagnosis keys of all tokens.
+ *
+ * Like DiagnosisKeyIngestion, only the sightings of the candidate rpis of the candidate keys
+ * (see RpiBloomFilter) are loaded. The matched sightings are then folded into windows and
+ * summaries while they are matched (see MatchingV2), so for the daily summaries the memory
+ * required grows with the number of days, not with the number of sightings. The report type and
+ * infectiousness of the windows of each key are mapped by a KeyDataMapping.
+ */
+class ExposureWindowEvaluation(
+    private val database: Database,
+    private val matcher: ParallelMatcher
+) {
+    fun getExposureWindows(
+        keyDataMapping: KeyDataMapping,
+        ownDeviceInfo: DeviceInfo
+    ): List<ExposureWindow> {
+        val filter = database.capturedRPIFilter
+        val candidateKeys = candidateKeys(filter)
+        val windows = matcher.findExposureWindows(
+            candidateKeys, index(candidateKeys, filter), keyDataMapping, ownDeviceInfo
+        )
+        val calibrationConfidence = ownDeviceInfo.calibrationConfidence.ordinal
+        val result: MutableList<ExposureWindow> = ArrayList(windows.size)
+        for (window in windows) {
+            result.add(toExposureWindow(window, calibrationConfidence))
+        }
+        return result
+    }
+
+    fun getDailySummaries(
+        config: DailySummariesConfig,
+        keyDataMapping: KeyDataMapping,
+        ownDeviceInfo: DeviceInfo
+    ): List<DailySummary> {
+        val filter = database.capturedRPIFilter
+        val candidateKeys = candidateKeys(filter)
+        val daySummaries = matcher.findDailySummaries(
+            candidateKeys,
+            index(candidateKeys, filter),
+            keyDataMapping,
+            config,
+            ownDeviceInfo,
+            System.currentTimeMillis()
+        )
+        // One DaySummary per day and report type:
+        val days = TreeMap<Int, MutableMap<Int, DailySummary.ExposureSummaryData>>()
+        for (daySummary in daySummaries) {
+            days.getOrPut(daySummary.daysSinceEpoch) { HashMap() }[daySummary.reportType] =
+                DailySummary.ExposureSummaryData(
+                    daySummary.maximumScore,
+                    daySummary.scoreSum,
+                    daySummary.weightedDurationSum
+                )
+        }
+        val result: MutableList<DailySummary> = ArrayList(days.size)
+        for ((daysSinceEpoch, reportTypeSummaries) in days) {
+            result.add(DailySummary(daysSinceEpoch, reportTypeSummaries))
+        }
+        return result
+    }
+
+    /**
+     * @return the keys of all tokens that might have matches, each key only once, even if it
+     * has been provided for multiple tokens
+     */
+    private fun candidateKeys(filter: RpiBloomFilter): List<DiagnosisKey> {
+        val seenKeys = HashSet<ByteBuffer>()
+        val diagnosisKeys: MutableList<DiagnosisKey> = ArrayList()
+        for (token in database.allTokens) {
+            for (diagnosisKey in database.getDiagnosisKeys(token)) {
+                if (seenKeys.add(ByteBuffer.wrap(diagnosisKey.keyData))) {
+                    diagnosisKeys.add(diagnosisKey)
+                }
+            }
+        }
+        return matcher.filterCandidateKeys(diagnosisKeys, filter)
+    }
+
+    private fun index(candidateKeys: List<DiagnosisKey>, filter: RpiBloomFilter): CapturedDataIndex {
+        return CapturedDataIndex(
+            database.getCollectedSightingsForRPIs(RpiMatcher.candidateRPIs(candidateKeys, filter))
+        )
+    }
+
+    companion object {
+        private fun toExposureWindow(window: Window, calibrationConfidence: Int): ExposureWindow {
+            val scanInstances: MutableList<ScanInstance> = ArrayList(window.scans.size)
+            for (scan in window.scans) {
+                scanInstances.add(
+                    ScanInstance.Builder()
+                        .setTypicalAttenuationDb(scan.typicalAttenuationDb)
+                        .setMinAttenuationDb(scan.minAttenuationDb)
+                        .setSecondsSinceLastScan(scan.secondsSinceLastScan)
+                        .build()
+                )
+            }
+            return ExposureWindow.Builder()
+                .setDateMillisSinceEpoch(window.dateMillisSinceEpoch)
+                .setReportType(window.reportType)
+                .setInfectiousness(window.infectiousness)
+                .setCalibrationConfidence(calibrationConfidence)
+                .setScanInstances(scanInstances)
+                .build()
+        }
+    }
+}
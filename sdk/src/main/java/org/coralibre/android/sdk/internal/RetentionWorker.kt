@@ -0,0 +1,78 @@
+package org.coralibre.android.sdk.internal
+
+import android.content.Context
+import android.util.Log
+import androidx.work.Constraints
+import androidx.work.ExistingPeriodicWorkPolicy
+import androidx.work.PeriodicWorkRequestBuilder
+import androidx.work.WorkManager
+import androidx.work.Worker
+import androidx.work.WorkerParameters
+import org.coralibre.android.sdk.internal.BroadcastHelper.sendExposureStateUpdatedBroadcast
+import org.coralibre.android.sdk.internal.database.DatabaseAccess
+import org.coralibre.android.sdk.internal.database.StorageException
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceList
+import java.util.concurrent.TimeUnit
+
+/**
+ * Deletes the data that is older than the 14 days it has to be kept (see
+ * Database.truncateLast14Days()) once a day in the background, so that it is not done while the
+ * app starts. Afterwards, the exposure data of the tokens whose data has been deleted is
+ * recomputed.
+ */
+class RetentionWorker(
+    context: Context,
+    workerParams: WorkerParameters
+) : Worker(context, workerParams) {
+
+    override fun doWork(): Result {
+        return try {
+            val database = DatabaseAccess.getDefaultDatabaseInstance()
+            // Exposure data that is computed concurrently would not be marked as outdated:
+            val updatedTokens = synchronized(DiagnosisKeyIngestion.matchingLock) {
+                val upToDateTokens = database.allTokens.filter {
+                    database.getMatchingState(it)?.exposureDataUpToDate == true
+                }
+                val deleted = database.truncateLast14Days()
+                Log.i(TAG, "Deleted $deleted expired rows")
+                // The summaries of the tokens whose keys or exposures have been deleted have to
+                // be adjusted:
+                SightingReevaluation(database).recomputeOutdated(
+                    upToDateTokens,
+                    DeviceList.getOwnDeviceInfo(applicationContext)
+                )
+            }
+            for (token in updatedTokens) {
+                sendExposureStateUpdatedBroadcast(applicationContext, token)
+            }
+            Result.success()
+        } catch (e: StorageException) {
+            // The database is not initialized (yet)
+            Log.w(TAG, "Failed to delete expired data", e)
+            Result.retry()
+        }
+    }
+
+    companion object {
+        private val TAG = RetentionWorker::class.java.simpleName
+        private const val WORK_NAME = "org.coralibre.android.sdk.RETENTION"
+
+        /**
+         * Schedules the daily deletion, if it has not been scheduled before.
+         */
+        @JvmStatic
+        fun schedule(context: Context) {
+            val constraints = Constraints.Builder()
+                .setRequiresBatteryNotLow(true)
+                .build()
+            val request = PeriodicWorkRequestBuilder<RetentionWorker>(1, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .build()
+            WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                WORK_NAME,
+                ExistingPeriodicWorkPolicy.KEEP,
+                request
+            )
+        }
+    }
+}
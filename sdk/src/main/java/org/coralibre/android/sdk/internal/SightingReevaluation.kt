@@ -0,0 +1,173 @@
+package org.coralibre.android.sdk.internal
+
+import android.util.Log
+import org.coralibre.android.sdk.internal.crypto.KeyDerivationCache
+import org.coralibre.android.sdk.internal.database.Database
+import org.coralibre.android.sdk.internal.database.TokenMatchingState
+import org.coralibre.android.sdk.internal.datatypes.ENInterval
+import org.coralibre.android.sdk.internal.datatypes.util.ENIntervalUtil
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceInfo
+import org.coralibre.android.sdk.internal.matching.CapturedDataIndex
+import org.coralibre.android.sdk.internal.matching.ParallelMatcher
+import org.coralibre.android.sdk.internal.matching.RpiBloomFilter
+import org.coralibre.android.sdk.internal.matching.RpiMatcher
+import java.util.ArrayList
+import java.util.HashMap
+
+/**
+ * Matches the payloads that have been captured since the exposure data of a token has been
+ * computed against the diagnosis keys stored for the token, so that the exposure data stays
+ * up-to-date without another provideDiagnosisKeys(...) call.
+ *
+ * Each token remembers up to which payload it has been evaluated (see TokenMatchingState). Only
+ * the payloads after that one are loaded and indexed, and the stored keys are looked up in that
+ * index. The rpis of the stored keys are cached across runs, so a run without new matches costs
+ * work proportional to the number of new payloads. Only if a key matches a new payload, the
+ * exposure data of its token is recomputed from the stored keys.
+ *
+ * In PERSIST_MATCHED mode (see DiagnosisKeyIngestion), the keys without matches are only stored
+ * as pending keys while their rolling period has not ended, since only then their rpis can still
+ * be captured. They are re-evaluated like the other stored keys. Once their rolling period has
+ * ended, they are kept if they have matched a sighting, and dropped otherwise.
+ */
+class SightingReevaluation @JvmOverloads constructor(
+    private val database: Database,
+    private val matcher: ParallelMatcher = ParallelMatcher()
+) {
+    /**
+     * Re-evaluates the payloads captured since the last evaluation for all tokens with
+     * up-to-date exposure data.
+     * @return the tokens whose exposure data has been recomputed
+     */
+    fun reevaluate(ownDeviceInfo: DeviceInfo): List<String> {
+        val updatedTokens: MutableList<String> = ArrayList()
+        synchronized(DiagnosisKeyIngestion.matchingLock) {
+            val payloadKey = database.lastCollectedPayloadKey
+            // Usually all tokens have been evaluated up to the same payload, so there is only a
+            // single index of new payloads:
+            val newPayloadsAfter: MutableMap<Long, CapturedDataIndex> = HashMap()
+            val firstPendingInterval =
+                DiagnosisKeyIngestion.firstPendingInterval(ENIntervalUtil.currentInterval)
+            val filter = database.capturedRPIFilter
+            for (token in database.allTokens) {
+                resolveEndedPendingKeys(token, firstPendingInterval, filter)
+                val state = database.getMatchingState(token) ?: continue
+                val exposureConfiguration = state.exposureConfiguration
+                if (!state.exposureDataUpToDate ||
+                    exposureConfiguration == null ||
+                    state.evaluatedPayloadKey >= payloadKey
+                ) {
+                    continue
+                }
+                val newPayloads = newPayloadsAfter.getOrPut(state.evaluatedPayloadKey) {
+                    CapturedDataIndex(
+                        database.getCollectedSightingsAfter(state.evaluatedPayloadKey, payloadKey)
+                    )
+                }
+                val diagnosisKeys = database.getDiagnosisKeys(token)
+                if (diagnosisKeys.none { RpiMatcher.hasMatch(it, newPayloads, rpiCache) }) {
+                    database.updateEvaluatedPayloadKey(token, payloadKey)
+                    continue
+                }
+
+                val allInfo = DiagnosisKeyIngestion.assembleExposureInfo(
+                    database,
+                    matcher,
+                    diagnosisKeys,
+                    filter,
+                    exposureConfiguration,
+                    ownDeviceInfo
+                )
+                database.putExposureMatchingResults(
+                    token,
+                    allInfo.exposureInformationList,
+                    allInfo.exposureSummary,
+                    TokenMatchingState(state.evaluatedKeyCount, payloadKey, exposureConfiguration)
+                )
+                updatedTokens.add(token)
+            }
+        }
+        if (updatedTokens.isNotEmpty()) {
+            Log.i(TAG, "Recomputed exposure data of ${updatedTokens.size} tokens")
+        }
+        return updatedTokens
+    }
+
+    /**
+     * Keeps the pending keys of the token whose rolling period has ended if they match any
+     * captured payload, and drops the others. The exposure data of the token does not change,
+     * since pending keys are matched like the other stored keys.
+     */
+    private fun resolveEndedPendingKeys(
+        token: String,
+        firstPendingInterval: ENInterval,
+        filter: RpiBloomFilter
+    ) {
+        val endedKeys = database.getPendingDiagnosisKeysBefore(token, firstPendingInterval)
+        if (endedKeys.isEmpty()) {
+            return
+        }
+        val matchingKeys =
+            DiagnosisKeyIngestion.filterMatchingKeys(database, matcher, endedKeys, filter)
+        database.resolvePendingDiagnosisKeys(
+            token,
+            matchingKeys,
+            endedKeys.filter { it !in matchingKeys }
+        )
+        Log.d(TAG, "Resolved ${endedKeys.size} pending keys, ${matchingKeys.size} matched")
+    }
+
+    /**
+     * Recomputes the exposure data of those of the given tokens that have been marked as
+     * outdated, e.g. by Database.truncateLast14Days(), from their stored keys and exposure
+     * configuration. Tokens without a stored configuration stay outdated.
+     * @param tokens the tokens to check, which should have been up-to-date before; tokens that
+     * have been outdated before, e.g. because a provideDiagnosisKeys(...) call has been canceled,
+     * do not have all their keys stored
+     * @return the tokens whose exposure data has been recomputed
+     */
+    fun recomputeOutdated(tokens: Collection<String>, ownDeviceInfo: DeviceInfo): List<String> {
+        val updatedTokens: MutableList<String> = ArrayList()
+        synchronized(DiagnosisKeyIngestion.matchingLock) {
+            val payloadKey = database.lastCollectedPayloadKey
+            for (token in tokens) {
+                val state = database.getMatchingState(token) ?: continue
+                val exposureConfiguration = state.exposureConfiguration
+                if (state.exposureDataUpToDate || exposureConfiguration == null) {
+                    continue
+                }
+                val allInfo = DiagnosisKeyIngestion.assembleExposureInfo(
+                    database,
+                    matcher,
+                    database.getDiagnosisKeys(token),
+                    database.capturedRPIFilter,
+                    exposureConfiguration,
+                    ownDeviceInfo
+                )
+                database.putExposureMatchingResults(
+                    token,
+                    allInfo.exposureInformationList,
+                    allInfo.exposureSummary,
+                    TokenMatchingState(state.evaluatedKeyCount, payloadKey, exposureConfiguration)
+                )
+                updatedTokens.add(token)
+            }
+        }
+        if (updatedTokens.isNotEmpty()) {
+            Log.i(TAG, "Recomputed outdated exposure data of ${updatedTokens.size} tokens")
+        }
+        return updatedTokens
+    }
+
+    companion object {
+        private val TAG = SightingReevaluation::class.java.simpleName
+
+        /**
+         * The number of stored keys whose rpis are cached. With 2304 bytes of rpis per key, the
+         * cache takes less than 3 MiB.
+         */
+        const val RPI_CACHE_CAPACITY = 1024
+
+        private val rpiCache = KeyDerivationCache(RPI_CACHE_CAPACITY, cacheRPIs = true)
+    }
+}
@@ -37,6 +37,7 @@ import org.coralibre.android.sdk.internal.bluetooth.BleClient;
 import org.coralibre.android.sdk.internal.bluetooth.BleServer;
 import org.coralibre.android.sdk.internal.bluetooth.BluetoothServiceStatus;
 import org.coralibre.android.sdk.internal.bluetooth.BluetoothState;
+import org.coralibre.android.sdk.internal.util.Tracing;
 
 public class TracingService extends Service {
 
@@ -57,8 +58,8 @@ public class TracingService extends Service {
     // The source of these Values is this a description on Googles API description:
     // https://developers.google.com/android/exposure-notifications/ble-attenuation-overview
     public static final long SCAN_DURATION_MILLIS = 4 * 1000;
-    public static final long SCAN_INTERVAL_SECONDS = 5 * 60;
-    public static final long SCAN_INTERVAL_MILLIS = 1000 * SCAN_INTERVAL_SECONDS;
+    public static final long SCAN_INTERVAL_SECONDS = EnFrameworkConstants.SCAN_INTERVAL_SECONDS;
+    public static final long SCAN_INTERVAL_MILLIS = EnFrameworkConstants.SCAN_INTERVAL_MILLIS;
     public static final long MAC_ROTATION_PERIOD_MILLIS = 11 * 60 * 1000;
 
     private Handler handler;
@@ -67,6 +68,12 @@ public class TracingService extends Service {
     private BleServer bleServer;
     private BleClient bleClient;
 
+    // The cookies of the async trace sections of the running scan and advertise cycle, or 0 if
+    // there is none:
+    private int scanCycleCookie;
+    private int advertiseCycleCookie;
+    private int lastCycleCookie;
+
     private final BroadcastReceiver bluetoothStateChangeReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
@@ -306,7 +313,12 @@ public class TracingService extends Service {
         if (startAdvertising) {
             bleServer = new BleServer(this);
 
-            return bleServer.startAdvertising();
+            BluetoothState bluetoothState = bleServer.startAdvertising();
+            if (bluetoothState == BluetoothState.ENABLED) {
+                advertiseCycleCookie = ++lastCycleCookie;
+                Tracing.beginAsyncSection(Tracing.ADVERTISE_CYCLE, advertiseCycleCookie);
+            }
+            return bluetoothState;
         }
         return null;
     }
@@ -316,6 +328,10 @@ public class TracingService extends Service {
             bleServer.stop();
             bleServer = null;
         }
+        if (advertiseCycleCookie != 0) {
+            Tracing.endAsyncSection(Tracing.ADVERTISE_CYCLE, advertiseCycleCookie);
+            advertiseCycleCookie = 0;
+        }
     }
 
     private BluetoothState startClient() {
@@ -326,7 +342,12 @@ public class TracingService extends Service {
 
         if (startReceiving) {
             bleClient = new BleClient(this);
-            return bleClient.start();
+            BluetoothState bluetoothState = bleClient.start();
+            if (bluetoothState == BluetoothState.ENABLED) {
+                scanCycleCookie = ++lastCycleCookie;
+                Tracing.beginAsyncSection(Tracing.SCAN_CYCLE, scanCycleCookie);
+            }
+            return bluetoothState;
         }
         return null;
     }
@@ -335,6 +356,7 @@ public class TracingService extends Service {
         if (bleClient != null) {
             bleClient.stop();
         }
+        endScanCycle();
     }
 
     private void stopClient() {
@@ -342,6 +364,14 @@ public class TracingService extends Service {
             bleClient.stop();
             bleClient = null;
         }
+        endScanCycle();
+    }
+
+    private void endScanCycle() {
+        if (scanCycleCookie != 0) {
+            Tracing.endAsyncSection(Tracing.SCAN_CYCLE, scanCycleCookie);
+            scanCycleCookie = 0;
+        }
     }
 
     @Nullable
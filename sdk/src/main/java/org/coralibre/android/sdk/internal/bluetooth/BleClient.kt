@@ -22,26 +22,26 @@ import android.util.Log
 import org.coralibre.android.sdk.BuildConfig
 import org.coralibre.android.sdk.internal.AppConfigManager
 import org.coralibre.android.sdk.internal.BroadcastHelper.sendErrorUpdateBroadcast
+import org.coralibre.android.sdk.internal.BroadcastHelper.sendExposureStateUpdatedBroadcast
+import org.coralibre.android.sdk.internal.SightingReevaluation
 import org.coralibre.android.sdk.internal.bluetooth.BluetoothServiceStatus.Companion.getInstance
+import org.coralibre.android.sdk.internal.database.Database
 import org.coralibre.android.sdk.internal.database.DatabaseAccess.getDefaultDatabaseInstance
 import org.coralibre.android.sdk.internal.datatypes.BluetoothPayload
-import org.coralibre.android.sdk.internal.datatypes.CapturedData
 import org.coralibre.android.sdk.internal.datatypes.util.ENIntervalUtil.currentInterval
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceList
+import org.coralibre.android.sdk.internal.metrics.Metrics
 import org.coralibre.android.sdk.internal.util.ByteToHex.toString
 import java.util.ArrayList
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
 
 class BleClient(private val context: Context) {
     private var bleScanner: BluetoothLeScanner? = null
     private var bleScanCallback: ScanCallback? = null
 
-    // contains the received payload and the rx power
-    private val collectedData: MutableList<CollectedDatumInstance> = ArrayList()
-
-    private class CollectedDatumInstance(
-        val payload: BluetoothPayload,
-        val rssi: Byte,
-        val timestamp: Long
-    )
+    // contains the received payloads and rx powers, aggregated per rpi
+    private val collectedData = SightingAggregator()
 
     fun start(): BluetoothState {
         val bluetoothAdapter = BluetoothAdapter.getDefaultAdapter()
@@ -114,6 +114,7 @@ class BleClient(private val context: Context) {
         return BluetoothState.ENABLED
     }
 
+    @Synchronized
     private fun onDeviceFound(scanResult: ScanResult) {
         try {
             val now = System.currentTimeMillis()
@@ -132,9 +133,9 @@ class BleClient(private val context: Context) {
                 )
             }
 
-            // no we are not checking for duplicates. We need duplicates for the
-            // risk calculation later
-            collectedData.add(CollectedDatumInstance(payload, rssi, now))
+            // Duplicates are not dropped, but aggregated: the risk calculation later on needs
+            // the time span and the rssi of the sightings of an rpi
+            collectedData.add(payload, rssi, now)
         } catch (e: Exception) {
             e.printStackTrace()
         }
@@ -157,23 +158,71 @@ class BleClient(private val context: Context) {
         }
     }
 
+    /**
+     * Stops scanning and hands the data collected so far over to the database writer thread,
+     * where it is stored in a single transaction.
+     */
     @Synchronized
     fun stop() {
+        // stop() may be called more than once per scan, but the scan is only counted once:
+        if (bleScanner != null) {
+            Metrics.SIGHTINGS_PER_SCAN.record(collectedData.sightingCount.toLong())
+        }
         stopScan()
-        val database = getDefaultDatabaseInstance()
-        for (data in collectedData) {
-            database.addCapturedPayload(
-                CapturedData(
-                    data.timestamp,
-                    data.rssi,
-                    data.payload.rpi,
-                    data.payload.aem
-                )
+        if (collectedData.isEmpty) {
+            return
+        }
+        val capturedData = collectedData.toCapturedData()
+        if (BuildConfig.DEBUG) {
+            Log.d(
+                TAG,
+                "aggregated ${collectedData.sightingCount} sightings " +
+                    "into ${capturedData.size} records"
             )
         }
+        // stop() may be called more than once per client, so the data must only be stored once:
+        collectedData.clear()
+
+        val database = getDefaultDatabaseInstance()
+        databaseWriter.execute {
+            try {
+                database.addCapturedPayloads(capturedData)
+            } catch (e: Exception) {
+                Log.e(TAG, "Failed to store captured data", e)
+                return@execute
+            }
+            reevaluator.execute { reevaluateSightings(database) }
+        }
+    }
+
+    /**
+     * Updates the exposure data of the tokens whose keys match the newly stored data.
+     */
+    private fun reevaluateSightings(database: Database) {
+        try {
+            val updatedTokens = SightingReevaluation(database)
+                .reevaluate(DeviceList.getOwnDeviceInfo(context))
+            for (token in updatedTokens) {
+                sendExposureStateUpdatedBroadcast(context, token)
+            }
+        } catch (e: Exception) {
+            Log.e(TAG, "Failed to re-evaluate captured data", e)
+        }
     }
 
     companion object {
         private const val TAG = "BleClient"
+
+        /**
+         * Shared by all clients, so that the data of consecutive scans is stored in order and
+         * never on the thread that stops the scan.
+         */
+        private val databaseWriter: ExecutorService = Executors.newSingleThreadExecutor()
+
+        /**
+         * Re-evaluations may wait for a running provideDiagnosisKeys(...) call, so they do not
+         * run on the database writer thread.
+         */
+        private val reevaluator: ExecutorService = Executors.newSingleThreadExecutor()
     }
 }
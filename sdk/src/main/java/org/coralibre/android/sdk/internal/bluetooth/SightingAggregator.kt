@@ -0,0 +1,93 @@
+package org.coralibre.android.sdk.internal.bluetooth
+
+import org.coralibre.android.sdk.internal.datatypes.BluetoothPayload
+import org.coralibre.android.sdk.internal.datatypes.CapturedData
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier
+import java.util.ArrayList
+import java.util.LinkedHashMap
+import kotlin.math.roundToInt
+
+/**
+ * Collapses all sightings of the same rpi within one scan window into a single CapturedData
+ * record, which keeps the first and last capture timestamp, the number of sightings and the
+ * min/max/mean rssi.
+ *
+ * Since the scanner reports every advertisement (CALLBACK_TYPE_ALL_MATCHES), the same rpi is
+ * usually seen many times per scan. For the attenuation duration calculation of ExposureUtils,
+ * a scan only contributes its time span and attenuation, which the aggregated record keeps.
+ */
+class SightingAggregator {
+    private class Aggregate(
+        val payload: BluetoothPayload,
+        val firstTimestamp: Long,
+        rssi: Byte
+    ) {
+        var lastTimestamp = firstTimestamp
+        var count = 1
+        var minRssi = rssi
+        var maxRssi = rssi
+        var rssiSum = rssi.toLong()
+    }
+
+    private val aggregates: MutableMap<RollingProximityIdentifier, Aggregate> = LinkedHashMap()
+
+    /**
+     * The number of sightings added since the last clear().
+     */
+    var sightingCount = 0
+        private set
+
+    val isEmpty: Boolean
+        get() = aggregates.isEmpty()
+
+    /**
+     * The number of records, i.e. of distinct rpis.
+     */
+    val size: Int
+        get() = aggregates.size
+
+    /**
+     * @param timestamp in milliseconds since Epoch; sightings are expected to be added in
+     * chronological order
+     */
+    fun add(payload: BluetoothPayload, rssi: Byte, timestamp: Long) {
+        sightingCount++
+        val aggregate = aggregates[payload.rpi]
+        if (aggregate == null) {
+            aggregates[payload.rpi] = Aggregate(payload, timestamp, rssi)
+            return
+        }
+        aggregate.lastTimestamp = maxOf(aggregate.lastTimestamp, timestamp)
+        aggregate.count++
+        if (rssi < aggregate.minRssi) aggregate.minRssi = rssi
+        if (rssi > aggregate.maxRssi) aggregate.maxRssi = rssi
+        aggregate.rssiSum += rssi
+    }
+
+    /**
+     * @return one record per rpi, in the order in which the rpis have been seen first
+     */
+    fun toCapturedData(): List<CapturedData> {
+        val result: MutableList<CapturedData> = ArrayList(aggregates.size)
+        for (aggregate in aggregates.values) {
+            result.add(
+                CapturedData(
+                    aggregate.firstTimestamp,
+                    aggregate.lastTimestamp,
+                    aggregate.count,
+                    (aggregate.rssiSum.toDouble() / aggregate.count).roundToInt().toByte(),
+                    aggregate.minRssi,
+                    aggregate.maxRssi,
+                    aggregate.payload.rpi,
+                    aggregate.payload.aem
+                )
+            )
+        }
+        return result
+    }
+
+    fun clear() {
+        aggregates.clear()
+        sightingCount = 0
+    }
+}
@@ -1,27 +1,19 @@
 package org.coralibre.android.sdk.internal.crypto
 
-import android.annotation.SuppressLint
-import com.google.crypto.tink.subtle.Hkdf
-import org.coralibre.android.sdk.internal.EnFrameworkConstants
+import org.coralibre.android.sdk.internal.crypto.CryptoPrimitives.encryptAM
+import org.coralibre.android.sdk.internal.crypto.CryptoPrimitives.generateAEMK
+import org.coralibre.android.sdk.internal.crypto.CryptoPrimitives.generateRPIK
 import org.coralibre.android.sdk.internal.database.Database
 import org.coralibre.android.sdk.internal.database.DatabaseAccess.getDefaultDatabaseInstance
-import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadata
 import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadataKey
 import org.coralibre.android.sdk.internal.datatypes.AssociatedMetadata
 import org.coralibre.android.sdk.internal.datatypes.BluetoothPayload
 import org.coralibre.android.sdk.internal.datatypes.ENInterval
 import org.coralibre.android.sdk.internal.datatypes.InternalTemporaryExposureKey
-import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier
 import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifierKey
 import org.coralibre.android.sdk.internal.datatypes.util.ENIntervalUtil.currentInterval
 import org.coralibre.android.sdk.internal.datatypes.util.ENIntervalUtil.getMidnight
-import java.nio.charset.StandardCharsets
-import java.security.GeneralSecurityException
-import javax.crypto.Cipher
 import javax.crypto.KeyGenerator
-import javax.crypto.SecretKey
-import javax.crypto.spec.IvParameterSpec
-import javax.crypto.spec.SecretKeySpec
 
 class CryptoModule private constructor(
     private val database: Database,
@@ -105,7 +97,7 @@ class CryptoModule private constructor(
             currentPayload.interval != currentInterval
         ) {
             updateTEK()
-            val currentRPI = generateRPI(
+            val currentRPI = CryptoPrimitives.generateRPI(
                 currentRPIK!!,
                 currentInterval!!
             )
@@ -124,18 +116,14 @@ class CryptoModule private constructor(
 
     fun generateRPI(
         rpik: RollingProximityIdentifierKey
-    ) = generateRPI(rpik, if (testMode) currentIntervalForTesting!! else currentInterval)
+    ) = CryptoPrimitives.generateRPI(
+        rpik,
+        if (testMode) currentIntervalForTesting!! else currentInterval
+    )
 
     companion object {
         private const val TAG = "CryptoModule"
 
-        /**
-         * Defined int 10min units.
-         */
-        const val FUZZY_COMPARE_TIME_DEVIATION = 12
-        const val RPIK_INFO = "EN-RPIK"
-        const val AEMK_INFO = "EN-AEMK"
-
         private var instance: CryptoModule? = null
 
         // TODO: use proper factory class
@@ -148,125 +136,5 @@ class CryptoModule private constructor(
             }
             return instance!!
         }
-
-        @JvmStatic
-        private fun generateHKDFBytes(tek: ByteArray, info: ByteArray, length: Int): ByteArray {
-            return try {
-                Hkdf.computeHkdf(
-                    "HMACSHA256",
-                    tek,
-                    null,
-                    info,
-                    length
-                )
-            } catch (e: GeneralSecurityException) {
-                // Could only happen if MAC algorithm isn't supported or size is too big,
-                // both of which shouldn't ever happen here.
-                throw RuntimeException(e)
-            }
-        }
-
-        @JvmStatic
-        fun generateRPIK(tek: InternalTemporaryExposureKey): RollingProximityIdentifierKey {
-            return generateRPIK(tek.key)
-        }
-
-        @JvmStatic
-        fun generateRPIK(tek: ByteArray): RollingProximityIdentifierKey {
-            val rawRPIK = generateHKDFBytes(
-                tek,
-                RPIK_INFO.toByteArray(StandardCharsets.UTF_8),
-                EnFrameworkConstants.RPIK_LENGTH
-            )
-            return RollingProximityIdentifierKey(rawRPIK)
-        }
-
-        @JvmStatic
-        fun generateAEMK(tek: InternalTemporaryExposureKey): AssociatedEncryptedMetadataKey {
-            val rawAEMK = generateHKDFBytes(
-                tek.key,
-                AEMK_INFO.toByteArray(StandardCharsets.UTF_8),
-                EnFrameworkConstants.AEMK_LENGTH
-            )
-            return AssociatedEncryptedMetadataKey(rawAEMK)
-        }
-
-        @JvmStatic
-        fun generateRPI(
-            rpik: RollingProximityIdentifierKey,
-            interval: ENInterval
-        ): RollingProximityIdentifier {
-            return try {
-                val keySpec = SecretKeySpec(
-                    rpik.key, "AES"
-                )
-                // normally ECB is a bad idea, but in this case we just want to encrypt a single block
-                @SuppressLint("GetInstance") val cipher = Cipher.getInstance("AES/ECB/NoPadding")
-                cipher.init(Cipher.ENCRYPT_MODE, keySpec)
-                val paddedData = PaddedData(interval)
-                RollingProximityIdentifier(cipher.update(paddedData.getData()), interval)
-            } catch (e: Exception) {
-                throw CryptoException(e)
-            }
-        }
-
-        @JvmStatic
-        fun decryptRPI(
-            rpi: RollingProximityIdentifier,
-            rpik: RollingProximityIdentifierKey
-        ): PaddedData {
-            return try {
-                val keySpec = SecretKeySpec(rpik.key, "AES")
-                // normally ECB is a bad idea, but in this case we just want to encrypt a single block
-                @SuppressLint("GetInstance") val cipher = Cipher.getInstance("AES/ECB/NoPadding")
-                cipher.init(Cipher.DECRYPT_MODE, keySpec)
-                PaddedData(cipher.update(rpi.getData()))
-            } catch (e: Exception) {
-                throw CryptoException(e)
-            }
-        }
-
-        @JvmStatic
-        fun encryptAM(
-            am: AssociatedMetadata,
-            rpi: RollingProximityIdentifier,
-            aemk: AssociatedEncryptedMetadataKey?
-        ): AssociatedEncryptedMetadata {
-            return try {
-                val keySpec: SecretKey = SecretKeySpec(aemk!!.key, "AES")
-                val ivSpec = IvParameterSpec(rpi.getData())
-                val cipher = Cipher.getInstance("AES/CTR/NoPadding")
-                cipher.init(Cipher.ENCRYPT_MODE, keySpec, ivSpec)
-                AssociatedEncryptedMetadata(cipher.update(am.data))
-            } catch (e: Exception) {
-                throw CryptoException(e)
-            }
-        }
-
-        @JvmStatic
-        fun decryptAEM(
-            aem: AssociatedEncryptedMetadata,
-            rpi: RollingProximityIdentifier,
-            aemk: AssociatedEncryptedMetadataKey
-        ): AssociatedMetadata {
-            return try {
-                val keySpec: SecretKey = SecretKeySpec(aemk.key, "AES")
-                val ivSpec = IvParameterSpec(rpi.getData())
-                val cipher = Cipher.getInstance("AES/CTR/NoPadding")
-                cipher.init(Cipher.DECRYPT_MODE, keySpec, ivSpec)
-                AssociatedMetadata(cipher.update(aem.data))
-            } catch (e: Exception) {
-                throw CryptoException(e)
-            }
-        }
-
-        @JvmStatic
-        fun decryptAEM(
-            aem: AssociatedEncryptedMetadata,
-            rpi: RollingProximityIdentifier,
-            tek: InternalTemporaryExposureKey
-        ): AssociatedMetadata {
-            return decryptAEM(aem, rpi, generateAEMK(tek))
-        }
     }
 }
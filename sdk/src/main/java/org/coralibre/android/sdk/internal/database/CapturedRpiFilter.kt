@@ -0,0 +1,173 @@
+package org.coralibre.android.sdk.internal.database
+
+import android.util.Log
+import org.coralibre.android.sdk.internal.database.persistent.DaoCapturedData
+import org.coralibre.android.sdk.internal.matching.RpiBloomFilter
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+
+/**
+ * Maintains a RpiBloomFilter over the rpis of all rows of the EntityCapturedData table.
+ *
+ * The filter remembers up to which primary key the rows have been added. Rows that are written
+ * through insert(...) are added right away; any other rows (e.g. after the filter has been
+ * loaded from its file) are added from the table when the next snapshot is taken.
+ *
+ * Snapshots are copy-on-write: snapshot() hands out the filter itself, and the next insertion
+ * copies it before adding to it. So taking snapshots without insertions in between does not copy
+ * the filter, and an insertion copies it at most once per snapshot.
+ *
+ * If a file is given, the filter is stored there when a snapshot is taken after it has changed,
+ * but at most every STORE_INTERVAL_MILLIS. It then does not have to be rebuilt from the whole
+ * table after a restart; only the rows after the stored ones are added from the table. Deleting
+ * rows does not remove their bits, so the filter has to be reset after deletions to keep its
+ * false positive rate low.
+ */
+internal class CapturedRpiFilter(
+    private val dao: DaoCapturedData,
+    private val file: File?
+) {
+    private var filter: RpiBloomFilter? = null
+
+    // All rows with a primary key up to this one have been added to the filter:
+    private var coveredPrimaryKey = 0L
+    private var dirty = false
+
+    // True if the filter has been handed out by snapshot(), so it has to be copied before it is
+    // modified:
+    private var shared = false
+    private var lastStoreMillis = 0L
+
+    /**
+     * Runs the insertion of the given rpis and adds them to the filter, if it has been loaded.
+     * @param insert inserts the rows and returns their primary keys
+     */
+    @Synchronized
+    fun insert(rpis: List<ByteArray>, insert: () -> List<Long>) {
+        val primaryKeys = insert()
+        val filter = writableFilter() ?: return
+        for (rpi in rpis) {
+            filter.add(rpi)
+        }
+        for (primaryKey in primaryKeys) {
+            // Only advance the covered key over rows that directly follow the covered ones, so
+            // rows that have not been added (e.g. by another writer) are still picked up later:
+            if (primaryKey == coveredPrimaryKey + 1) {
+                coveredPrimaryKey = primaryKey
+            }
+        }
+        dirty = true
+    }
+
+    /**
+     * @return the up-to-date filter, which must not be modified. Later insertions do not modify
+     * it either, so it may be read on any thread.
+     */
+    @Synchronized
+    fun snapshot(): RpiBloomFilter {
+        var filter = filter ?: load()
+        val maxPrimaryKey = dao.maxPrimaryKey ?: 0L
+        if (maxPrimaryKey > coveredPrimaryKey) {
+            filter = writableFilter()!!
+            for (rpi in dao.getRpis(coveredPrimaryKey, maxPrimaryKey)) {
+                filter.add(rpi)
+            }
+            coveredPrimaryKey = maxPrimaryKey
+            dirty = true
+        }
+        if (dirty && System.currentTimeMillis() - lastStoreMillis >= STORE_INTERVAL_MILLIS) {
+            store(filter)
+        }
+        shared = true
+        return filter
+    }
+
+    /**
+     * Drops the filter, so that it is rebuilt from the table on the next snapshot.
+     */
+    @Synchronized
+    fun reset() {
+        filter = null
+        coveredPrimaryKey = 0L
+        dirty = false
+        shared = false
+        file?.delete()
+    }
+
+    /**
+     * @return the loaded filter, copied first if it has been handed out by snapshot()
+     */
+    private fun writableFilter(): RpiBloomFilter? {
+        var filter = filter ?: return null
+        if (shared) {
+            filter = filter.copy()
+            this.filter = filter
+            shared = false
+        }
+        return filter
+    }
+
+    private fun load(): RpiBloomFilter {
+        var loaded: RpiBloomFilter? = null
+        if (file != null && file.exists()) {
+            try {
+                DataInputStream(BufferedInputStream(FileInputStream(file))).use { input ->
+                    if (input.readInt() != FILE_MAGIC) {
+                        throw IOException("invalid rpi filter file")
+                    }
+                    val storedCoveredPrimaryKey = input.readLong()
+                    loaded = RpiBloomFilter.readFrom(input)
+                    coveredPrimaryKey = storedCoveredPrimaryKey
+                }
+            } catch (e: IOException) {
+                Log.w(TAG, "Failed to load rpi filter, rebuilding it", e)
+                loaded = null
+                coveredPrimaryKey = 0L
+            }
+        }
+        val result = loaded ?: RpiBloomFilter()
+        filter = result
+        return result
+    }
+
+    private fun store(filter: RpiBloomFilter) {
+        if (file == null) {
+            dirty = false
+            return
+        }
+        val tmpFile = File(file.path + ".tmp")
+        try {
+            DataOutputStream(BufferedOutputStream(FileOutputStream(tmpFile))).use { output ->
+                output.writeInt(FILE_MAGIC)
+                output.writeLong(coveredPrimaryKey)
+                filter.writeTo(output)
+            }
+            if (!tmpFile.renameTo(file)) {
+                throw IOException("cannot rename $tmpFile")
+            }
+            dirty = false
+            lastStoreMillis = System.currentTimeMillis()
+        } catch (e: IOException) {
+            // Not fatal, the filter is rebuilt from the table if the file is missing or outdated
+            Log.w(TAG, "Failed to store rpi filter", e)
+        }
+    }
+
+    companion object {
+        private const val TAG = "CapturedRpiFilter"
+        private const val FILE_MAGIC = 0x52504932 // "RPI2"
+
+        /**
+         * Captured payloads are stored after every scan, which would otherwise rewrite the file
+         * every few minutes.
+         */
+        private val STORE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1)
+    }
+}
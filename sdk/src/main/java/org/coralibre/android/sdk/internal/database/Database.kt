@@ -3,10 +3,12 @@ package org.coralibre.android.sdk.internal.database
 import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureInformation
 import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureSummary
 import org.coralibre.android.sdk.internal.datatypes.CapturedData
+import org.coralibre.android.sdk.internal.datatypes.CapturedSightings
 import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey
 import org.coralibre.android.sdk.internal.datatypes.ENInterval
 import org.coralibre.android.sdk.internal.datatypes.InternalTemporaryExposureKey
 import org.coralibre.android.sdk.internal.datatypes.IntervalOfCapturedData
+import org.coralibre.android.sdk.internal.matching.RpiBloomFilter
 import kotlin.Throws
 
 interface Database {
@@ -24,16 +26,85 @@ interface Database {
     fun getOwnTEK(interval: ENInterval): InternalTemporaryExposureKey
     fun hasTEKForInterval(interval: ENInterval): Boolean
     fun addCapturedPayload(collectedPayload: CapturedData)
+
+    /**
+     * Adds all payloads at once. Either all or none of them are stored.
+     */
+    fun addCapturedPayloads(collectedPayloads: List<CapturedData>)
     val allCollectedPayload: Iterable<IntervalOfCapturedData>
 
+    /**
+     * The key of the most recently collected payload, 0 if there is none. Payloads that are
+     * collected later on get greater keys, so this is a high-water mark of the collected payloads.
+     */
+    val lastCollectedPayloadKey: Long
+
+    /**
+     * @return the payloads with a key greater than 'afterKey' and up to 'upToKey', grouped like
+     * in allCollectedPayload
+     */
+    fun getCollectedPayloadAfter(afterKey: Long, upToKey: Long): Iterable<IntervalOfCapturedData>
+
+    /**
+     * Looks up the payloads captured for the given rpis, without loading all captured payloads.
+     * @param rpis raw rpis, each of them EnFrameworkConstants.RPI_LENGTH bytes long
+     * @return the payloads with one of the given rpis, grouped like in allCollectedPayload
+     */
+    fun getCollectedPayloadForRPIs(rpis: List<ByteArray>): Iterable<IntervalOfCapturedData>
+
+    // The following methods return the same payloads as the ones above, but packed into a
+    // CapturedSightings object, which is what matching works on. They are read straight from
+    // the database without creating CapturedData objects.
+
+    val allCollectedSightings: CapturedSightings
+
+    fun getCollectedSightingsAfter(afterKey: Long, upToKey: Long): CapturedSightings
+
+    fun getCollectedSightingsForRPIs(rpis: List<ByteArray>): CapturedSightings
+
+    /**
+     * A Bloom filter over the rpis of all collected payloads. It is maintained when payloads are
+     * added, so getting it does not require loading the collected payloads. The returned object
+     * is not updated afterwards and must not be modified.
+     */
+    val capturedRPIFilter: RpiBloomFilter
+
     /**
      * @param token A token to identify the key set later on. If the token has already been used
      * previously to add diagnosis keys, it now identifies the previously existing
      * keys together with the new ones contained in 'diagnosisKeys'.
      */
     fun addDiagnosisKeys(token: String, diagnosisKeys: List<DiagnosisKey>)
+
+    /**
+     * Stores revised versions of diagnosis keys: every given key replaces the keys of the token
+     * with the same key data, or is added if there is none.
+     */
     fun updateDiagnosisKeys(token: String, diagnosisKeys: List<DiagnosisKey>)
 
+    /**
+     * Like updateDiagnosisKeys(...), but the keys are marked as pending: they did not match when
+     * they were provided, but their rolling period had not ended yet, so they might still match
+     * payloads that are captured later on. They are returned by getDiagnosisKeys(...) like all
+     * other keys, see resolvePendingDiagnosisKeys(...).
+     */
+    fun addPendingDiagnosisKeys(token: String, diagnosisKeys: List<DiagnosisKey>)
+
+    /**
+     * @return the pending keys of the token whose rolling start interval is before the given one
+     */
+    fun getPendingDiagnosisKeysBefore(token: String, interval: ENInterval): List<DiagnosisKey>
+
+    /**
+     * Keeps the given pending keys that have matched as regular keys, and deletes the ones that
+     * have not. Does not change the matching state of the token.
+     */
+    fun resolvePendingDiagnosisKeys(
+        token: String,
+        matchedKeys: List<DiagnosisKey>,
+        unmatchedKeys: List<DiagnosisKey>
+    )
+
     /**
      * @param token A token with that an addDiagnosisKeys(...) call has been performed previously
      * @throws StorageException if the token is unknown to the db
@@ -44,35 +115,73 @@ interface Database {
     /**
      * Adds a set of ExposureInformation items as well as a a single ExposureSummary
      * item to the database. If there already is data for the given token, the data
-     * will be overwritten.
+     * will be overwritten. All data is written in a single transaction, and the exposure data
+     * of the token is up-to-date afterwards. Only the parts that do not depend on the day the
+     * data is read are stored, the days since the exposures and the risk scores are derived
+     * again by getExposureSummary(...) and getExposureInformation(...).
      * @param token A token to identify the data later on.
      * @param exposureInformations the information ExposureInformation objects to store
      * @param exposureSummary the ExposureSummary object to store
+     * @param matchingState what the exposure data has been computed from. Its
+     * exposureDataUpToDate value is ignored.
      */
     fun putExposureMatchingResults(
         token: String,
         exposureInformations: List<ExposureInformation>,
-        exposureSummary: ExposureSummary
+        exposureSummary: ExposureSummary,
+        matchingState: TokenMatchingState = TokenMatchingState(0, 0, null)
+    )
+
+    /**
+     * Like putExposureMatchingResults(...), but keeps the ExposureInformation items that have
+     * already been stored for the token and only adds the given ones. The ExposureSummary is
+     * replaced.
+     * @param addedExposureInformations the ExposureInformation objects of the diagnosis keys
+     * that have been added since the exposure data has been stored
+     * @param exposureSummary the ExposureSummary over all diagnosis keys of the token
+     */
+    fun appendExposureMatchingResults(
+        token: String,
+        addedExposureInformations: List<ExposureInformation>,
+        exposureSummary: ExposureSummary,
+        matchingState: TokenMatchingState
     )
 
     /**
-     * Get an exposure summary object that has previously been stored using
-     * 'putExposureMatchingResults(...)'. If there is no exposure summary, or it is not up-to-date
-     * (i.e. further diagnosis keys have been added for the token without adding new exposure
-     * matching results afterwards), an exception is thrown.
+     * @return the matching state of the token, or null if the token is unknown to the db
+     */
+    fun getMatchingState(token: String): TokenMatchingState?
+
+    /**
+     * Records that the exposure data of the token is still valid after matching its keys against
+     * the payloads up to 'evaluatedPayloadKey', see TokenMatchingState.
+     */
+    fun updateEvaluatedPayloadKey(token: String, evaluatedPayloadKey: Long)
+
+    /**
+     * All tokens that diagnosis keys have been added for.
+     */
+    val allTokens: List<String>
+
+    /**
+     * Get the exposure summary object that has most recently been stored using
+     * 'putExposureMatchingResults(...)' or 'appendExposureMatchingResults(...)'. It is returned
+     * even if it is not up-to-date (i.e. further diagnosis keys have been added for the token
+     * without adding new exposure matching results afterwards), see getMatchingState(...).
+     * Its daysSinceLastExposure and risk scores are derived from the exposure information for
+     * the current day.
      * @param token to identify the ExposureSummary object
-     * @throws StorageException if there is no ExposureSummary for that token, which is up-to-date
+     * @throws StorageException if no ExposureSummary has been stored for that token yet
      */
     @Throws(StorageException::class)
     fun getExposureSummary(token: String): ExposureSummary
 
     /**
-     * Get exposure information objects that have previously been stored using
-     * 'putExposureMatchingResults(...)'. If there is no such data, or it is not up-to-date
-     * (i.e. further diagnosis keys have been added for the token without adding new exposure
-     * matching results afterwards), an exception is thrown.
+     * Get the exposure information objects that have most recently been stored for the token,
+     * like getExposureSummary(...). Their risk scores are computed for the current day, with the
+     * exposure configuration of the token's matching state.
      * @param token to identify the set of ExposureInformation objects
-     * @throws StorageException if there is no matchin result data for that token, which is up-to-date
+     * @throws StorageException if no matching results have been stored for that token yet
      */
     @Throws(StorageException::class)
     fun getExposureInformation(token: String): List<ExposureInformation>
@@ -84,8 +193,17 @@ interface Database {
     @Throws(StorageException::class)
     fun deleteTokenWithData(token: String)
 
-    // TODO also delete computed exposure information and summary
-    // TODO when is this method actually called?
-    fun truncateLast14Days()
+    /**
+     * Deletes the data of all tables that is older than the 14 days it has to be kept. The data
+     * is deleted in small batches, so this may be called while the database is in use. It is
+     * called periodically by the RetentionWorker.
+     *
+     * Only the tokens whose diagnosis keys or exposure information have been deleted are marked
+     * as outdated. Their stored exposure data is kept until it is recomputed, see
+     * SightingReevaluation.recomputeOutdated(...). Tokens without stored keys, for which no keys
+     * have been provided for 14 days, are deleted with their exposure data.
+     * @return the number of deleted rows
+     */
+    fun truncateLast14Days(): Int
     fun clearAllData()
 }
@@ -1,25 +1,36 @@
 package org.coralibre.android.sdk.internal.database
 
 import android.content.Context
+import android.database.Cursor
 import androidx.room.Room
 import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureInformation
 import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureSummary
 import org.coralibre.android.sdk.internal.EnFrameworkConstants
+import org.coralibre.android.sdk.internal.database.persistent.DaoCapturedData
 import org.coralibre.android.sdk.internal.database.persistent.RoomDatabaseDelegate
 import org.coralibre.android.sdk.internal.database.persistent.entity.EntityCapturedData
+import org.coralibre.android.sdk.internal.database.persistent.entity.EntityDiagnosisKey
 import org.coralibre.android.sdk.internal.database.persistent.entity.EntityExposureSummary
 import org.coralibre.android.sdk.internal.database.persistent.entity.EntityTemporaryExposureKey
 import org.coralibre.android.sdk.internal.database.persistent.entity.EntityToken
 import org.coralibre.android.sdk.internal.database.persistent.entity.toEntityDiagnosisKeys
 import org.coralibre.android.sdk.internal.database.persistent.entity.toEntityExposureInformations
 import org.coralibre.android.sdk.internal.datatypes.CapturedData
+import org.coralibre.android.sdk.internal.datatypes.CapturedSightings
 import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey
 import org.coralibre.android.sdk.internal.datatypes.ENInterval
 import org.coralibre.android.sdk.internal.datatypes.InternalTemporaryExposureKey
 import org.coralibre.android.sdk.internal.datatypes.IntervalOfCapturedData
 import org.coralibre.android.sdk.internal.datatypes.util.ENIntervalUtil.currentInterval
+import org.coralibre.android.sdk.internal.matching.ExposureInfoAssembler
+import org.coralibre.android.sdk.internal.matching.RpiBloomFilter
+import org.coralibre.android.sdk.internal.metrics.Metrics
+import java.io.File
+import java.util.ArrayList
 import java.util.HashMap
+import java.util.HashSet
 import java.util.LinkedList
+import java.util.concurrent.Callable
 
 // Note:
 // To get a database object, don't directly use the constructor of this class, but use
@@ -50,53 +61,162 @@ class PersistentDatabase @JvmOverloads constructor(
             context,
             RoomDatabaseDelegate::class.java,
             dbName
+        ).addMigrations(
+            RoomDatabaseDelegate.MIGRATION_1_2,
+            RoomDatabaseDelegate.MIGRATION_2_3,
+            RoomDatabaseDelegate.MIGRATION_3_4,
+            RoomDatabaseDelegate.MIGRATION_4_5,
+            RoomDatabaseDelegate.MIGRATION_5_6,
+            RoomDatabaseDelegate.MIGRATION_6_7,
+            RoomDatabaseDelegate.MIGRATION_7_8,
+            RoomDatabaseDelegate.MIGRATION_8_9
         ).build()
     }
 
+    private val rpiFilter = CapturedRpiFilter(
+        db.daoCapturedData(),
+        if (inMemory) null else File(context.noBackupFilesDir, "$dbName-rpi-filter")
+    )
+
     override fun addGeneratedTEK(generatedTEK: InternalTemporaryExposureKey) {
-        db.daoTEK().insertTEK(EntityTemporaryExposureKey(generatedTEK))
+        Metrics.DB_INSERT_LATENCY.time {
+            db.daoTEK().insertTEK(EntityTemporaryExposureKey(generatedTEK))
+        }
     }
 
     override fun addCapturedPayload(collectedPayload: CapturedData) {
-        db.daoCapturedData().insertCapturedData(EntityCapturedData(collectedPayload))
+        val entity = EntityCapturedData(collectedPayload)
+        Metrics.DB_INSERT_LATENCY.time {
+            rpiFilter.insert(listOf(entity.rpi)) {
+                listOf(db.daoCapturedData().insertCapturedData(entity))
+            }
+        }
+    }
+
+    override fun addCapturedPayloads(collectedPayloads: List<CapturedData>) {
+        val entities: MutableList<EntityCapturedData> = ArrayList(collectedPayloads.size)
+        val rpis: MutableList<ByteArray> = ArrayList(collectedPayloads.size)
+        for (collectedPayload in collectedPayloads) {
+            val entity = EntityCapturedData(collectedPayload)
+            entities.add(entity)
+            rpis.add(entity.rpi)
+        }
+        Metrics.DB_INSERT_LATENCY.time {
+            rpiFilter.insert(rpis) {
+                db.daoCapturedData().insertCapturedData(entities)
+            }
+        }
     }
 
+    override val capturedRPIFilter: RpiBloomFilter
+        get() = rpiFilter.snapshot()
+
     override fun addDiagnosisKeys(token: String, diagnosisKeys: List<DiagnosisKey>) {
-        var entityToken = db.daoToken().getToken(token)
-        if (entityToken == null) {
-            db.daoToken().insertToken(EntityToken(token, false))
-        } else {
-            entityToken = entityToken.copy(exposureDataUpToDate = false)
-            db.daoToken().updateToken(entityToken)
+        // In one transaction, so that a token is never marked outdated with only a part of its
+        // keys stored:
+        Metrics.DB_INSERT_LATENCY.time {
+            db.runInTransaction {
+                storeOutdatedToken(token)
+                db.daoDiagnosisKey().insertDiagnosisKeys(
+                    diagnosisKeys.toEntityDiagnosisKeys(token)
+                )
+            }
         }
-        db.daoDiagnosisKey().insertDiagnosisKeys(
-            diagnosisKeys.toEntityDiagnosisKeys(token)
-        )
     }
 
     override fun updateDiagnosisKeys(token: String, diagnosisKeys: List<DiagnosisKey>) {
-        var entityToken = db.daoToken().getToken(token)
+        // The rows of the keys get new primary keys, so they cannot be updated in place:
+        Metrics.DB_INSERT_LATENCY.time {
+            db.runInTransaction {
+                storeOutdatedToken(token)
+                for (diagnosisKey in diagnosisKeys) {
+                    db.daoDiagnosisKey().deleteDiagnosisKey(token, diagnosisKey.keyData)
+                }
+                db.daoDiagnosisKey().insertDiagnosisKeys(
+                    diagnosisKeys.toEntityDiagnosisKeys(token)
+                )
+            }
+        }
+    }
+
+    /**
+     * Marks the exposure data of the token as outdated and refreshes its timestamp, so that a
+     * token that is still in use is not deleted by truncateLast14Days(), even if none of its keys
+     * are stored.
+     */
+    private fun storeOutdatedToken(token: String) {
+        val entityToken = db.daoToken().getToken(token)
         if (entityToken == null) {
             db.daoToken().insertToken(EntityToken(token, false))
         } else {
-            entityToken = entityToken.copy(exposureDataUpToDate = false)
-            db.daoToken().updateToken(entityToken)
+            db.daoToken().updateToken(
+                entityToken.copy(
+                    exposureDataUpToDate = false,
+                    timestampMillisSinceEpoch = System.currentTimeMillis()
+                )
+            )
         }
-        db.daoDiagnosisKey().updateDiagnosisKeys(
-            diagnosisKeys.toEntityDiagnosisKeys(token)
+    }
+
+    override fun addPendingDiagnosisKeys(token: String, diagnosisKeys: List<DiagnosisKey>) {
+        Metrics.DB_INSERT_LATENCY.time {
+            db.runInTransaction {
+                storeOutdatedToken(token)
+                for (diagnosisKey in diagnosisKeys) {
+                    db.daoDiagnosisKey().deleteDiagnosisKey(token, diagnosisKey.keyData)
+                }
+                db.daoDiagnosisKey().insertDiagnosisKeys(
+                    diagnosisKeys.toEntityDiagnosisKeys(token, pending = true)
+                )
+            }
+        }
+    }
+
+    override fun getPendingDiagnosisKeysBefore(
+        token: String,
+        interval: ENInterval
+    ): List<DiagnosisKey> {
+        return toDiagnosisKeys(
+            Metrics.DB_QUERY_LATENCY.time {
+                db.daoDiagnosisKey().getPendingDiagnosisKeysBefore(token, interval.get())
+            }
         )
     }
 
+    override fun resolvePendingDiagnosisKeys(
+        token: String,
+        matchedKeys: List<DiagnosisKey>,
+        unmatchedKeys: List<DiagnosisKey>
+    ) {
+        db.runInTransaction {
+            for (diagnosisKey in matchedKeys) {
+                db.daoDiagnosisKey().clearPending(token, diagnosisKey.keyData)
+            }
+            for (diagnosisKey in unmatchedKeys) {
+                db.daoDiagnosisKey().deleteDiagnosisKey(token, diagnosisKey.keyData)
+            }
+        }
+    }
+
     override fun getDiagnosisKeys(token: String): List<DiagnosisKey> {
+        return toDiagnosisKeys(
+            Metrics.DB_QUERY_LATENCY.time {
+                db.daoDiagnosisKey().getDiagnosisKeys(token)
+            }
+        )
+    }
+
+    private fun toDiagnosisKeys(entities: List<EntityDiagnosisKey>): List<DiagnosisKey> {
         val result: MutableList<DiagnosisKey> = LinkedList()
-        val entities = db.daoDiagnosisKey().getDiagnosisKeys(token)
         for (entity in entities) {
             val diagnosisKey = DiagnosisKey(
                 InternalTemporaryExposureKey(
                     ENInterval(entity.intervalNumber),
                     entity.keyData
                 ),
-                entity.transmissionRiskLevel
+                entity.transmissionRiskLevel,
+                entity.reportType,
+                entity.daysSinceOnsetOfSymptoms
             )
             result.add(diagnosisKey)
         }
@@ -106,40 +226,119 @@ class PersistentDatabase @JvmOverloads constructor(
     override fun putExposureMatchingResults(
         token: String,
         exposureInformations: List<ExposureInformation>,
-        exposureSummary: ExposureSummary
+        exposureSummary: ExposureSummary,
+        matchingState: TokenMatchingState
     ) {
-        db.daoToken().insertToken(EntityToken(token, true))
-        db.daoExposureInformation().clearDataForToken(token)
-        db.daoExposureInformation().insertExposureInformations(
-            exposureInformations.toEntityExposureInformations(token)
+        Metrics.DB_INSERT_LATENCY.time {
+            db.runInTransaction {
+                storeUpToDateToken(token, matchingState)
+                db.daoExposureInformation().clearDataForToken(token)
+                db.daoExposureInformation().insertExposureInformations(
+                    exposureInformations.toEntityExposureInformations(token)
+                )
+                db.daoExposureSummary().clearDataForToken(token)
+                db.daoExposureSummary()
+                    .insertExposureSummary(EntityExposureSummary(token, exposureSummary))
+            }
+        }
+    }
+
+    override fun appendExposureMatchingResults(
+        token: String,
+        addedExposureInformations: List<ExposureInformation>,
+        exposureSummary: ExposureSummary,
+        matchingState: TokenMatchingState
+    ) {
+        Metrics.DB_INSERT_LATENCY.time {
+            db.runInTransaction {
+                storeUpToDateToken(token, matchingState)
+                db.daoExposureInformation().insertExposureInformations(
+                    addedExposureInformations.toEntityExposureInformations(token)
+                )
+                db.daoExposureSummary().clearDataForToken(token)
+                db.daoExposureSummary()
+                    .insertExposureSummary(EntityExposureSummary(token, exposureSummary))
+            }
+        }
+    }
+
+    private fun storeUpToDateToken(token: String, matchingState: TokenMatchingState) {
+        val entityToken = db.daoToken().getToken(token)
+        val updatedToken = (entityToken ?: EntityToken(token, true)).copy(
+            exposureDataUpToDate = true,
+            evaluatedKeyCount = matchingState.evaluatedKeyCount,
+            exposureConfiguration = matchingState.exposureConfiguration,
+            evaluatedPayloadKey = matchingState.evaluatedPayloadKey
+        )
+        if (entityToken == null) {
+            db.daoToken().insertToken(updatedToken)
+        } else {
+            // Updating instead of replacing the token, since replacing would delete the
+            // dependent rows (e.g. the diagnosis keys) of the token:
+            db.daoToken().updateToken(updatedToken)
+        }
+    }
+
+    override fun getMatchingState(token: String): TokenMatchingState? {
+        val entityToken = db.daoToken().getToken(token) ?: return null
+        return TokenMatchingState(
+            entityToken.evaluatedKeyCount,
+            entityToken.evaluatedPayloadKey,
+            entityToken.exposureConfiguration,
+            entityToken.exposureDataUpToDate
         )
-        db.daoExposureSummary().clearDataForToken(token)
-        db.daoExposureSummary()
-            .insertExposureSummary(EntityExposureSummary(token, exposureSummary))
     }
 
-    // TODO Implement test
+    override fun updateEvaluatedPayloadKey(token: String, evaluatedPayloadKey: Long) {
+        db.daoToken().updateEvaluatedPayloadKey(token, evaluatedPayloadKey)
+    }
+
+    override val allTokens: List<String>
+        get() = db.daoToken().allTokenStrings
+
+    // The day-dependent parts of the summary are derived from the exposure information, which is
+    // read in the same transaction, so that the data cannot be replaced in between.
     @Throws(StorageException::class)
     override fun getExposureSummary(token: String): ExposureSummary {
-        val entityToken = db.daoToken().getToken(token)
-        if (entityToken == null || !entityToken.exposureDataUpToDate) {
-            throw StorageException("db - getExposureSummary(...): No up-to-date exposure data in db")
+        return Metrics.DB_QUERY_LATENCY.time {
+            db.runInTransaction(
+                Callable {
+                    val storedSummary = db.daoExposureSummary().getExposureSummary(token)
+                        ?: throw StorageException("db - getExposureSummary(...): No exposure summary in db")
+                    ExposureInfoAssembler.deriveExposureSummary(
+                        storedSummary.toExposureSummary(),
+                        readExposureInformation(token)
+                    )
+                }
+            )
         }
-        return db.daoExposureSummary().getExposureSummary(token)!!.toExposureSummary()
     }
 
-    // TODO Implement test
+    // The summary is read in the same transaction as the exposure information, so that the data
+    // cannot be replaced in between.
     @Throws(StorageException::class)
     override fun getExposureInformation(token: String): List<ExposureInformation> {
-        val entityToken = db.daoToken().getToken(token)
-        if (entityToken == null || !entityToken.exposureDataUpToDate) {
-            throw StorageException("db - getExposureInformation(...): No up-to-date exposure data in db")
-        }
-        val result: MutableList<ExposureInformation> = LinkedList()
-        for (e in db.daoExposureInformation().getExposureInformations(token)) {
-            result.add(e.toExposureInformation())
+        return Metrics.DB_QUERY_LATENCY.time {
+            db.runInTransaction(
+                Callable {
+                    if (db.daoExposureSummary().getExposureSummary(token) == null) {
+                        throw StorageException("db - getExposureInformation(...): No exposure data in db")
+                    }
+                    readExposureInformation(token)
+                }
+            )
         }
-        return result
+    }
+
+    /**
+     * @return the exposure information of the token, with the risk scores of the current day
+     */
+    private fun readExposureInformation(token: String): List<ExposureInformation> {
+        return ExposureInfoAssembler.rescoreExposureInformation(
+            db.daoExposureInformation().getExposureInformations(token)
+                .map { it.toExposureInformation() },
+            db.daoToken().getToken(token)?.exposureConfiguration
+        )
     }
 
     // TODO Implement test
@@ -173,32 +372,160 @@ class PersistentDatabase @JvmOverloads constructor(
 
     // find correct interval
     override val allCollectedPayload: Iterable<IntervalOfCapturedData>
-        get() {
-            val allData = db.daoCapturedData().allData
-            val collectedPackagesByInterval: MutableMap<ENInterval, IntervalOfCapturedData> =
-                HashMap()
-            for (e_payload in allData) {
-                val payload = e_payload.toCapturedData()
-                val interval = payload.enInterval
-
-                // find correct interval
-                var payloadPerInterval = collectedPackagesByInterval[interval]
-                if (payloadPerInterval == null) {
-                    payloadPerInterval = IntervalOfCapturedData(interval)
-                    collectedPackagesByInterval[interval] = payloadPerInterval
-                }
-                payloadPerInterval.add(payload)
+        get() = groupByInterval(db.daoCapturedData().allData)
+
+    override val lastCollectedPayloadKey: Long
+        get() = db.daoCapturedData().maxPrimaryKey ?: 0L
+
+    override fun getCollectedPayloadAfter(
+        afterKey: Long,
+        upToKey: Long
+    ): Iterable<IntervalOfCapturedData> {
+        return groupByInterval(db.daoCapturedData().getData(afterKey, upToKey))
+    }
+
+    override fun getCollectedPayloadForRPIs(
+        rpis: List<ByteArray>
+    ): Iterable<IntervalOfCapturedData> {
+        val entities: MutableList<EntityCapturedData> = ArrayList()
+        var chunkStart = 0
+        while (chunkStart < rpis.size) {
+            val chunkEnd = minOf(chunkStart + DaoCapturedData.MAX_RPIS_PER_QUERY, rpis.size)
+            entities.addAll(db.daoCapturedData().getDataForRpis(rpis.subList(chunkStart, chunkEnd)))
+            chunkStart = chunkEnd
+        }
+        return groupByInterval(entities)
+    }
+
+    override val allCollectedSightings: CapturedSightings
+        get() = Metrics.DB_QUERY_LATENCY.time {
+            readSightings(db.daoCapturedData().getAllSightings())
+        }
+
+    override fun getCollectedSightingsAfter(afterKey: Long, upToKey: Long): CapturedSightings {
+        return Metrics.DB_QUERY_LATENCY.time {
+            readSightings(db.daoCapturedData().getSightings(afterKey, upToKey))
+        }
+    }
+
+    override fun getCollectedSightingsForRPIs(rpis: List<ByteArray>): CapturedSightings {
+        val sightings = CapturedSightings()
+        var chunkStart = 0
+        while (chunkStart < rpis.size) {
+            val chunkEnd = minOf(chunkStart + DaoCapturedData.MAX_RPIS_PER_QUERY, rpis.size)
+            Metrics.DB_QUERY_LATENCY.time {
+                readSightings(
+                    db.daoCapturedData().getSightingsForRpis(rpis.subList(chunkStart, chunkEnd)),
+                    sightings
+                )
+            }
+            chunkStart = chunkEnd
+        }
+        return sightings
+    }
+
+    /**
+     * Appends the rows of a cursor with the columns DaoCapturedData.SIGHTING_COLUMNS to
+     * 'sightings' and closes the cursor.
+     */
+    private fun readSightings(
+        cursor: Cursor,
+        sightings: CapturedSightings = CapturedSightings(maxOf(cursor.count, 0))
+    ): CapturedSightings {
+        cursor.use {
+            while (it.moveToNext()) {
+                sightings.add(
+                    it.getBlob(0),
+                    it.getLong(1),
+                    it.getLong(2),
+                    it.getLong(3),
+                    it.getInt(4),
+                    it.getShort(5).toByte(),
+                    it.getShort(6).toByte(),
+                    it.getShort(7).toByte(),
+                    it.getBlob(8)
+                )
+            }
+        }
+        return sightings
+    }
+
+    private fun groupByInterval(
+        allData: List<EntityCapturedData>
+    ): Iterable<IntervalOfCapturedData> {
+        val collectedPackagesByInterval: MutableMap<ENInterval, IntervalOfCapturedData> =
+            HashMap()
+        for (e_payload in allData) {
+            val payload = e_payload.toCapturedData()
+            val interval = payload.enInterval
+
+            // find correct interval
+            var payloadPerInterval = collectedPackagesByInterval[interval]
+            if (payloadPerInterval == null) {
+                payloadPerInterval = IntervalOfCapturedData(interval)
+                collectedPackagesByInterval[interval] = payloadPerInterval
             }
-            return collectedPackagesByInterval.values
+            payloadPerInterval.add(payload)
         }
+        return collectedPackagesByInterval.values
+    }
 
-    override fun truncateLast14Days() {
+    override fun truncateLast14Days(): Int {
         val now = currentInterval
         val lastIntervalToKeep = now.get() - EnFrameworkConstants.TEK_MAX_STORE_TIME_INTERVALS
-        db.daoCapturedData().truncateOldData(lastIntervalToKeep)
-        db.daoTEK().truncateOldData(lastIntervalToKeep)
+        // A diagnosis key is kept as long as its rolling period overlaps the kept intervals:
+        val lastKeyIntervalToKeep = lastIntervalToKeep - EnFrameworkConstants.TEK_ROLLING_PERIOD
+        val lastExposureMillisToKeep = ENInterval(lastIntervalToKeep).unixTime * 1000
+        val lastTokenMillisToKeep = System.currentTimeMillis() -
+            EnFrameworkConstants.TEK_MAX_STORE_TIME_SECONDS * 1000L
+
+        // The exposure data of these tokens depends on keys or exposures that are deleted. The
+        // deleted payloads do not add any tokens: their exposures are dated by the start of
+        // their key's rolling period, which is before the kept intervals, so the exposure
+        // information rows of these exposures are deleted as well.
+        val affectedTokens = HashSet<String>()
+        affectedTokens.addAll(db.daoDiagnosisKey().getTokensWithOldData(lastKeyIntervalToKeep))
+        affectedTokens.addAll(
+            db.daoExposureInformation().getTokensWithOldData(lastExposureMillisToKeep)
+        )
+
+        val deletedCapturedData = deleteInBatches {
+            db.daoCapturedData().truncateOldData(lastIntervalToKeep, it)
+        }
+        val deletedTEKs = deleteInBatches { db.daoTEK().truncateOldData(lastIntervalToKeep, it) }
+        val deletedKeys = deleteInBatches {
+            db.daoDiagnosisKey().truncateOldData(lastKeyIntervalToKeep, it)
+        }
+        val deletedExposureInformation = deleteInBatches {
+            db.daoExposureInformation().truncateOldData(lastExposureMillisToKeep, it)
+        }
+        val deletedTokens = deleteInBatches {
+            db.daoToken().deleteStaleTokens(lastTokenMillisToKeep, it)
+        }
 
-        // TODO truncate all data, not just teks and captured data
+        for (token in affectedTokens) {
+            db.daoToken().markExposureDataOutdated(token)
+        }
+        if (deletedCapturedData > 0) {
+            // The bits of the deleted rpis cannot be removed from the filter:
+            rpiFilter.reset()
+        }
+        return deletedCapturedData + deletedTEKs + deletedKeys + deletedExposureInformation +
+            deletedTokens
+    }
+
+    /**
+     * Calls 'deleteBatch' with RETENTION_BATCH_SIZE until it deletes less rows than that. Each
+     * batch is a transaction of its own, so the write lock is released between the batches.
+     * @return the number of deleted rows
+     */
+    private inline fun deleteInBatches(deleteBatch: (batchSize: Int) -> Int): Int {
+        var deleted = 0
+        do {
+            val deletedInBatch = deleteBatch(RETENTION_BATCH_SIZE)
+            deleted += deletedInBatch
+        } while (deletedInBatch == RETENTION_BATCH_SIZE)
+        return deleted
     }
 
     // TODO The test we have does only verify that diagnosis keys for that token are
@@ -210,6 +537,7 @@ class PersistentDatabase @JvmOverloads constructor(
 
     override fun clearAllData() {
         db.daoCapturedData().clearAllData()
+        rpiFilter.reset()
         db.daoTEK().clearAllData()
 
         // The following call also clears the diagnosis key, exposure infomation and exposure
@@ -218,4 +546,11 @@ class PersistentDatabase @JvmOverloads constructor(
 
         // TODO test clear/delete
     }
+
+    companion object {
+        /**
+         * The maximal number of rows deleted in a single statement by truncateLast14Days()
+         */
+        private const val RETENTION_BATCH_SIZE = 500
+    }
 }
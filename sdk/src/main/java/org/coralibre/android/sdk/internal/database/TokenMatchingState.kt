@@ -0,0 +1,24 @@
+package org.coralibre.android.sdk.internal.database
+
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureConfiguration
+
+/**
+ * What has been matched for a token so far. It allows matching only the diagnosis keys that are
+ * added for a token later on, or only the payloads that are captured later on, instead of
+ * matching all keys of the token against all captured payloads again.
+ *
+ * @param evaluatedKeyCount the number of diagnosis keys that have been matched for the token,
+ * including keys without matches
+ * @param evaluatedPayloadKey all captured payloads with a key up to this one (see
+ * Database.lastCollectedPayloadKey) have been matched against all keys of the token
+ * @param exposureConfiguration the ExposureConfiguration that the stored exposure data has been
+ * computed with, null if it is unknown
+ * @param exposureDataUpToDate true iff the stored exposure data covers all diagnosis keys of the
+ * token
+ */
+data class TokenMatchingState @JvmOverloads constructor(
+    val evaluatedKeyCount: Long,
+    val evaluatedPayloadKey: Long,
+    val exposureConfiguration: ExposureConfiguration?,
+    val exposureDataUpToDate: Boolean = true
+)
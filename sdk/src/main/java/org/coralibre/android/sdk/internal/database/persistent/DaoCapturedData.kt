@@ -1,5 +1,6 @@
 package org.coralibre.android.sdk.internal.database.persistent
 
+import android.database.Cursor
 import androidx.room.Dao
 import androidx.room.Insert
 import androidx.room.OnConflictStrategy
@@ -8,19 +9,91 @@ import org.coralibre.android.sdk.internal.database.persistent.entity.EntityCaptu
 
 @Dao
 interface DaoCapturedData {
+    /**
+     * @return the primary key of the inserted item
+     */
     @Insert(onConflict = OnConflictStrategy.ABORT)
-    fun insertCapturedData(data: EntityCapturedData)
+    fun insertCapturedData(data: EntityCapturedData): Long
 
-    @Query("DELETE FROM EntityCapturedData WHERE enInterval < :minKeepENIntervalNumber")
-    fun truncateOldData(minKeepENIntervalNumber: Long)
+    /**
+     * Inserts all items in a single transaction.
+     * @return the primary keys of the inserted items
+     */
+    @Insert(onConflict = OnConflictStrategy.ABORT)
+    fun insertCapturedData(data: List<EntityCapturedData>): List<Long>
+
+    /**
+     * Deletes at most 'batchSize' rows with an interval before the given one. The rows are found
+     * through the index on the enInterval column. SQLite on Android does not support
+     * DELETE ... LIMIT, hence the subquery.
+     * @return the number of deleted rows
+     */
+    @Query(
+        "DELETE FROM EntityCapturedData WHERE dbPrimaryKey IN (" +
+            "SELECT dbPrimaryKey FROM EntityCapturedData " +
+            "WHERE enInterval < :minKeepENIntervalNumber LIMIT :batchSize)"
+    )
+    fun truncateOldData(minKeepENIntervalNumber: Long, batchSize: Int): Int
 
     @Query("SELECT * FROM EntityCapturedData WHERE enInterval = :intervalNumber")
     fun getAllDataForSingleInterval(intervalNumber: Long): List<EntityCapturedData>
 
+    /**
+     * Uses the index on the rpi column. SQLite limits the number of bound variables, so the
+     * caller has to pass at most MAX_RPIS_PER_QUERY rpis.
+     */
+    @Query("SELECT * FROM EntityCapturedData WHERE rpi IN (:rpis)")
+    fun getDataForRpis(rpis: List<ByteArray>): List<EntityCapturedData>
+
+    @Query(
+        "SELECT rpi FROM EntityCapturedData " +
+            "WHERE dbPrimaryKey > :afterPrimaryKey AND dbPrimaryKey <= :upToPrimaryKey"
+    )
+    fun getRpis(afterPrimaryKey: Long, upToPrimaryKey: Long): List<ByteArray>
+
+    @Query(
+        "SELECT * FROM EntityCapturedData " +
+            "WHERE dbPrimaryKey > :afterPrimaryKey AND dbPrimaryKey <= :upToPrimaryKey"
+    )
+    fun getData(afterPrimaryKey: Long, upToPrimaryKey: Long): List<EntityCapturedData>
+
+    // The following queries return the columns required for matching as Cursor, so that they can
+    // be read into a CapturedSightings object without creating entity objects, see
+    // PersistentDatabase.readSightings(...):
+
+    @Query("SELECT $SIGHTING_COLUMNS FROM EntityCapturedData")
+    fun getAllSightings(): Cursor
+
+    @Query(
+        "SELECT $SIGHTING_COLUMNS FROM EntityCapturedData " +
+            "WHERE dbPrimaryKey > :afterPrimaryKey AND dbPrimaryKey <= :upToPrimaryKey"
+    )
+    fun getSightings(afterPrimaryKey: Long, upToPrimaryKey: Long): Cursor
+
+    /**
+     * Like getDataForRpis(...), at most MAX_RPIS_PER_QUERY rpis may be passed.
+     */
+    @Query("SELECT $SIGHTING_COLUMNS FROM EntityCapturedData WHERE rpi IN (:rpis)")
+    fun getSightingsForRpis(rpis: List<ByteArray>): Cursor
+
+    @get:Query("SELECT MAX(dbPrimaryKey) FROM EntityCapturedData")
+    val maxPrimaryKey: Long?
+
     @get:Query("SELECT * FROM EntityCapturedData")
     val allData: List<EntityCapturedData>
 
-    // TODO Provide method to remove old data (and also call it somewhere)
     @Query("DELETE FROM EntityCapturedData")
     fun clearAllData()
+
+    companion object {
+        // SQLITE_MAX_VARIABLE_NUMBER is 999 on older Android versions
+        const val MAX_RPIS_PER_QUERY = 500
+
+        /**
+         * The columns of the sighting queries, in this order.
+         */
+        const val SIGHTING_COLUMNS =
+            "rpi, enInterval, captureTimestamp, lastCaptureTimestamp, sightingCount, rssi, " +
+                "minRssi, maxRssi, aem"
+    }
 }
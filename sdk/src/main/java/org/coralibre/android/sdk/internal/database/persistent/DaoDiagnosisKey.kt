@@ -4,7 +4,6 @@ import androidx.room.Dao
 import androidx.room.Insert
 import androidx.room.OnConflictStrategy
 import androidx.room.Query
-import androidx.room.Update
 import org.coralibre.android.sdk.internal.database.persistent.entity.EntityDiagnosisKey
 
 @Dao
@@ -13,9 +12,53 @@ interface DaoDiagnosisKey {
     @Insert(onConflict = OnConflictStrategy.ABORT)
     fun insertDiagnosisKeys(entityDiagnosisKeys: List<EntityDiagnosisKey>)
 
-    @Update(onConflict = OnConflictStrategy.REPLACE)
-    fun updateDiagnosisKeys(entityDiagnosisKeys: List<EntityDiagnosisKey>)
+    /**
+     * Deletes the keys of the token with the given key data, e.g. before storing a revised
+     * version of the key.
+     * @return the number of deleted rows
+     */
+    @Query("DELETE FROM EntityDiagnosisKey WHERE tokenString = :token AND keyData = :keyData")
+    fun deleteDiagnosisKey(token: String, keyData: ByteArray): Int
 
     @Query("SELECT * FROM EntityDiagnosisKey WHERE tokenString = :token")
     fun getDiagnosisKeys(token: String): List<EntityDiagnosisKey>
+
+    /**
+     * @return the pending keys of the token (see EntityDiagnosisKey.pending) with a rolling start
+     * interval before the given one
+     */
+    @Query(
+        "SELECT * FROM EntityDiagnosisKey " +
+            "WHERE tokenString = :token AND pending = 1 AND intervalNumber < :intervalNumber"
+    )
+    fun getPendingDiagnosisKeysBefore(
+        token: String,
+        intervalNumber: Long
+    ): List<EntityDiagnosisKey>
+
+    @Query(
+        "UPDATE EntityDiagnosisKey SET pending = 0 " +
+            "WHERE tokenString = :token AND keyData = :keyData"
+    )
+    fun clearPending(token: String, keyData: ByteArray)
+
+    /**
+     * Like DaoCapturedData.truncateOldData(...), using the index on the intervalNumber column.
+     * @return the number of deleted rows
+     */
+    @Query(
+        "DELETE FROM EntityDiagnosisKey WHERE dbPrimaryKey IN (" +
+            "SELECT dbPrimaryKey FROM EntityDiagnosisKey " +
+            "WHERE intervalNumber < :minKeepIntervalNumber LIMIT :batchSize)"
+    )
+    fun truncateOldData(minKeepIntervalNumber: Long, batchSize: Int): Int
+
+    /**
+     * @return the tokens that have keys which are deleted by truncateOldData(...)
+     */
+    @Query(
+        "SELECT DISTINCT tokenString FROM EntityDiagnosisKey " +
+            "WHERE intervalNumber < :minKeepIntervalNumber"
+    )
+    fun getTokensWithOldData(minKeepIntervalNumber: Long): List<String>
 }
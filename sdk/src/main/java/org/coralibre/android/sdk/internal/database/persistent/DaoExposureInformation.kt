@@ -16,4 +16,26 @@ interface DaoExposureInformation {
 
     @Query("DELETE FROM EntityExposureInformation WHERE tokenString = :token")
     fun clearDataForToken(token: String)
+
+    /**
+     * Like DaoCapturedData.truncateOldData(...), using the index on the dateMillisSinceEpoch
+     * column.
+     * @return the number of deleted rows
+     */
+    @Query(
+        "DELETE FROM EntityExposureInformation WHERE dbPrimaryKey IN (" +
+            "SELECT dbPrimaryKey FROM EntityExposureInformation " +
+            "WHERE dateMillisSinceEpoch < :minKeepMillisSinceEpoch LIMIT :batchSize)"
+    )
+    fun truncateOldData(minKeepMillisSinceEpoch: Long, batchSize: Int): Int
+
+    /**
+     * @return the tokens that have exposure information which is deleted by
+     * truncateOldData(...)
+     */
+    @Query(
+        "SELECT DISTINCT tokenString FROM EntityExposureInformation " +
+            "WHERE dateMillisSinceEpoch < :minKeepMillisSinceEpoch"
+    )
+    fun getTokensWithOldData(minKeepMillisSinceEpoch: Long): List<String>
 }
@@ -15,8 +15,16 @@ interface DaoTEK {
     @get:Query("SELECT * FROM EntityTemporaryExposureKey")
     val allGeneratedTEKs: List<EntityTemporaryExposureKey>
 
-    @Query("DELETE FROM EntityTemporaryExposureKey WHERE interval < :minKeepENIntervalNumber")
-    fun truncateOldData(minKeepENIntervalNumber: Long)
+    /**
+     * Like DaoCapturedData.truncateOldData(...), the interval column is the primary key.
+     * @return the number of deleted rows
+     */
+    @Query(
+        "DELETE FROM EntityTemporaryExposureKey WHERE interval IN (" +
+            "SELECT interval FROM EntityTemporaryExposureKey " +
+            "WHERE interval < :minKeepENIntervalNumber LIMIT :batchSize)"
+    )
+    fun truncateOldData(minKeepENIntervalNumber: Long, batchSize: Int): Int
 
     @Query("SELECT * FROM EntityTemporaryExposureKey WHERE interval = :interval")
     fun getTekByEnNumber(interval: ENInterval?): List<EntityTemporaryExposureKey>
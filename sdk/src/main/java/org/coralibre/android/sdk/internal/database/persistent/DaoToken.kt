@@ -10,8 +10,6 @@ import org.coralibre.android.sdk.internal.database.persistent.entity.EntityToken
 @Dao
 interface DaoToken {
     // TODO test inserting, adding after first insertion and deleting.
-    // TODO mplement removal of tokens after they are not required anymore. Regard the special case,
-    //  that an app might always use the same single token string
 
     @Insert(onConflict = OnConflictStrategy.ABORT)
     fun insertToken(token: EntityToken)
@@ -22,9 +20,37 @@ interface DaoToken {
     @Query("SELECT * FROM EntityToken WHERE tokenString = :tokenString")
     fun getToken(tokenString: String): EntityToken?
 
+    @get:Query("SELECT tokenString FROM EntityToken")
+    val allTokenStrings: List<String>
+
+    @Query(
+        "UPDATE EntityToken SET evaluatedPayloadKey = :evaluatedPayloadKey " +
+            "WHERE tokenString = :tokenString"
+    )
+    fun updateEvaluatedPayloadKey(tokenString: String, evaluatedPayloadKey: Long)
+
+    @Query("UPDATE EntityToken SET exposureDataUpToDate = 0 WHERE tokenString = :tokenString")
+    fun markExposureDataOutdated(tokenString: String)
+
     @Query("DELETE FROM EntityToken WHERE tokenString = :tokenString")
     fun removeToken(tokenString: String)
 
+    /**
+     * Deletes at most 'batchSize' tokens that have not been provided diagnosis keys for since the
+     * given time and have no diagnosis keys left (see DaoDiagnosisKey.truncateOldData(...)),
+     * together with their exposure data. A token that is used again later is simply added again.
+     * @return the number of deleted tokens
+     */
+    @Query(
+        "DELETE FROM EntityToken WHERE tokenString IN (" +
+            "SELECT tokenString FROM EntityToken " +
+            "WHERE timestampMillisSinceEpoch < :minKeepTimestampMillis AND NOT EXISTS (" +
+            "SELECT 1 FROM EntityDiagnosisKey " +
+            "WHERE EntityDiagnosisKey.tokenString = EntityToken.tokenString) " +
+            "LIMIT :batchSize)"
+    )
+    fun deleteStaleTokens(minKeepTimestampMillis: Long, batchSize: Int): Int
+
     @Query("DELETE FROM EntityToken")
     fun clearAllData()
 }
@@ -0,0 +1,45 @@
+package org.coralibre.android.sdk.internal.database.persistent
+
+import androidx.room.TypeConverter
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureConfiguration
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureConfiguration.ExposureConfigurationBuilder
+
+/**
+ * Stores an ExposureConfiguration as text: the minimum risk score, followed by the comma
+ * separated score and threshold arrays, separated by semicolons.
+ */
+object ExposureConfigurationConverter {
+    @JvmStatic
+    @TypeConverter
+    fun toExposureConfiguration(value: String?): ExposureConfiguration? {
+        if (value == null) {
+            return null
+        }
+        val parts = value.split(';')
+        fun ints(index: Int) = parts[index].split(',').map { it.toInt() }.toIntArray()
+        return ExposureConfigurationBuilder()
+            .setMinimumRiskScore(parts[0].toInt())
+            .setAttenuationScores(*ints(1))
+            .setDaysSinceLastExposureScores(*ints(2))
+            .setDurationScores(*ints(3))
+            .setTransmissionRiskScores(*ints(4))
+            .setDurationAtAttenuationThresholds(*ints(5))
+            .build()
+    }
+
+    @JvmStatic
+    @TypeConverter
+    fun toText(value: ExposureConfiguration?): String? {
+        if (value == null) {
+            return null
+        }
+        return listOf(
+            value.minimumRiskScore.toString(),
+            value.attenuationScores.joinToString(","),
+            value.daysSinceLastExposureScores.joinToString(","),
+            value.durationScores.joinToString(","),
+            value.transmissionRiskScores.joinToString(","),
+            value.durationAtAttenuationThresholds.joinToString(",")
+        ).joinToString(";")
+    }
+}
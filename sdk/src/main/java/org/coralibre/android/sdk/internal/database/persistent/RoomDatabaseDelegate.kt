@@ -3,6 +3,8 @@ package org.coralibre.android.sdk.internal.database.persistent
 import androidx.room.Database
 import androidx.room.RoomDatabase
 import androidx.room.TypeConverters
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
 import org.coralibre.android.sdk.internal.database.persistent.entity.EntityCapturedData
 import org.coralibre.android.sdk.internal.database.persistent.entity.EntityDiagnosisKey
 import org.coralibre.android.sdk.internal.database.persistent.entity.EntityExposureInformation
@@ -19,11 +21,12 @@ import org.coralibre.android.sdk.internal.database.persistent.entity.EntityToken
         EntityTemporaryExposureKey::class,
         EntityToken::class,
     ],
-    version = 1,
+    version = 9,
     exportSchema = false
 )
 @TypeConverters(
-    ENIntervalConverter::class
+    ENIntervalConverter::class,
+    ExposureConfigurationConverter::class
 )
 abstract class RoomDatabaseDelegate : RoomDatabase() {
     abstract fun daoTEK(): DaoTEK
@@ -32,4 +35,214 @@ abstract class RoomDatabaseDelegate : RoomDatabase() {
     abstract fun daoDiagnosisKey(): DaoDiagnosisKey
     abstract fun daoExposureInformation(): DaoExposureInformation
     abstract fun daoExposureSummary(): DaoExposureSummary
+
+    companion object {
+        /**
+         * Version 2 adds the indices on the rpi and enInterval columns of EntityCapturedData.
+         */
+        @JvmField
+        val MIGRATION_1_2 = object : Migration(1, 2) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_EntityCapturedData_rpi` " +
+                        "ON `EntityCapturedData` (`rpi`)"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_EntityCapturedData_enInterval` " +
+                        "ON `EntityCapturedData` (`enInterval`)"
+                )
+            }
+        }
+
+        /**
+         * Version 3 stores aggregated sightings (see SightingAggregator). Existing rows are
+         * single sightings.
+         */
+        @JvmField
+        val MIGRATION_2_3 = object : Migration(2, 3) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL(
+                    "ALTER TABLE `EntityCapturedData` " +
+                        "ADD COLUMN `lastCaptureTimestamp` INTEGER NOT NULL DEFAULT 0"
+                )
+                database.execSQL(
+                    "ALTER TABLE `EntityCapturedData` " +
+                        "ADD COLUMN `sightingCount` INTEGER NOT NULL DEFAULT 1"
+                )
+                database.execSQL(
+                    "ALTER TABLE `EntityCapturedData` " +
+                        "ADD COLUMN `minRssi` INTEGER NOT NULL DEFAULT 0"
+                )
+                database.execSQL(
+                    "ALTER TABLE `EntityCapturedData` " +
+                        "ADD COLUMN `maxRssi` INTEGER NOT NULL DEFAULT 0"
+                )
+                database.execSQL(
+                    "UPDATE `EntityCapturedData` SET `lastCaptureTimestamp` = `captureTimestamp`, " +
+                        "`minRssi` = `rssi`, `maxRssi` = `rssi`"
+                )
+            }
+        }
+
+        /**
+         * Version 4 stores the matching state of a token, see TokenMatchingState. Existing
+         * tokens have no state, so their keys are matched again on the next call.
+         */
+        @JvmField
+        val MIGRATION_3_4 = object : Migration(3, 4) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL(
+                    "ALTER TABLE `EntityToken` " +
+                        "ADD COLUMN `evaluatedKeyCount` INTEGER NOT NULL DEFAULT 0"
+                )
+            }
+        }
+
+        /**
+         * Version 5 stores the exposure configuration of a token and the captured payloads it
+         * has been matched against, and marks the diagnosis keys that are stored without a match
+         * until their rolling period has ended, see SightingReevaluation.
+         */
+        @JvmField
+        val MIGRATION_4_5 = object : Migration(4, 5) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL(
+                    "ALTER TABLE `EntityToken` ADD COLUMN `exposureConfiguration` TEXT"
+                )
+                database.execSQL(
+                    "ALTER TABLE `EntityToken` " +
+                        "ADD COLUMN `evaluatedPayloadKey` INTEGER NOT NULL DEFAULT 0"
+                )
+                database.execSQL(
+                    "ALTER TABLE `EntityDiagnosisKey` " +
+                        "ADD COLUMN `pending` INTEGER NOT NULL DEFAULT 0"
+                )
+            }
+        }
+
+        /**
+         * Version 6 adds an index on the tokenString column of EntityExposureInformation, so
+         * the exposure information of a token is read without a table scan.
+         */
+        @JvmField
+        val MIGRATION_5_6 = object : Migration(5, 6) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_EntityExposureInformation_tokenString` " +
+                        "ON `EntityExposureInformation` (`tokenString`)"
+                )
+            }
+        }
+
+        /**
+         * Version 7 adds the indices used to delete expired data in batches (see
+         * PersistentDatabase.truncateLast14Days()) and to look up the keys of a token.
+         */
+        @JvmField
+        val MIGRATION_6_7 = object : Migration(6, 7) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_EntityDiagnosisKey_tokenString` " +
+                        "ON `EntityDiagnosisKey` (`tokenString`)"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_EntityDiagnosisKey_intervalNumber` " +
+                        "ON `EntityDiagnosisKey` (`intervalNumber`)"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS " +
+                        "`index_EntityExposureInformation_dateMillisSinceEpoch` " +
+                        "ON `EntityExposureInformation` (`dateMillisSinceEpoch`)"
+                )
+            }
+        }
+
+        /**
+         * Version 8 stores the report type and the days since onset of symptoms of the diagnosis
+         * keys, see ExposureWindowAggregator. They are unknown for the keys stored before.
+         */
+        @JvmField
+        val MIGRATION_7_8 = object : Migration(7, 8) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL(
+                    "ALTER TABLE `EntityDiagnosisKey` " +
+                        "ADD COLUMN `reportType` INTEGER NOT NULL DEFAULT 0"
+                )
+                database.execSQL(
+                    "ALTER TABLE `EntityDiagnosisKey` " +
+                        "ADD COLUMN `daysSinceOnsetOfSymptoms` INTEGER NOT NULL DEFAULT 2147483647"
+                )
+            }
+        }
+
+        /**
+         * Version 9 no longer stores the parts of the exposure data that depend on the day it is
+         * read (the days since the last exposure and the risk scores), see
+         * ExposureInfoAssembler.deriveExposureSummary(...). SQLite cannot drop columns, so the
+         * tables are copied without them.
+         */
+        @JvmField
+        val MIGRATION_8_9 = object : Migration(8, 9) {
+            override fun migrate(database: SupportSQLiteDatabase) {
+                database.execSQL(
+                    "CREATE TABLE `EntityExposureSummary_new` (" +
+                        "`tokenString` TEXT NOT NULL, " +
+                        "`matchedKeyCount` INTEGER NOT NULL, " +
+                        "`summedAttenuationDurationBelow` INTEGER NOT NULL, " +
+                        "`summedAttenuationDurationBetween` INTEGER NOT NULL, " +
+                        "`summedAttenuationDurationAbove` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`tokenString`), " +
+                        "FOREIGN KEY(`tokenString`) REFERENCES `EntityToken`(`tokenString`) " +
+                        "ON UPDATE NO ACTION ON DELETE CASCADE)"
+                )
+                database.execSQL(
+                    "INSERT INTO `EntityExposureSummary_new` SELECT " +
+                        "`tokenString`, `matchedKeyCount`, `summedAttenuationDurationBelow`, " +
+                        "`summedAttenuationDurationBetween`, `summedAttenuationDurationAbove` " +
+                        "FROM `EntityExposureSummary`"
+                )
+                database.execSQL("DROP TABLE `EntityExposureSummary`")
+                database.execSQL(
+                    "ALTER TABLE `EntityExposureSummary_new` RENAME TO `EntityExposureSummary`"
+                )
+
+                database.execSQL(
+                    "CREATE TABLE `EntityExposureInformation_new` (" +
+                        "`tokenString` TEXT NOT NULL, " +
+                        "`dateMillisSinceEpoch` INTEGER NOT NULL, " +
+                        "`durationMinutes` INTEGER NOT NULL, " +
+                        "`attenuationValue` INTEGER NOT NULL, " +
+                        "`transmissionRiskLevel` INTEGER NOT NULL, " +
+                        "`attenuationDurationBelow` INTEGER NOT NULL, " +
+                        "`attenuationDurationBetween` INTEGER NOT NULL, " +
+                        "`attenuationDurationAbove` INTEGER NOT NULL, " +
+                        "`dbPrimaryKey` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                        "FOREIGN KEY(`tokenString`) REFERENCES `EntityToken`(`tokenString`) " +
+                        "ON UPDATE NO ACTION ON DELETE CASCADE)"
+                )
+                database.execSQL(
+                    "INSERT INTO `EntityExposureInformation_new` SELECT " +
+                        "`tokenString`, `dateMillisSinceEpoch`, `durationMinutes`, " +
+                        "`attenuationValue`, `transmissionRiskLevel`, " +
+                        "`attenuationDurationBelow`, `attenuationDurationBetween`, " +
+                        "`attenuationDurationAbove`, `dbPrimaryKey` " +
+                        "FROM `EntityExposureInformation`"
+                )
+                database.execSQL("DROP TABLE `EntityExposureInformation`")
+                database.execSQL(
+                    "ALTER TABLE `EntityExposureInformation_new` " +
+                        "RENAME TO `EntityExposureInformation`"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS `index_EntityExposureInformation_tokenString` " +
+                        "ON `EntityExposureInformation` (`tokenString`)"
+                )
+                database.execSQL(
+                    "CREATE INDEX IF NOT EXISTS " +
+                        "`index_EntityExposureInformation_dateMillisSinceEpoch` " +
+                        "ON `EntityExposureInformation` (`dateMillisSinceEpoch`)"
+                )
+            }
+        }
+    }
 }
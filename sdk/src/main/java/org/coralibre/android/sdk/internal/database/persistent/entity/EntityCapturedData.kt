@@ -1,6 +1,8 @@
 package org.coralibre.android.sdk.internal.database.persistent.entity
 
+import androidx.room.ColumnInfo
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadata
 import org.coralibre.android.sdk.internal.datatypes.CapturedData
@@ -10,9 +12,20 @@ import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier
 /**
  * @param dbPrimaryKey This field is not used. It is only here to give the database a primary key.
  * When accessing data from the database, we usually filter by timestamp.
- * @param captureTimestamp in milliseconds since Epoch
+ * @param captureTimestamp in milliseconds since Epoch; the first sighting of the rpi in the scan
+ * @param lastCaptureTimestamp in milliseconds since Epoch; the last sighting of the rpi in the scan
+ * @param rssi the mean rssi of the sightings
+ *
+ * The rpi column is indexed, so that the sightings of candidate rpis can be looked up without
+ * loading the whole table. The enInterval column is indexed for the interval based queries and
+ * the truncation of old data.
  */
-@Entity
+@Entity(
+    indices = [
+        Index(value = ["rpi"]),
+        Index(value = ["enInterval"])
+    ]
+)
 data class EntityCapturedData(
     @PrimaryKey(autoGenerate = true)
     var dbPrimaryKey: Long = 0,
@@ -21,19 +34,35 @@ data class EntityCapturedData(
     val rssi: Byte = 0,
     val rpi: ByteArray = ByteArray(0),
     val aem: ByteArray = ByteArray(0),
+    @ColumnInfo(defaultValue = "0")
+    val lastCaptureTimestamp: Long = 0,
+    @ColumnInfo(defaultValue = "1")
+    val sightingCount: Int = 1,
+    @ColumnInfo(defaultValue = "0")
+    val minRssi: Byte = 0,
+    @ColumnInfo(defaultValue = "0")
+    val maxRssi: Byte = 0,
 ) {
     constructor(data: CapturedData) : this(
         captureTimestamp = data.captureTimestampMillis,
         enInterval = data.enInterval,
         rssi = data.rssi,
         rpi = data.rpi.getData(),
-        aem = data.aem.data
+        aem = data.aem.data,
+        lastCaptureTimestamp = data.lastCaptureTimestampMillis,
+        sightingCount = data.sightingCount,
+        minRssi = data.minRssi,
+        maxRssi = data.maxRssi
     )
 
     fun toCapturedData(): CapturedData {
         return CapturedData(
             captureTimestamp,
+            lastCaptureTimestamp,
+            sightingCount,
             rssi,
+            minRssi,
+            maxRssi,
             RollingProximityIdentifier(rpi, enInterval),
             AssociatedEncryptedMetadata(aem)
         )
@@ -1,11 +1,17 @@
 package org.coralibre.android.sdk.internal.database.persistent.entity
 
+import androidx.room.ColumnInfo
 import androidx.room.Entity
 import androidx.room.ForeignKey
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey
 
 /**
+ * @param reportType see DiagnosisKey.reportType
+ * @param daysSinceOnsetOfSymptoms see DiagnosisKey.daysSinceOnsetOfSymptoms
+ * @param pending whether the key has been stored without a match, because its rolling period had
+ * not ended yet, see SightingReevaluation
  * @param dbPrimaryKey This field is not used. It is only here to give the database a primary key.
  */
 @Entity(
@@ -16,21 +22,32 @@ import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey
             childColumns = ["tokenString"],
             onDelete = ForeignKey.CASCADE
         )
-    ]
+    ],
+    indices = [Index(value = ["tokenString"]), Index(value = ["intervalNumber"])]
 )
 data class EntityDiagnosisKey @JvmOverloads constructor(
     val tokenString: String,
     val keyData: ByteArray,
     val intervalNumber: Long,
     val transmissionRiskLevel: Int,
+    @ColumnInfo(defaultValue = "0")
+    val reportType: Int = DiagnosisKey.REPORT_TYPE_UNKNOWN,
+    @ColumnInfo(defaultValue = "2147483647")
+    val daysSinceOnsetOfSymptoms: Int = DiagnosisKey.DAYS_SINCE_ONSET_OF_SYMPTOMS_UNKNOWN,
+    @ColumnInfo(defaultValue = "0")
+    val pending: Boolean = false,
     @PrimaryKey(autoGenerate = true)
     val dbPrimaryKey: Long = 0,
 ) {
-    constructor(token: String, diagnosisKey: DiagnosisKey) : this(
+    @JvmOverloads
+    constructor(token: String, diagnosisKey: DiagnosisKey, pending: Boolean = false) : this(
         tokenString = token,
         keyData = diagnosisKey.keyData,
         intervalNumber = diagnosisKey.interval.get(),
         transmissionRiskLevel = diagnosisKey.transmissionRiskLevel,
+        reportType = diagnosisKey.reportType,
+        daysSinceOnsetOfSymptoms = diagnosisKey.daysSinceOnsetOfSymptoms,
+        pending = pending,
     )
 
     companion object {
@@ -44,4 +61,5 @@ data class EntityDiagnosisKey @JvmOverloads constructor(
     }
 }
 
-fun List<DiagnosisKey>.toEntityDiagnosisKeys(token: String) = map { EntityDiagnosisKey(token, it) }
+fun List<DiagnosisKey>.toEntityDiagnosisKeys(token: String, pending: Boolean = false) =
+    map { EntityDiagnosisKey(token, it, pending) }
@@ -2,12 +2,16 @@ package org.coralibre.android.sdk.internal.database.persistent.entity
 
 import androidx.room.Entity
 import androidx.room.ForeignKey
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureInformation
 import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureInformation.ExposureInformationBuilder
 import java.util.LinkedList
 
 /**
+ * The risk score of an exposure depends on the day it is read, so it is not stored, see
+ * ExposureInfoAssembler.rescoreExposureInformation(...).
+ *
  * @param dbPrimaryKey This field is not used. It is only here to give the database a primary key.
  * When accessing data from the database, we usually filter by timestamp.
  */
@@ -19,7 +23,8 @@ import java.util.LinkedList
             childColumns = ["tokenString"],
             onDelete = ForeignKey.CASCADE
         )
-    ]
+    ],
+    indices = [Index(value = ["tokenString"]), Index(value = ["dateMillisSinceEpoch"])]
 )
 data class EntityExposureInformation @JvmOverloads constructor(
     val tokenString: String,
@@ -27,7 +32,6 @@ data class EntityExposureInformation @JvmOverloads constructor(
     val durationMinutes: Int,
     val attenuationValue: Int,
     val transmissionRiskLevel: Int,
-    val totalRiskScore: Int,
     val attenuationDurationBelow: Int,
     val attenuationDurationBetween: Int,
     val attenuationDurationAbove: Int,
@@ -40,12 +44,14 @@ data class EntityExposureInformation @JvmOverloads constructor(
         durationMinutes = info.durationMinutes,
         attenuationValue = info.attenuationValue,
         transmissionRiskLevel = info.transmissionRiskLevel,
-        totalRiskScore = info.totalRiskScore,
         attenuationDurationBelow = info.attenuationDurationsInMinutes[0],
         attenuationDurationBetween = info.attenuationDurationsInMinutes[1],
         attenuationDurationAbove = info.attenuationDurationsInMinutes[2],
     )
 
+    /**
+     * @return the stored exposure information, with a risk score of 0
+     */
     fun toExposureInformation(): ExposureInformation {
         val attenuationDurations = intArrayOf(
             attenuationDurationBelow,
@@ -57,7 +63,6 @@ data class EntityExposureInformation @JvmOverloads constructor(
             .setDurationMinutes(durationMinutes)
             .setAttenuationValue(attenuationValue)
             .setTransmissionRiskLevel(transmissionRiskLevel)
-            .setTotalRiskScore(totalRiskScore)
             .setAttenuationDurations(attenuationDurations)
             .build()
     }
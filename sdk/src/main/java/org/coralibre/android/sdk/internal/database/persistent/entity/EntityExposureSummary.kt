@@ -6,6 +6,10 @@ import androidx.room.PrimaryKey
 import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureSummary
 
 /**
+ * Only the parts of an ExposureSummary that do not depend on the day it is read are stored, the
+ * others are derived from the exposure information, see
+ * ExposureInfoAssembler.deriveExposureSummary(...).
+ *
  * @param tokenString  This field is not used. It is only here to give the database a primary key.
  * When accessing data from the database, we usually filter by timestamp.
  */
@@ -22,37 +26,31 @@ import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureSum
 data class EntityExposureSummary(
     @PrimaryKey(autoGenerate = false)
     val tokenString: String,
-    val daysSinceLastExposure: Int,
     val matchedKeyCount: Int,
-    val maximumRiskScore: Int,
     val summedAttenuationDurationBelow: Int,
     val summedAttenuationDurationBetween: Int,
     val summedAttenuationDurationAbove: Int,
-    val summationRiskScore: Int,
 ) {
     constructor(token: String, summary: ExposureSummary) : this(
-        daysSinceLastExposure = summary.daysSinceLastExposure,
         matchedKeyCount = summary.matchedKeyCount,
-        maximumRiskScore = summary.maximumRiskScore,
         summedAttenuationDurationBelow = summary.attenuationDurations[0],
         summedAttenuationDurationBetween = summary.attenuationDurations[1],
         summedAttenuationDurationAbove = summary.attenuationDurations[2],
-        summationRiskScore = summary.summationRiskScore,
         tokenString = token,
     )
 
+    /**
+     * @return the stored parts of the summary, all other values are 0
+     */
     fun toExposureSummary(): ExposureSummary {
         val attenuationDurations = intArrayOf(
             summedAttenuationDurationBelow,
             summedAttenuationDurationBetween,
             summedAttenuationDurationAbove
         )
-        return ExposureSummary(
-            daysSinceLastExposure,
-            matchedKeyCount,
-            maximumRiskScore,
-            attenuationDurations,
-            summationRiskScore
-        )
+        return ExposureSummary.ExposureSummaryBuilder()
+            .setMatchedKeyCount(matchedKeyCount)
+            .setAttenuationDurations(attenuationDurations)
+            .build()
     }
 }
@@ -1,21 +1,34 @@
 package org.coralibre.android.sdk.internal.database.persistent.entity
 
+import androidx.room.ColumnInfo
 import androidx.room.Entity
 import androidx.room.PrimaryKey
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureConfiguration
 import java.util.Date
 
-// TODO add some timestamp, so that data for tokens that have not been used for some time can
-//  deleted by some background service. Perform such auto deletion somewhere.
-
 /**
  * @param exposureDataUpToDate True iff we already have ExposureInformation and
  * ExposureSummary data for the newest diagnosis key set for this token.
- * @param timestampMillisSinceEpoch Timestamp storing the moment when this token has been
- * added to the database.
+ * @param timestampMillisSinceEpoch Timestamp storing the moment when diagnosis keys have last
+ * been provided for this token, so that tokens that are not used anymore can be deleted (see
+ * DaoToken.deleteStaleTokens(...)).
+ * @param evaluatedKeyCount The number of diagnosis keys that have been matched for this token so
+ * far, including the keys without matches that have not been stored.
+ * @param exposureConfiguration The ExposureConfiguration that the stored ExposureInformation and
+ * ExposureSummary data has been computed with, so that the exposure data can be recomputed
+ * without a provideDiagnosisKeys(...) call. Null for tokens that have been matched before this
+ * column existed.
+ * @param evaluatedPayloadKey All captured payloads with a primary key up to this one have been
+ * matched against the diagnosis keys of this token.
  */
 @Entity
 data class EntityToken @JvmOverloads constructor(
     @PrimaryKey val tokenString: String,
     val exposureDataUpToDate: Boolean,
     val timestampMillisSinceEpoch: Long = Date().time,
+    @ColumnInfo(defaultValue = "0")
+    val evaluatedKeyCount: Long = 0,
+    val exposureConfiguration: ExposureConfiguration? = null,
+    @ColumnInfo(defaultValue = "0")
+    val evaluatedPayloadKey: Long = 0,
 )
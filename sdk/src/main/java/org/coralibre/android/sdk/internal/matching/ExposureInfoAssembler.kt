@@ -0,0 +1,268 @@
+package org.coralibre.android.sdk.internal.matching
+
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureConfiguration
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureInformation
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureInformation.ExposureInformationBuilder
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureSummary
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureSummary.ExposureSummaryBuilder
+import org.coralibre.android.sdk.internal.datatypes.DiagnosisKey
+import org.coralibre.android.sdk.internal.datatypes.IntervalOfCapturedData
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceInfo
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.ExposureRecord
+import org.coralibre.android.sdk.internal.matching.intermediateDatatypes.KeyMatches
+import java.util.Date
+import java.util.LinkedList
+import java.util.concurrent.TimeUnit
+
+/**
+ * Provides static methods to compute ExposureSummary/ExposureInformation objects from the
+ * exposures found by MatchingLegacyV1.
+ * Like MatchingLegacyV1, this class should not access the database, but receive all data
+ * required for the computations as (method) parameters.
+ */
+object ExposureInfoAssembler {
+    val TAG = ExposureInfoAssembler::class.java.simpleName
+
+    /**
+     * Computes an ExposureSummary and multiple ExposureInformation objects, which are wrapped into
+     * an AllExposureInfo object and returned.
+     * @param diagnosisKeys the set of all infected diagnosis keys used for the calculation
+     * @param payloadIntevals the collected bluetooth payloads used for the calculation
+     * @param exposureConfiguration used for the risk value computation of single matches/exposures
+     * @param ownDeviceInfo device info to compute the bluetooth attenuation value
+     * @return
+     */
+    @JvmStatic
+    fun assembleAllExposureInfo(
+        diagnosisKeys: List<DiagnosisKey>,
+        payloadIntevals: Iterable<IntervalOfCapturedData>,
+        exposureConfiguration: ExposureConfiguration,
+        ownDeviceInfo: DeviceInfo
+    ): AllExposureInfo {
+        return assembleAllExposureInfo(
+            diagnosisKeys,
+            CapturedDataIndex(payloadIntevals),
+            exposureConfiguration,
+            ownDeviceInfo
+        )
+    }
+
+    /**
+     * Like assembleAllExposureInfo(...) above, but uses an already built index over the
+     * collected bluetooth payloads.
+     */
+    @JvmStatic
+    fun assembleAllExposureInfo(
+        diagnosisKeys: List<DiagnosisKey>,
+        index: CapturedDataIndex,
+        exposureConfiguration: ExposureConfiguration,
+        ownDeviceInfo: DeviceInfo
+    ): AllExposureInfo {
+        return assembleAllExposureInfo(
+            MatchingLegacyV1.findAllMatches(diagnosisKeys, index),
+            exposureConfiguration,
+            ownDeviceInfo
+        )
+    }
+
+    /**
+     * Computes an ExposureSummary and multiple ExposureInformation objects from matches that
+     * have already been collected per diagnosis key.
+     * @param matchesPerKey the matches per diagnosis key, as returned by findAllMatches(...)
+     */
+    @JvmStatic
+    fun assembleAllExposureInfo(
+        matchesPerKey: List<KeyMatches>,
+        exposureConfiguration: ExposureConfiguration,
+        ownDeviceInfo: DeviceInfo
+    ): AllExposureInfo {
+        // TODO call this method and store the results in db
+
+        // Now, combine the different matches for each key to Exposure objects. Per key, multiple
+        // Exposure object might be created:
+        val allExposures =
+            MatchingLegacyV1.findAllExposures(matchesPerKey, exposureConfiguration, ownDeviceInfo)
+
+        // Finally build ExposureInformation objects as well as an ExposureSummary, which are
+        // then returned:
+
+        // ... Prepare temporary variables to collect values used for building the exposure summary:
+        // Note:
+        // 'If a match occurs and the exposure's calculated risk score is less than or equal to the
+        // minimumRiskScore, the exposure's totalRiskScore is set to 0. Note that for the purposes
+        // of calculating ExposureSummary aggregate functions, the exposure is still considered a
+        // "match," and so is still included in the calculations of daysSinceLastExposure,
+        // matchedKeyCount, and so on.'
+        // https://developers.google.com/android/exposure-notifications/exposure-notifications-api
+        // TODO verify this note has been regarded!
+
+        var maximumRiskScore = 0
+        var summationRiskScore = 0
+        // Without any exposure, the summary is all zeros, like in the EN framework:
+        var daysSinceLastExposure: Int? = null
+        val accumulatedAttenuationDurationsMinutes = IntArray(3)
+        val allExposureInformations: MutableList<ExposureInformation> = LinkedList()
+        for ((millisSinceEpoch, durationSeconds, daysSinceExposure, attenuationValue, transmissionRiskLevel, riskScore, secondsBelowLowThreshold, secondsBetweenThresholds, secondsAboveHighThreshold) in allExposures) {
+
+            // First the ExposureInformation for this specific exposure:
+            val attenuationDurationsMinutes = intArrayOf(
+                secondsBelowLowThreshold / 60,
+                secondsBetweenThresholds / 60,
+                secondsAboveHighThreshold / 60
+            )
+            allExposureInformations.add(
+                ExposureInformationBuilder()
+                    .setDateMillisSinceEpoch(millisSinceEpoch)
+                    .setDurationMinutes((durationSeconds / 60).toInt())
+                    .setAttenuationValue(attenuationValue)
+                    .setTransmissionRiskLevel(transmissionRiskLevel)
+                    .setTotalRiskScore(riskScore)
+                    .setAttenuationDurations(attenuationDurationsMinutes)
+                    .build()
+            )
+
+            // Then this exposure is used to update the variables from that the overall
+            // ExposureSummary will be built:
+
+            // Note: In the google sample code, low scores are ignored when calculating sum and
+            // maximum score, BUT that code already implements the new ExposureWindow mode:
+            //
+            //     if (windowScore < config.getMinimumWindowScore()) {
+            //         Log.log(...)
+            //         continue;
+            //     }
+            //     ...  -> here sum and max. score are calculated
+            //
+            // See line 100ff. in:
+            // https://github.com/google/exposure-notifications-internals/blob/main/exposurenotification/src/main/java/com/google/samples/exposurenotification/matching/DailySummaryUtils.java
+            // TODO verify this note has been regarded! Move it to the correct place
+
+            if (daysSinceLastExposure == null || daysSinceExposure < daysSinceLastExposure) {
+                daysSinceLastExposure = daysSinceExposure
+            }
+            if (riskScore > maximumRiskScore) {
+                maximumRiskScore = riskScore
+            }
+            summationRiskScore += riskScore
+            // For the same rpik, but different exposures, risk scores are still summed up.
+            // See lines 200ff. in:
+            // https://github.com/google/exposure-notifications-internals/blob/main/exposurenotification/src/main/java/com/google/samples/exposurenotification/matching/KeyExposureEvaluator.java
+
+            accumulatedAttenuationDurationsMinutes[0] += attenuationDurationsMinutes[0]
+            accumulatedAttenuationDurationsMinutes[1] += attenuationDurationsMinutes[1]
+            accumulatedAttenuationDurationsMinutes[2] += attenuationDurationsMinutes[2]
+        }
+
+        val exposureSummary = ExposureSummaryBuilder()
+            .setDaysSinceLastExposure(daysSinceLastExposure ?: 0)
+            .setMaximumRiskScore(maximumRiskScore)
+            .setSummationRiskScore(summationRiskScore)
+            .setMatchedKeyCount(matchesPerKey.size)
+            .setAttenuationDurations(accumulatedAttenuationDurationsMinutes)
+            .build()
+        return AllExposureInfo(allExposureInformations, exposureSummary)
+    }
+
+    /**
+     * Computes the date-independent parts of the ExposureSummary over the diagnosis keys of a
+     * token (the matched key count and the attenuation durations), after further keys have been
+     * added to it, without matching the previously added keys again. Only these parts are stored,
+     * the others are derived when the summary is read, see deriveExposureSummary(...).
+     * @param previousSummary the ExposureSummary of the previously added keys
+     * @param added the exposure info of the newly added keys. These must not contain any of the
+     * previously added keys, otherwise they are counted twice.
+     */
+    @JvmStatic
+    fun mergeExposureSummary(
+        previousSummary: ExposureSummary,
+        added: AllExposureInfo
+    ): ExposureSummary {
+        val addedSummary = added.exposureSummary
+        val previousDurations = previousSummary.attenuationDurationsInMinutes
+        val addedDurations = addedSummary.attenuationDurationsInMinutes
+        return ExposureSummaryBuilder()
+            .setMatchedKeyCount(previousSummary.matchedKeyCount + addedSummary.matchedKeyCount)
+            .setAttenuationDurations(
+                IntArray(3) { i -> previousDurations[i] + addedDurations[i] }
+            )
+            .build()
+    }
+
+    /**
+     * The risk score of an exposure depends on the days since the exposure, so it is computed
+     * again whenever stored exposure information is read.
+     * @param informations the stored ExposureInformation objects, their risk scores are ignored
+     * @param exposureConfiguration the configuration the exposures have been found with. Without
+     * one, all risk scores are 0.
+     * @param timeNowMillis the time the days since the exposures are computed for
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun rescoreExposureInformation(
+        informations: List<ExposureInformation>,
+        exposureConfiguration: RiskScoringConfiguration?,
+        timeNowMillis: Long = Date().time
+    ): List<ExposureInformation> {
+        return informations.map { info ->
+            val riskScore = if (exposureConfiguration == null) 0 else {
+                RiskScoreCalculator.calculateRiskScore(
+                    ExposureRecord(
+                        info.dateMillisSinceEpoch,
+                        TimeUnit.MINUTES.toSeconds(info.durationMinutes.toLong()),
+                        info.attenuationValue,
+                        info.transmissionRiskLevel,
+                        daysSince(info.dateMillisSinceEpoch, timeNowMillis)
+                    ),
+                    exposureConfiguration
+                )
+            }
+            ExposureInformationBuilder()
+                .setDateMillisSinceEpoch(info.dateMillisSinceEpoch)
+                .setDurationMinutes(info.durationMinutes)
+                .setAttenuationValue(info.attenuationValue)
+                .setTransmissionRiskLevel(info.transmissionRiskLevel)
+                .setTotalRiskScore(riskScore)
+                .setAttenuationDurations(info.attenuationDurationsInMinutes)
+                .build()
+        }
+    }
+
+    /**
+     * Completes the stored (date-independent) parts of an ExposureSummary with the parts that
+     * depend on the current day.
+     * @param storedSummary the summary as computed by mergeExposureSummary(...)
+     * @param informations all ExposureInformation objects of the token, with the risk scores of
+     * the current day (see rescoreExposureInformation(...))
+     * @param timeNowMillis the time daysSinceLastExposure is computed for
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun deriveExposureSummary(
+        storedSummary: ExposureSummary,
+        informations: List<ExposureInformation>,
+        timeNowMillis: Long = Date().time
+    ): ExposureSummary {
+        var daysSinceLastExposure: Int? = null
+        var maximumRiskScore = 0
+        var summationRiskScore = 0
+        for (info in informations) {
+            val daysSinceExposure = daysSince(info.dateMillisSinceEpoch, timeNowMillis)
+            if (daysSinceLastExposure == null || daysSinceExposure < daysSinceLastExposure) {
+                daysSinceLastExposure = daysSinceExposure
+            }
+            maximumRiskScore = maxOf(maximumRiskScore, info.totalRiskScore)
+            summationRiskScore += info.totalRiskScore
+        }
+        return ExposureSummaryBuilder()
+            .setDaysSinceLastExposure(daysSinceLastExposure ?: 0)
+            .setMaximumRiskScore(maximumRiskScore)
+            .setSummationRiskScore(summationRiskScore)
+            .setMatchedKeyCount(storedSummary.matchedKeyCount)
+            .setAttenuationDurations(storedSummary.attenuationDurationsInMinutes)
+            .build()
+    }
+
+    private fun daysSince(millisSinceEpoch: Long, timeNowMillis: Long): Int {
+        return TimeUnit.MILLISECONDS.toDays(timeNowMillis - millisSinceEpoch).toInt()
+    }
+}
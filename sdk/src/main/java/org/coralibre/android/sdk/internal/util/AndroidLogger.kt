@@ -0,0 +1,28 @@
+package org.coralibre.android.sdk.internal.util
+
+import android.util.Log
+import org.coralibre.android.sdk.BuildConfig
+
+/**
+ * Forwards the messages of the platform independent code to android.util.Log.
+ */
+object AndroidLogger : Logger {
+    override val debugEnabled: Boolean
+        get() = BuildConfig.DEBUG
+
+    override fun d(tag: String, message: String) {
+        Log.d(tag, message)
+    }
+
+    override fun i(tag: String, message: String) {
+        Log.i(tag, message)
+    }
+
+    override fun w(tag: String, message: String) {
+        Log.w(tag, message)
+    }
+
+    override fun e(tag: String, message: String) {
+        Log.e(tag, message)
+    }
+}
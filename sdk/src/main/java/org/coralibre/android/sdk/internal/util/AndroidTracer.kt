@@ -0,0 +1,32 @@
+package org.coralibre.android.sdk.internal.util
+
+import android.os.Build
+import android.os.Trace
+
+/**
+ * Forwards the sections of the platform independent code to android.os.Trace, so that they
+ * show up in systrace and Perfetto captures of the app.
+ *
+ * Async sections require API 29; on older devices they are dropped.
+ */
+object AndroidTracer : Tracer {
+    override fun beginSection(name: String) {
+        Trace.beginSection(name)
+    }
+
+    override fun endSection() {
+        Trace.endSection()
+    }
+
+    override fun beginAsyncSection(name: String, cookie: Int) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(name, cookie)
+        }
+    }
+
+    override fun endAsyncSection(name: String, cookie: Int) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(name, cookie)
+        }
+    }
+}
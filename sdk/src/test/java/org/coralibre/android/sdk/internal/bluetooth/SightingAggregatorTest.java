@@ -0,0 +1,74 @@
+package org.coralibre.android.sdk.internal.bluetooth;
+
+import org.coralibre.android.sdk.internal.EnFrameworkConstants;
+import org.coralibre.android.sdk.internal.datatypes.AssociatedEncryptedMetadata;
+import org.coralibre.android.sdk.internal.datatypes.BluetoothPayload;
+import org.coralibre.android.sdk.internal.datatypes.CapturedData;
+import org.coralibre.android.sdk.internal.datatypes.ENInterval;
+import org.coralibre.android.sdk.internal.datatypes.RollingProximityIdentifier;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SightingAggregatorTest {
+    private static final long SCAN_START_MILLIS = 1600000000000L;
+
+    private static BluetoothPayload payload(int id) {
+        byte[] rpi = new byte[EnFrameworkConstants.RPI_LENGTH];
+        Arrays.fill(rpi, (byte) id);
+        byte[] aem = new byte[EnFrameworkConstants.AEM_LENGTH];
+        Arrays.fill(aem, (byte) (id + 1));
+        return new BluetoothPayload(
+            new RollingProximityIdentifier(rpi, new ENInterval(2666666L)),
+            new AssociatedEncryptedMetadata(aem));
+    }
+
+    @Test
+    public void testAggregatesPerRpi() {
+        SightingAggregator aggregator = new SightingAggregator();
+        aggregator.add(payload(1), (byte) -70, SCAN_START_MILLIS);
+        aggregator.add(payload(2), (byte) -50, SCAN_START_MILLIS + 100);
+        aggregator.add(payload(1), (byte) -60, SCAN_START_MILLIS + 1500);
+        aggregator.add(payload(1), (byte) -65, SCAN_START_MILLIS + 3000);
+
+        assertEquals(4, aggregator.getSightingCount());
+        assertEquals(2, aggregator.getSize());
+
+        List<CapturedData> records = aggregator.toCapturedData();
+        assertEquals(2, records.size());
+
+        CapturedData first = records.get(0);
+        assertArrayEquals(payload(1).getRpi().getData(), first.getRpi().getData());
+        assertArrayEquals(payload(1).getAem().getData(), first.getAem().getData());
+        assertEquals(SCAN_START_MILLIS, first.getCaptureTimestampMillis());
+        assertEquals(SCAN_START_MILLIS + 3000, first.getLastCaptureTimestampMillis());
+        assertEquals(3, first.getSightingCount());
+        assertEquals(-65, first.getRssi());
+        assertEquals(-70, first.getMinRssi());
+        assertEquals(-60, first.getMaxRssi());
+
+        CapturedData second = records.get(1);
+        assertEquals(SCAN_START_MILLIS + 100, second.getCaptureTimestampMillis());
+        assertEquals(SCAN_START_MILLIS + 100, second.getLastCaptureTimestampMillis());
+        assertEquals(1, second.getSightingCount());
+        assertEquals(-50, second.getRssi());
+        assertEquals(-50, second.getMinRssi());
+        assertEquals(-50, second.getMaxRssi());
+    }
+
+    @Test
+    public void testClear() {
+        SightingAggregator aggregator = new SightingAggregator();
+        aggregator.add(payload(1), (byte) -70, SCAN_START_MILLIS);
+        aggregator.clear();
+
+        assertTrue(aggregator.isEmpty());
+        assertEquals(0, aggregator.getSightingCount());
+        assertEquals(0, aggregator.toCapturedData().size());
+    }
+}
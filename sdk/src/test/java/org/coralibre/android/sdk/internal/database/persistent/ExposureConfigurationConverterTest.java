@@ -0,0 +1,30 @@
+package org.coralibre.android.sdk.internal.database.persistent;
+
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureConfiguration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ExposureConfigurationConverterTest {
+    @Test
+    public void testRoundTrip() {
+        ExposureConfiguration configuration = new ExposureConfiguration.ExposureConfigurationBuilder()
+            .setMinimumRiskScore(11)
+            .setAttenuationScores(1, 2, 3, 4, 5, 6, 7, 8)
+            .setDaysSinceLastExposureScores(8, 7, 6, 5, 4, 3, 2, 1)
+            .setDurationScores(0, 0, 1, 1, 2, 2, 3, 3)
+            .setTransmissionRiskScores(5, 5, 5, 5, 5, 5, 5, 5)
+            .setDurationAtAttenuationThresholds(48, 73)
+            .build();
+
+        String text = ExposureConfigurationConverter.toText(configuration);
+        assertEquals(configuration, ExposureConfigurationConverter.toExposureConfiguration(text));
+    }
+
+    @Test
+    public void testNull() {
+        assertNull(ExposureConfigurationConverter.toText(null));
+        assertNull(ExposureConfigurationConverter.toExposureConfiguration(null));
+    }
+}
@@ -0,0 +1,104 @@
+package org.coralibre.android.sdk.internal.matching;
+
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureConfiguration;
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureInformation;
+import org.coralibre.android.sdk.fakegms.nearby.exposurenotification.ExposureSummary;
+import org.coralibre.android.sdk.internal.deviceinfo.ConfidenceLevel;
+import org.coralibre.android.sdk.internal.deviceinfo.DeviceInfo;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ExposureInfoAssemblerTest {
+    private static final long DAY_START_MILLIS = TimeUnit.DAYS.toMillis(18403);
+    private static final DeviceInfo DEVICE_INFO =
+        new DeviceInfo("test", "test", "test", 5, 0, ConfidenceLevel.HIGH);
+
+    // Only the exposures 2 or more days ago have a risk score (4 * 1 * 4 * 4):
+    private static final ExposureConfiguration CONFIGURATION =
+        new ExposureConfiguration.ExposureConfigurationBuilder()
+            .setDaysSinceLastExposureScores(1, 1, 1, 1, 1, 1, 1, 0)
+            .setMinimumRiskScore(1)
+            .build();
+
+    private static ExposureInformation createExposureInformation(long dateMillisSinceEpoch) {
+        return new ExposureInformation.ExposureInformationBuilder()
+            .setDateMillisSinceEpoch(dateMillisSinceEpoch)
+            .setDurationMinutes(15)
+            .setAttenuationValue(40)
+            .setTransmissionRiskLevel(3)
+            .setAttenuationDurations(new int[]{5, 10, 0})
+            .build();
+    }
+
+    @Test
+    public void testNoExposuresHaveAnEmptySummary() {
+        AllExposureInfo info = ExposureInfoAssembler.assembleAllExposureInfo(
+            Collections.emptyList(), CONFIGURATION, DEVICE_INFO);
+        assertEquals(0, info.getExposureInformationList().size());
+        assertEquals(new ExposureSummary.ExposureSummaryBuilder().build(),
+            info.getExposureSummary());
+    }
+
+    @Test
+    public void testRiskScoresAreDerivedForTheDayTheyAreRead() {
+        List<ExposureInformation> stored = Arrays.asList(
+            createExposureInformation(DAY_START_MILLIS),
+            createExposureInformation(DAY_START_MILLIS + TimeUnit.DAYS.toMillis(1)));
+        ExposureSummary storedSummary = new ExposureSummary.ExposureSummaryBuilder()
+            .setMatchedKeyCount(2)
+            .setAttenuationDurations(new int[]{10, 20, 0})
+            .build();
+
+        long nextDayMillis = DAY_START_MILLIS + TimeUnit.DAYS.toMillis(2);
+        List<ExposureInformation> nextDay =
+            ExposureInfoAssembler.rescoreExposureInformation(stored, CONFIGURATION, nextDayMillis);
+        assertEquals(64, nextDay.get(0).getTotalRiskScore());
+        assertEquals(0, nextDay.get(1).getTotalRiskScore());
+        ExposureSummary summary =
+            ExposureInfoAssembler.deriveExposureSummary(storedSummary, nextDay, nextDayMillis);
+        assertEquals(1, summary.getDaysSinceLastExposure());
+        assertEquals(64, summary.getMaximumRiskScore());
+        assertEquals(64, summary.getSummationRiskScore());
+        assertEquals(2, summary.getMatchedKeyCount());
+        assertArrayEquals(new int[]{10, 20, 0}, summary.getAttenuationDurationsInMinutes());
+
+        // A day later, both exposures are scored:
+        long dayAfterMillis = nextDayMillis + TimeUnit.DAYS.toMillis(1);
+        List<ExposureInformation> dayAfter =
+            ExposureInfoAssembler.rescoreExposureInformation(stored, CONFIGURATION, dayAfterMillis);
+        summary =
+            ExposureInfoAssembler.deriveExposureSummary(storedSummary, dayAfter, dayAfterMillis);
+        assertEquals(2, summary.getDaysSinceLastExposure());
+        assertEquals(128, summary.getSummationRiskScore());
+    }
+
+    @Test
+    public void testMergeKeepsTheDateIndependentParts() {
+        ExposureSummary previous = new ExposureSummary.ExposureSummaryBuilder()
+            .setMatchedKeyCount(1)
+            .setAttenuationDurations(new int[]{5, 10, 0})
+            .build();
+        AllExposureInfo added = new AllExposureInfo(
+            Collections.singletonList(createExposureInformation(DAY_START_MILLIS)),
+            new ExposureSummary.ExposureSummaryBuilder()
+                .setDaysSinceLastExposure(3)
+                .setMatchedKeyCount(1)
+                .setMaximumRiskScore(64)
+                .setSummationRiskScore(64)
+                .setAttenuationDurations(new int[]{5, 10, 0})
+                .build());
+
+        ExposureSummary merged = ExposureInfoAssembler.mergeExposureSummary(previous, added);
+        assertEquals(new ExposureSummary.ExposureSummaryBuilder()
+            .setMatchedKeyCount(2)
+            .setAttenuationDurations(new int[]{10, 20, 0})
+            .build(), merged);
+    }
+}